@@ -0,0 +1,250 @@
+package org.scanerator.reactive.flow;
+
+import java.util.concurrent.Flow;
+
+import org.scanerator.reactive.Publisher;
+import org.scanerator.reactive.Publishers;
+import org.scanerator.reactive.Subscriber;
+import org.scanerator.reactive.Subscription;
+
+/**
+ * Adapters between the interfaces of {@link org.scanerator.reactive} and {@link java.util.concurrent.Flow},
+ * which have the same contracts, so that the operators of {@link Publishers} can
+ * consume and feed any {@link Flow.Publisher}, such as a
+ * {@link java.util.concurrent.SubmissionPublisher}.  Adapting an adapter returns
+ * the original object.  This class is in the {@code scanerator-flow} artifact, which
+ * requires Java 9 or later.
+ * @author robin
+ *
+ */
+public final class FlowAdapters {
+	/**
+	 * Returns a {@link Flow.Publisher} of the elements of a {@link Publisher}
+	 * @param publisher The {@link Publisher}
+	 * @return The {@link Flow.Publisher}
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Flow.Publisher<T> toFlowPublisher(Publisher<T> publisher) {
+		if(publisher == null)
+			throw new IllegalArgumentException();
+		if(publisher instanceof FromFlowPublisher)
+			return ((FromFlowPublisher<T>) publisher).flow;
+		return new ToFlowPublisher<T>(publisher);
+	}
+
+	/**
+	 * Returns a {@link Publisher} of the elements of a {@link Flow.Publisher}
+	 * @param publisher The {@link Flow.Publisher}
+	 * @return The {@link Publisher}
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Publisher<T> fromFlowPublisher(Flow.Publisher<T> publisher) {
+		if(publisher == null)
+			throw new IllegalArgumentException();
+		if(publisher instanceof ToFlowPublisher)
+			return ((ToFlowPublisher<T>) publisher).publisher;
+		return new FromFlowPublisher<T>(publisher);
+	}
+
+	/**
+	 * Returns a {@link Flow.Subscriber} that passes its signals to a {@link Subscriber}
+	 * @param subscriber The {@link Subscriber}
+	 * @return The {@link Flow.Subscriber}
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Flow.Subscriber<T> toFlowSubscriber(Subscriber<T> subscriber) {
+		if(subscriber == null)
+			throw new IllegalArgumentException();
+		if(subscriber instanceof FromFlowSubscriber)
+			return (Flow.Subscriber<T>) ((FromFlowSubscriber<T>) subscriber).flow;
+		return new ToFlowSubscriber<T>(subscriber);
+	}
+
+	/**
+	 * Returns a {@link Subscriber} that passes its signals to a {@link Flow.Subscriber}
+	 * @param subscriber The {@link Flow.Subscriber}
+	 * @return The {@link Subscriber}
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Subscriber<T> fromFlowSubscriber(Flow.Subscriber<T> subscriber) {
+		if(subscriber == null)
+			throw new IllegalArgumentException();
+		if(subscriber instanceof ToFlowSubscriber)
+			return (Subscriber<T>) ((ToFlowSubscriber<T>) subscriber).subscriber;
+		return new FromFlowSubscriber<T>(subscriber);
+	}
+
+	/**
+	 * {@link Flow.Publisher} of the elements of a {@link Publisher}
+	 * @author robin
+	 *
+	 * @param <T>
+	 */
+	static final class ToFlowPublisher<T> implements Flow.Publisher<T> {
+		/**
+		 * The adapted {@link Publisher}
+		 */
+		final Publisher<T> publisher;
+
+		/**
+		 * Create a {@link ToFlowPublisher}
+		 * @param publisher The adapted {@link Publisher}
+		 */
+		ToFlowPublisher(Publisher<T> publisher) {
+			this.publisher = publisher;
+		}
+
+		@Override
+		public void subscribe(Flow.Subscriber<? super T> subscriber) {
+			if(subscriber == null) // as Flow requires
+				throw new NullPointerException();
+			publisher.subscribe(subscriber instanceof ToFlowSubscriber
+					? ((ToFlowSubscriber<? super T>) subscriber).subscriber
+					: new FromFlowSubscriber<T>(subscriber));
+		}
+
+		@Override
+		public String toString() {
+			return publisher.toString();
+		}
+	}
+
+	/**
+	 * {@link Publisher} of the elements of a {@link Flow.Publisher}
+	 * @author robin
+	 *
+	 * @param <T>
+	 */
+	static final class FromFlowPublisher<T> implements Publisher<T> {
+		/**
+		 * The adapted {@link Flow.Publisher}
+		 */
+		final Flow.Publisher<T> flow;
+
+		/**
+		 * Create a {@link FromFlowPublisher}
+		 * @param flow The adapted {@link Flow.Publisher}
+		 */
+		FromFlowPublisher(Flow.Publisher<T> flow) {
+			this.flow = flow;
+		}
+
+		@Override
+		public void subscribe(Subscriber<? super T> subscriber) {
+			if(subscriber == null)
+				throw new NullPointerException();
+			flow.subscribe(subscriber instanceof FromFlowSubscriber
+					? ((FromFlowSubscriber<? super T>) subscriber).flow
+					: new ToFlowSubscriber<T>(subscriber));
+		}
+
+		@Override
+		public String toString() {
+			return flow.toString();
+		}
+	}
+
+	/**
+	 * {@link Flow.Subscriber} passing its signals to a {@link Subscriber}
+	 * @author robin
+	 *
+	 * @param <T>
+	 */
+	static final class ToFlowSubscriber<T> implements Flow.Subscriber<T> {
+		/**
+		 * The adapted {@link Subscriber}
+		 */
+		final Subscriber<? super T> subscriber;
+
+		/**
+		 * Create a {@link ToFlowSubscriber}
+		 * @param subscriber The adapted {@link Subscriber}
+		 */
+		ToFlowSubscriber(Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void onSubscribe(final Flow.Subscription subscription) {
+			subscriber.onSubscribe(new Subscription() {
+				@Override
+				public void request(long n) {
+					subscription.request(n);
+				}
+
+				@Override
+				public void cancel() {
+					subscription.cancel();
+				}
+			});
+		}
+
+		@Override
+		public void onNext(T item) {
+			subscriber.onNext(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			subscriber.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			subscriber.onComplete();
+		}
+	}
+
+	/**
+	 * {@link Subscriber} passing its signals to a {@link Flow.Subscriber}
+	 * @author robin
+	 *
+	 * @param <T>
+	 */
+	static final class FromFlowSubscriber<T> implements Subscriber<T> {
+		/**
+		 * The adapted {@link Flow.Subscriber}
+		 */
+		final Flow.Subscriber<? super T> flow;
+
+		/**
+		 * Create a {@link FromFlowSubscriber}
+		 * @param flow The adapted {@link Flow.Subscriber}
+		 */
+		FromFlowSubscriber(Flow.Subscriber<? super T> flow) {
+			this.flow = flow;
+		}
+
+		@Override
+		public void onSubscribe(final Subscription subscription) {
+			flow.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {
+					subscription.request(n);
+				}
+
+				@Override
+				public void cancel() {
+					subscription.cancel();
+				}
+			});
+		}
+
+		@Override
+		public void onNext(T item) {
+			flow.onNext(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			flow.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			flow.onComplete();
+		}
+	}
+
+	private FlowAdapters() {}
+}
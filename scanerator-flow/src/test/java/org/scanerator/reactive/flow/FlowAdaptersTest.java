@@ -0,0 +1,97 @@
+package org.scanerator.reactive.flow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Comparators;
+import org.scanerator.reactive.Publisher;
+import org.scanerator.reactive.Publishers;
+
+public class FlowAdaptersTest {
+	/**
+	 * {@link Flow.Subscriber} that requests one element at a time
+	 */
+	private static class Collector implements Flow.Subscriber<Integer> {
+		final List<Integer> items = Collections.synchronizedList(new ArrayList<Integer>());
+		final CountDownLatch terminated = new CountDownLatch(1);
+		volatile Throwable error;
+		Flow.Subscription subscription;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(Integer item) {
+			items.add(item);
+			subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			terminated.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			terminated.countDown();
+		}
+
+		List<Integer> await() throws InterruptedException {
+			Assert.assertTrue(terminated.await(10, TimeUnit.SECONDS));
+			Assert.assertNull(error);
+			return items;
+		}
+	}
+
+	@Test
+	public void testMergeFlowPublishers() throws Exception {
+		SubmissionPublisher<Integer> a = new SubmissionPublisher<Integer>();
+		SubmissionPublisher<Integer> b = new SubmissionPublisher<Integer>();
+		Publisher<Integer> and = Publishers.all(Comparators.<Integer>naturalOrder(),
+				FlowAdapters.fromFlowPublisher(a), FlowAdapters.fromFlowPublisher(b));
+		Collector c = new Collector();
+		FlowAdapters.toFlowPublisher(and).subscribe(c);
+		// the inputs are subscribed on the first request
+		Assert.assertEquals(1, a.getNumberOfSubscribers());
+		for(int i = 0; i < 100; i++) {
+			a.submit(i);
+			if(i % 3 == 0)
+				b.submit(i);
+		}
+		a.close();
+		b.close();
+		List<Integer> expected = new ArrayList<Integer>();
+		for(int i = 0; i < 100; i += 3)
+			expected.add(i);
+		Assert.assertEquals(expected, c.await());
+	}
+
+	@Test
+	public void testFlowSubscriber() throws Exception {
+		Collector c = new Collector();
+		Publishers.from(Arrays.asList(1, 2, 3)).subscribe(FlowAdapters.fromFlowSubscriber(c));
+		Assert.assertEquals(Arrays.asList(1, 2, 3), c.await());
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Publisher<Integer> p = Publishers.from(Arrays.asList(1, 2, 3));
+		Assert.assertSame(p, FlowAdapters.fromFlowPublisher(FlowAdapters.toFlowPublisher(p)));
+		Flow.Publisher<Integer> f = new SubmissionPublisher<Integer>();
+		Assert.assertSame(f, FlowAdapters.toFlowPublisher(FlowAdapters.fromFlowPublisher(f)));
+		Collector c = new Collector();
+		Assert.assertSame(c, FlowAdapters.toFlowSubscriber(FlowAdapters.fromFlowSubscriber(c)));
+	}
+}
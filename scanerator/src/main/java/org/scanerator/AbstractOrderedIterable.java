@@ -5,12 +5,13 @@ import java.util.PriorityQueue;
 
 /**
  * Abstract utility class for an orderable {@link Iterable}.  Extensions of this
- * class must supply the {@link #iterator()} method.
+ * class must supply the {@link #iterator()} method, returning a
+ * {@link CloseableOrderedIterator}.
  * @author robin
  *
  * @param <T>
  */
-public abstract class AbstractOrderedIterable<T> implements Iterable<T> {
+public abstract class AbstractOrderedIterable<T> implements CloseableOrderedIterable<T> {
 
 	/**
 	 * Simple wrapper around {@link PriorityQueue} that enforces
@@ -132,6 +133,9 @@ public abstract class AbstractOrderedIterable<T> implements Iterable<T> {
 		return cmp;
 	}
 	
+	@Override
+	public abstract CloseableOrderedIterator<T> iterator();
+	
 	@Override
 	public abstract String toString();
 }
@@ -0,0 +1,318 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link Iterable} that is the intersection of any number of {@link Iterable}s,
+ * returning the same elements as a tree of {@link IntersectionIterable}s but
+ * without fixing the order in which the inputs are consulted.<p>
+ * 
+ * The {@link Iterator} keeps a candidate element and seeks each input in turn
+ * to the candidate (using {@link SkippingIterator#advanceTo(Object)} where possible);
+ * an input whose next element is greater rejects the candidate and supplies the next
+ * one.  The inputs are consulted in order of how often they have rejected a candidate
+ * recently, so that the most selective input drives the search.  Rejections are
+ * counted over a sliding window of {@code window} seeks, and the inputs re-ranked at
+ * the end of each window, so the order follows the data when, for instance, an input
+ * that is selective overall is dense in part of the key space.  Re-ranking only changes
+ * which inputs are read, never the order of the output.<p>
+ * 
+ * Like {@link IntersectionIterable}, duplicates are matched pair-wise, and the
+ * element returned is that of the first input.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class AdaptiveIntersectionIterable<T> extends AbstractOrderedIterable<T> {
+	/**
+	 * The default number of seeks between re-rankings
+	 */
+	public static final int DEFAULT_WINDOW = 256;
+	
+	/**
+	 * The inputs
+	 */
+	protected List<Iterable<T>> inputs;
+	/**
+	 * The number of seeks between re-rankings
+	 */
+	protected final int window;
+	/**
+	 * The ranking of the inputs in the most recently re-ranked {@link Iterator}
+	 */
+	protected volatile int[] ranking;
+	
+	/**
+	 * Create an {@link AdaptiveIntersectionIterable} with the {@link #DEFAULT_WINDOW}
+	 * @param cmp {@link Comparator} for equality
+	 * @param inputs The {@link Iterable}s to intersect
+	 */
+	public AdaptiveIntersectionIterable(Comparator<? super T> cmp, List<Iterable<T>> inputs) {
+		this(cmp, inputs, DEFAULT_WINDOW);
+	}
+	
+	/**
+	 * Create an {@link AdaptiveIntersectionIterable}
+	 * @param cmp {@link Comparator} for equality
+	 * @param inputs The {@link Iterable}s to intersect
+	 * @param window The number of seeks between re-rankings
+	 */
+	public AdaptiveIntersectionIterable(Comparator<? super T> cmp, List<Iterable<T>> inputs, int window) {
+		super(cmp);
+		if(inputs == null || inputs.isEmpty() || inputs.contains(null))
+			throw new IllegalArgumentException();
+		if(window <= 0)
+			throw new IllegalArgumentException("Window must be positive");
+		this.inputs = new ArrayList<Iterable<T>>(inputs);
+		this.window = window;
+	}
+	
+	/**
+	 * Returns the order in which the most recently re-ranked {@link Iterator}
+	 * consults its inputs, most selective first, as indexes into the inputs
+	 * @return The ranking, or {@code null} if no {@link Iterator} has been re-ranked
+	 */
+	public int[] ranking() {
+		int[] r = ranking;
+		return r == null ? null : r.clone();
+	}
+
+	@Override
+	public CloseableOrderedIterator<T> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * {@link Iterator} that does the adaptive intersection
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<T> {
+		/**
+		 * The number of inputs
+		 */
+		protected final int n = inputs.size();
+		/**
+		 * The {@link Iterator}s of the inputs, opened lazily
+		 */
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		protected final CloseableOrderedIterator<T>[] itrs = new CloseableOrderedIterator[n];
+		/**
+		 * The current element of each input
+		 */
+		@SuppressWarnings("unchecked")
+		protected final T[] heads = (T[]) new Object[n];
+		/**
+		 * The order in which inputs are consulted
+		 */
+		protected final int[] order = new int[n];
+		/**
+		 * The seeks of each input in the current window, decayed by half each window
+		 */
+		protected final int[] seeks = new int[n];
+		/**
+		 * The rejections by each input in the current window, decayed by half each window
+		 */
+		protected final int[] rejects = new int[n];
+		/**
+		 * The number of seeks left until the next re-ranking
+		 */
+		protected int countdown = window;
+		/**
+		 * The next element
+		 */
+		protected T next;
+		/**
+		 * {@code true} if {@link #next} is set
+		 */
+		protected boolean ready;
+		/**
+		 * {@code true} if every input must be stepped past a match
+		 */
+		protected boolean stale;
+		/**
+		 * {@code true} once the first elements have been pulled
+		 */
+		protected boolean primed;
+		/**
+		 * {@code true} once exhausted or closed
+		 */
+		protected boolean done;
+		
+		/**
+		 * Create an {@link Itr}, initially consulting the inputs in order
+		 */
+		protected Itr() {
+			for(int i = 0; i < n; i++)
+				order[i] = i;
+		}
+		
+		/**
+		 * Pull the first element of each input.  Inputs are opened in turn,
+		 * and none after an empty one.
+		 * @return {@code false} if an input is empty
+		 */
+		protected boolean prime() {
+			primed = true;
+			for(int i = 0; i < n; i++) {
+				itrs[i] = Scanerator.open(inputs.get(i));
+				if(!itrs[i].hasNext())
+					return false;
+				heads[i] = itrs[i].next();
+			}
+			return true;
+		}
+		
+		/**
+		 * Seek an input to the first element not less than {@code target}
+		 * @param i The input
+		 * @param target The target
+		 * @return {@code false} if the input is exhausted
+		 */
+		protected boolean seek(int i, T target) {
+			if(cmp.compare(heads[i], target) >= 0)
+				return true;
+			CloseableOrderedIterator<T> itr = itrs[i];
+			if(itr instanceof SkippingIterator)
+				((SkippingIterator<T>) itr).advanceTo(target);
+			do {
+				if(!itr.hasNext())
+					return false;
+				heads[i] = itr.next();
+			} while(cmp.compare(heads[i], target) < 0);
+			return true;
+		}
+		
+		/**
+		 * Re-rank the inputs by their rejection rate in the current window,
+		 * and start a new window
+		 */
+		protected void rerank() {
+			Integer[] ranked = new Integer[n];
+			final double[] rate = new double[n];
+			for(int i = 0; i < n; i++) {
+				ranked[i] = i;
+				rate[i] = (rejects[i] + 1.0) / (seeks[i] + 2.0);
+				seeks[i] >>= 1;
+				rejects[i] >>= 1;
+			}
+			Arrays.sort(ranked, new Comparator<Integer>() { // stable, so ties keep their rank
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					return Double.compare(rate[o2], rate[o1]);
+				}
+			});
+			for(int i = 0; i < n; i++)
+				order[i] = ranked[i];
+			countdown = window;
+			ranking = order.clone();
+		}
+
+		@Override
+		public boolean hasNext() {
+			if(ready)
+				return true;
+			if(done)
+				return false;
+			if(!primed && !prime()) {
+				close();
+				return false;
+			}
+			if(stale) { // step every input past the last match
+				stale = false;
+				for(int i = 0; i < n; i++) {
+					if(!itrs[i].hasNext()) {
+						close();
+						return false;
+					}
+					heads[i] = itrs[i].next();
+				}
+			}
+			// the candidate is the head of order[k], and has been matched by
+			// the inputs order[k - matched + 1 .. k] (cyclically)
+			int k = 0;
+			T candidate = heads[order[0]];
+			for(int matched = 1; matched < n; ) {
+				k = (k + 1) % n;
+				int i = order[k];
+				seeks[i]++;
+				if(!seek(i, candidate)) {
+					close();
+					return false;
+				}
+				if(cmp.compare(heads[i], candidate) == 0) {
+					matched++;
+				} else { // rejected, so the candidate moves on
+					rejects[i]++;
+					candidate = heads[i];
+					matched = 1;
+				}
+				if(--countdown <= 0 && matched == 1) {
+					rerank(); // continue from the position of the input holding the candidate
+					for(k = 0; order[k] != i; k++);
+				}
+			}
+			next = heads[0];
+			ready = true;
+			stale = true;
+			return true;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			T e = next;
+			next = null;
+			ready = false;
+			return e;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			if(done)
+				return;
+			done = primed = true;
+			ready = false;
+			next = null;
+			Arrays.fill(heads, null);
+			close(0);
+		}
+		
+		/**
+		 * Close the {@link Iterator}s of the inputs from {@code i}
+		 * @param i The first input to close
+		 */
+		private void close(int i) {
+			for(; i < n; i++) {
+				if(itrs[i] != null) {
+					try {
+						itrs[i].close();
+					} finally {
+						itrs[i] = null;
+						close(i + 1);
+					}
+					return;
+				}
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("(all");
+		for(Iterable<T> i : inputs)
+			sb.append(" ").append(i);
+		return sb.append(")").toString();
+	}
+}
@@ -0,0 +1,145 @@
+package org.scanerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer, single-consumer queue used to pass batches
+ * of elements between the stages of a {@link Pipeline}.  The producer
+ * blocks in {@link #put(Object)} while the queue is full, which applies
+ * backpressure to it, and the consumer blocks in {@link #take()} while
+ * the queue is empty.  Neither side takes a lock: the producer publishes
+ * by advancing {@link #tail} and the consumer by advancing {@link #head},
+ * and a side that has to wait parks itself after announcing that it is waiting.
+ * @author robin
+ *
+ * @param <E>
+ */
+class BatchQueue<E> {
+	/**
+	 * The ring of queued items
+	 */
+	private final Object[] ring;
+	/**
+	 * The number of items taken
+	 */
+	private final AtomicLong head = new AtomicLong();
+	/**
+	 * The number of items put
+	 */
+	private final AtomicLong tail = new AtomicLong();
+	/**
+	 * Set by the producer when it will put no more items
+	 */
+	private volatile boolean finished;
+	/**
+	 * Set by the consumer when it will take no more items
+	 */
+	private volatile boolean cancelled;
+	/**
+	 * The producer, while it is waiting for space
+	 */
+	private volatile Thread producer;
+	/**
+	 * The consumer, while it is waiting for an item
+	 */
+	private volatile Thread consumer;
+	
+	/**
+	 * Create a {@link BatchQueue}
+	 * @param capacity The maximum number of queued items
+	 */
+	BatchQueue(int capacity) {
+		if(capacity <= 0)
+			throw new IllegalArgumentException("Queue capacity must be positive");
+		ring = new Object[capacity];
+	}
+	
+	/**
+	 * Put an item, waiting for space if necessary.  Called only by the producer.
+	 * @param item The item
+	 * @return {@code false} if the consumer has cancelled, in which case
+	 * the item was not queued
+	 * @throws InterruptedException If the producer is interrupted while waiting
+	 */
+	boolean put(E item) throws InterruptedException {
+		long t = tail.get();
+		while(t - head.get() == ring.length) {
+			if(cancelled)
+				return false;
+			producer = Thread.currentThread();
+			if(t - head.get() == ring.length && !cancelled)
+				LockSupport.park(this);
+			producer = null;
+			if(Thread.interrupted())
+				throw new InterruptedException();
+		}
+		if(cancelled)
+			return false;
+		ring[(int) (t % ring.length)] = item;
+		tail.set(t + 1);
+		Thread c = consumer;
+		if(c != null)
+			LockSupport.unpark(c);
+		return true;
+	}
+	
+	/**
+	 * Take an item, waiting for one if necessary.  Called only by the consumer.
+	 * @return The item, or {@code null} if the producer has finished and all items have been taken
+	 * @throws InterruptedException If the consumer is interrupted while waiting
+	 */
+	@SuppressWarnings("unchecked")
+	E take() throws InterruptedException {
+		long h = head.get();
+		while(h == tail.get()) {
+			if(finished) {
+				if(h == tail.get()) // recheck; items put before finish() are visible now
+					return null;
+				break;
+			}
+			consumer = Thread.currentThread();
+			if(h == tail.get() && !finished)
+				LockSupport.park(this);
+			consumer = null;
+			if(Thread.interrupted())
+				throw new InterruptedException();
+		}
+		int i = (int) (h % ring.length);
+		E item = (E) ring[i];
+		ring[i] = null;
+		head.set(h + 1);
+		Thread p = producer;
+		if(p != null)
+			LockSupport.unpark(p);
+		return item;
+	}
+	
+	/**
+	 * Mark the queue as finished.  Called only by the producer.
+	 */
+	void finish() {
+		finished = true;
+		Thread c = consumer;
+		if(c != null)
+			LockSupport.unpark(c);
+	}
+	
+	/**
+	 * Mark the queue as cancelled, releasing a waiting producer.  Called only by the consumer.
+	 */
+	void cancel() {
+		cancelled = true;
+		Thread p = producer;
+		if(p != null)
+			LockSupport.unpark(p);
+	}
+	
+	/**
+	 * Returns whether the consumer has cancelled
+	 * @return {@code true} if cancelled
+	 */
+	boolean isCancelled() {
+		return cancelled;
+	}
+}
@@ -0,0 +1,138 @@
+package org.scanerator;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link Iterable} that returns the elements of an ordered {@link Iterable}
+ * from a lower bound (inclusive) up to an upper bound (exclusive), for sources
+ * that cannot seek.  Elements below the lower bound are skipped when the
+ * {@link java.util.Iterator} is first used, and the wrapped {@link Iterable} is closed
+ * as soon as an element reaches the upper bound, so nothing past the range is pulled.
+ * @author robin
+ *
+ * @param <T>
+ * @see RangeIterable
+ */
+public class BoundedIterable<T> extends AbstractOrderedIterable<T> {
+	/**
+	 * The wrapped {@link Iterable}
+	 */
+	protected Iterable<T> wrapped;
+	/**
+	 * The lower bound, or {@code null}
+	 */
+	protected T from;
+	/**
+	 * The upper bound, or {@code null}
+	 */
+	protected T to;
+	
+	/**
+	 * Create a {@link BoundedIterable}
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param itr The {@link Iterable} to bound
+	 * @param from The least element to return, or {@code null} for no lower bound
+	 * @param to The element at which to stop, or {@code null} for no upper bound
+	 */
+	public BoundedIterable(Comparator<? super T> cmp, Iterable<T> itr, T from, T to) {
+		super(cmp);
+		if(itr == null)
+			throw new IllegalArgumentException();
+		this.wrapped = itr;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	public CloseableOrderedIterator<T> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * Iterator that skips to the lower bound and stops at the upper bound
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<T> {
+		/**
+		 * Wrapped {@link java.util.Iterator}
+		 */
+		protected CloseableOrderedIterator<T> itr = Scanerator.open(wrapped);
+		/**
+		 * The next element
+		 */
+		protected T next;
+		/**
+		 * {@code true} if {@link #next} is set
+		 */
+		protected boolean ready;
+		/**
+		 * {@code true} once the elements below the lower bound have been skipped
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Skip the elements below the lower bound
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
+			while(itr.hasNext()) {
+				T e = itr.next();
+				if(from == null || cmp().compare(e, from) >= 0) {
+					pulled(e);
+					return;
+				}
+			}
+			close();
+		}
+		
+		/**
+		 * Accept an element pulled from the wrapped {@link java.util.Iterator}, closing it
+		 * instead if the element has reached the upper bound
+		 * @param e The element
+		 */
+		protected void pulled(T e) {
+			if(to != null && cmp().compare(e, to) >= 0)
+				close();
+			else {
+				next = e;
+				ready = true;
+			}
+		}
+		
+		public boolean hasNext() {
+			prime();
+			return ready;
+		}
+		
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			T e = next;
+			next = null;
+			ready = false;
+			if(itr.hasNext())
+				pulled(itr.next());
+			return e;
+		}
+		
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		public void close() {
+			primed = true;
+			next = null;
+			ready = false;
+			itr.close();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(range " + from + " " + to + " " + wrapped + ")";
+	}
+}
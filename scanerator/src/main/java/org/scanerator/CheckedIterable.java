@@ -54,7 +54,7 @@ public class CheckedIterable<T> extends AbstractOrderedIterable<T> {
 		this.dropDescending = dropDescending;
 	}
 
-	public Iterator<T> iterator() {
+	public CloseableOrderedIterator<T> iterator() {
 		return new Itr();
 	}
 
@@ -63,18 +63,30 @@ public class CheckedIterable<T> extends AbstractOrderedIterable<T> {
 	 * @author robin
 	 *
 	 */
-	protected class Itr implements Iterator<T> {
+	protected class Itr implements CloseableOrderedIterator<T> {
 		/**
 		 * Wrapped {@link Iterator}
 		 */
-		protected Iterator<T> itr = wrapped.iterator();
+		protected CloseableOrderedIterator<T> itr = Scanerator.open(wrapped);
 		
 		/**
 		 * Upcoming elements
 		 */
 		protected List<T> next = new ArrayList<T>(2);
 		
-		public Itr() {
+		/**
+		 * {@code true} once the first elements have been pulled from the input
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Pull the first elements from the input.  Called lazily, so that
+		 * no input is opened until one of its elements is actually needed.
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
 			if(itr.hasNext())
 				next.add(itr.next());
 			if(itr.hasNext())
@@ -82,6 +94,7 @@ public class CheckedIterable<T> extends AbstractOrderedIterable<T> {
 		}
 		
 		public boolean hasNext() {
+			prime();
 			return next.size() > 0;
 		}
 	
@@ -108,6 +121,12 @@ public class CheckedIterable<T> extends AbstractOrderedIterable<T> {
 		public void remove() {
 			throw new UnsupportedOperationException();
 		}
+
+		public void close() {
+			primed = true;
+			next.clear();
+			itr.close();
+		}
 	}
 
 	@Override
@@ -0,0 +1,97 @@
+package org.scanerator;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link CloseableOrderedIterator} over an operator tree that can {@link #snapshot()}
+ * its position at any time as a {@link Continuation}.  Operators return equal
+ * elements together and in the same order, and their buffered state is
+ * determined by the positions of their sources, so the last element returned and
+ * the number of elements equal to it is a complete checkpoint of the whole tree,
+ * however deep.  A checkpoint is restored with
+ * {@link Scanerator#checkpointed(Comparator, Iterable, Continuation)}, which seeks
+ * freshly opened sources straight to it.<p>
+ * 
+ * Taking a snapshot costs no more than allocating the {@link Continuation};
+ * keeping track of the position costs one comparison per element.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class CheckpointedIterator<T> implements CloseableOrderedIterator<T> {
+	/**
+	 * {@link Comparator} for element ordering
+	 */
+	protected Comparator<? super T> cmp;
+	/**
+	 * The wrapped {@link java.util.Iterator}
+	 */
+	protected CloseableOrderedIterator<T> itr;
+	/**
+	 * The last element returned
+	 */
+	protected T key;
+	/**
+	 * The number of elements equal to {@link #key} returned, or {@code 0} if none
+	 */
+	protected long run;
+	
+	/**
+	 * Create a {@link CheckpointedIterator} over an operator tree.  If the tree
+	 * was returned by {@link Scanerator#resumeFrom(Comparator, Iterable, Continuation)},
+	 * the position starts at its {@link Continuation}.
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param itr The operator tree
+	 */
+	public CheckpointedIterator(Comparator<? super T> cmp, Iterable<T> itr) {
+		if(cmp == null || itr == null)
+			throw new IllegalArgumentException();
+		this.cmp = cmp;
+		itr = Expression.unwrap(itr);
+		if(itr instanceof ResumedIterable) {
+			Continuation<T> c = ((ResumedIterable<T>) itr).continuation;
+			key = c.key;
+			run = c.skip;
+		}
+		this.itr = Scanerator.open(itr);
+	}
+	
+	/**
+	 * Returns the position of this {@link CheckpointedIterator}: the
+	 * {@link Continuation} from which the elements not yet returned can be read
+	 * @return The {@link Continuation}, or {@code null} if no element has been returned
+	 */
+	public Continuation<T> snapshot() {
+		return run == 0 ? null : new Continuation<T>(key, run);
+	}
+
+	@Override
+	public boolean hasNext() {
+		return itr.hasNext();
+	}
+
+	@Override
+	public T next() {
+		if(!hasNext())
+			throw new NoSuchElementException();
+		T e = itr.next();
+		if(run > 0 && cmp.compare(key, e) == 0)
+			run++;
+		else {
+			key = e;
+			run = 1;
+		}
+		return e;
+	}
+	
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void close() {
+		itr.close();
+	}
+}
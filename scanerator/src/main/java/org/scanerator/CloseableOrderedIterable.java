@@ -0,0 +1,16 @@
+package org.scanerator;
+
+/**
+ * {@link Iterable} whose {@link #iterator()} returns a {@link CloseableOrderedIterator}.
+ * Implemented by {@link Expression} and all operators in this package.
+ * @author robin
+ *
+ * @param <T>
+ */
+public interface CloseableOrderedIterable<T> extends Iterable<T> {
+	/**
+	 * Returns a new {@link CloseableOrderedIterator} over the elements of this {@link Iterable}
+	 * @return A new {@link CloseableOrderedIterator}
+	 */
+	public CloseableOrderedIterator<T> iterator();
+}
@@ -0,0 +1,28 @@
+package org.scanerator;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * {@link Iterator} over ordered elements which holds resources (such as
+ * the {@link Iterator}s of its inputs, or an HBase {@code ResultScanner})
+ * that can be released by calling {@link #close()}.<p>
+ * 
+ * Implementations release their resources as soon as {@link #hasNext()}
+ * returns {@code false}, and should release the resources of any input
+ * as soon as that input can no longer affect the iteration.  Closing
+ * cascades to all inputs.  After {@link #close()} has been called
+ * {@link #hasNext()} returns {@code false}.
+ * @author robin
+ *
+ * @param <T>
+ */
+public interface CloseableOrderedIterator<T> extends Iterator<T>, Closeable {
+	/**
+	 * Release the resources held by this {@link Iterator} and all of its inputs.
+	 * Calling {@link #close()} more than once has no effect.  Unlike
+	 * {@link Closeable#close()}, no checked exception is thrown; failures
+	 * to close are reported as {@link IllegalStateException}s.
+	 */
+	public void close();
+}
@@ -30,5 +30,22 @@ public class Comparators {
 		return NATURAL_ORDER;
 	}
 	
+	/**
+	 * {@link Comparator} for {@code byte[]} keys, such as HBase row keys, comparing
+	 * them lexicographically as unsigned bytes; a key sorts before any longer key
+	 * it is a prefix of
+	 */
+	public static final Comparator<byte[]> BYTES = new Comparator<byte[]>() {
+		public int compare(byte[] o1, byte[] o2) {
+			int n = Math.min(o1.length, o2.length);
+			for(int i = 0; i < n; i++) {
+				int c = (o1[i] & 0xFF) - (o2[i] & 0xFF);
+				if(c != 0)
+					return c;
+			}
+			return o1.length - o2.length;
+		}
+	};
+	
 	private Comparators() {}
 }
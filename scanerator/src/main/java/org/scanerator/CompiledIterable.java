@@ -0,0 +1,438 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link Iterable} that evaluates a tree of {@link IntersectionIterable},
+ * {@link UnionIterable}, {@link SubtractionIterable} and {@link DedupIterable}
+ * operators with a single {@link java.util.Iterator}, rather than with one
+ * {@link java.util.Iterator} per operator.  The tree is flattened into a
+ * {@link Plan}: arrays describing each operator, in post-order, which
+ * are shared by all trees of the same shape.  The state of every
+ * operator is held in arrays local to the {@link java.util.Iterator}, and
+ * every operator is evaluated by one method recursing over the {@link Plan},
+ * with all comparisons going through one {@link Comparator} call site, so the JIT
+ * sees a single monomorphic method instead of a chain of megamorphic
+ * {@link java.util.Iterator#hasNext()} calls.<p>
+ * 
+ * Operators whose {@link Comparator} differs from that of the
+ * {@link CompiledIterable}, and any other {@link Iterable}, are treated as sources.
+ * A {@link CompiledIterable} returns the same elements as the tree it compiles.
+ * @author robin
+ *
+ * @param <T>
+ * @see Expression#compile()
+ */
+public class CompiledIterable<T> extends AbstractOrderedIterable<T> {
+	/**
+	 * Operator code of a source
+	 */
+	protected static final int SOURCE = 0;
+	/**
+	 * Operator code of an intersection
+	 */
+	protected static final int ALL = 1;
+	/**
+	 * Operator code of a union
+	 */
+	protected static final int ANY = 2;
+	/**
+	 * Operator code of a subtraction
+	 */
+	protected static final int NOT = 3;
+	/**
+	 * Operator code of a de-duplication
+	 */
+	protected static final int DEDUP = 4;
+	
+	/**
+	 * Shape codes of the operators, indexed by operator code
+	 */
+	private static final String SHAPES = "sando";
+	
+	/**
+	 * Flattened operator tree.  Nodes are numbered in post-order, so the
+	 * root is the last node and the subtree of node {@code n} is the
+	 * range {@code [first[n], n]}.
+	 * @author robin
+	 *
+	 */
+	protected static class Plan {
+		/**
+		 * Operator code of each node
+		 */
+		protected final int[] ops;
+		/**
+		 * Left-hand (or only) child of each node, or {@code -1}
+		 */
+		protected final int[] lhs;
+		/**
+		 * Right-hand child of each node, or {@code -1}
+		 */
+		protected final int[] rhs;
+		/**
+		 * First node of the subtree of each node
+		 */
+		protected final int[] first;
+		/**
+		 * Source index of each {@link #SOURCE} node, or {@code -1}
+		 */
+		protected final int[] leaf;
+		/**
+		 * Number of sources
+		 */
+		protected final int sources;
+		
+		/**
+		 * Parse a {@link Plan} from a shape, a pre-order listing of
+		 * node shape codes
+		 * @param shape The shape
+		 */
+		protected Plan(String shape) {
+			int n = shape.length();
+			ops = new int[n];
+			lhs = new int[n];
+			rhs = new int[n];
+			first = new int[n];
+			leaf = new int[n];
+			int[] counts = new int[3]; // position in shape, next node, next source
+			parse(shape, counts);
+			sources = counts[2];
+		}
+		
+		/**
+		 * Parse the subtree starting at the current position in {@code shape}
+		 * @param shape The shape
+		 * @param counts The shape position, next node number and next source number
+		 * @return The number of the root node of the subtree
+		 */
+		private int parse(String shape, int[] counts) {
+			int op = SHAPES.indexOf(shape.charAt(counts[0]++));
+			int start = counts[1];
+			int l = -1, r = -1, s = -1;
+			if(op == SOURCE)
+				s = counts[2]++;
+			else {
+				l = parse(shape, counts);
+				if(op != DEDUP)
+					r = parse(shape, counts);
+			}
+			int node = counts[1]++;
+			ops[node] = op;
+			lhs[node] = l;
+			rhs[node] = r;
+			first[node] = start;
+			leaf[node] = s;
+			return node;
+		}
+	}
+	
+	/**
+	 * The maximum number of {@link Plan}s to share; trees of other shapes get their own
+	 */
+	protected static final int MAX_PLANS = 1024;
+	/**
+	 * {@link Plan}s by shape
+	 */
+	private static final ConcurrentMap<String, Plan> PLANS = new ConcurrentHashMap<String, Plan>();
+	
+	/**
+	 * The compiled operator tree
+	 */
+	protected Iterable<T> tree;
+	/**
+	 * The sources of {@link #tree}, in the order of the {@link Plan}
+	 */
+	protected List<Iterable<T>> sources = new ArrayList<Iterable<T>>();
+	/**
+	 * The flattened {@link #tree}
+	 */
+	protected Plan plan;
+	
+	/**
+	 * Compile an operator tree
+	 * @param cmp The {@link Comparator} of the operators to compile
+	 * @param tree The operator tree
+	 */
+	public CompiledIterable(Comparator<? super T> cmp, Iterable<T> tree) {
+		super(cmp);
+		if(tree == null)
+			throw new IllegalArgumentException();
+		this.tree = tree;
+		StringBuilder shape = new StringBuilder();
+		flatten(tree, shape);
+		String key = shape.toString();
+		Plan p = PLANS.get(key);
+		if(p == null) {
+			p = new Plan(key);
+			if(PLANS.size() < MAX_PLANS) { // shapes are not evicted, so only share the first ones seen
+				Plan shared = PLANS.putIfAbsent(key, p);
+				if(shared != null)
+					p = shared;
+			}
+		}
+		plan = p;
+	}
+	
+	/**
+	 * Append the shape of an operator tree to {@code shape}, collecting its sources
+	 * @param itr The operator tree
+	 * @param shape The shape so far
+	 */
+	private void flatten(Iterable<T> itr, StringBuilder shape) {
+		while(itr instanceof Expression) // expressions are transparent
+			itr = ((Expression<T>) itr).itr;
+		if(itr instanceof AbstractOrderedIterable && ((AbstractOrderedIterable<T>) itr).cmp == cmp) {
+			if(itr instanceof IntersectionIterable) {
+				IntersectionIterable<T> op = (IntersectionIterable<T>) itr;
+				shape.append(SHAPES.charAt(ALL));
+				flatten(op.lhs, shape);
+				flatten(op.rhs, shape);
+				return;
+			}
+			if(itr instanceof UnionIterable) {
+				UnionIterable<T> op = (UnionIterable<T>) itr;
+				shape.append(SHAPES.charAt(ANY));
+				flatten(op.lhs, shape);
+				flatten(op.rhs, shape);
+				return;
+			}
+			if(itr instanceof SubtractionIterable) {
+				SubtractionIterable<T> op = (SubtractionIterable<T>) itr;
+				shape.append(SHAPES.charAt(NOT));
+				flatten(op.lhs, shape);
+				flatten(op.rhs, shape);
+				return;
+			}
+			if(itr instanceof DedupIterable) {
+				shape.append(SHAPES.charAt(DEDUP));
+				flatten(((DedupIterable<T>) itr).wrapped, shape);
+				return;
+			}
+		}
+		shape.append(SHAPES.charAt(SOURCE));
+		sources.add(itr);
+	}
+
+	@Override
+	public CloseableOrderedIterator<T> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * {@link java.util.Iterator} which evaluates the whole {@link Plan}
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<T> {
+		/**
+		 * Node state: no element has been requested yet
+		 */
+		protected static final byte UNPRIMED = 0;
+		/**
+		 * Node state: {@link #head} holds the current element
+		 */
+		protected static final byte LIVE = 1;
+		/**
+		 * Node state: no more elements
+		 */
+		protected static final byte DONE = 2;
+		
+		/**
+		 * The {@link Plan} being evaluated
+		 */
+		protected final Plan p = plan;
+		/**
+		 * The {@link Iterator}s of the sources
+		 */
+		protected final CloseableOrderedIterator<T>[] leaves;
+		/**
+		 * The current element of each node
+		 */
+		protected final T[] head;
+		/**
+		 * The state of each node
+		 */
+		protected final byte[] state;
+		/**
+		 * For {@link #ANY} nodes, {@code true} if the current element came from the right-hand side
+		 */
+		protected final boolean[] right;
+		/**
+		 * {@code true} if the current element of the root has not yet been returned
+		 */
+		protected boolean fresh;
+		
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		public Itr() {
+			leaves = new CloseableOrderedIterator[p.sources];
+			for(int i = 0; i < leaves.length; i++)
+				leaves[i] = Scanerator.open(sources.get(i));
+			head = (T[]) new Object[p.ops.length];
+			state = new byte[p.ops.length];
+			right = new boolean[p.ops.length];
+		}
+		
+		/**
+		 * Set the current element of a node
+		 * @param n The node
+		 * @param e The element
+		 */
+		protected void live(int n, T e) {
+			head[n] = e;
+			state[n] = LIVE;
+		}
+		
+		/**
+		 * Mark a node as exhausted, closing all sources in its subtree
+		 * @param n The node
+		 */
+		protected void done(int n) {
+			head[n] = null;
+			state[n] = DONE;
+			for(int i = p.first[n]; i <= n; i++) {
+				if(p.ops[i] == SOURCE)
+					leaves[p.leaf[i]].close();
+			}
+		}
+		
+		/**
+		 * Move a node to its next element
+		 * @param n The node
+		 */
+		protected void advance(int n) {
+			int l = p.lhs[n];
+			int r = p.rhs[n];
+			switch(p.ops[n]) {
+			case SOURCE: {
+				CloseableOrderedIterator<T> itr = leaves[p.leaf[n]];
+				if(itr.hasNext())
+					live(n, itr.next());
+				else
+					done(n);
+				return;
+			}
+			case ALL: {
+				// rhs is only opened if lhs is not empty
+				advance(l);
+				if(state[l] == DONE) {
+					done(n);
+					return;
+				}
+				advance(r);
+				while(state[r] != DONE) {
+					int c = cmp.compare(head[l], head[r]);
+					if(c == 0) {
+						live(n, head[l]);
+						return;
+					}
+					if(c < 0) {
+						advance(l);
+						if(state[l] == DONE)
+							break;
+					} else
+						advance(r);
+				}
+				done(n);
+				return;
+			}
+			case ANY: {
+				if(state[n] == UNPRIMED) {
+					advance(l);
+					advance(r);
+				} else if(right[n])
+					advance(r);
+				else
+					advance(l);
+				if(state[l] == DONE && state[r] == DONE)
+					done(n);
+				else if(state[r] == DONE || (state[l] != DONE && cmp.compare(head[l], head[r]) <= 0)) {
+					right[n] = false;
+					live(n, head[l]);
+				} else {
+					right[n] = true;
+					live(n, head[r]);
+				}
+				return;
+			}
+			case NOT: {
+				boolean primed = state[n] != UNPRIMED;
+				advance(l);
+				if(state[l] == DONE) { // rhs can no longer matter
+					done(n);
+					return;
+				}
+				if(!primed)
+					advance(r);
+				while(state[r] != DONE) {
+					int c = cmp.compare(head[l], head[r]);
+					if(c < 0)
+						break;
+					if(c > 0)
+						advance(r);
+					else {
+						advance(l);
+						if(state[l] == DONE) {
+							done(n);
+							return;
+						}
+					}
+				}
+				live(n, head[l]);
+				return;
+			}
+			case DEDUP: {
+				if(state[n] == UNPRIMED)
+					advance(l);
+				else {
+					T prev = head[n];
+					do {
+						advance(l);
+					} while(state[l] != DONE && cmp.compare(prev, head[l]) == 0);
+				}
+				if(state[l] == DONE)
+					done(n);
+				else
+					live(n, head[l]);
+				return;
+			}
+			default:
+				throw new IllegalStateException("Unknown operator " + p.ops[n]);
+			}
+		}
+		
+		public boolean hasNext() {
+			int root = p.ops.length - 1;
+			if(!fresh && state[root] != DONE) {
+				advance(root);
+				fresh = true;
+			}
+			return state[root] != DONE;
+		}
+		
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			fresh = false;
+			return head[p.ops.length - 1];
+		}
+		
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		public void close() {
+			done(p.ops.length - 1);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "(compiled " + tree + ")";
+	}
+}
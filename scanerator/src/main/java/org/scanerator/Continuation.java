@@ -0,0 +1,73 @@
+package org.scanerator;
+
+import java.io.Serializable;
+
+/**
+ * Continuation token of a {@link Page}: the last element returned so far and
+ * how many elements equal to it were returned, which is all an operator tree
+ * needs to resume, since equal elements are always returned together and in
+ * the same order.  A {@link Continuation} is {@link Serializable} if its
+ * element is.
+ * @author robin
+ *
+ * @param <T>
+ * @see Scanerator#resumeFrom(java.util.Comparator, Iterable, Continuation)
+ */
+public class Continuation<T> implements Serializable {
+	private static final long serialVersionUID = 0;
+
+	/**
+	 * The last element returned
+	 */
+	protected final T key;
+	/**
+	 * The number of elements equal to {@link #key} returned
+	 */
+	protected final long skip;
+	
+	/**
+	 * Create a {@link Continuation}
+	 * @param key The last element returned
+	 * @param skip The number of elements equal to {@code key} returned
+	 */
+	public Continuation(T key, long skip) {
+		if(key == null || skip <= 0)
+			throw new IllegalArgumentException();
+		this.key = key;
+		this.skip = skip;
+	}
+	
+	/**
+	 * Returns the last element returned
+	 * @return The last element
+	 */
+	public T key() {
+		return key;
+	}
+	
+	/**
+	 * Returns the number of elements equal to {@link #key()} already returned
+	 * @return The number of elements to skip when resuming
+	 */
+	public long skip() {
+		return skip;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof Continuation))
+			return false;
+		Continuation<?> o = (Continuation<?>) obj;
+		return key.equals(o.key) && skip == o.skip;
+	}
+	
+	@Override
+	public int hashCode() {
+		return key.hashCode() * 31 + (int) skip;
+	}
+	
+	@Override
+	public String toString() {
+		return "(after " + key + " " + skip + ")";
+	}
+}
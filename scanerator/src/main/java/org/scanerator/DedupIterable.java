@@ -40,7 +40,7 @@ public class DedupIterable<T> extends AbstractOrderedIterable<T> {
 		this.wrapped = wrapped;
 	}
 
-	public Iterator<T> iterator() {
+	public CloseableOrderedIterator<T> iterator() {
 		return new Itr();
 	}
 
@@ -49,18 +49,30 @@ public class DedupIterable<T> extends AbstractOrderedIterable<T> {
 	 * @author robin
 	 *
 	 */
-	protected class Itr implements Iterator<T> {
+	protected class Itr implements CloseableOrderedIterator<T> {
 		/**
 		 * Iterator of wrapped elements
 		 */
-		protected Iterator<T> itr = wrapped.iterator();
+		protected CloseableOrderedIterator<T> itr = Scanerator.open(wrapped);
 
 		/**
 		 * Upcoming unique elements
 		 */
 		protected Box next = new Box(2);
 
-		public Itr() {
+		/**
+		 * {@code true} once the first elements have been pulled from the input
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Pull the first elements from the input.  Called lazily, so that
+		 * no input is opened until one of its elements is actually needed.
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
 			if(itr.hasNext()) { // if there's at least one wrapped element
 				// add it
 				T n = itr.next();
@@ -78,6 +90,7 @@ public class DedupIterable<T> extends AbstractOrderedIterable<T> {
 		}
 
 		public boolean hasNext() {
+			prime();
 			return !next.isEmpty();
 		}
 
@@ -99,6 +112,13 @@ public class DedupIterable<T> extends AbstractOrderedIterable<T> {
 		public void remove() {
 			throw new UnsupportedOperationException();
 		}
+
+		public void close() {
+			primed = true;
+			while(!next.isEmpty())
+				next.poll();
+			itr.close();
+		}
 	}
 
 	@Override
@@ -9,7 +9,7 @@ import java.util.NoSuchElementException;
  *
  * @param <T>
  */
-public class EmptyIterable<T> implements Iterable<T> {
+public class EmptyIterable<T> implements CloseableOrderedIterable<T>, SizedIterable<T> {
 
 	/**
 	 * Create an empty {@link Iterable}
@@ -17,10 +17,15 @@ public class EmptyIterable<T> implements Iterable<T> {
 	public EmptyIterable() {
 	}
 
-	public Iterator<T> iterator() {
+	public CloseableOrderedIterator<T> iterator() {
 		return new Itr();
 	}
 	
+	@Override
+	public long size() {
+		return 0;
+	}
+	
 	@Override
 	public String toString() {
 		return "[]";
@@ -31,7 +36,7 @@ public class EmptyIterable<T> implements Iterable<T> {
 	 * @author robin
 	 *
 	 */
-	protected class Itr implements Iterator<T> {
+	protected class Itr implements CloseableOrderedIterator<T> {
 		@Override
 		public boolean hasNext() {
 			return false;
@@ -46,5 +51,9 @@ public class EmptyIterable<T> implements Iterable<T> {
 		public void remove() {
 			throw new UnsupportedOperationException();
 		}
+
+		@Override
+		public void close() {
+		}
 	}
 }
@@ -1,7 +1,9 @@
 package org.scanerator;
 
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.function.BinaryOperator;
+import java.util.function.ToLongBiFunction;
+import java.util.stream.Collector;
 
 /**
  * {@link Iterable} with additional methods for combining (via {@link Scanerator})
@@ -11,7 +13,7 @@ import java.util.Iterator;
  *
  * @param <T>
  */
-public class Expression<T> implements Iterable<T> {
+public class Expression<T> implements CloseableOrderedIterable<T> {
 	
 	/**
 	 * Possible types of input validation for {@link Iterable} instances
@@ -149,9 +151,16 @@ public class Expression<T> implements Iterable<T> {
 		this.itr = itr;
 	}
 	
+	/**
+	 * Returns a {@link CloseableOrderedIterator} over the elements of this
+	 * {@link Expression}.  Closing it releases every source of the expression
+	 * that is still open.
+	 * @return A new {@link CloseableOrderedIterator}
+	 * @see Scanerator#open(Iterable)
+	 */
 	@Override
-	public Iterator<T> iterator() {
-		return itr.iterator();
+	public CloseableOrderedIterator<T> iterator() {
+		return Scanerator.open(itr);
 	} 
 	
 	/**
@@ -164,6 +173,18 @@ public class Expression<T> implements Iterable<T> {
 		return new Expression<T>(cmp, ordering, itr);
 	}
 	
+	/**
+	 * Returns the {@link Iterable} wrapped by {@code itr} if it is an {@link Expression},
+	 * so that operators see the actual type of their arguments
+	 * @param itr The {@link Iterable} to unwrap
+	 * @return The wrapped {@link Iterable}, or {@code itr}
+	 */
+	protected static <T> Iterable<T> unwrap(Iterable<T> itr) {
+		while(itr instanceof Expression)
+			itr = ((Expression<T>) itr).itr;
+		return itr;
+	}
+	
 	/**
 	 * Return the logical intersection of this {@link Iterable} and the argument
 	 * @param rhs The right-hand side of the intersection
@@ -171,7 +192,19 @@ public class Expression<T> implements Iterable<T> {
 	 * @see Scanerator#all(Comparator, Iterable, Iterable)
 	 */
 	public Expression<T> and(Iterable<T> rhs) {
-		return wrap(Scanerator.all(cmp, this, ordering.check(cmp, rhs)));
+		return wrap(Scanerator.all(cmp, itr, ordering.check(cmp, unwrap(rhs))));
+	}
+	
+	/**
+	 * Return the logical intersection of this {@link Iterable} and the argument,
+	 * probing whichever side has at most {@code budget} elements instead of merging
+	 * @param rhs The right-hand side of the intersection
+	 * @param budget The maximum number of elements to buffer
+	 * @return A new {@link Expression}
+	 * @see Scanerator#all(Comparator, Iterable, Iterable, int)
+	 */
+	public Expression<T> and(Iterable<T> rhs, int budget) {
+		return wrap(Scanerator.all(cmp, itr, ordering.check(cmp, unwrap(rhs)), budget));
 	}
 	
 	/**
@@ -181,7 +214,7 @@ public class Expression<T> implements Iterable<T> {
 	 * @see Scanerator#any(Comparator, Iterable, Iterable)
 	 */
 	public Expression<T> or(Iterable<T> rhs) {
-		return wrap(Scanerator.any(cmp, this, ordering.check(cmp, rhs)));
+		return wrap(Scanerator.any(cmp, itr, ordering.check(cmp, unwrap(rhs))));
 	}
 	
 	/**
@@ -191,7 +224,65 @@ public class Expression<T> implements Iterable<T> {
 	 * @see Scanerator#not(Comparator, Iterable, Iterable)
 	 */
 	public Expression<T> not(Iterable<T> rhs) {
-		return wrap(Scanerator.not(cmp, this, ordering.check(cmp, rhs)));
+		return wrap(Scanerator.not(cmp, itr, ordering.check(cmp, unwrap(rhs))));
+	}
+	
+	/**
+	 * Return the logical subtraction of the argument from this {@link Iterable},
+	 * probing the argument if it has at most {@code budget} elements instead of merging
+	 * @param rhs The right-hand side of the subtraction
+	 * @param budget The maximum number of elements to buffer
+	 * @return A new {@link Expression}
+	 * @see Scanerator#not(Comparator, Iterable, Iterable, int)
+	 */
+	public Expression<T> not(Iterable<T> rhs, int budget) {
+		return wrap(Scanerator.not(cmp, itr, ordering.check(cmp, unwrap(rhs)), budget));
+	}
+	
+	/**
+	 * Return the elements of this {@link Iterable} within {@code delta}
+	 * of at least one element of the argument
+	 * @param rhs The elements to be near
+	 * @param distance The signed distance from its first argument to its second
+	 * @param delta The greatest distance of a match
+	 * @return A new {@link Expression}
+	 * @see Scanerator#near(Iterable, Iterable, ToLongBiFunction, long)
+	 */
+	public Expression<T> near(Iterable<T> rhs, ToLongBiFunction<? super T, ? super T> distance, long delta) {
+		return wrap(Scanerator.near(itr, ordering.check(cmp, unwrap(rhs)), distance, delta).lefts());
+	}
+	
+	/**
+	 * Return the elements of this {@link Iterable} within the ranges of an
+	 * {@link OrderedRangeSet}, seeking to each range where possible
+	 * @param ranges The {@link OrderedRangeSet}
+	 * @return A new {@link Expression}
+	 * @see OrderedRangeSet#within(Iterable)
+	 */
+	public Expression<T> within(OrderedRangeSet<T> ranges) {
+		return wrap(ranges.within(itr));
+	}
+	
+	/**
+	 * Return the elements of this {@link Iterable} outside the ranges of an
+	 * {@link OrderedRangeSet}, skipping each range where possible
+	 * @param ranges The {@link OrderedRangeSet}
+	 * @return A new {@link Expression}
+	 * @see OrderedRangeSet#outside(Iterable)
+	 */
+	public Expression<T> outside(OrderedRangeSet<T> ranges) {
+		return wrap(ranges.outside(itr));
+	}
+	
+	/**
+	 * Return a version of this {@link Expression} whose {@link java.util.Iterator}s are
+	 * served from an {@link ExpressionCache} where possible
+	 * @param cache The {@link ExpressionCache}
+	 * @return A new {@link Expression}
+	 * @see ExpressionCache#cached(Iterable)
+	 */
+	public Expression<T> cached(ExpressionCache<T> cache) {
+		return wrap(cache.cached(itr));
 	}
 	
 	/**
@@ -200,6 +291,140 @@ public class Expression<T> implements Iterable<T> {
 	 * @see Scanerator#dedup(Comparator, Iterable)
 	 */
 	public Expression<T> dedup() {
-		return wrap(Scanerator.dedup(cmp, this));
+		return wrap(Scanerator.dedup(cmp, itr));
+	}
+	
+	/**
+	 * Return a version of this {@link Expression} in which each run of equal
+	 * elements is replaced by their reduction with {@code merge}
+	 * @param merge The function merging two equal elements
+	 * @return A new {@link Expression}
+	 * @see Scanerator#mergeDuplicates(Comparator, Iterable, BinaryOperator)
+	 */
+	public Expression<T> mergeDuplicates(BinaryOperator<T> merge) {
+		return wrap(Scanerator.mergeDuplicates(cmp, itr, merge));
+	}
+	
+	/**
+	 * Returns the results of combining each run of equal elements of this
+	 * {@link Expression} with a {@link Collector}
+	 * @param collector The {@link Collector} combining each run
+	 * @return A new {@link Iterable}
+	 * @see Scanerator#groupAdjacent(Iterable, Comparator, Collector)
+	 */
+	public <A, R> Iterable<R> groupAdjacent(Collector<? super T, A, R> collector) {
+		return Scanerator.groupAdjacent(itr, cmp, collector);
+	}
+	
+	/**
+	 * Return a compiled version of this {@link Expression}, which evaluates
+	 * the whole operator tree with a single {@link java.util.Iterator} instead of
+	 * one {@link java.util.Iterator} per operator.  The compiled {@link Expression}
+	 * returns the same elements as this one.
+	 * @return A new {@link Expression}
+	 * @see CompiledIterable
+	 */
+	public Expression<T> compile() {
+		return wrap(new CompiledIterable<T>(cmp, itr));
+	}
+	
+	/**
+	 * Return a version of this {@link Expression} whose subtrees are
+	 * evaluated on worker threads
+	 * @param pipeline The {@link Pipeline} settings
+	 * @return A new {@link Expression}
+	 * @see Pipeline#apply(Iterable)
+	 */
+	public Expression<T> pipelined(Pipeline pipeline) {
+		return wrap(pipeline.apply(itr));
+	}
+	
+	/**
+	 * Restrict this {@link Expression} to the elements from {@code from} (inclusive)
+	 * up to {@code to} (exclusive), pushing the bounds down to its sources
+	 * @param from The least element, or {@code null} for no lower bound
+	 * @param to The element at which to stop, or {@code null} for no upper bound
+	 * @return A new {@link Expression}
+	 * @see Scanerator#range(Comparator, Iterable, Object, Object)
+	 */
+	public Expression<T> range(T from, T to) {
+		return wrap(Scanerator.range(cmp, itr, from, to));
+	}
+	
+	/**
+	 * Returns the first {@code n} elements of this {@link Expression} as a {@link Page}
+	 * @param n The maximum number of elements in the page
+	 * @return A new {@link Page}
+	 * @see Scanerator#limit(Comparator, Iterable, int)
+	 */
+	public Page<T> limit(int n) {
+		return Scanerator.limit(cmp, itr, n);
+	}
+	
+	/**
+	 * Return the elements of this {@link Expression} following a {@link Continuation}
+	 * returned by {@link #limit(int)}
+	 * @param continuation The {@link Continuation} of the previous page
+	 * @return A new {@link Expression}
+	 * @see Scanerator#resumeFrom(Comparator, Iterable, Continuation)
+	 */
+	public Expression<T> resumeFrom(Continuation<T> continuation) {
+		return wrap(Scanerator.resumeFrom(cmp, itr, continuation));
+	}
+	
+	/**
+	 * Open a {@link CheckpointedIterator} over this {@link Expression}, starting from
+	 * {@code checkpoint}
+	 * @param checkpoint The checkpoint to restore, or {@code null} to start from the beginning
+	 * @return A new {@link CheckpointedIterator}
+	 * @see Scanerator#checkpointed(Comparator, Iterable, Continuation)
+	 */
+	public CheckpointedIterator<T> checkpointed(Continuation<T> checkpoint) {
+		return Scanerator.checkpointed(cmp, itr, checkpoint);
+	}
+	
+	/**
+	 * Returns the number of elements in this {@link Expression}
+	 * @return The number of elements
+	 * @see Scanerator#count(Iterable)
+	 */
+	public long count() {
+		return Scanerator.count(itr);
+	}
+	
+	/**
+	 * Returns the number of distinct elements in this {@link Expression}
+	 * @return The number of distinct elements
+	 * @see Scanerator#countDistinct(Comparator, Iterable)
+	 */
+	public long countDistinct() {
+		return Scanerator.countDistinct(cmp, itr);
+	}
+	
+	/**
+	 * Returns whether this {@link Expression} has no elements
+	 * @return {@code true} if there are no elements
+	 * @see Scanerator#isEmpty(Iterable)
+	 */
+	public boolean isEmpty() {
+		return Scanerator.isEmpty(itr);
+	}
+	
+	/**
+	 * Returns the first element of this {@link Expression}
+	 * @return The first element
+	 * @see Scanerator#first(Iterable)
+	 */
+	public T first() {
+		return Scanerator.first(itr);
+	}
+	
+	/**
+	 * Returns the last element of this {@link Expression}
+	 * @return The last element
+	 * @see Scanerator#last(Iterable)
+	 */
+	public T last() {
+		return Scanerator.last(itr);
 	}
 }
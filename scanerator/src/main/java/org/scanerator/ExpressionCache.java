@@ -0,0 +1,731 @@
+package org.scanerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.scanerator.io.ResultSetCodec;
+import org.scanerator.io.ResultSetIterable;
+import org.scanerator.io.ResultSetWriter;
+
+/**
+ * Opt-in cache of the results of operator trees, such as those built by an {@link Expression},
+ * held as encoded result sets (see {@link ResultSetWriter}) within a budget of bytes.<p>
+ *
+ * Only trees whose leaves are named sources of this cache, see {@link #source(String, Iterable, long, TimeUnit)},
+ * can be cached.  Each {@link Iterator} of an {@link Iterable} returned by {@link #cached(Iterable)}
+ * looks its operator tree up by a canonical key: the operator, its
+ * {@link Comparator}-equal operands in a fixed order for the commutative {@link IntersectionIterable}
+ * and {@link UnionIterable}, and the names of its sources.  A tree found in the cache is
+ * read from its result set instead of being evaluated; otherwise its operators
+ * ({@link IntersectionIterable}, {@link UnionIterable}, {@link SubtractionIterable},
+ * {@link DedupIterable}, {@link BoundedIterable}, {@link CheckedIterable} and {@link CompiledIterable})
+ * are looked up in turn, and each one not found is evaluated and its result recorded
+ * as it is iterated.  Sources are scanned as they are, not recorded, as a copy of a
+ * source is seldom worth its space in the cache.  A result is only stored if it is iterated to the end,
+ * and only if it fits the budget; the least recently used results are evicted to make room.<p>
+ *
+ * A result expires after the shortest time to live of the sources it was computed from,
+ * and may be dropped early by {@link #invalidate(String)}, which also stops results then being
+ * computed from the source from being stored.  The lookups are counted,
+ * see {@link #hits()}, {@link #misses()}, {@link #evictions()} and {@link #expirations()}.<p>
+ *
+ * Only trees ordered by the {@link ResultSetCodec#comparator()} of the cache are cached,
+ * and elements are returned as decoded by the {@link ResultSetCodec}, which must therefore
+ * preserve any element equal by that {@link Comparator}.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class ExpressionCache<T> {
+	/**
+	 * Bytes counted against the budget for each cached result in addition to its result set and key
+	 */
+	public static final int ENTRY_OVERHEAD = 64;
+
+	/**
+	 * Encodes and decodes the cached results
+	 */
+	protected final ResultSetCodec<T> codec;
+	/**
+	 * The maximum number of bytes of cached results
+	 */
+	protected final long budget;
+	/**
+	 * The cached results by canonical key, least recently used first
+	 */
+	protected final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	/**
+	 * The number of bytes of cached results
+	 */
+	protected long bytes;
+	/**
+	 * The number of times each source has been invalidated, by name
+	 */
+	protected final Map<String, Long> generations = new HashMap<String, Long>();
+	/**
+	 * The number of lookups that found a result
+	 */
+	protected final AtomicLong hits = new AtomicLong();
+	/**
+	 * The number of lookups that found no result
+	 */
+	protected final AtomicLong misses = new AtomicLong();
+	/**
+	 * The number of results evicted to make room for others
+	 */
+	protected final AtomicLong evictions = new AtomicLong();
+	/**
+	 * The number of results dropped because they expired or were invalidated
+	 */
+	protected final AtomicLong expirations = new AtomicLong();
+
+	/**
+	 * Create an {@link ExpressionCache}
+	 * @param codec Encodes and decodes the cached results
+	 * @param budget The maximum number of bytes of cached results
+	 */
+	public ExpressionCache(ResultSetCodec<T> codec, long budget) {
+		if(codec == null)
+			throw new IllegalArgumentException();
+		if(budget <= 0)
+			throw new IllegalArgumentException("Budget must be positive");
+		this.codec = codec;
+		this.budget = budget;
+	}
+
+	/**
+	 * Name a source of operator trees to be cached.  Results computed from it
+	 * expire after {@code ttl}.
+	 * @param name The name of the source, which identifies its elements
+	 * @param itr The source
+	 * @param ttl The time to live of results computed from the source
+	 * @param unit The unit of {@code ttl}
+	 * @return An {@link Iterable} of the elements of {@code itr} to build operator trees from
+	 */
+	public Iterable<T> source(String name, Iterable<T> itr, long ttl, TimeUnit unit) {
+		if(name == null || itr == null || unit == null)
+			throw new IllegalArgumentException();
+		if(ttl <= 0)
+			throw new IllegalArgumentException("Time to live must be positive");
+		return new Source(name, Expression.unwrap(itr), unit.toMillis(ttl));
+	}
+
+	/**
+	 * Returns an {@link Iterable} of the elements of an operator tree whose
+	 * {@link Iterator}s are served from this cache where possible
+	 * @param itr The operator tree
+	 * @return A new {@link Iterable}
+	 */
+	public Iterable<T> cached(Iterable<T> itr) {
+		if(itr == null)
+			throw new IllegalArgumentException();
+		return new Cached(Expression.unwrap(itr));
+	}
+
+	/**
+	 * Drop the cached results computed from a source.  Results being computed
+	 * from the source are not stored.
+	 * @param name The name of the source
+	 * @return The number of results dropped
+	 */
+	public synchronized int invalidate(String name) {
+		Long g = generations.get(name);
+		generations.put(name, g == null ? 1L : g + 1);
+		int n = 0;
+		for(Iterator<Entry> i = entries.values().iterator(); i.hasNext();) {
+			Entry e = i.next();
+			if(e.sources.contains(name)) {
+				i.remove();
+				bytes -= e.size;
+				n++;
+			}
+		}
+		expirations.addAndGet(n);
+		return n;
+	}
+
+	/**
+	 * Drop all cached results
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Returns the number of lookups that found a result
+	 * @return The count
+	 */
+	public long hits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of lookups that found no result
+	 * @return The count
+	 */
+	public long misses() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of results evicted to make room for others
+	 * @return The count
+	 */
+	public long evictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Returns the number of results dropped because they expired or were invalidated
+	 * @return The count
+	 */
+	public long expirations() {
+		return expirations.get();
+	}
+
+	/**
+	 * Returns the number of bytes of cached results, counted against the budget
+	 * @return The number of bytes
+	 */
+	public synchronized long bytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of cached results
+	 * @return The number of results
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the current time, which expiry is measured by
+	 * @return The time in milliseconds
+	 */
+	protected long now() {
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * Look up a cached result, dropping it if it has expired
+	 * @param key The canonical key
+	 * @return The result set, or {@code null}
+	 */
+	protected synchronized byte[] lookup(String key) {
+		Entry e = entries.get(key);
+		if(e != null && now() >= e.expires) {
+			entries.remove(key);
+			bytes -= e.size;
+			expirations.incrementAndGet();
+			e = null;
+		}
+		if(e == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return e.result;
+	}
+
+	/**
+	 * Returns the generation of a set of sources, which changes whenever one of them is invalidated
+	 * @param sources The names of the sources
+	 * @return The generation
+	 */
+	protected synchronized long generation(Set<String> sources) {
+		long g = 0;
+		for(String name : sources) {
+			Long n = generations.get(name);
+			if(n != null)
+				g += n;
+		}
+		return g;
+	}
+
+	/**
+	 * Store a result, evicting the least recently used results to make room
+	 * @param key The canonical key
+	 * @param e The result
+	 * @param generation The {@link #generation(Set)} of the sources of the result when it started to be computed
+	 * @return {@code true} if the result fit the budget and its sources were not invalidated since
+	 */
+	protected synchronized boolean store(String key, Entry e, long generation) {
+		if(e.size > budget || generation(e.sources) != generation)
+			return false;
+		Entry old = entries.remove(key);
+		if(old != null)
+			bytes -= old.size;
+		for(Iterator<Entry> i = entries.values().iterator(); bytes + e.size > budget && i.hasNext();) {
+			Entry eldest = i.next();
+			i.remove();
+			bytes -= eldest.size;
+			evictions.incrementAndGet();
+		}
+		entries.put(key, e);
+		bytes += e.size;
+		return true;
+	}
+
+	/**
+	 * Returns the canonical form of a key, for keys of {@link BoundedIterable}s
+	 * @param key The key, or {@code null}
+	 * @return The encoded key in hexadecimal, or {@code -}
+	 */
+	protected String canonical(T key) {
+		if(key == null)
+			return "-";
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			codec.encode(null, key, out);
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+		StringBuilder sb = new StringBuilder();
+		for(byte b : out.toByteArray())
+			sb.append(Character.forDigit((b >>> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the canonical key of an operator tree
+	 * @param itr The operator tree
+	 * @param keys The keys of the subtrees seen so far
+	 * @return The key, sources and time to live of the tree
+	 */
+	@SuppressWarnings("unchecked")
+	protected Node key(Iterable<T> itr, Map<Iterable<T>, Node> keys) {
+		itr = Expression.unwrap(itr);
+		Node node = keys.get(itr);
+		if(node != null)
+			return node;
+		if(itr instanceof ExpressionCache.Source && ((Source) itr).cache() == this) {
+			Source s = (Source) itr;
+			node = new Node("'" + s.name.length() + ":" + s.name, Collections.singleton(s.name), s.ttl);
+		} else if(itr instanceof ExpressionCache.Cached && ((Cached) itr).cache() == this)
+			node = key(((Cached) itr).tree, keys);
+		else if(itr instanceof AbstractOrderedIterable && ((AbstractOrderedIterable<T>) itr).cmp == codec.comparator()) {
+			if(itr instanceof IntersectionIterable) {
+				IntersectionIterable<T> op = (IntersectionIterable<T>) itr;
+				node = new Node("all", true, key(op.lhs, keys), key(op.rhs, keys));
+			} else if(itr instanceof UnionIterable) {
+				UnionIterable<T> op = (UnionIterable<T>) itr;
+				node = new Node("any", true, key(op.lhs, keys), key(op.rhs, keys));
+			} else if(itr instanceof SubtractionIterable) {
+				SubtractionIterable<T> op = (SubtractionIterable<T>) itr;
+				node = new Node("not", false, key(op.lhs, keys), key(op.rhs, keys));
+			} else if(itr instanceof DedupIterable)
+				node = new Node("dedup", false, key(((DedupIterable<T>) itr).wrapped, keys));
+			else if(itr instanceof BoundedIterable) {
+				BoundedIterable<T> op = (BoundedIterable<T>) itr;
+				node = new Node("range " + canonical(op.from) + " " + canonical(op.to), false, key(op.wrapped, keys));
+			} else if(itr instanceof CheckedIterable) {
+				CheckedIterable<T> op = (CheckedIterable<T>) itr;
+				node = new Node(op.dropDescending ? "dropping" : "checked", false, key(op.wrapped, keys));
+			} else if(itr instanceof CompiledIterable) // same elements as the tree, so the same key
+				node = key(((CompiledIterable<T>) itr).tree, keys);
+		}
+		if(node == null)
+			node = new Node(null, null, 0);
+		keys.put(itr, node);
+		return node;
+	}
+
+	/**
+	 * Rewrite an operator tree, replacing it by its result set if it is cached,
+	 * or else rewriting its operands and recording its result if it can be cached
+	 * @param itr The operator tree
+	 * @param keys The keys of the subtrees seen so far
+	 * @return The rewritten operator tree
+	 */
+	protected Iterable<T> rewrite(Iterable<T> itr, Map<Iterable<T>, Node> keys) {
+		itr = Expression.unwrap(itr);
+		Node node = key(itr, keys);
+		if(node.key == null)
+			return rebuild(itr, keys);
+		if(itr instanceof ExpressionCache.Source)
+			return itr;
+		byte[] result = lookup(node.key);
+		if(result != null)
+			return new ResultSetIterable<T>(result, codec);
+		return new Recording(node, rebuild(itr, keys));
+	}
+
+	/**
+	 * Rebuild an operator with its operands rewritten.  Operators that are
+	 * not known are returned as they are.
+	 * @param itr The operator
+	 * @param keys The keys of the subtrees seen so far
+	 * @return The rebuilt operator
+	 */
+	@SuppressWarnings("unchecked")
+	protected Iterable<T> rebuild(Iterable<T> itr, Map<Iterable<T>, Node> keys) {
+		if(itr instanceof ExpressionCache.Cached && ((Cached) itr).cache() == this)
+			return rebuild(Expression.unwrap(((Cached) itr).tree), keys);
+		if(!(itr instanceof AbstractOrderedIterable) || ((AbstractOrderedIterable<T>) itr).cmp != codec.comparator())
+			return itr;
+		Comparator<? super T> cmp = ((AbstractOrderedIterable<T>) itr).cmp;
+		if(itr instanceof IntersectionIterable) {
+			IntersectionIterable<T> op = (IntersectionIterable<T>) itr;
+			return new IntersectionIterable<T>(cmp, rewrite(op.lhs, keys), rewrite(op.rhs, keys));
+		}
+		if(itr instanceof UnionIterable) {
+			UnionIterable<T> op = (UnionIterable<T>) itr;
+			return new UnionIterable<T>(cmp, rewrite(op.lhs, keys), rewrite(op.rhs, keys));
+		}
+		if(itr instanceof SubtractionIterable) {
+			SubtractionIterable<T> op = (SubtractionIterable<T>) itr;
+			return new SubtractionIterable<T>(cmp, rewrite(op.lhs, keys), rewrite(op.rhs, keys));
+		}
+		if(itr instanceof DedupIterable)
+			return new DedupIterable<T>(cmp, rewrite(((DedupIterable<T>) itr).wrapped, keys));
+		if(itr instanceof BoundedIterable) {
+			BoundedIterable<T> op = (BoundedIterable<T>) itr;
+			return new BoundedIterable<T>(cmp, rewrite(op.wrapped, keys), op.from, op.to);
+		}
+		if(itr instanceof CheckedIterable) {
+			CheckedIterable<T> op = (CheckedIterable<T>) itr;
+			return new CheckedIterable<T>(cmp, rewrite(op.wrapped, keys), op.dropDescending);
+		}
+		if(itr instanceof CompiledIterable) // the tree has the key of this operator, so is not looked up again
+			return new CompiledIterable<T>(cmp, rebuild(Expression.unwrap(((CompiledIterable<T>) itr).tree), keys));
+		return itr;
+	}
+
+	/**
+	 * A cached result
+	 * @author robin
+	 *
+	 */
+	protected static class Entry {
+		/**
+		 * The result set
+		 */
+		protected final byte[] result;
+		/**
+		 * The names of the sources the result was computed from
+		 */
+		protected final Set<String> sources;
+		/**
+		 * The time the result expires
+		 */
+		protected final long expires;
+		/**
+		 * The number of bytes counted against the budget
+		 */
+		protected final long size;
+
+		/**
+		 * Create an {@link Entry}
+		 * @param key The canonical key
+		 * @param result The result set
+		 * @param sources The names of the sources the result was computed from
+		 * @param expires The time the result expires
+		 */
+		protected Entry(String key, byte[] result, Set<String> sources, long expires) {
+			this.result = result;
+			this.sources = sources;
+			this.expires = expires;
+			this.size = result.length + 2L * key.length() + ENTRY_OVERHEAD;
+		}
+	}
+
+	/**
+	 * The canonical key of an operator tree
+	 * @author robin
+	 *
+	 */
+	protected static class Node {
+		/**
+		 * The canonical key, or {@code null} if the tree cannot be cached
+		 */
+		protected final String key;
+		/**
+		 * The names of the sources of the tree
+		 */
+		protected final Set<String> sources;
+		/**
+		 * The shortest time to live of the sources, in milliseconds
+		 */
+		protected final long ttl;
+
+		/**
+		 * Create a {@link Node}
+		 * @param key The canonical key, or {@code null}
+		 * @param sources The names of the sources
+		 * @param ttl The shortest time to live of the sources
+		 */
+		protected Node(String key, Set<String> sources, long ttl) {
+			this.key = key;
+			this.sources = sources;
+			this.ttl = ttl;
+		}
+
+		/**
+		 * Create a {@link Node} for an operator, which can only be cached if all its operands can
+		 * @param op The canonical name of the operator
+		 * @param commutative {@code true} if the order of the operands does not matter
+		 * @param operands The rewritten operands
+		 */
+		protected Node(String op, boolean commutative, Node... operands) {
+			Set<String> sources = new HashSet<String>();
+			long ttl = Long.MAX_VALUE;
+			String[] keys = new String[operands.length];
+			for(int i = 0; i < operands.length && keys != null; i++) {
+				if(operands[i].key == null)
+					keys = null;
+				else {
+					keys[i] = operands[i].key;
+					sources.addAll(operands[i].sources);
+					ttl = Math.min(ttl, operands[i].ttl);
+				}
+			}
+			if(keys == null) {
+				this.key = null;
+				this.sources = null;
+				this.ttl = 0;
+				return;
+			}
+			if(commutative)
+				Arrays.sort(keys);
+			StringBuilder sb = new StringBuilder("(").append(op);
+			for(String k : keys)
+				sb.append(' ').append(k);
+			this.key = sb.append(')').toString();
+			this.sources = Collections.unmodifiableSet(new TreeSet<String>(sources));
+			this.ttl = ttl;
+		}
+	}
+
+	/**
+	 * A named source of operator trees
+	 * @author robin
+	 *
+	 */
+	protected class Source implements CloseableOrderedIterable<T> {
+		/**
+		 * The name of the source
+		 */
+		protected final String name;
+		/**
+		 * The source
+		 */
+		protected final Iterable<T> wrapped;
+		/**
+		 * The time to live of results computed from the source, in milliseconds
+		 */
+		protected final long ttl;
+
+		/**
+		 * Create a {@link Source}
+		 * @param name The name of the source
+		 * @param wrapped The source
+		 * @param ttl The time to live of results, in milliseconds
+		 */
+		protected Source(String name, Iterable<T> wrapped, long ttl) {
+			this.name = name;
+			this.wrapped = wrapped;
+			this.ttl = ttl;
+		}
+
+		/**
+		 * Returns the {@link ExpressionCache} this {@link Source} was named by
+		 * @return The {@link ExpressionCache}
+		 */
+		protected ExpressionCache<T> cache() {
+			return ExpressionCache.this;
+		}
+
+		@Override
+		public CloseableOrderedIterator<T> iterator() {
+			return Scanerator.open(wrapped);
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * {@link Iterable} which rewrites its operator tree for each {@link Iterator}
+	 * @author robin
+	 *
+	 */
+	protected class Cached implements CloseableOrderedIterable<T> {
+		/**
+		 * The operator tree
+		 */
+		protected final Iterable<T> tree;
+
+		/**
+		 * Create a {@link Cached}
+		 * @param tree The operator tree
+		 */
+		protected Cached(Iterable<T> tree) {
+			this.tree = tree;
+		}
+
+		/**
+		 * Returns the {@link ExpressionCache} this {@link Cached} is served from
+		 * @return The {@link ExpressionCache}
+		 */
+		protected ExpressionCache<T> cache() {
+			return ExpressionCache.this;
+		}
+
+		@Override
+		public CloseableOrderedIterator<T> iterator() {
+			return Scanerator.open(rewrite(tree, new IdentityHashMap<Iterable<T>, Node>()));
+		}
+
+		@Override
+		public String toString() {
+			return "(cached " + tree + ")";
+		}
+	}
+
+	/**
+	 * One-shot {@link Iterable} which evaluates an operator tree, storing
+	 * its result if it is iterated to the end
+	 * @author robin
+	 *
+	 */
+	protected class Recording implements CloseableOrderedIterable<T> {
+		/**
+		 * The canonical key of the operator tree
+		 */
+		protected final Node node;
+		/**
+		 * The operator tree to evaluate
+		 */
+		protected final Iterable<T> tree;
+
+		/**
+		 * Create a {@link Recording}
+		 * @param node The canonical key of the operator tree
+		 * @param tree The operator tree to evaluate
+		 */
+		protected Recording(Node node, Iterable<T> tree) {
+			this.node = node;
+			this.tree = tree;
+		}
+
+		@Override
+		public CloseableOrderedIterator<T> iterator() {
+			return new Itr();
+		}
+
+		/**
+		 * {@link Iterator} which records the elements it returns
+		 * @author robin
+		 *
+		 */
+		protected class Itr implements CloseableOrderedIterator<T> {
+			/**
+			 * The time the evaluation started, which the result expires from
+			 */
+			protected final long started = now();
+			/**
+			 * The generation of the sources when the evaluation started
+			 */
+			protected final long generation = generation(node.sources);
+			/**
+			 * The evaluated operator tree
+			 */
+			protected CloseableOrderedIterator<T> itr = Scanerator.open(tree);
+			/**
+			 * The recorded result set
+			 */
+			protected ByteArrayOutputStream out = new ByteArrayOutputStream();
+			/**
+			 * Writes {@link #out}, or {@code null} once recording has stopped
+			 */
+			protected ResultSetWriter<T> writer;
+
+			/**
+			 * Create an {@link Itr}
+			 */
+			protected Itr() {
+				try {
+					writer = new ResultSetWriter<T>(out, codec);
+				} catch(IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				if(itr.hasNext())
+					return true;
+				if(writer != null) { // iterated to the end, so the result is complete
+					try {
+						writer.close();
+					} catch(IOException e) {
+						throw new IllegalStateException(e);
+					}
+					writer = null;
+					long expires = node.ttl > Long.MAX_VALUE - started ? Long.MAX_VALUE : started + node.ttl;
+					store(node.key, new Entry(node.key, out.toByteArray(), node.sources, expires), generation);
+					out = null;
+				}
+				return false;
+			}
+
+			@Override
+			public T next() {
+				T e = itr.next();
+				if(writer != null) {
+					try {
+						writer.add(e);
+					} catch(IOException ex) {
+						throw new IllegalStateException(ex);
+					} catch(IllegalArgumentException ex) { // not in order, so not cacheable
+						stop();
+					}
+					if(writer != null && out.size() > budget) // too big to cache
+						stop();
+				}
+				return e;
+			}
+
+			/**
+			 * Stop recording, discarding the partial result
+			 */
+			protected void stop() {
+				writer = null;
+				out = null;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void close() {
+				stop();
+				itr.close();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return tree.toString();
+		}
+	}
+}
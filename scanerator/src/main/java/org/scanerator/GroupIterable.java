@@ -0,0 +1,149 @@
+package org.scanerator;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * {@link Iterable} that combines each run of equal elements of a wrapped
+ * {@link Iterable} with a {@link Collector}, returning one result per run, in order.
+ * Where a {@link DedupIterable} keeps the first element of each run, a
+ * {@link GroupIterable} can, for instance, merge the partial rows returned by
+ * several column scans, or sum counters.  Only the accumulation of the current
+ * run is held in memory.
+ * @author robin
+ *
+ * @param <T> The type of the wrapped elements
+ * @param <A> The accumulation type of the {@link Collector}
+ * @param <R> The type of the results
+ */
+public class GroupIterable<T, A, R> implements CloseableOrderedIterable<R> {
+	/**
+	 * The {@link Comparator} for equality
+	 */
+	protected Comparator<? super T> cmp;
+	/**
+	 * The wrapped {@link Iterable}
+	 */
+	protected Iterable<T> wrapped;
+	/**
+	 * The {@link Collector} combining each run
+	 */
+	protected Collector<? super T, A, R> collector;
+	
+	/**
+	 * Create a {@link GroupIterable}
+	 * @param cmp The {@link Comparator} for equality
+	 * @param wrapped The {@link Iterable} to group
+	 * @param collector The {@link Collector} combining each run of equal elements
+	 */
+	public GroupIterable(Comparator<? super T> cmp, Iterable<T> wrapped, Collector<? super T, A, R> collector) {
+		if(cmp == null || wrapped == null || collector == null)
+			throw new IllegalArgumentException();
+		this.cmp = cmp;
+		this.wrapped = wrapped;
+		this.collector = collector;
+	}
+
+	@Override
+	public CloseableOrderedIterator<R> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * {@link Iterator} which does the grouping
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<R> {
+		/**
+		 * Iterator of wrapped elements
+		 */
+		protected CloseableOrderedIterator<T> itr;
+		/**
+		 * The accumulator of the {@link Collector}
+		 */
+		protected final BiConsumer<A, ? super T> accumulator = collector.accumulator();
+		/**
+		 * The finisher of the {@link Collector}
+		 */
+		protected final Function<A, R> finisher = collector.finisher();
+		/**
+		 * The first element of the next run
+		 */
+		protected T pending;
+		/**
+		 * {@code true} if {@link #pending} is set
+		 */
+		protected boolean ready;
+		/**
+		 * {@code true} once the input has been opened
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Pull the first element from the input.  Called lazily, so that
+		 * the input is not opened until one of its elements is actually needed.
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
+			itr = Scanerator.open(wrapped);
+			pull();
+		}
+		
+		/**
+		 * Pull the next element from the input, if any
+		 */
+		protected void pull() {
+			ready = itr.hasNext();
+			pending = ready ? itr.next() : null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			prime();
+			if(!ready)
+				close();
+			return ready;
+		}
+
+		@Override
+		public R next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			T first = pending;
+			A acc = collector.supplier().get();
+			accumulator.accept(acc, first);
+			pull();
+			while(ready && cmp.compare(pending, first) == 0) {
+				accumulator.accept(acc, pending);
+				pull();
+			}
+			return finisher.apply(acc);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			primed = true;
+			ready = false;
+			pending = null;
+			if(itr != null)
+				itr.close();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(group " + wrapped + ")";
+	}
+}
@@ -49,7 +49,7 @@ public class IntersectionIterable<T> extends AbstractOrderedIterable<T> {
 		this.rhs = rhs;
 	}
 
-	public Iterator<T> iterator() {
+	public CloseableOrderedIterator<T> iterator() {
 		return new Itr();
 	}
 
@@ -58,15 +58,15 @@ public class IntersectionIterable<T> extends AbstractOrderedIterable<T> {
 	 * @author robin
 	 *
 	 */
-	protected class Itr implements Iterator<T> {
+	protected class Itr implements CloseableOrderedIterator<T> {
 		/**
 		 * {@link Iterator} of left-hand side
 		 */
-		protected Iterator<T> litr = lhs.iterator();
+		protected CloseableOrderedIterator<T> litr = Scanerator.open(lhs);
 		/**
 		 * {@link Iterator} of right-hand side
 		 */
-		protected Iterator<T> ritr = rhs.iterator();
+		protected CloseableOrderedIterator<T> ritr = Scanerator.open(rhs);
 		
 		/**
 		 * {@code true} if this {@link Iterator} has no more elements
@@ -82,10 +82,23 @@ public class IntersectionIterable<T> extends AbstractOrderedIterable<T> {
 		 */
 		protected T rnext;
 		
-		public Itr() {
+		/**
+		 * {@code true} once the first elements have been pulled from the inputs
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Pull the first elements from the inputs.  Called lazily, so that
+		 * no input is opened until one of its elements is actually needed.
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
 			if(!litr.hasNext() || !ritr.hasNext()) {
-				// if either lhs or rhs is empty then the intersection is empty
-				empty = true;
+				// if either lhs or rhs is empty then the intersection is empty;
+				// rhs is only opened if lhs is not empty
+				close();
 			} else {
 				lnext = litr.next();
 				rnext = ritr.next();
@@ -93,22 +106,27 @@ public class IntersectionIterable<T> extends AbstractOrderedIterable<T> {
 		}
 		
 		public boolean hasNext() {
+			prime();
 			if(empty)
 				return false;
 			int c;
 			// while not empty and the lhs and rhs don't match...
 			while(!empty && (c = cmp().compare(lnext, rnext)) != 0) {
 				if(c < 0) { // if lhs is less than rhs
-					// go to the next lhs element if possible
+					// go to the next lhs element not less than rhs if possible
+					if(litr instanceof SkippingIterator)
+						((SkippingIterator<T>) litr).advanceTo(rnext);
 					if(!litr.hasNext())
-						empty = true;
+						close(); // lhs is exhausted, so release rhs
 					else
 						lnext = litr.next();
 				}
 				if(c > 0) { // if rhs is less than lhs
-					// go to the next rhs element if possible
+					// go to the next rhs element not less than lhs if possible
+					if(ritr instanceof SkippingIterator)
+						((SkippingIterator<T>) ritr).advanceTo(lnext);
 					if(!ritr.hasNext())
-						empty = true;
+						close(); // rhs is exhausted, so release lhs
 					else
 						rnext = ritr.next();
 				}
@@ -122,7 +140,7 @@ public class IntersectionIterable<T> extends AbstractOrderedIterable<T> {
 			T next = lnext;
 			// advance to the next item
 			if(!litr.hasNext() || !ritr.hasNext()) // if either lhs or rhs is empty
-				empty = true; // then this Iterator is empty 
+				close(); // then this Iterator is empty, so release both sides
 			else {
 				// otherwise since lhs == rhs (via cmp), advance both of them
 				lnext = litr.next();
@@ -134,6 +152,18 @@ public class IntersectionIterable<T> extends AbstractOrderedIterable<T> {
 		public void remove() {
 			throw new UnsupportedOperationException();
 		}
+
+		public void close() {
+			primed = true;
+			empty = true;
+			lnext = null;
+			rnext = null;
+			try {
+				litr.close();
+			} finally {
+				ritr.close();
+			}
+		}
 	}
 
 	@Override
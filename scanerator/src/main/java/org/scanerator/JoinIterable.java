@@ -0,0 +1,284 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * {@link Iterable} that is the sort-merge join of two {@link Iterable}s of
+ * different types ordered by a common key, such as the rows of two tables scanned
+ * by row key.  Returns a {@link Pair} for every pair of elements with equal keys,
+ * in key order; elements with the same key are paired in every combination, the
+ * right-hand ones in the inner loop.  An outer join also returns a {@link Pair} with
+ * a {@code null} side for each unmatched element of the left-hand side
+ * ({@link Type#LEFT_OUTER}) or of either side ({@link Type#FULL_OUTER}).<p>
+ * 
+ * The inputs are streamed once; only the right-hand elements with the current
+ * key are buffered.
+ * @author robin
+ *
+ * @param <A> The type of the left-hand elements
+ * @param <B> The type of the right-hand elements
+ * @param <K> The type of the key
+ */
+public class JoinIterable<A, B, K> implements CloseableOrderedIterable<Pair<A, B>> {
+	/**
+	 * The type of a join
+	 * @author robin
+	 *
+	 */
+	public static enum Type {
+		/**
+		 * Only matched elements are returned
+		 */
+		INNER,
+		/**
+		 * Unmatched left-hand elements are also returned
+		 */
+		LEFT_OUTER,
+		/**
+		 * Unmatched elements of either side are also returned
+		 */
+		FULL_OUTER
+	}
+	
+	/**
+	 * The left-hand side
+	 */
+	protected Iterable<A> lhs;
+	/**
+	 * The right-hand side
+	 */
+	protected Iterable<B> rhs;
+	/**
+	 * The key of a left-hand element
+	 */
+	protected Function<? super A, ? extends K> lkey;
+	/**
+	 * The key of a right-hand element
+	 */
+	protected Function<? super B, ? extends K> rkey;
+	/**
+	 * The {@link Comparator} ordering both sides by key
+	 */
+	protected Comparator<? super K> cmp;
+	/**
+	 * The type of join
+	 */
+	protected Type type;
+	
+	/**
+	 * Create a {@link JoinIterable}
+	 * @param lhs The left-hand side, ordered by {@code lkey}
+	 * @param rhs The right-hand side, ordered by {@code rkey}
+	 * @param lkey The key of a left-hand element
+	 * @param rkey The key of a right-hand element
+	 * @param cmp The {@link Comparator} ordering both sides by key
+	 * @param type The type of join
+	 */
+	public JoinIterable(Iterable<A> lhs, Iterable<B> rhs, Function<? super A, ? extends K> lkey,
+			Function<? super B, ? extends K> rkey, Comparator<? super K> cmp, Type type) {
+		if(lhs == null || rhs == null || lkey == null || rkey == null || cmp == null || type == null)
+			throw new IllegalArgumentException();
+		this.lhs = lhs;
+		this.rhs = rhs;
+		this.lkey = lkey;
+		this.rkey = rkey;
+		this.cmp = cmp;
+		this.type = type;
+	}
+
+	@Override
+	public CloseableOrderedIterator<Pair<A, B>> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * {@link Iterator} that does the join
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<Pair<A, B>> {
+		/**
+		 * {@link Iterator} of the left-hand side
+		 */
+		protected CloseableOrderedIterator<A> litr;
+		/**
+		 * {@link Iterator} of the right-hand side
+		 */
+		protected CloseableOrderedIterator<B> ritr;
+		/**
+		 * The next left-hand element not yet joined
+		 */
+		protected A lnext;
+		/**
+		 * {@code true} if {@link #lnext} is set
+		 */
+		protected boolean lready;
+		/**
+		 * The next right-hand element not yet buffered
+		 */
+		protected B rnext;
+		/**
+		 * {@code true} if {@link #rnext} is set
+		 */
+		protected boolean rready;
+		/**
+		 * The right-hand elements with the current key
+		 */
+		protected final List<B> group = new ArrayList<B>();
+		/**
+		 * The key of {@link #group}
+		 */
+		protected K groupKey;
+		/**
+		 * The left-hand element being paired with {@link #group}
+		 */
+		protected A current;
+		/**
+		 * The index in {@link #group} of the next element to pair with {@link #current}
+		 */
+		protected int index;
+		/**
+		 * The next {@link Pair}
+		 */
+		protected Pair<A, B> next;
+		/**
+		 * {@code true} once the inputs have been opened
+		 */
+		protected boolean primed;
+		/**
+		 * {@code true} once exhausted or closed
+		 */
+		protected boolean done;
+		
+		/**
+		 * Open the inputs.  An inner or left-outer join with an empty left-hand side
+		 * never opens the right-hand side.
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
+			litr = Scanerator.open(lhs);
+			pullLeft();
+			if(lready || type == Type.FULL_OUTER) {
+				ritr = Scanerator.open(rhs);
+				pullRight();
+			}
+		}
+		
+		/**
+		 * Pull the next left-hand element, if any
+		 */
+		protected void pullLeft() {
+			lready = litr.hasNext();
+			lnext = lready ? litr.next() : null;
+		}
+		
+		/**
+		 * Pull the next right-hand element, if any
+		 */
+		protected void pullRight() {
+			rready = ritr != null && ritr.hasNext();
+			rnext = rready ? ritr.next() : null;
+		}
+		
+		/**
+		 * Returns the next {@link Pair}
+		 * @return The {@link Pair}, or {@code null} if there are no more
+		 */
+		protected Pair<A, B> advance() {
+			while(true) {
+				if(current != null && index < group.size()) // pair the current left-hand element with its group
+					return new Pair<A, B>(current, group.get(index++));
+				current = null;
+				if(lready && !group.isEmpty() && cmp.compare(lkey.apply(lnext), groupKey) == 0) {
+					current = lnext; // a duplicate left-hand key, so reuse the group
+					index = 0;
+					pullLeft();
+					continue;
+				}
+				group.clear();
+				groupKey = null;
+				if(!lready && (!rready || type != Type.FULL_OUTER))
+					return null;
+				if(!rready && type == Type.INNER) // nothing left to match
+					return null;
+				int c = !lready ? 1 : !rready ? -1 : cmp.compare(lkey.apply(lnext), rkey.apply(rnext));
+				if(c < 0) { // unmatched left-hand element
+					A a = lnext;
+					pullLeft();
+					if(type != Type.INNER)
+						return new Pair<A, B>(a, null);
+				} else if(c > 0) { // unmatched right-hand element
+					B b = rnext;
+					pullRight();
+					if(type == Type.FULL_OUTER)
+						return new Pair<A, B>(null, b);
+				} else { // buffer the right-hand elements with this key
+					groupKey = rkey.apply(rnext);
+					do {
+						group.add(rnext);
+						pullRight();
+					} while(rready && cmp.compare(rkey.apply(rnext), groupKey) == 0);
+					current = lnext;
+					index = 0;
+					pullLeft();
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if(next != null)
+				return true;
+			if(done)
+				return false;
+			prime();
+			next = advance();
+			if(next == null)
+				close();
+			return next != null;
+		}
+
+		@Override
+		public Pair<A, B> next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			Pair<A, B> p = next;
+			next = null;
+			return p;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			done = primed = true;
+			next = null;
+			lnext = current = null;
+			rnext = null;
+			lready = rready = false;
+			group.clear();
+			try {
+				if(litr != null)
+					litr.close();
+			} finally {
+				if(ritr != null)
+					ritr.close();
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(join " + type.name().toLowerCase() + " " + lhs + " " + rhs + ")";
+	}
+}
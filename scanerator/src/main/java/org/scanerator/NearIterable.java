@@ -0,0 +1,268 @@
+package org.scanerator;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * {@link Iterable} that is the band join of two ordered {@link Iterable}s, pairing
+ * each left-hand element with every right-hand element within {@code delta}
+ * of it, such as events in one scan within a time window of events in another.<p>
+ * 
+ * Distances are given by a function {@code distance(x, y)} returning how far {@code y}
+ * is after {@code x}: negative if {@code y} is before {@code x}, and consistent with
+ * the order of both inputs.  Keys that can never match, such as timestamps of different
+ * entities in (entity, timestamp) keys, should have a distance of {@link Long#MIN_VALUE}
+ * or {@link Long#MAX_VALUE} in the direction of their order.<p>
+ * 
+ * Only a sliding window of the right-hand elements within {@code delta} of the current
+ * left-hand element is held in memory, and each input is read once, so the
+ * join takes linear time in the sizes of the inputs and the output.  The
+ * {@link Pair}s are returned in order of their left-hand, then right-hand, elements;
+ * {@link #lefts()} returns the left-hand elements with at least one match instead.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class NearIterable<T> implements CloseableOrderedIterable<Pair<T, T>> {
+	/**
+	 * The left-hand side
+	 */
+	protected Iterable<T> lhs;
+	/**
+	 * The right-hand side
+	 */
+	protected Iterable<T> rhs;
+	/**
+	 * The signed distance from its first argument to its second
+	 */
+	protected ToLongBiFunction<? super T, ? super T> distance;
+	/**
+	 * The greatest distance of a match
+	 */
+	protected long delta;
+	
+	/**
+	 * Create a {@link NearIterable}
+	 * @param lhs The left-hand side
+	 * @param rhs The right-hand side
+	 * @param distance The signed distance from its first argument to its second
+	 * @param delta The greatest distance of a match
+	 */
+	public NearIterable(Iterable<T> lhs, Iterable<T> rhs, ToLongBiFunction<? super T, ? super T> distance, long delta) {
+		if(lhs == null || rhs == null || distance == null)
+			throw new IllegalArgumentException();
+		if(delta < 0)
+			throw new IllegalArgumentException("Delta must not be negative");
+		this.lhs = lhs;
+		this.rhs = rhs;
+		this.distance = distance;
+		this.delta = delta;
+	}
+
+	@Override
+	public CloseableOrderedIterator<Pair<T, T>> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * Returns an {@link Iterable} over the left-hand elements within
+	 * {@code delta} of at least one right-hand element, in order
+	 * @return A new {@link Iterable}
+	 */
+	public CloseableOrderedIterable<T> lefts() {
+		return new CloseableOrderedIterable<T>() {
+			@Override
+			public CloseableOrderedIterator<T> iterator() {
+				return new LeftItr();
+			}
+			
+			@Override
+			public String toString() {
+				return "(near-lefts " + lhs + " " + rhs + " " + delta + ")";
+			}
+		};
+	}
+	
+	/**
+	 * The sliding window over the right-hand side
+	 * @author robin
+	 *
+	 */
+	protected class Window {
+		/**
+		 * {@link Iterator} of the left-hand side
+		 */
+		protected CloseableOrderedIterator<T> litr;
+		/**
+		 * {@link Iterator} of the right-hand side
+		 */
+		protected CloseableOrderedIterator<T> ritr;
+		/**
+		 * The right-hand elements within {@code delta} of {@link #left}
+		 */
+		protected final ArrayDeque<T> window = new ArrayDeque<T>();
+		/**
+		 * The next right-hand element not yet in the window
+		 */
+		protected T pending;
+		/**
+		 * {@code true} if {@link #pending} is set
+		 */
+		protected boolean ready;
+		/**
+		 * The current left-hand element
+		 */
+		protected T left;
+		/**
+		 * {@code true} once closed
+		 */
+		protected boolean done;
+		
+		/**
+		 * Move to the next left-hand element with at least one match, sliding the
+		 * window along the right-hand side.  The right-hand side is only opened if
+		 * the left-hand side is not empty.
+		 * @return {@code false} if there are no more matches
+		 */
+		protected boolean advance() {
+			if(done)
+				return false;
+			if(litr == null)
+				litr = Scanerator.open(lhs);
+			while(litr.hasNext()) {
+				T a = litr.next();
+				if(ritr == null) {
+					ritr = Scanerator.open(rhs);
+					pull();
+				}
+				// drop right-hand elements too far before a, and so before every later a
+				while(!window.isEmpty() && distance.applyAsLong(a, window.peekFirst()) < -delta)
+					window.pollFirst();
+				// take right-hand elements up to delta after a, skipping those too far before it
+				while(ready && distance.applyAsLong(a, pending) <= delta) {
+					if(distance.applyAsLong(a, pending) >= -delta)
+						window.addLast(pending);
+					pull();
+				}
+				if(!window.isEmpty()) {
+					left = a;
+					return true;
+				}
+				if(!ready) // no right-hand elements left to match
+					break;
+			}
+			close();
+			return false;
+		}
+		
+		/**
+		 * Pull the next right-hand element, if any
+		 */
+		protected void pull() {
+			ready = ritr.hasNext();
+			pending = ready ? ritr.next() : null;
+		}
+		
+		/**
+		 * Close both inputs
+		 */
+		public void close() {
+			done = true;
+			left = pending = null;
+			ready = false;
+			window.clear();
+			try {
+				if(litr != null)
+					litr.close();
+			} finally {
+				if(ritr != null)
+					ritr.close();
+			}
+		}
+	}
+	
+	/**
+	 * {@link Iterator} over the matching {@link Pair}s
+	 * @author robin
+	 *
+	 */
+	protected class Itr extends Window implements CloseableOrderedIterator<Pair<T, T>> {
+		/**
+		 * The window elements not yet paired with {@link #left}
+		 */
+		protected Iterator<T> matches;
+
+		@Override
+		public boolean hasNext() {
+			if(matches != null && matches.hasNext())
+				return true;
+			if(!advance())
+				return false;
+			matches = window.iterator();
+			return true;
+		}
+
+		@Override
+		public Pair<T, T> next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			return new Pair<T, T>(left, matches.next());
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public void close() {
+			matches = null;
+			super.close();
+		}
+	}
+	
+	/**
+	 * {@link Iterator} over the matching left-hand elements
+	 * @author robin
+	 *
+	 */
+	protected class LeftItr extends Window implements CloseableOrderedIterator<T> {
+		/**
+		 * {@code true} if {@link #left} has not been returned
+		 */
+		protected boolean fresh;
+
+		@Override
+		public boolean hasNext() {
+			if(!fresh)
+				fresh = advance();
+			return fresh;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			fresh = false;
+			return left;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public void close() {
+			fresh = false;
+			super.close();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(near " + lhs + " " + rhs + " " + delta + ")";
+	}
+}
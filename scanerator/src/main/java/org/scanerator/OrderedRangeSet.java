@@ -0,0 +1,639 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
+
+import org.scanerator.bitmap.Bitmap;
+import org.scanerator.list.Lists;
+
+/**
+ * Immutable set of keys represented as an ordered list of disjoint, non-adjacent
+ * half-open {@link Range}s, such as "rows 1M to 40M except a few gaps".  The
+ * interval algebra ({@link #and(OrderedRangeSet)}, {@link #or(OrderedRangeSet)},
+ * {@link #not(OrderedRangeSet)} and {@link #complement()}) costs time linear in the number of
+ * ranges, not keys.  A {@code null} bound is unbounded, as with {@link RangeIterable}.<p>
+ * 
+ * {@link #within(Iterable)} and {@link #outside(Iterable)} apply a {@link OrderedRangeSet} to an
+ * ordered {@link Iterable} of keys by seeking: each range is pushed down by
+ * {@link Scanerator#range(Comparator, Iterable, Object, Object)} into sources that can seek,
+ * and other sources are read once, skipping with {@link SkippingIterator#advanceTo(Object)}
+ * where possible.  {@link #of(Comparator, Iterable, UnaryOperator)} and
+ * {@link #elements(UnaryOperator)} convert between ranges and keys of a discrete type.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class OrderedRangeSet<T> implements SizedIterable<OrderedRangeSet.Range<T>> {
+	/**
+	 * The successor of a {@link Long}
+	 */
+	public static final UnaryOperator<Long> NEXT_LONG = new UnaryOperator<Long>() {
+		@Override
+		public Long apply(Long t) {
+			return t + 1;
+		}
+	};
+	/**
+	 * The successor of an {@link Integer}
+	 */
+	public static final UnaryOperator<Integer> NEXT_INTEGER = new UnaryOperator<Integer>() {
+		@Override
+		public Integer apply(Integer t) {
+			return t + 1;
+		}
+	};
+	
+	/**
+	 * A half-open range of keys
+	 * @author robin
+	 *
+	 * @param <T>
+	 */
+	public static class Range<T> {
+		/**
+		 * The least key in the range, or {@code null} for no lower bound
+		 */
+		protected final T from;
+		/**
+		 * The least key after the range, or {@code null} for no upper bound
+		 */
+		protected final T to;
+		
+		/**
+		 * Create a {@link Range}
+		 * @param from The least key in the range, or {@code null}
+		 * @param to The least key after the range, or {@code null}
+		 */
+		protected Range(T from, T to) {
+			this.from = from;
+			this.to = to;
+		}
+		
+		/**
+		 * Returns the least key in the range (inclusive)
+		 * @return The lower bound, or {@code null} for no lower bound
+		 */
+		public T from() {
+			return from;
+		}
+		
+		/**
+		 * Returns the least key after the range (exclusive)
+		 * @return The upper bound, or {@code null} for no upper bound
+		 */
+		public T to() {
+			return to;
+		}
+		
+		@Override
+		public String toString() {
+			return "[" + (from == null ? "" : from) + ", " + (to == null ? "" : to) + ")";
+		}
+	}
+	
+	/**
+	 * Collects ranges in ascending order of their lower bounds, merging
+	 * any that overlap or touch
+	 * @author robin
+	 *
+	 * @param <T>
+	 */
+	public static class Builder<T> {
+		/**
+		 * The {@link Comparator} for keys
+		 */
+		protected final Comparator<? super T> cmp;
+		/**
+		 * The lower bounds
+		 */
+		protected final List<T> froms = new ArrayList<T>();
+		/**
+		 * The upper bounds
+		 */
+		protected final List<T> tos = new ArrayList<T>();
+		
+		/**
+		 * Create a {@link Builder}
+		 * @param cmp The {@link Comparator} for keys
+		 */
+		public Builder(Comparator<? super T> cmp) {
+			if(cmp == null)
+				throw new IllegalArgumentException();
+			this.cmp = cmp;
+		}
+		
+		/**
+		 * Add a range, whose lower bound must not be less than that of the previous range.
+		 * Empty ranges are ignored.
+		 * @param from The least key in the range, or {@code null}
+		 * @param to The least key after the range, or {@code null}
+		 * @return This {@link Builder}
+		 */
+		public Builder<T> add(T from, T to) {
+			if(from != null && to != null && cmp.compare(from, to) >= 0)
+				return this;
+			int n = froms.size();
+			if(n > 0) {
+				T lastFrom = froms.get(n - 1), lastTo = tos.get(n - 1);
+				if(from == null ? lastFrom != null : lastFrom != null && cmp.compare(from, lastFrom) < 0)
+					throw new IllegalArgumentException("Ranges must be added in ascending order");
+				if(lastTo == null || from == null || cmp.compare(from, lastTo) <= 0) { // overlapping or touching
+					if(lastTo != null && (to == null || cmp.compare(to, lastTo) > 0))
+						tos.set(n - 1, to);
+					return this;
+				}
+			}
+			froms.add(from);
+			tos.add(to);
+			return this;
+		}
+		
+		/**
+		 * Build the {@link OrderedRangeSet}
+		 * @return A new {@link OrderedRangeSet}
+		 */
+		public OrderedRangeSet<T> build() {
+			return new OrderedRangeSet<T>(cmp, new ArrayList<T>(froms), new ArrayList<T>(tos));
+		}
+	}
+	
+	/**
+	 * Returns the {@link OrderedRangeSet} of a single range
+	 * @param cmp The {@link Comparator} for keys
+	 * @param from The least key in the range, or {@code null}
+	 * @param to The least key after the range, or {@code null}
+	 * @return A new {@link OrderedRangeSet}
+	 */
+	public static <T> OrderedRangeSet<T> of(Comparator<? super T> cmp, T from, T to) {
+		return new Builder<T>(cmp).add(from, to).build();
+	}
+	
+	/**
+	 * Returns the run-length form of an ordered {@link Iterable} of discrete keys,
+	 * each run of consecutive keys becoming one range
+	 * @param cmp The {@link Comparator} for keys
+	 * @param keys The keys
+	 * @param successor The next key after a key, such as {@link #NEXT_LONG}
+	 * @return A new {@link OrderedRangeSet}
+	 */
+	public static <T> OrderedRangeSet<T> of(Comparator<? super T> cmp, Iterable<T> keys, UnaryOperator<T> successor) {
+		if(successor == null)
+			throw new IllegalArgumentException();
+		Builder<T> b = new Builder<T>(cmp);
+		CloseableOrderedIterator<T> itr = Scanerator.open(keys);
+		try {
+			while(itr.hasNext()) {
+				T key = itr.next();
+				T next = successor.apply(key);
+				b.add(key, cmp.compare(next, key) > 0 ? next : null); // the greatest key has no successor
+			}
+		} finally {
+			itr.close();
+		}
+		return b.build();
+	}
+	
+	/**
+	 * The {@link Comparator} for keys
+	 */
+	protected final Comparator<? super T> cmp;
+	/**
+	 * The lower bounds of the ranges
+	 */
+	protected final List<T> froms;
+	/**
+	 * The upper bounds of the ranges
+	 */
+	protected final List<T> tos;
+	
+	/**
+	 * Create an {@link OrderedRangeSet} of disjoint, ordered ranges
+	 * @param cmp The {@link Comparator} for keys
+	 * @param froms The lower bounds of the ranges
+	 * @param tos The upper bounds of the ranges
+	 */
+	protected OrderedRangeSet(Comparator<? super T> cmp, List<T> froms, List<T> tos) {
+		this.cmp = cmp;
+		this.froms = froms;
+		this.tos = tos;
+	}
+	
+	/**
+	 * Returns the number of ranges
+	 */
+	@Override
+	public long size() {
+		return froms.size();
+	}
+	
+	/**
+	 * Returns whether a key is in one of the ranges
+	 * @param key The key
+	 * @return {@code true} if the key is in this {@link OrderedRangeSet}
+	 */
+	public boolean contains(T key) {
+		// find the last range starting at or before key
+		int lo = 0, hi = froms.size();
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			T from = froms.get(mid);
+			if(from == null || cmp.compare(from, key) <= 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		if(lo == 0)
+			return false;
+		T to = tos.get(lo - 1);
+		return to == null || cmp.compare(key, to) < 0;
+	}
+	
+	/**
+	 * Compare two lower bounds, {@code null} being the least
+	 */
+	private int compareFrom(T a, T b) {
+		return a == null ? (b == null ? 0 : -1) : b == null ? 1 : cmp.compare(a, b);
+	}
+	
+	/**
+	 * Compare two upper bounds, {@code null} being the greatest
+	 */
+	private int compareTo(T a, T b) {
+		return a == null ? (b == null ? 0 : 1) : b == null ? -1 : cmp.compare(a, b);
+	}
+	
+	/**
+	 * Returns the keys in either this or another {@link OrderedRangeSet}
+	 * @param other The other {@link OrderedRangeSet}
+	 * @return A new {@link OrderedRangeSet}
+	 */
+	public OrderedRangeSet<T> or(OrderedRangeSet<T> other) {
+		Builder<T> b = new Builder<T>(cmp);
+		int i = 0, j = 0;
+		while(i < froms.size() || j < other.froms.size()) {
+			if(j == other.froms.size() || i < froms.size() && compareFrom(froms.get(i), other.froms.get(j)) <= 0) {
+				b.add(froms.get(i), tos.get(i));
+				i++;
+			} else {
+				b.add(other.froms.get(j), other.tos.get(j));
+				j++;
+			}
+		}
+		return b.build();
+	}
+	
+	/**
+	 * Returns the keys in both this and another {@link OrderedRangeSet}
+	 * @param other The other {@link OrderedRangeSet}
+	 * @return A new {@link OrderedRangeSet}
+	 */
+	public OrderedRangeSet<T> and(OrderedRangeSet<T> other) {
+		Builder<T> b = new Builder<T>(cmp);
+		int i = 0, j = 0;
+		while(i < froms.size() && j < other.froms.size()) {
+			T from = compareFrom(froms.get(i), other.froms.get(j)) >= 0 ? froms.get(i) : other.froms.get(j);
+			int c = compareTo(tos.get(i), other.tos.get(j));
+			b.add(from, c <= 0 ? tos.get(i) : other.tos.get(j));
+			if(c <= 0) // the range ending first can't overlap anything further
+				i++;
+			else
+				j++;
+		}
+		return b.build();
+	}
+	
+	/**
+	 * Returns the keys in this but not another {@link OrderedRangeSet}
+	 * @param other The other {@link OrderedRangeSet}
+	 * @return A new {@link OrderedRangeSet}
+	 */
+	public OrderedRangeSet<T> not(OrderedRangeSet<T> other) {
+		return and(other.complement());
+	}
+	
+	/**
+	 * Returns the keys not in this {@link OrderedRangeSet}
+	 * @return A new {@link OrderedRangeSet}
+	 */
+	public OrderedRangeSet<T> complement() {
+		Builder<T> b = new Builder<T>(cmp);
+		if(froms.isEmpty())
+			return b.add(null, null).build();
+		if(froms.get(0) != null)
+			b.add(null, froms.get(0));
+		for(int i = 1; i < froms.size(); i++)
+			b.add(tos.get(i - 1), froms.get(i));
+		T last = tos.get(tos.size() - 1);
+		if(last != null)
+			b.add(last, null);
+		return b.build();
+	}
+	
+	/**
+	 * Returns the keys of an ordered {@link Iterable} that are in this {@link OrderedRangeSet}
+	 * @param keys The keys, ordered by the {@link Comparator} of this {@link OrderedRangeSet}
+	 * @return A new {@link Iterable}
+	 */
+	public CloseableOrderedIterable<T> within(final Iterable<T> keys) {
+		if(keys == null)
+			throw new IllegalArgumentException();
+		return new CloseableOrderedIterable<T>() {
+			@Override
+			public CloseableOrderedIterator<T> iterator() {
+				if(seekable(Expression.unwrap(keys)))
+					return new SeekingItr(keys);
+				return new StreamingItr(keys);
+			}
+			
+			@Override
+			public String toString() {
+				return "(within " + OrderedRangeSet.this + " " + keys + ")";
+			}
+		};
+	}
+	
+	/**
+	 * Returns the keys of an ordered {@link Iterable} that are not in this {@link OrderedRangeSet}
+	 * @param keys The keys, ordered by the {@link Comparator} of this {@link OrderedRangeSet}
+	 * @return A new {@link Iterable}
+	 */
+	public CloseableOrderedIterable<T> outside(Iterable<T> keys) {
+		return complement().within(keys);
+	}
+	
+	/**
+	 * Returns whether ranges of an {@link Iterable} can be read without reading it from the start.
+	 * A lazy list still to be read (see {@link Lists#isLazy(Iterable)}) is streamed instead.
+	 * @param itr The {@link Iterable}
+	 * @return {@code true} if {@link Scanerator#range(Comparator, Iterable, Object, Object)} seeks it
+	 */
+	protected boolean seekable(Iterable<T> itr) {
+		if(itr instanceof Bitmap)
+			return cmp == Comparators.NATURAL_ORDER;
+		return itr instanceof RangeIterable || itr instanceof List && itr instanceof RandomAccess && !Lists.isLazy(itr);
+	}
+	
+	/**
+	 * Returns the keys in the ranges, which must all be bounded
+	 * @param successor The next key after a key, such as {@link #NEXT_LONG}
+	 * @return A new {@link Iterable}
+	 */
+	public CloseableOrderedIterable<T> elements(final UnaryOperator<T> successor) {
+		if(successor == null)
+			throw new IllegalArgumentException();
+		if(!froms.isEmpty() && (froms.get(0) == null || tos.get(tos.size() - 1) == null))
+			throw new IllegalStateException("Cannot enumerate an unbounded range");
+		return new CloseableOrderedIterable<T>() {
+			@Override
+			public CloseableOrderedIterator<T> iterator() {
+				return new CloseableOrderedIterator<T>() {
+					/**
+					 * The index of the current range
+					 */
+					private int i;
+					/**
+					 * The next key, or {@code null} to start the current range
+					 */
+					private T next;
+
+					@Override
+					public boolean hasNext() {
+						if(next != null && cmp.compare(next, tos.get(i)) < 0)
+							return true;
+						if(next != null)
+							i++;
+						if(i >= froms.size()) {
+							close();
+							return false;
+						}
+						next = froms.get(i);
+						return true;
+					}
+
+					@Override
+					public T next() {
+						if(!hasNext())
+							throw new NoSuchElementException();
+						T key = next;
+						T succ = successor.apply(key);
+						next = cmp.compare(succ, key) > 0 ? succ : tos.get(i); // stop on overflow
+						return key;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+
+					@Override
+					public void close() {
+						i = froms.size();
+						next = null;
+					}
+				};
+			}
+			
+			@Override
+			public String toString() {
+				return "(elements " + OrderedRangeSet.this + ")";
+			}
+		};
+	}
+	
+	/**
+	 * {@link Iterator} over the keys within the ranges of a seekable
+	 * {@link Iterable}, which opens it once per range
+	 * @author robin
+	 *
+	 */
+	protected class SeekingItr implements CloseableOrderedIterator<T> {
+		/**
+		 * The keys
+		 */
+		protected final Iterable<T> keys;
+		/**
+		 * The index of the next range
+		 */
+		protected int i;
+		/**
+		 * The {@link Iterator} of the current range, or {@code null}
+		 */
+		protected CloseableOrderedIterator<T> current;
+		
+		/**
+		 * Create a {@link SeekingItr}
+		 * @param keys The keys
+		 */
+		protected SeekingItr(Iterable<T> keys) {
+			this.keys = keys;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while(current == null || !current.hasNext()) {
+				if(current != null) {
+					current.close();
+					current = null;
+				}
+				if(i >= froms.size())
+					return false;
+				current = Scanerator.open(Scanerator.range(cmp, keys, froms.get(i), tos.get(i)));
+				i++;
+			}
+			return true;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			return current.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			i = froms.size();
+			if(current != null) {
+				current.close();
+				current = null;
+			}
+		}
+	}
+	
+	/**
+	 * {@link Iterator} over the keys within the ranges of any ordered
+	 * {@link Iterable}, which reads it once
+	 * @author robin
+	 *
+	 */
+	protected class StreamingItr implements CloseableOrderedIterator<T> {
+		/**
+		 * The keys
+		 */
+		protected final Iterable<T> keys;
+		/**
+		 * The {@link Iterator} of the keys, or {@code null} before priming
+		 */
+		protected CloseableOrderedIterator<T> itr;
+		/**
+		 * The index of the current range
+		 */
+		protected int i;
+		/**
+		 * The next key
+		 */
+		protected T pending;
+		/**
+		 * {@code true} if {@link #pending} is set
+		 */
+		protected boolean ready;
+		
+		/**
+		 * Create a {@link StreamingItr}
+		 * @param keys The keys
+		 */
+		protected StreamingItr(Iterable<T> keys) {
+			this.keys = keys;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while(true) {
+				if(i >= froms.size()) {
+					close();
+					return false;
+				}
+				T from = froms.get(i), to = tos.get(i);
+				if(!ready) {
+					if(itr == null)
+						itr = Scanerator.open(keys);
+					if(from != null && itr instanceof SkippingIterator) // seek to the range
+						((SkippingIterator<T>) itr).advanceTo(from);
+					if(!itr.hasNext()) {
+						close();
+						return false;
+					}
+					pending = itr.next();
+					ready = true;
+				}
+				if(from != null && cmp.compare(pending, from) < 0)
+					ready = false; // before the range
+				else if(to != null && cmp.compare(pending, to) >= 0)
+					i++; // after the range, so perhaps in the next one
+				else
+					return true;
+			}
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			ready = false;
+			T key = pending;
+			pending = null;
+			return key;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			i = froms.size();
+			ready = false;
+			pending = null;
+			if(itr != null)
+				itr.close();
+		}
+	}
+
+	@Override
+	public Iterator<Range<T>> iterator() {
+		return new Iterator<Range<T>>() {
+			/**
+			 * The index of the next range
+			 */
+			private int i;
+			
+			@Override
+			public boolean hasNext() {
+				return i < froms.size();
+			}
+
+			@Override
+			public Range<T> next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				Range<T> r = new Range<T>(froms.get(i), tos.get(i));
+				i++;
+				return r;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("(ranges");
+		for(Range<T> r : this)
+			sb.append(" ").append(r);
+		return sb.append(")").toString();
+	}
+}
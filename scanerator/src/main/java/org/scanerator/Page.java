@@ -0,0 +1,63 @@
+package org.scanerator;
+
+import java.util.List;
+
+/**
+ * A page of elements returned by {@link Scanerator#limit(java.util.Comparator, Iterable, int)},
+ * with the {@link Continuation} from which the next page can be read
+ * @author robin
+ *
+ * @param <T>
+ */
+public class Page<T> {
+	/**
+	 * The elements of this {@link Page}
+	 */
+	protected List<T> elements;
+	/**
+	 * The {@link Continuation} of the next page, or {@code null}
+	 */
+	protected Continuation<T> continuation;
+	
+	/**
+	 * Create a {@link Page}
+	 * @param elements The elements of the page
+	 * @param continuation The {@link Continuation} of the next page, or {@code null} if this is the last page
+	 */
+	public Page(List<T> elements, Continuation<T> continuation) {
+		if(elements == null)
+			throw new IllegalArgumentException();
+		this.elements = elements;
+		this.continuation = continuation;
+	}
+	
+	/**
+	 * Returns the elements of this {@link Page}
+	 * @return The elements
+	 */
+	public List<T> elements() {
+		return elements;
+	}
+	
+	/**
+	 * Returns the {@link Continuation} from which the next page can be read,
+	 * or {@code null} if this is the last page
+	 * @return The {@link Continuation}, or {@code null}
+	 */
+	public Continuation<T> continuation() {
+		return continuation;
+	}
+	
+	/**
+	 * Returns whether there are more elements after this {@link Page}
+	 * @return {@code true} if {@link #continuation()} is not {@code null}
+	 */
+	public boolean hasMore() {
+		return continuation != null;
+	}
+	
+	@Override
+	public String toString() {
+		return elements + (continuation == null ? "" : " " + continuation);
+	}
+}
@@ -0,0 +1,65 @@
+package org.scanerator;
+
+/**
+ * A pair of elements returned by a {@link JoinIterable}; either side
+ * is {@code null} if an outer join found no match for the other
+ * @author robin
+ *
+ * @param <A> The type of the left-hand element
+ * @param <B> The type of the right-hand element
+ */
+public class Pair<A, B> {
+	/**
+	 * The left-hand element
+	 */
+	protected final A left;
+	/**
+	 * The right-hand element
+	 */
+	protected final B right;
+	
+	/**
+	 * Create a {@link Pair}
+	 * @param left The left-hand element, or {@code null}
+	 * @param right The right-hand element, or {@code null}
+	 */
+	public Pair(A left, B right) {
+		this.left = left;
+		this.right = right;
+	}
+	
+	/**
+	 * Returns the left-hand element
+	 * @return The left-hand element, or {@code null}
+	 */
+	public A left() {
+		return left;
+	}
+	
+	/**
+	 * Returns the right-hand element
+	 * @return The right-hand element, or {@code null}
+	 */
+	public B right() {
+		return right;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof Pair))
+			return false;
+		Pair<?, ?> p = (Pair<?, ?>) obj;
+		return (left == null ? p.left == null : left.equals(p.left))
+				&& (right == null ? p.right == null : right.equals(p.right));
+	}
+	
+	@Override
+	public int hashCode() {
+		return 31 * (left == null ? 0 : left.hashCode()) + (right == null ? 0 : right.hashCode());
+	}
+	
+	@Override
+	public String toString() {
+		return "(" + left + ", " + right + ")";
+	}
+}
@@ -0,0 +1,148 @@
+package org.scanerator;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Execution mode that evaluates the subtrees of an operator tree on worker
+ * threads.  {@link #apply(Iterable)} rebuilds the top {@link #depth} levels
+ * of a tree of {@link IntersectionIterable}, {@link UnionIterable},
+ * {@link SubtractionIterable}, {@link DedupIterable} and {@link CheckedIterable}
+ * operators so that each input of those operators is a {@link PipelinedIterable}.
+ * Independent subtrees, such as the halves of the balanced trees built by
+ * {@link Scanerator#any(Comparator, List)} and {@link Scanerator#all(Comparator, List)},
+ * then run concurrently, while the root still produces a single ordered output
+ * on the iterating thread.<p>
+ * 
+ * Worker threads are created by a {@link ThreadFactory}; on JDK 21 and later
+ * {@code Thread.ofVirtual().factory()} runs each stage on a virtual thread.
+ * @author robin
+ *
+ * @see PipelinedIterable
+ */
+public class Pipeline {
+	/**
+	 * Default number of elements in a batch
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	/**
+	 * Default number of batches a stage may run ahead
+	 */
+	public static final int DEFAULT_QUEUE_DEPTH = 4;
+	/**
+	 * Default number of levels of the tree to pipeline
+	 */
+	public static final int DEFAULT_DEPTH = 2;
+	
+	/**
+	 * {@link ThreadFactory} creating daemon platform threads
+	 */
+	public static final ThreadFactory DAEMON_THREADS = new ThreadFactory() {
+		private final AtomicInteger count = new AtomicInteger();
+		
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "scanerator-pipeline-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	};
+	
+	/**
+	 * Creates the worker threads
+	 */
+	protected ThreadFactory threads;
+	/**
+	 * The number of levels of the tree to pipeline
+	 */
+	protected int depth;
+	/**
+	 * The number of elements in a batch
+	 */
+	protected int batchSize;
+	/**
+	 * The number of batches a stage may run ahead
+	 */
+	protected int queueDepth;
+	
+	/**
+	 * Create a {@link Pipeline} with default settings
+	 * @param threads Creates the worker threads
+	 */
+	public Pipeline(ThreadFactory threads) {
+		this(threads, DEFAULT_DEPTH, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_DEPTH);
+	}
+	
+	/**
+	 * Create a {@link Pipeline}
+	 * @param threads Creates the worker threads
+	 * @param depth The number of levels of the tree to pipeline; a tree whose
+	 * operators are all binary uses up to {@code 2^(depth+1) - 2} workers
+	 * @param batchSize The number of elements in a batch
+	 * @param queueDepth The number of batches a stage may run ahead
+	 */
+	public Pipeline(ThreadFactory threads, int depth, int batchSize, int queueDepth) {
+		if(threads == null)
+			throw new IllegalArgumentException();
+		if(depth < 0 || batchSize <= 0 || queueDepth <= 0)
+			throw new IllegalArgumentException("Invalid pipeline depth " + depth + ", batch size " + batchSize + " or queue depth " + queueDepth);
+		this.threads = threads;
+		this.depth = depth;
+		this.batchSize = batchSize;
+		this.queueDepth = queueDepth;
+	}
+	
+	/**
+	 * Rebuild an operator tree so that its subtrees run on worker threads.
+	 * The root of the tree is evaluated by the iterating thread.
+	 * @param tree The operator tree
+	 * @return An {@link Iterable} with the same elements as {@code tree}
+	 */
+	public <T> Iterable<T> apply(Iterable<T> tree) {
+		return apply(tree, 0);
+	}
+	
+	/**
+	 * Rebuild the operator at {@code level} of a tree
+	 * @param itr The operator
+	 * @param level The level of {@code itr}
+	 * @return The rebuilt operator
+	 */
+	protected <T> Iterable<T> apply(Iterable<T> itr, int level) {
+		itr = Expression.unwrap(itr);
+		if(level >= depth)
+			return itr;
+		if(itr instanceof IntersectionIterable) {
+			IntersectionIterable<T> op = (IntersectionIterable<T>) itr;
+			return new IntersectionIterable<T>(op.cmp, stage(op.lhs, level), stage(op.rhs, level));
+		}
+		if(itr instanceof UnionIterable) {
+			UnionIterable<T> op = (UnionIterable<T>) itr;
+			return new UnionIterable<T>(op.cmp, stage(op.lhs, level), stage(op.rhs, level));
+		}
+		if(itr instanceof SubtractionIterable) {
+			SubtractionIterable<T> op = (SubtractionIterable<T>) itr;
+			return new SubtractionIterable<T>(op.cmp, stage(op.lhs, level), stage(op.rhs, level));
+		}
+		if(itr instanceof DedupIterable) {
+			DedupIterable<T> op = (DedupIterable<T>) itr;
+			return new DedupIterable<T>(op.cmp, stage(op.wrapped, level));
+		}
+		if(itr instanceof CheckedIterable) {
+			CheckedIterable<T> op = (CheckedIterable<T>) itr;
+			return new CheckedIterable<T>(op.cmp, stage(op.wrapped, level), op.dropDescending);
+		}
+		return itr;
+	}
+	
+	/**
+	 * Rebuild an input of an operator and run it on a worker
+	 * @param input The input
+	 * @param level The level of the operator
+	 * @return A {@link PipelinedIterable}
+	 */
+	protected <T> Iterable<T> stage(Iterable<T> input, int level) {
+		return new PipelinedIterable<T>(apply(input, level + 1), threads, batchSize, queueDepth);
+	}
+}
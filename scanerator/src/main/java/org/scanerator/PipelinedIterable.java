@@ -0,0 +1,210 @@
+package org.scanerator;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link Iterable} that evaluates another {@link Iterable} on a worker thread.
+ * The worker pulls elements from its source and passes them to the iterating
+ * thread in batches through a bounded {@link BatchQueue}; when the queue is
+ * full the worker waits, so it never runs more than a few batches ahead.<p>
+ * 
+ * The worker is started when the first element is needed.  Closing the
+ * {@link java.util.Iterator} cancels the worker, which then closes its source;
+ * a worker blocked inside its source notices the cancellation once the
+ * source returns.  An exception thrown by the source is rethrown to the
+ * iterating thread after the elements that preceded it.
+ * @author robin
+ *
+ * @param <T>
+ * @see Pipeline
+ */
+public class PipelinedIterable<T> implements CloseableOrderedIterable<T> {
+	/**
+	 * The {@link Iterable} evaluated by the worker
+	 */
+	protected Iterable<T> source;
+	/**
+	 * Creates worker threads
+	 */
+	protected ThreadFactory threads;
+	/**
+	 * The number of elements in a full batch
+	 */
+	protected int batchSize;
+	/**
+	 * The number of batches the worker may run ahead
+	 */
+	protected int queueDepth;
+	
+	/**
+	 * Create a {@link PipelinedIterable}
+	 * @param source The {@link Iterable} to evaluate on a worker thread
+	 * @param threads Creates the worker thread, which may be a platform or a virtual thread
+	 * @param batchSize The number of elements in a full batch
+	 * @param queueDepth The number of batches the worker may run ahead
+	 */
+	public PipelinedIterable(Iterable<T> source, ThreadFactory threads, int batchSize, int queueDepth) {
+		if(source == null || threads == null)
+			throw new IllegalArgumentException();
+		if(batchSize <= 0 || queueDepth <= 0)
+			throw new IllegalArgumentException("Batch size and queue depth must be positive");
+		this.source = source;
+		this.threads = threads;
+		this.batchSize = batchSize;
+		this.queueDepth = queueDepth;
+	}
+
+	@Override
+	public CloseableOrderedIterator<T> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * {@link java.util.Iterator} which consumes the batches produced by a {@link Worker}
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<T> {
+		/**
+		 * The worker, or {@code null} if not yet started
+		 */
+		protected Worker worker;
+		/**
+		 * The current batch
+		 */
+		protected Object[] batch;
+		/**
+		 * The index of the next element in {@link #batch}
+		 */
+		protected int idx;
+		/**
+		 * {@code true} once exhausted or closed
+		 */
+		protected boolean closed;
+		
+		public boolean hasNext() {
+			if(closed)
+				return false;
+			if(worker == null) {
+				worker = new Worker();
+				Thread t = threads.newThread(worker);
+				if(t == null)
+					throw new IllegalStateException("Thread factory " + threads + " returned null");
+				t.start();
+			}
+			while(batch == null || idx == batch.length) {
+				try {
+					batch = worker.queue.take();
+				} catch(InterruptedException e) {
+					close();
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for " + source, e);
+				}
+				idx = 0;
+				if(batch == null) {
+					closed = true;
+					Throwable t = worker.failure;
+					if(t != null)
+						rethrow(t);
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			T e = (T) batch[idx];
+			batch[idx++] = null;
+			return e;
+		}
+		
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		public void close() {
+			closed = true;
+			batch = null;
+			if(worker != null)
+				worker.queue.cancel();
+		}
+	}
+	
+	/**
+	 * Pulls elements from {@link PipelinedIterable#source} and queues them in batches
+	 * @author robin
+	 *
+	 */
+	protected class Worker implements Runnable {
+		/**
+		 * The batches produced so far
+		 */
+		protected final BatchQueue<Object[]> queue = new BatchQueue<Object[]>(queueDepth);
+		/**
+		 * The exception thrown by the source, if any
+		 */
+		protected volatile Throwable failure;
+		
+		public void run() {
+			CloseableOrderedIterator<T> itr = null;
+			Object[] b = new Object[batchSize];
+			int n = 0;
+			try {
+				itr = Scanerator.open(source);
+				while(!queue.isCancelled() && itr.hasNext()) {
+					T e = itr.next(); // before n++, which would otherwise count a failed element
+					b[n++] = e;
+					if(n == batchSize) {
+						if(!queue.put(b))
+							break;
+						b = new Object[batchSize];
+						n = 0;
+					}
+				}
+				if(n > 0)
+					queue.put(Arrays.copyOf(b, n));
+			} catch(Throwable t) {
+				failure = t;
+				// deliver the elements that preceded the failure
+				if(n > 0 && !(t instanceof InterruptedException)) {
+					try {
+						queue.put(Arrays.copyOf(b, n));
+					} catch(InterruptedException e) {
+						// the failure is reported regardless
+					}
+				}
+			} finally {
+				try {
+					if(itr != null)
+						itr.close();
+				} catch(Throwable t) {
+					if(failure == null)
+						failure = t;
+				}
+				queue.finish();
+			}
+		}
+	}
+	
+	/**
+	 * Rethrow the exception of a worker on the iterating thread
+	 * @param t The exception
+	 */
+	private static void rethrow(Throwable t) {
+		if(t instanceof RuntimeException)
+			throw (RuntimeException) t;
+		if(t instanceof Error)
+			throw (Error) t;
+		throw new IllegalStateException("Pipelined stage failed", t);
+	}
+
+	@Override
+	public String toString() {
+		return "(pipelined " + source + ")";
+	}
+}
@@ -0,0 +1,400 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.scanerator.list.Lists;
+
+/**
+ * {@link Iterable} that is the intersection ({@link #ALL}) or subtraction ({@link #NOT})
+ * of two {@link Iterable}s, like {@link IntersectionIterable} and {@link SubtractionIterable},
+ * but which picks its strategy per {@link Iterator} from the sizes of its inputs.<p>
+ * 
+ * Inputs whose size is known up front ({@link SizedIterable}s and {@link Collection}s)
+ * are only buffered if they fit; otherwise up to {@code budget} elements of an input
+ * are buffered to find out.  If an input fits in the budget, its {@link Iterator} is
+ * closed immediately and the other input is streamed once, each element checked
+ * against the buffered elements by a cursor that only moves forwards (a
+ * {@link Strategy#PROBE_LHS} or {@link Strategy#PROBE_RHS}).  Otherwise the buffered
+ * prefixes are replayed into a merge ({@link Strategy#MERGE}).  Only the right-hand
+ * side of a subtraction is ever probed.  Either way the result, including
+ * duplicates, is the same as that of the merge.<p>
+ * 
+ * The chosen strategies are counted, see {@link #count(Strategy)} and {@link #strategy()}.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class ProbeIterable<T> extends AbstractOrderedIterable<T> {
+	/**
+	 * Operator returning the intersection of the inputs
+	 */
+	public static final int ALL = 1;
+	/**
+	 * Operator returning the left-hand side less the right-hand side
+	 */
+	public static final int NOT = 3;
+	
+	/**
+	 * How an {@link Iterator} of a {@link ProbeIterable} evaluates its operator
+	 * @author robin
+	 *
+	 */
+	public static enum Strategy {
+		/**
+		 * Both inputs are merged, as by {@link IntersectionIterable} or {@link SubtractionIterable}
+		 */
+		MERGE,
+		/**
+		 * The left-hand side is buffered, and the right-hand side streamed
+		 */
+		PROBE_LHS,
+		/**
+		 * The right-hand side is buffered, and the left-hand side streamed
+		 */
+		PROBE_RHS
+	}
+	
+	/**
+	 * The operator, {@link #ALL} or {@link #NOT}
+	 */
+	protected final int op;
+	/**
+	 * The left-hand side
+	 */
+	protected Iterable<T> lhs;
+	/**
+	 * The right-hand side
+	 */
+	protected Iterable<T> rhs;
+	/**
+	 * The maximum number of elements of an input to buffer
+	 */
+	protected final int budget;
+	/**
+	 * The number of {@link Iterator}s that chose each {@link Strategy}, by ordinal
+	 */
+	protected final AtomicLongArray counts = new AtomicLongArray(Strategy.values().length);
+	/**
+	 * The {@link Strategy} chosen by the most recent {@link Iterator}, or {@code null}
+	 */
+	protected volatile Strategy strategy;
+	
+	/**
+	 * Create a {@link ProbeIterable}
+	 * @param cmp {@link Comparator} for equality
+	 * @param op The operator, {@link #ALL} or {@link #NOT}
+	 * @param lhs The left-hand side
+	 * @param rhs The right-hand side
+	 * @param budget The maximum number of elements of an input to buffer
+	 */
+	public ProbeIterable(Comparator<? super T> cmp, int op, Iterable<T> lhs, Iterable<T> rhs, int budget) {
+		super(cmp);
+		if(lhs == null || rhs == null)
+			throw new IllegalArgumentException();
+		if(op != ALL && op != NOT)
+			throw new IllegalArgumentException("Unknown operator " + op);
+		if(budget <= 0)
+			throw new IllegalArgumentException("Budget must be positive");
+		this.op = op;
+		this.lhs = lhs;
+		this.rhs = rhs;
+		this.budget = budget;
+	}
+	
+	/**
+	 * Returns the number of {@link Iterator}s that have chosen a {@link Strategy}
+	 * @param s The {@link Strategy}
+	 * @return The count
+	 */
+	public long count(Strategy s) {
+		return counts.get(s.ordinal());
+	}
+	
+	/**
+	 * Returns the {@link Strategy} chosen by the most recent {@link Iterator}
+	 * @return The {@link Strategy}, or {@code null} if none has been chosen yet
+	 */
+	public Strategy strategy() {
+		return strategy;
+	}
+	
+	/**
+	 * Returns the number of elements of an {@link Iterable} if it is
+	 * known without iterating it, which it isn't for a lazy list still
+	 * to be read (see {@link Lists#isLazy(Iterable)})
+	 * @param itr The {@link Iterable}
+	 * @return The number of elements, or {@code -1}
+	 */
+	protected static long hint(Iterable<?> itr) {
+		itr = Expression.unwrap(itr);
+		if(itr instanceof SizedIterable)
+			return ((SizedIterable<?>) itr).size();
+		if(itr instanceof Collection && !Lists.isLazy(itr))
+			return ((Collection<?>) itr).size();
+		return -1;
+	}
+
+	@Override
+	public CloseableOrderedIterator<T> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * One-shot {@link Iterable} replaying buffered elements before
+	 * the rest of an open {@link Iterator}
+	 * @author robin
+	 *
+	 */
+	protected class Replay implements CloseableOrderedIterable<T> {
+		/**
+		 * The buffered elements
+		 */
+		protected final List<T> buffer;
+		/**
+		 * The rest of the elements
+		 */
+		protected final CloseableOrderedIterator<T> rest;
+		
+		/**
+		 * Create a {@link Replay}
+		 * @param buffer The buffered elements
+		 * @param rest The rest of the elements
+		 */
+		protected Replay(List<T> buffer, CloseableOrderedIterator<T> rest) {
+			this.buffer = buffer;
+			this.rest = rest;
+		}
+
+		@Override
+		public CloseableOrderedIterator<T> iterator() {
+			return new CloseableOrderedIterator<T>() {
+				/**
+				 * The index of the next buffered element
+				 */
+				private int i;
+				
+				@Override
+				public boolean hasNext() {
+					return i < buffer.size() || rest.hasNext();
+				}
+
+				@Override
+				public T next() {
+					if(i < buffer.size())
+						return buffer.get(i++);
+					return rest.next();
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void close() {
+					i = buffer.size();
+					rest.close();
+				}
+			};
+		}
+		
+		@Override
+		public String toString() {
+			return rest.toString();
+		}
+	}
+	
+	/**
+	 * {@link Iterator} which chooses a {@link Strategy} when first used
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<T> {
+		/**
+		 * The chosen {@link Strategy}, or {@code null} before priming
+		 */
+		protected Strategy chosen;
+		/**
+		 * The streamed input, or the merge
+		 */
+		protected CloseableOrderedIterator<T> stream;
+		/**
+		 * The buffered input when probing
+		 */
+		protected List<T> probe;
+		/**
+		 * The index of the first buffered element that might equal the next streamed one
+		 */
+		protected int cursor;
+		/**
+		 * The next element
+		 */
+		protected T next;
+		/**
+		 * {@code true} if {@link #next} is set
+		 */
+		protected boolean ready;
+		/**
+		 * {@code true} once the {@link Strategy} has been chosen
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Returns the {@link Strategy} of this {@link Iterator}
+		 * @return The {@link Strategy}, or {@code null} if not chosen yet
+		 */
+		public Strategy strategy() {
+			return chosen;
+		}
+		
+		/**
+		 * Buffer up to {@link #budget} elements of an input
+		 * @param itr The input
+		 * @param buffer Receives the elements
+		 * @return {@code true} if the input was exhausted (and closed)
+		 */
+		protected boolean fill(CloseableOrderedIterator<T> itr, List<T> buffer) {
+			while(buffer.size() < budget && itr.hasNext())
+				buffer.add(itr.next());
+			if(itr.hasNext())
+				return false;
+			itr.close(); // release the scanner at once
+			return true;
+		}
+		
+		/**
+		 * Choose the {@link Strategy}.  The right-hand side is only opened
+		 * if the left-hand side is not empty.
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
+			CloseableOrderedIterator<T> litr = Scanerator.open(lhs);
+			if(!litr.hasNext()) {
+				litr.close();
+				return;
+			}
+			CloseableOrderedIterator<T> ritr = null;
+			try {
+				ritr = Scanerator.open(rhs);
+				long lsize = hint(lhs), rsize = hint(rhs);
+				boolean lcandidate = op == ALL && lsize <= budget;
+				boolean rcandidate = rsize <= budget;
+				List<T> lbuf = new ArrayList<T>(), rbuf = new ArrayList<T>();
+				// try the input known to be smaller first, or else the right-hand side
+				boolean lfirst = lcandidate && lsize >= 0 && (rsize < 0 || lsize < rsize);
+				if(lfirst && fill(litr, lbuf))
+					choose(Strategy.PROBE_LHS, lbuf, new Replay(rbuf, ritr).iterator());
+				else if(rcandidate && fill(ritr, rbuf))
+					choose(Strategy.PROBE_RHS, rbuf, new Replay(lbuf, litr).iterator());
+				else if(lcandidate && !lfirst && fill(litr, lbuf))
+					choose(Strategy.PROBE_LHS, lbuf, new Replay(rbuf, ritr).iterator());
+				else {
+					Iterable<T> l = new Replay(lbuf, litr), r = new Replay(rbuf, ritr);
+					choose(Strategy.MERGE, null, Scanerator.open(op == ALL
+							? new IntersectionIterable<T>(cmp, l, r)
+							: new SubtractionIterable<T>(cmp, l, r)));
+				}
+			} catch(RuntimeException e) {
+				try {
+					litr.close();
+				} finally {
+					if(ritr != null)
+						ritr.close();
+				}
+				throw e;
+			}
+		}
+		
+		/**
+		 * Record the chosen {@link Strategy}
+		 * @param s The {@link Strategy}
+		 * @param probe The buffered input, or {@code null}
+		 * @param stream The streamed input, or the merge
+		 */
+		protected void choose(Strategy s, List<T> probe, CloseableOrderedIterator<T> stream) {
+			chosen = s;
+			this.probe = probe;
+			this.stream = stream;
+			counts.incrementAndGet(s.ordinal());
+			strategy = s;
+		}
+
+		@Override
+		public boolean hasNext() {
+			prime();
+			while(!ready && stream != null) {
+				if(!stream.hasNext()) {
+					close();
+					break;
+				}
+				T e = stream.next();
+				if(probe == null) { // merging
+					next = e;
+					ready = true;
+					break;
+				}
+				while(cursor < probe.size() && cmp.compare(probe.get(cursor), e) < 0)
+					cursor++;
+				boolean found = cursor < probe.size() && cmp.compare(probe.get(cursor), e) == 0;
+				if(op == NOT) {
+					if(!found) {
+						next = e;
+						ready = true;
+					}
+				} else if(found) { // a buffered element matches one streamed element, as in the merge
+					next = chosen == Strategy.PROBE_LHS ? probe.get(cursor) : e;
+					ready = true;
+					if(++cursor == probe.size()) { // nothing left to match, so release the stream now
+						CloseableOrderedIterator<T> s = stream;
+						stream = null;
+						s.close();
+					}
+				} else if(cursor == probe.size()) {
+					close(); // nothing left to match
+				}
+			}
+			return ready;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			T e = next;
+			next = null;
+			ready = false;
+			return e;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			primed = true;
+			ready = false;
+			next = null;
+			probe = null;
+			if(stream != null) {
+				CloseableOrderedIterator<T> s = stream;
+				stream = null;
+				s.close();
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(" + (op == ALL ? "all" : "not") + " " + lhs + " " + rhs + ")";
+	}
+}
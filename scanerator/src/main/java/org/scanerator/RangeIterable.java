@@ -0,0 +1,22 @@
+package org.scanerator;
+
+/**
+ * {@link Iterable} that can seek directly to a range of its elements, such as
+ * a scan with start and stop rows or a {@link org.scanerator.bitmap.Bitmap}.
+ * {@link Scanerator#range(java.util.Comparator, Iterable, Object, Object)}
+ * pushes key ranges down to {@link RangeIterable} sources; other sources
+ * are wrapped in a {@link BoundedIterable}.
+ * @author robin
+ *
+ * @param <T>
+ */
+public interface RangeIterable<T> extends Iterable<T> {
+	/**
+	 * Returns an {@link Iterable} over the elements of this {@link RangeIterable}
+	 * from {@code from} (inclusive) up to {@code to} (exclusive)
+	 * @param from The least element to return, or {@code null} for no lower bound
+	 * @param to The element at which to stop, or {@code null} for no upper bound
+	 * @return An {@link Iterable} over the range
+	 */
+	public Iterable<T> range(T from, T to);
+}
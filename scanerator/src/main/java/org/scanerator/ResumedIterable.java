@@ -0,0 +1,119 @@
+package org.scanerator;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link Iterable} over the elements of an operator tree following a
+ * {@link Continuation}.  The tree is restricted to elements not less than
+ * the {@link Continuation#key()}, so that its sources seek straight to it,
+ * and then the elements equal to the key that were already returned are skipped.
+ * @author robin
+ *
+ * @param <T>
+ * @see Scanerator#resumeFrom(Comparator, Iterable, Continuation)
+ */
+public class ResumedIterable<T> extends AbstractOrderedIterable<T> {
+	/**
+	 * The restricted operator tree
+	 */
+	protected Iterable<T> wrapped;
+	/**
+	 * The {@link Continuation} to resume from
+	 */
+	protected Continuation<T> continuation;
+	
+	/**
+	 * Create a {@link ResumedIterable}
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param itr The operator tree
+	 * @param continuation The {@link Continuation} to resume from
+	 */
+	public ResumedIterable(Comparator<? super T> cmp, Iterable<T> itr, Continuation<T> continuation) {
+		super(cmp);
+		if(itr == null || continuation == null)
+			throw new IllegalArgumentException();
+		this.wrapped = Scanerator.range(cmp, itr, continuation.key, null);
+		this.continuation = continuation;
+	}
+
+	@Override
+	public CloseableOrderedIterator<T> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * Iterator that skips the elements already returned
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<T> {
+		/**
+		 * Wrapped {@link java.util.Iterator}
+		 */
+		protected CloseableOrderedIterator<T> itr = Scanerator.open(wrapped);
+		/**
+		 * The first element after the skipped elements
+		 */
+		protected T next;
+		/**
+		 * {@code true} if {@link #next} is set
+		 */
+		protected boolean ready;
+		/**
+		 * {@code true} once the elements already returned have been skipped
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Skip the elements already returned
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
+			long skipped = 0;
+			while(skipped < continuation.skip && itr.hasNext()) {
+				T e = itr.next();
+				if(cmp().compare(e, continuation.key) != 0) {
+					next = e;
+					ready = true;
+					return;
+				}
+				skipped++;
+			}
+		}
+		
+		public boolean hasNext() {
+			prime();
+			return ready || itr.hasNext();
+		}
+		
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			if(!ready)
+				return itr.next();
+			T e = next;
+			next = null;
+			ready = false;
+			return e;
+		}
+		
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		public void close() {
+			primed = true;
+			next = null;
+			ready = false;
+			itr.close();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(resume " + continuation + " " + wrapped + ")";
+	}
+}
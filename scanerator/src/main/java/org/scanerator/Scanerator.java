@@ -1,11 +1,26 @@
 package org.scanerator;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 
 import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.bitmap.Bitmap;
+import org.scanerator.bitmap.IntBitmap;
+import org.scanerator.bitmap.LongBitmap;
+import org.scanerator.list.Lists;
+import org.scanerator.list.OrderedIteratorList;
 
 /**
  * Utility class for dealing with {@link Iterable}s
@@ -39,6 +54,8 @@ public class Scanerator {
 	 * @return A new {@link Iterable}
 	 */
 	public static <T> Iterable<T> checked(Comparator<? super T> cmp, Iterable<T> itr, boolean dropDescending) {
+		if(itr instanceof Bitmap && cmp == Comparators.NATURAL_ORDER) // bitmaps are always in order
+			return itr;
 		return new CheckedIterable<T>(cmp, itr, dropDescending);
 	}
 	
@@ -88,16 +105,41 @@ public class Scanerator {
 	/**
 	 * Returns an {@link Iterable} that is the logical intersection
 	 * of {@code lhs} and {@code rhs}, using {@code cmp} to determine
-	 * equality.
+	 * equality.  If {@code lhs} and {@code rhs} are {@link Bitmap}s
+	 * of the same type, returns {@link Bitmap#and(Bitmap)}.
 	 * @param cmp {@link Comparator} for equality
 	 * @param lhs Left-hand {@link Iterable} for intersection
 	 * @param rhs Right-hand {@link Iterable} for intersection
 	 * @return A new {@link Iterable}
 	 */
+	@SuppressWarnings("unchecked")
 	public static <T> Iterable<T> all(Comparator<? super T> cmp, Iterable<T> lhs, Iterable<T> rhs) {
+		if(Bitmap.compatible(cmp, lhs, rhs))
+			return (Iterable<T>) ((Bitmap<?>) lhs).and((Bitmap) rhs);
 		return new IntersectionIterable<T>(cmp, lhs, rhs);
 	}
 	
+	/**
+	 * Returns an {@link Iterable} that is the logical intersection
+	 * of {@code lhs} and {@code rhs}, like {@link #all(Comparator, Iterable, Iterable)},
+	 * but which buffers an input of at most {@code budget} elements, releasing it,
+	 * and streams the other input once against it, instead of merging them.
+	 * Unless {@code lhs} and {@code rhs} are compatible {@link Bitmap}s, returns
+	 * a {@link ProbeIterable}, which counts the strategy chosen by each {@link java.util.Iterator}.
+	 * @param cmp {@link Comparator} for equality
+	 * @param lhs Left-hand {@link Iterable} for intersection
+	 * @param rhs Right-hand {@link Iterable} for intersection
+	 * @param budget The maximum number of elements to buffer
+	 * @return A new {@link Iterable}
+	 * @see ProbeIterable
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Iterable<T> all(Comparator<? super T> cmp, Iterable<T> lhs, Iterable<T> rhs, int budget) {
+		if(Bitmap.compatible(cmp, lhs, rhs))
+			return (Iterable<T>) ((Bitmap<?>) lhs).and((Bitmap) rhs);
+		return new ProbeIterable<T>(cmp, ProbeIterable.ALL, lhs, rhs, budget);
+	}
+	
 	/**
 	 * Return an {@link Iterable} that is the logical intersection
 	 * of all {@link Iterable}s in the argument {@code list}.  If {@code list}
@@ -120,9 +162,28 @@ public class Scanerator {
 		// return intersection of all(left) and all(right)
 		Iterable<T> lhs = all(cmp, left);
 		Iterable<T> rhs = all(cmp, right);
-		return new IntersectionIterable<T>(cmp, lhs, rhs);
+		return all(cmp, lhs, rhs);
 	}
 
+	/**
+	 * Return an {@link Iterable} that is the logical intersection of all
+	 * {@link Iterable}s in {@code list}, like {@link #all(Comparator, List)}, but which
+	 * re-ranks its inputs while scanning so that the input currently rejecting the
+	 * most elements drives the search.  If {@code list} is empty, returns an empty
+	 * {@link Iterable}.
+	 * @param cmp {@link Comparator} for equality
+	 * @param list {@link Iterable}s to be intersected
+	 * @return A new {@link Iterable}
+	 * @see AdaptiveIntersectionIterable
+	 */
+	public static <T> Iterable<T> allAdaptive(Comparator<? super T> cmp, List<Iterable<T>> list) {
+		if(list.size() == 0)
+			return empty();
+		if(list.size() == 1)
+			return list.get(0);
+		return new AdaptiveIntersectionIterable<T>(cmp, list);
+	}
+	
 	/**
 	 * Return an {@link Iterable} that is the logical union
 	 * of all {@link Iterable}s in the argument {@code itrs}.  If
@@ -201,7 +262,7 @@ public class Scanerator {
 		// return union of any(left) and any(right)
 		Iterable<T> lhs = any(cmp, left);
 		Iterable<T> rhs = any(cmp, right);
-		return new UnionIterable<T>(cmp, lhs, rhs);
+		return any(cmp, lhs, rhs);
 	}
 	
 	/**
@@ -220,17 +281,171 @@ public class Scanerator {
 
 	/**
 	 * Return an {@link Iterable} that is the logical
-	 * subtraction of {@code rhs} from {@code lhs}.
+	 * subtraction of {@code rhs} from {@code lhs}.  If {@code lhs} and {@code rhs}
+	 * are {@link Bitmap}s of the same type, returns {@link Bitmap#andNot(Bitmap)}.
 	 * @param cmp {@link Comparator} for equality
 	 * @param lhs {@link Iterable} in which returned elements must be found
 	 * @param rhs {@link Iterable} in which returned elements must not be found
 	 * @return A new {@link Iterable}
 	 * @see SubtractionIterable
 	 */
+	@SuppressWarnings("unchecked")
 	public static <T> Iterable<T> not(Comparator<? super T> cmp, Iterable<T> lhs, Iterable<T> rhs) {
+		if(Bitmap.compatible(cmp, lhs, rhs))
+			return (Iterable<T>) ((Bitmap<?>) lhs).andNot((Bitmap) rhs);
 		return new SubtractionIterable<T>(cmp, lhs, rhs);
 	}
 	
+	/**
+	 * Return an {@link Iterable} that is the logical subtraction of {@code rhs}
+	 * from {@code lhs}, like {@link #not(Comparator, Iterable, Iterable)}, but which
+	 * buffers {@code rhs} if it has at most {@code budget} elements, releasing it,
+	 * and streams {@code lhs} once against it, instead of merging them.
+	 * Unless {@code lhs} and {@code rhs} are compatible {@link Bitmap}s, returns
+	 * a {@link ProbeIterable}, which counts the strategy chosen by each {@link java.util.Iterator}.
+	 * @param cmp {@link Comparator} for equality
+	 * @param lhs {@link Iterable} in which returned elements must be found
+	 * @param rhs {@link Iterable} in which returned elements must not be found
+	 * @param budget The maximum number of elements to buffer
+	 * @return A new {@link Iterable}
+	 * @see ProbeIterable
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Iterable<T> not(Comparator<? super T> cmp, Iterable<T> lhs, Iterable<T> rhs, int budget) {
+		if(Bitmap.compatible(cmp, lhs, rhs))
+			return (Iterable<T>) ((Bitmap<?>) lhs).andNot((Bitmap) rhs);
+		return new ProbeIterable<T>(cmp, ProbeIterable.NOT, lhs, rhs, budget);
+	}
+	
+	/**
+	 * Returns the inner sort-merge join of {@code lhs} and {@code rhs}, a {@link Pair}
+	 * for every pair of elements with equal keys, in key order.
+	 * @param lhs The left-hand side, ordered by {@code lkey}
+	 * @param rhs The right-hand side, ordered by {@code rkey}
+	 * @param lkey The key of a left-hand element
+	 * @param rkey The key of a right-hand element
+	 * @param cmp The {@link Comparator} ordering both sides by key
+	 * @return A new {@link Iterable}
+	 * @see JoinIterable
+	 */
+	public static <A, B, K> Iterable<Pair<A, B>> join(Iterable<A> lhs, Iterable<B> rhs,
+			Function<? super A, ? extends K> lkey, Function<? super B, ? extends K> rkey, Comparator<? super K> cmp) {
+		return new JoinIterable<A, B, K>(lhs, rhs, lkey, rkey, cmp, JoinIterable.Type.INNER);
+	}
+	
+	/**
+	 * Returns the left outer sort-merge join of {@code lhs} and {@code rhs}, which is
+	 * {@link #join(Iterable, Iterable, Function, Function, Comparator)} plus a {@link Pair}
+	 * with a {@code null} right-hand side for every unmatched left-hand element.
+	 * @param lhs The left-hand side, ordered by {@code lkey}
+	 * @param rhs The right-hand side, ordered by {@code rkey}
+	 * @param lkey The key of a left-hand element
+	 * @param rkey The key of a right-hand element
+	 * @param cmp The {@link Comparator} ordering both sides by key
+	 * @return A new {@link Iterable}
+	 * @see JoinIterable
+	 */
+	public static <A, B, K> Iterable<Pair<A, B>> leftOuterJoin(Iterable<A> lhs, Iterable<B> rhs,
+			Function<? super A, ? extends K> lkey, Function<? super B, ? extends K> rkey, Comparator<? super K> cmp) {
+		return new JoinIterable<A, B, K>(lhs, rhs, lkey, rkey, cmp, JoinIterable.Type.LEFT_OUTER);
+	}
+	
+	/**
+	 * Returns the full outer sort-merge join of {@code lhs} and {@code rhs}, which is
+	 * {@link #join(Iterable, Iterable, Function, Function, Comparator)} plus a {@link Pair}
+	 * with one {@code null} side for every unmatched element of either side.
+	 * @param lhs The left-hand side, ordered by {@code lkey}
+	 * @param rhs The right-hand side, ordered by {@code rkey}
+	 * @param lkey The key of a left-hand element
+	 * @param rkey The key of a right-hand element
+	 * @param cmp The {@link Comparator} ordering both sides by key
+	 * @return A new {@link Iterable}
+	 * @see JoinIterable
+	 */
+	public static <A, B, K> Iterable<Pair<A, B>> fullOuterJoin(Iterable<A> lhs, Iterable<B> rhs,
+			Function<? super A, ? extends K> lkey, Function<? super B, ? extends K> rkey, Comparator<? super K> cmp) {
+		return new JoinIterable<A, B, K>(lhs, rhs, lkey, rkey, cmp, JoinIterable.Type.FULL_OUTER);
+	}
+	
+	/**
+	 * Returns the band join of {@code lhs} and {@code rhs}: a {@link Pair} for every
+	 * left-hand element and every right-hand element at most {@code delta} from it,
+	 * in order.  {@link NearIterable#lefts()} returns just the left-hand elements
+	 * with at least one match.
+	 * @param lhs The left-hand side
+	 * @param rhs The right-hand side
+	 * @param distance The signed distance from its first argument to its second,
+	 * consistent with the order of the inputs
+	 * @param delta The greatest distance of a match
+	 * @return A new {@link NearIterable}
+	 * @see NearIterable
+	 */
+	public static <T> NearIterable<T> near(Iterable<T> lhs, Iterable<T> rhs, ToLongBiFunction<? super T, ? super T> distance, long delta) {
+		return new NearIterable<T>(lhs, rhs, distance, delta);
+	}
+	
+	/**
+	 * Returns an {@link Iterable} over the results of combining each run of elements
+	 * of {@code itr} that are equal according to {@code cmp} with {@code collector},
+	 * in order, holding only the accumulation of the current run in memory.
+	 * @param itr The {@link Iterable} to group
+	 * @param cmp {@link Comparator} for equality
+	 * @param collector The {@link Collector} combining each run
+	 * @return A new {@link Iterable}
+	 * @see GroupIterable
+	 */
+	public static <T, A, R> Iterable<R> groupAdjacent(Iterable<T> itr, Comparator<? super T> cmp, Collector<? super T, A, R> collector) {
+		return new GroupIterable<T, A, R>(cmp, itr, collector);
+	}
+	
+	/**
+	 * Returns an {@link Iterable} in which each run of elements of {@code itr} that are
+	 * equal according to {@code cmp} is replaced by their reduction with {@code merge}.
+	 * If {@code merge} returns an element equal to its arguments, the result is
+	 * ordered by {@code cmp}.
+	 * @param cmp {@link Comparator} for equality
+	 * @param itr The {@link Iterable} to merge
+	 * @param merge The function merging two equal elements
+	 * @return A new {@link Iterable}
+	 * @see GroupIterable
+	 */
+	public static <T> Iterable<T> mergeDuplicates(Comparator<? super T> cmp, Iterable<T> itr, BinaryOperator<T> merge) {
+		if(merge == null)
+			throw new IllegalArgumentException();
+		return groupAdjacent(itr, cmp, Collectors.collectingAndThen(Collectors.reducing(merge), new Function<Optional<T>, T>() {
+			@Override
+			public T apply(Optional<T> t) {
+				return t.get();
+			}
+		}));
+	}
+	
+	/**
+	 * Returns an {@link Iterable} over the distinct elements of all {@link Iterable}s
+	 * in {@code list}, each tagged with the inputs that contained it.  Uses
+	 * {@link Comparators#naturalOrder()} to determine element equality.
+	 * @param list {@link Iterable}s to be unioned
+	 * @return A new {@link Iterable}
+	 * @see TaggedUnionIterable
+	 */
+	public static <T> Iterable<Tagged<T>> anyTagged(List<Iterable<T>> list) {
+		return anyTagged(Comparators.<T>naturalOrder(), list);
+	}
+	
+	/**
+	 * Returns an {@link Iterable} over the distinct elements of all {@link Iterable}s
+	 * in {@code list}, each tagged with the inputs that contained it, as a bitmask
+	 * for up to 64 inputs or a {@link java.util.BitSet}, and with the elements of
+	 * those inputs equal to it.  The inputs are merged in a single pass.
+	 * @param cmp {@link Comparator} for equality
+	 * @param list {@link Iterable}s to be unioned
+	 * @return A new {@link Iterable}
+	 * @see TaggedUnionIterable
+	 */
+	public static <T> Iterable<Tagged<T>> anyTagged(Comparator<? super T> cmp, List<Iterable<T>> list) {
+		return new TaggedUnionIterable<T>(cmp, list);
+	}
+	
 	/**
 	 * Return an {@link Iterable} that is the logical
 	 * subtraction of {@code rhs} from {@code lhs}.
@@ -246,16 +461,427 @@ public class Scanerator {
 	
 	/**
 	 * Return an {@link Iterable} that removes duplicate elements
-	 * returned by {@code itr}
+	 * returned by {@code itr}.  A {@link Bitmap} has no duplicates
+	 * and is returned as-is, and the union of two {@link Bitmap}s of the same
+	 * type is de-duplicated using {@link Bitmap#or(Bitmap)}.
 	 * @param cmp {@link Comparator} for equality
 	 * @param itr {@link Iterable} to de-duplicate
 	 * @return A new {@link Iterable}
 	 * @see DedupIterable
 	 */
+	@SuppressWarnings("unchecked")
 	public static <T> Iterable<T> dedup(Comparator<? super T> cmp, Iterable<T> itr) {
+		if(itr instanceof Bitmap && cmp == Comparators.NATURAL_ORDER)
+			return itr;
+		if(itr instanceof UnionIterable) {
+			UnionIterable<T> u = (UnionIterable<T>) itr;
+			if(Bitmap.compatible(cmp, u.lhs, u.rhs) && u.cmp == cmp)
+				return (Iterable<T>) ((Bitmap<?>) u.lhs).or((Bitmap) u.rhs);
+		}
 		return new DedupIterable<T>(cmp, itr);
 	}
 	
+	/**
+	 * Materialize an {@link Iterable} of {@link Integer}s as a compressed
+	 * {@link IntBitmap}, which can be iterated any number of times without
+	 * re-reading {@code itr}, and which is combined with other {@link IntBitmap}s
+	 * using word-parallel operations.  Duplicate elements of {@code itr} are dropped.
+	 * @param itr The {@link Iterable} to materialize
+	 * @return A new {@link IntBitmap}
+	 * @see Bitmap
+	 */
+	public static IntBitmap materializeBitmap(Iterable<Integer> itr) {
+		return new IntBitmap(itr);
+	}
+	
+	/**
+	 * Materialize an {@link Iterable} of {@link Long}s as a compressed
+	 * {@link LongBitmap}, which can be iterated any number of times without
+	 * re-reading {@code itr}, and which is combined with other {@link LongBitmap}s
+	 * using word-parallel operations.  Duplicate elements of {@code itr} are dropped.
+	 * @param itr The {@link Iterable} to materialize
+	 * @return A new {@link LongBitmap}
+	 * @see Bitmap
+	 */
+	public static LongBitmap materializeLongBitmap(Iterable<Long> itr) {
+		return new LongBitmap(itr);
+	}
+	
+	/**
+	 * Return an {@link Iterable} over the elements of {@code itr} from {@code from}
+	 * (inclusive) up to {@code to} (exclusive), using {@link Comparators#naturalOrder()}
+	 * @param itr The {@link Iterable} to restrict
+	 * @param from The least element to return, or {@code null} for no lower bound
+	 * @param to The element at which to stop, or {@code null} for no upper bound
+	 * @return A new {@link Iterable}
+	 * @see #range(Comparator, Iterable, Object, Object)
+	 */
+	public static <T> Iterable<T> range(Iterable<T> itr, T from, T to) {
+		return range(Comparators.naturalOrder(), itr, from, to);
+	}
+	
+	/**
+	 * Return an {@link Iterable} over the elements of {@code itr} from {@code from}
+	 * (inclusive) up to {@code to} (exclusive).  The bounds are pushed down through
+	 * the operators of this package ordered by {@code cmp} to the sources of
+	 * {@code itr}: a {@link RangeIterable} seeks to the range itself, a sorted
+	 * {@link RandomAccess} {@link List} is binary searched, an {@link OrderedIteratorList}
+	 * is searched by key when iterated, and any other source (including a lazy list
+	 * still to be read, see {@link Lists#isLazy(Iterable)}) is
+	 * wrapped in a {@link BoundedIterable}, which skips to {@code from} and stops
+	 * (closing the source) at {@code to}.  Every branch of the operator tree
+	 * therefore stops pulling as soon as it passes {@code to}.
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param itr The {@link Iterable} to restrict
+	 * @param from The least element to return, or {@code null} for no lower bound
+	 * @param to The element at which to stop, or {@code null} for no upper bound
+	 * @return A new {@link Iterable}
+	 */
+	public static <T> Iterable<T> range(Comparator<? super T> cmp, Iterable<T> itr, T from, T to) {
+		if(cmp == null || itr == null)
+			throw new IllegalArgumentException();
+		if(from != null && to != null && cmp.compare(from, to) >= 0)
+			return empty();
+		return range(cmp, itr, from, to, true);
+	}
+	
+	/**
+	 * Push a range down through an operator tree
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param itr The operator tree
+	 * @param from The lower bound, or {@code null}
+	 * @param to The upper bound, or {@code null}
+	 * @param sorted {@code false} if {@code itr} is wrapped by a {@link CheckedIterable},
+	 * and so might not be ordered
+	 * @return The restricted operator tree
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Iterable<T> range(Comparator<? super T> cmp, Iterable<T> itr, T from, T to, boolean sorted) {
+		itr = Expression.unwrap(itr);
+		if(itr instanceof EmptyIterable)
+			return itr;
+		if(itr instanceof Bitmap && cmp != Comparators.NATURAL_ORDER) // bitmaps can only seek in natural order
+			return new BoundedIterable<T>(cmp, itr, from, to);
+		if(itr instanceof RangeIterable)
+			return ((RangeIterable<T>) itr).range(from, to);
+		if(itr instanceof PipelinedIterable) {
+			PipelinedIterable<T> p = (PipelinedIterable<T>) itr;
+			return new PipelinedIterable<T>(range(cmp, p.source, from, to, sorted), p.threads, p.batchSize, p.queueDepth);
+		}
+		if(itr instanceof AbstractOrderedIterable && ((AbstractOrderedIterable<T>) itr).cmp == cmp) {
+			if(itr instanceof IntersectionIterable) {
+				IntersectionIterable<T> op = (IntersectionIterable<T>) itr;
+				return new IntersectionIterable<T>(cmp, range(cmp, op.lhs, from, to, true), range(cmp, op.rhs, from, to, true));
+			}
+			if(itr instanceof UnionIterable) {
+				UnionIterable<T> op = (UnionIterable<T>) itr;
+				return new UnionIterable<T>(cmp, range(cmp, op.lhs, from, to, true), range(cmp, op.rhs, from, to, true));
+			}
+			if(itr instanceof SubtractionIterable) {
+				SubtractionIterable<T> op = (SubtractionIterable<T>) itr;
+				return new SubtractionIterable<T>(cmp, range(cmp, op.lhs, from, to, true), range(cmp, op.rhs, from, to, true));
+			}
+			if(itr instanceof DedupIterable) {
+				DedupIterable<T> op = (DedupIterable<T>) itr;
+				return new DedupIterable<T>(cmp, range(cmp, op.wrapped, from, to, true));
+			}
+			if(itr instanceof CheckedIterable) {
+				CheckedIterable<T> op = (CheckedIterable<T>) itr;
+				return new CheckedIterable<T>(cmp, range(cmp, op.wrapped, from, to, false), op.dropDescending);
+			}
+			if(itr instanceof CompiledIterable)
+				return new CompiledIterable<T>(cmp, range(cmp, ((CompiledIterable<T>) itr).tree, from, to, true));
+		}
+		if(itr instanceof OrderedIteratorList && ((OrderedIteratorList<T>) itr).comparator() == cmp && to != null) {
+			final OrderedIteratorList<T> list = (OrderedIteratorList<T>) itr;
+			final T lo = from, hi = to;
+			return new CloseableOrderedIterable<T>() {
+				@Override
+				public CloseableOrderedIterator<T> iterator() {
+					return open(list.subListByKey(lo, hi)); // reads the list only up to hi
+				}
+			};
+		}
+		if(sorted && itr instanceof List && itr instanceof RandomAccess && !Lists.isLazy(itr)) {
+			List<T> list = (List<T>) itr;
+			int lo = from == null ? 0 : lowerBound(cmp, list, from);
+			int hi = to == null ? list.size() : lowerBound(cmp, list, to);
+			return list.subList(lo, Math.max(lo, hi));
+		}
+		return new BoundedIterable<T>(cmp, itr, from, to);
+	}
+	
+	/**
+	 * Returns the index of the first element of the sorted {@code list}
+	 * not less than {@code key}
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param list The sorted {@link List}
+	 * @param key The key
+	 * @return The index, or the size of {@code list}
+	 */
+	private static <T> int lowerBound(Comparator<? super T> cmp, List<T> list, T key) {
+		int lo = 0, hi = list.size();
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(cmp.compare(list.get(mid), key) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+	
+	/**
+	 * Returns the first {@code n} elements of {@code itr} as a {@link Page}, with a
+	 * {@link Continuation} from which the rest of {@code itr} can be read by
+	 * {@link #resumeFrom(Comparator, Iterable, Continuation)}.  Only the elements
+	 * of the page (and one more, to check whether there is a next page) are
+	 * pulled from {@code itr}, whose {@link CloseableOrderedIterator} is then closed.
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param itr The {@link Iterable}, possibly returned by
+	 * {@link #resumeFrom(Comparator, Iterable, Continuation)}
+	 * @param n The maximum number of elements in the page
+	 * @return A new {@link Page}
+	 */
+	public static <T> Page<T> limit(Comparator<? super T> cmp, Iterable<T> itr, int n) {
+		if(cmp == null || itr == null || n <= 0)
+			throw new IllegalArgumentException();
+		List<T> elements = new ArrayList<T>(Math.min(n, 1024));
+		CheckpointedIterator<T> i = new CheckpointedIterator<T>(cmp, itr);
+		try {
+			while(elements.size() < n && i.hasNext())
+				elements.add(i.next());
+			return new Page<T>(elements, i.hasNext() ? i.snapshot() : null);
+		} finally {
+			i.close();
+		}
+	}
+	
+	/**
+	 * Return an {@link Iterable} over the elements of {@code itr} that follow a
+	 * {@link Continuation} returned by {@link #limit(Comparator, Iterable, int)}.
+	 * The sources of {@code itr} seek straight to the {@link Continuation#key()}
+	 * (see {@link #range(Comparator, Iterable, Object, Object)}), so reading a late
+	 * page costs no more than reading the first.
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param itr The {@link Iterable} that was paged
+	 * @param continuation The {@link Continuation} of the previous page
+	 * @return A new {@link Iterable}
+	 * @see ResumedIterable
+	 */
+	public static <T> Iterable<T> resumeFrom(Comparator<? super T> cmp, Iterable<T> itr, Continuation<T> continuation) {
+		return new ResumedIterable<T>(cmp, itr, continuation);
+	}
+	
+	/**
+	 * Open a {@link CheckpointedIterator} over {@code itr}, whose position can be
+	 * saved at any time with {@link CheckpointedIterator#snapshot()}
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param itr The operator tree
+	 * @return A new {@link CheckpointedIterator}
+	 */
+	public static <T> CheckpointedIterator<T> checkpointed(Comparator<? super T> cmp, Iterable<T> itr) {
+		return new CheckpointedIterator<T>(cmp, itr);
+	}
+	
+	/**
+	 * Open a {@link CheckpointedIterator} over the elements of {@code itr} that follow
+	 * a checkpoint taken by {@link CheckpointedIterator#snapshot()}, typically by an
+	 * earlier process.  The sources of {@code itr} seek straight to the checkpoint.
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param itr The operator tree, over freshly opened sources
+	 * @param checkpoint The checkpoint, or {@code null} to start from the beginning
+	 * @return A new {@link CheckpointedIterator}
+	 */
+	public static <T> CheckpointedIterator<T> checkpointed(Comparator<? super T> cmp, Iterable<T> itr, Continuation<T> checkpoint) {
+		if(checkpoint == null)
+			return checkpointed(cmp, itr);
+		return new CheckpointedIterator<T>(cmp, resumeFrom(cmp, itr, checkpoint));
+	}
+	
+	/**
+	 * Open an {@link Iterator} over the elements of {@code itr} that can be
+	 * closed to release its resources.  If {@code itr} is a
+	 * {@link CloseableOrderedIterable} (such as an {@link Expression} or any
+	 * operator in this package) its own {@link CloseableOrderedIterator} is
+	 * returned; otherwise its {@link Iterator} is wrapped in a {@link SourceIterator}.
+	 * @param itr The {@link Iterable} to open
+	 * @return A new {@link CloseableOrderedIterator}
+	 * @see SourceIterator
+	 */
+	public static <T> CloseableOrderedIterator<T> open(Iterable<T> itr) {
+		if(itr instanceof CloseableOrderedIterable)
+			return ((CloseableOrderedIterable<T>) itr).iterator();
+		return new SourceIterator<T>(itr);
+	}
+	
+	/**
+	 * Returns the number of elements returned by {@code itr} without retaining them.
+	 * The count of a {@link SizedIterable} or {@link Collection} is its size (unless it is
+	 * a lazy list still to be read, see {@link Lists#isLazy(Iterable)}), the count
+	 * of a {@link UnionIterable} is the sum of the counts of its sides (which are
+	 * counted without merging them), and the count of a {@link DedupIterable} is
+	 * {@link #countDistinct(Comparator, Iterable)} of the {@link Iterable} it wraps.
+	 * Anything else is iterated, and its {@link CloseableOrderedIterator} closed.
+	 * @param itr The {@link Iterable} to count
+	 * @return The number of elements
+	 */
+	public static <T> long count(Iterable<T> itr) {
+		itr = Expression.unwrap(itr);
+		if(itr instanceof SizedIterable)
+			return ((SizedIterable<T>) itr).size();
+		if(itr instanceof Collection && !Lists.isLazy(itr))
+			return ((Collection<T>) itr).size();
+		if(itr instanceof UnionIterable) { // a union returns every element of both sides, shared ones twice, so the counts add
+			UnionIterable<T> u = (UnionIterable<T>) itr;
+			return count(u.lhs) + count(u.rhs);
+		}
+		if(itr instanceof DedupIterable) {
+			DedupIterable<T> d = (DedupIterable<T>) itr;
+			return countDistinct(d.cmp, d.wrapped);
+		}
+		long count = 0;
+		CloseableOrderedIterator<T> i = open(itr);
+		try {
+			while(i.hasNext()) {
+				i.next();
+				count++;
+			}
+		} finally {
+			i.close();
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the number of distinct elements returned by {@code itr}, using
+	 * {@link Comparators#naturalOrder()} to determine element equality
+	 * @param itr The {@link Iterable} to count
+	 * @return The number of distinct elements
+	 * @see #countDistinct(Comparator, Iterable)
+	 */
+	public static <T> long countDistinct(Iterable<T> itr) {
+		return countDistinct(Comparators.naturalOrder(), itr);
+	}
+	
+	/**
+	 * Returns the number of distinct elements returned by {@code itr}, using {@code cmp}
+	 * to determine element equality, without retaining more than one element.  A
+	 * {@link Bitmap} has no duplicates, so its count is its cardinality, and the
+	 * union of two {@link Bitmap}s of the same type is counted from the cardinalities
+	 * of the {@link Bitmap}s and of their intersection.
+	 * @param cmp {@link Comparator} for equality
+	 * @param itr The {@link Iterable} to count
+	 * @return The number of distinct elements
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> long countDistinct(Comparator<? super T> cmp, Iterable<T> itr) {
+		itr = Expression.unwrap(itr);
+		if(itr instanceof Bitmap && cmp == Comparators.NATURAL_ORDER)
+			return ((Bitmap<?>) itr).cardinality();
+		if(itr instanceof UnionIterable) {
+			UnionIterable<T> u = (UnionIterable<T>) itr;
+			if(Bitmap.compatible(cmp, u.lhs, u.rhs) && u.cmp == cmp) {
+				Bitmap<?> lhs = (Bitmap<?>) u.lhs;
+				Bitmap<?> rhs = (Bitmap<?>) u.rhs;
+				return lhs.cardinality() + rhs.cardinality() - lhs.and((Bitmap) rhs).cardinality();
+			}
+		}
+		long count = 0;
+		CloseableOrderedIterator<T> i = open(itr);
+		try {
+			T last = null;
+			while(i.hasNext()) {
+				T e = i.next();
+				if(count == 0 || cmp.compare(last, e) != 0)
+					count++;
+				last = e;
+			}
+		} finally {
+			i.close();
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns whether {@code itr} has no elements.  At most one element is read,
+	 * and the {@link CloseableOrderedIterator} is closed immediately afterwards.
+	 * @param itr The {@link Iterable} to check
+	 * @return {@code true} if {@code itr} has no elements
+	 */
+	public static <T> boolean isEmpty(Iterable<T> itr) {
+		itr = Expression.unwrap(itr);
+		if(itr instanceof SizedIterable)
+			return ((SizedIterable<T>) itr).size() == 0;
+		if(itr instanceof Collection)
+			return ((Collection<T>) itr).isEmpty();
+		CloseableOrderedIterator<T> i = open(itr);
+		try {
+			return !i.hasNext();
+		} finally {
+			i.close();
+		}
+	}
+	
+	/**
+	 * Returns the first (least) element of {@code itr}, closing the
+	 * {@link CloseableOrderedIterator} as soon as it has been read.  Throws
+	 * {@link NoSuchElementException} if {@code itr} is empty.
+	 * @param itr The {@link Iterable}
+	 * @return The first element
+	 */
+	public static <T> T first(Iterable<T> itr) {
+		CloseableOrderedIterator<T> i = open(itr);
+		try {
+			return i.next();
+		} finally {
+			i.close();
+		}
+	}
+	
+	/**
+	 * Returns the last (greatest) element of {@code itr}, retaining only the
+	 * most recent element while iterating.  A {@link Bitmap} or {@link List}, other
+	 * than a lazy list still to be read, returns its last element directly.  Throws {@link NoSuchElementException}
+	 * if {@code itr} is empty.
+	 * @param itr The {@link Iterable}
+	 * @return The last element
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T last(Iterable<T> itr) {
+		itr = Expression.unwrap(itr);
+		if(itr instanceof Bitmap)
+			return (T) ((Bitmap<?>) itr).last();
+		if(itr instanceof List && !Lists.isLazy(itr)) {
+			List<T> list = (List<T>) itr;
+			if(list.isEmpty())
+				throw new NoSuchElementException();
+			return list.get(list.size() - 1);
+		}
+		CloseableOrderedIterator<T> i = open(itr);
+		try {
+			T last = i.next();
+			while(i.hasNext())
+				last = i.next();
+			return last;
+		} finally {
+			i.close();
+		}
+	}
+	
+	/**
+	 * Return an {@link Iterable} with the same elements as the operator tree {@code itr},
+	 * whose subtrees are evaluated on worker threads created by {@code threads},
+	 * using the default {@link Pipeline} settings
+	 * @param itr The operator tree
+	 * @param threads Creates the worker threads
+	 * @return A new {@link Iterable}
+	 * @see Pipeline
+	 */
+	public static <T> Iterable<T> pipelined(Iterable<T> itr, ThreadFactory threads) {
+		return new Pipeline(threads).apply(itr);
+	}
+	
 	/**
 	 * Returns an {@link Iterable} that has no elements.
 	 * @return A new {@link Iterable}
@@ -0,0 +1,17 @@
+package org.scanerator;
+
+/**
+ * {@link Iterable} which knows how many elements its {@link #iterator()} returns
+ * without iterating.  Used by {@link Scanerator#count(Iterable)} and related
+ * aggregates to avoid iteration.
+ * @author robin
+ *
+ * @param <T>
+ */
+public interface SizedIterable<T> extends Iterable<T> {
+	/**
+	 * Returns the number of elements returned by {@link #iterator()}
+	 * @return The number of elements
+	 */
+	public long size();
+}
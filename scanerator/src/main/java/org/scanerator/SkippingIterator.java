@@ -0,0 +1,21 @@
+package org.scanerator;
+
+/**
+ * {@link CloseableOrderedIterator} that can skip ahead without returning the skipped
+ * elements, such as the {@link java.util.Iterator} of a
+ * {@link org.scanerator.posting.PostingList}, which skips whole blocks.
+ * {@link IntersectionIterable} and {@link SubtractionIterable} skip their inputs
+ * with {@link #advanceTo(Object)} when they can.
+ * @author robin
+ *
+ * @param <T>
+ */
+public interface SkippingIterator<T> extends CloseableOrderedIterator<T> {
+	/**
+	 * Skip the elements less than {@code target}, so that the next element
+	 * returned (if any) is not less than {@code target}.  Has no effect if the
+	 * next element is already not less than {@code target}.
+	 * @param target The least element that may be returned next
+	 */
+	public void advanceTo(T target);
+}
@@ -0,0 +1,96 @@
+package org.scanerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link CloseableOrderedIterator} wrapping the {@link Iterator} of an
+ * arbitrary {@link Iterable}, such as an HBase {@code ResultScanner}.
+ * Closing a {@link SourceIterator} closes the wrapped {@link Iterator} if it
+ * is {@link Closeable}; otherwise, if the wrapped {@link Iterable} is {@link Closeable}
+ * (as {@code ResultScanner} is), the {@link Iterable} is closed.
+ * The source is opened lazily, when its first element is needed, and
+ * closed automatically once it is exhausted.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class SourceIterator<T> implements CloseableOrderedIterator<T> {
+	/**
+	 * The wrapped {@link Iterable}
+	 */
+	protected Iterable<T> source;
+	/**
+	 * The {@link Iterator} of {@link #source}, or {@code null} if
+	 * {@link #source} has not yet been opened
+	 */
+	protected Iterator<T> itr;
+	/**
+	 * {@code true} once this {@link SourceIterator} has been closed
+	 */
+	protected boolean closed;
+	
+	/**
+	 * Create a {@link SourceIterator} over the elements of {@code source}
+	 * @param source The {@link Iterable} to wrap
+	 */
+	public SourceIterator(Iterable<T> source) {
+		if(source == null)
+			throw new IllegalArgumentException();
+		this.source = source;
+	}
+	
+	/**
+	 * Returns whether {@link #source} has been opened
+	 * @return {@code true} if {@link Iterable#iterator()} has been called on {@link #source}
+	 */
+	public boolean isOpen() {
+		return itr != null;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if(closed)
+			return false;
+		if(itr == null)
+			itr = source.iterator();
+		if(itr.hasNext())
+			return true;
+		// release an exhausted source right away
+		close();
+		return false;
+	}
+
+	@Override
+	public T next() {
+		if(!hasNext())
+			throw new NoSuchElementException();
+		return itr.next();
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void close() {
+		if(closed)
+			return;
+		closed = true;
+		Closeable c = null;
+		if(itr instanceof Closeable)
+			c = (Closeable) itr;
+		else if(source instanceof Closeable)
+			c = (Closeable) source;
+		if(c == null)
+			return;
+		try {
+			c.close();
+		} catch(IOException e) {
+			throw new IllegalStateException("Unable to close " + source, e);
+		}
+	}
+}
@@ -48,7 +48,7 @@ public class SubtractionIterable<T> extends AbstractOrderedIterable<T> {
 		this.rhs = rhs;
 	}
 
-	public Iterator<T> iterator() {
+	public CloseableOrderedIterator<T> iterator() {
 		return new Itr();
 	}
 
@@ -57,15 +57,15 @@ public class SubtractionIterable<T> extends AbstractOrderedIterable<T> {
 	 * @author robin
 	 *
 	 */
-	protected class Itr implements Iterator<T> {
+	protected class Itr implements CloseableOrderedIterator<T> {
 		/**
 		 * LHS {@link Iterator}
 		 */
-		protected Iterator<T> litr = lhs.iterator();
+		protected CloseableOrderedIterator<T> litr = Scanerator.open(lhs);
 		/**
 		 * RHS {@link Iterator}
 		 */
-		protected Iterator<T> ritr = rhs.iterator();
+		protected CloseableOrderedIterator<T> ritr = Scanerator.open(rhs);
 
 		/**
 		 * The next element from the left-hand side
@@ -91,22 +91,42 @@ public class SubtractionIterable<T> extends AbstractOrderedIterable<T> {
 						lnext.offer(litr.next());
 				} else { // if lhs is greater than RHS then advance RHS
 					rnext.poll();
+					if(ritr instanceof SkippingIterator) // to the first element not less than lhs
+						((SkippingIterator<T>) ritr).advanceTo(lnext.peek());
 					if(ritr.hasNext())
 						rnext.offer(ritr.next());
 				}
 			}
 		}
 		
-		public Itr() {
-			if(litr.hasNext())
+		/**
+		 * {@code true} once the first elements have been pulled from the inputs
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Pull the first elements from the inputs.  Called lazily, so that
+		 * no input is opened until one of its elements is actually needed.
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
+			if(litr.hasNext()) { // rhs is only opened if lhs is not empty
 				lnext.offer(litr.next());
-			if(ritr.hasNext())
-				rnext.offer(ritr.next());
+				if(ritr.hasNext())
+					rnext.offer(ritr.next());
+			}
 		}
 
 		public boolean hasNext() {
+			prime();
 			pull();
-			return !lnext.isEmpty();
+			if(lnext.isEmpty()) { // lhs is exhausted, so rhs can no longer matter
+				close();
+				return false;
+			}
+			return true;
 		}
 	
 		public T next() {
@@ -121,6 +141,19 @@ public class SubtractionIterable<T> extends AbstractOrderedIterable<T> {
 		public void remove() {
 			throw new UnsupportedOperationException();
 		}
+
+		public void close() {
+			primed = true;
+			if(!lnext.isEmpty())
+				lnext.poll();
+			if(!rnext.isEmpty())
+				rnext.poll();
+			try {
+				litr.close();
+			} finally {
+				ritr.close();
+			}
+		}
 	}
 
 	@Override
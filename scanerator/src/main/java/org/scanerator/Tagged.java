@@ -0,0 +1,113 @@
+package org.scanerator;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An element returned by a {@link TaggedUnionIterable}, with the inputs
+ * it was found in and the elements of those inputs equal to it
+ * @author robin
+ *
+ * @param <T>
+ */
+public class Tagged<T> {
+	/**
+	 * The first of {@link #elements}
+	 */
+	protected final T key;
+	/**
+	 * The inputs containing the element, as a bitmask, if there are at most 64 inputs
+	 */
+	protected final long mask;
+	/**
+	 * The inputs containing the element, as the words of a bitmask, if there
+	 * are more than 64 inputs, or {@code null}
+	 */
+	protected final long[] words;
+	/**
+	 * The elements equal to {@link #key}, in input order
+	 */
+	protected final List<T> elements;
+	
+	/**
+	 * Create a {@link Tagged} element
+	 * @param mask The inputs containing the element, as a bitmask, if there are at most 64 inputs
+	 * @param words The inputs containing the element, if there are more than 64 inputs, or {@code null}
+	 * @param elements The elements equal to the element, in input order
+	 */
+	protected Tagged(long mask, long[] words, List<T> elements) {
+		this.key = elements.get(0);
+		this.mask = mask;
+		this.words = words;
+		this.elements = elements;
+	}
+	
+	/**
+	 * Returns the element, which is the first of {@link #elements()}
+	 * @return The element
+	 */
+	public T key() {
+		return key;
+	}
+	
+	/**
+	 * Returns the inputs containing the element as a bitmask, bit {@code i}
+	 * being set if input {@code i} contained it.  Only defined for up
+	 * to 64 inputs.
+	 * @return The bitmask
+	 */
+	public long mask() {
+		if(words != null)
+			throw new IllegalStateException("More than 64 inputs, use inputs()");
+		return mask;
+	}
+	
+	/**
+	 * Returns the inputs containing the element as a {@link BitSet}
+	 * @return A new {@link BitSet}
+	 */
+	public BitSet inputs() {
+		return BitSet.valueOf(words != null ? words : new long[] { mask });
+	}
+	
+	/**
+	 * Returns whether an input contained the element
+	 * @param input The index of the input
+	 * @return {@code true} if the input contained the element
+	 */
+	public boolean contains(int input) {
+		if(input < 0)
+			return false;
+		if(words == null)
+			return input < 64 && (mask & (1L << input)) != 0;
+		int w = input >>> 6;
+		return w < words.length && (words[w] & (1L << input)) != 0;
+	}
+	
+	/**
+	 * Returns the number of inputs that contained the element
+	 * @return The number of inputs
+	 */
+	public int count() {
+		if(words == null)
+			return Long.bitCount(mask);
+		int n = 0;
+		for(long w : words)
+			n += Long.bitCount(w);
+		return n;
+	}
+	
+	/**
+	 * Returns the elements of the inputs equal to the element, ordered by input,
+	 * including any duplicates within an input
+	 * @return The elements
+	 */
+	public List<T> elements() {
+		return elements;
+	}
+	
+	@Override
+	public String toString() {
+		return key + " " + inputs();
+	}
+}
@@ -0,0 +1,219 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link Iterable} over the distinct elements of any number of {@link Iterable}s,
+ * each returned once as a {@link Tagged} element recording which inputs contained it.
+ * Computed by a single merge of the inputs using a heap of their next elements.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class TaggedUnionIterable<T> implements CloseableOrderedIterable<Tagged<T>> {
+	/**
+	 * The {@link Comparator} for equality
+	 */
+	protected Comparator<? super T> cmp;
+	/**
+	 * The inputs
+	 */
+	protected List<Iterable<T>> inputs;
+	
+	/**
+	 * Create a {@link TaggedUnionIterable}
+	 * @param cmp The {@link Comparator} for equality
+	 * @param inputs The inputs
+	 */
+	public TaggedUnionIterable(Comparator<? super T> cmp, List<Iterable<T>> inputs) {
+		if(cmp == null || inputs == null || inputs.contains(null))
+			throw new IllegalArgumentException();
+		this.cmp = cmp;
+		this.inputs = new ArrayList<Iterable<T>>(inputs);
+	}
+
+	@Override
+	public CloseableOrderedIterator<Tagged<T>> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * {@link Iterator} that merges the inputs
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<Tagged<T>> {
+		/**
+		 * The number of inputs
+		 */
+		protected final int n = inputs.size();
+		/**
+		 * The {@link Iterator}s of the inputs
+		 */
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		protected final CloseableOrderedIterator<T>[] itrs = new CloseableOrderedIterator[n];
+		/**
+		 * The next element of each input
+		 */
+		@SuppressWarnings("unchecked")
+		protected final T[] heads = (T[]) new Object[n];
+		/**
+		 * Binary min-heap of the indexes of the inputs with a next element, ordered
+		 * by their next elements and then by index
+		 */
+		protected final int[] heap = new int[n];
+		/**
+		 * The number of inputs in {@link #heap}
+		 */
+		protected int size;
+		/**
+		 * {@code true} once the inputs have been opened
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Open every input and pull its first element
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
+			for(int i = 0; i < n; i++) {
+				itrs[i] = Scanerator.open(inputs.get(i));
+				if(itrs[i].hasNext()) {
+					heads[i] = itrs[i].next();
+					heap[size++] = i;
+				}
+			}
+			for(int i = size / 2 - 1; i >= 0; i--)
+				down(i);
+		}
+		
+		/**
+		 * Returns whether an input should be above another in the heap
+		 * @param i The index of an input
+		 * @param j The index of another input
+		 * @return {@code true} if {@code i} is less than {@code j}
+		 */
+		protected boolean less(int i, int j) {
+			int c = cmp.compare(heads[i], heads[j]);
+			return c < 0 || c == 0 && i < j;
+		}
+		
+		/**
+		 * Restore the heap below a position
+		 * @param p The position
+		 */
+		protected void down(int p) {
+			int e = heap[p];
+			while(true) {
+				int c = 2 * p + 1;
+				if(c >= size)
+					break;
+				if(c + 1 < size && less(heap[c + 1], heap[c]))
+					c++;
+				if(!less(heap[c], e))
+					break;
+				heap[p] = heap[c];
+				p = c;
+			}
+			heap[p] = e;
+		}
+
+		@Override
+		public boolean hasNext() {
+			prime();
+			if(size == 0) {
+				close();
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public Tagged<T> next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			long mask = 0; // no allocation for up to 64 inputs
+			long[] words = n > 64 ? new long[(n + 63) >>> 6] : null;
+			T key = heads[heap[0]];
+			T only = null;
+			List<T> elements = null;
+			// take every element equal to the key, advancing each input past it
+			while(size > 0 && cmp.compare(heads[heap[0]], key) == 0) {
+				int i = heap[0];
+				if(words == null)
+					mask |= 1L << i;
+				else
+					words[i >>> 6] |= 1L << i;
+				if(only == null && elements == null)
+					only = heads[i];
+				else {
+					if(elements == null) {
+						elements = new ArrayList<T>();
+						elements.add(only);
+					}
+					elements.add(heads[i]);
+				}
+				if(itrs[i].hasNext())
+					heads[i] = itrs[i].next();
+				else {
+					heads[i] = null;
+					try {
+						itrs[i].close(); // release exhausted inputs at once
+					} finally {
+						itrs[i] = null;
+					}
+					heap[0] = heap[--size];
+				}
+				if(size > 0)
+					down(0);
+			}
+			return new Tagged<T>(mask, words, elements == null ? Collections.singletonList(only) : elements);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			primed = true;
+			size = 0;
+			close(0);
+		}
+		
+		/**
+		 * Close the {@link Iterator}s of the inputs from {@code i}
+		 * @param i The first input to close
+		 */
+		private void close(int i) {
+			for(; i < n; i++) {
+				if(itrs[i] != null) {
+					heads[i] = null;
+					try {
+						itrs[i].close();
+					} finally {
+						itrs[i] = null;
+						close(i + 1);
+					}
+					return;
+				}
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("(any-tagged");
+		for(Iterable<T> i : inputs)
+			sb.append(" ").append(i);
+		return sb.append(")").toString();
+	}
+}
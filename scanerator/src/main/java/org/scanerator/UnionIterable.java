@@ -48,7 +48,7 @@ public class UnionIterable<T> extends AbstractOrderedIterable<T> {
 		this.rhs = rhs;
 	}
 
-	public Iterator<T> iterator() {
+	public CloseableOrderedIterator<T> iterator() {
 		return new Itr();
 	}
 
@@ -57,15 +57,15 @@ public class UnionIterable<T> extends AbstractOrderedIterable<T> {
 	 * @author robin
 	 *
 	 */
-	protected class Itr implements Iterator<T> {
+	protected class Itr implements CloseableOrderedIterator<T> {
 		/**
 		 * left-hand side {@link Iterator}
 		 */
-		protected Iterator<T> litr = lhs.iterator();
+		protected CloseableOrderedIterator<T> litr = Scanerator.open(lhs);
 		/**
 		 * right-hand side {@link Iterator}
 		 */
-		protected Iterator<T> ritr = rhs.iterator();
+		protected CloseableOrderedIterator<T> ritr = Scanerator.open(rhs);
 
 		/**
 		 * Upcoming elements
@@ -80,7 +80,19 @@ public class UnionIterable<T> extends AbstractOrderedIterable<T> {
 		 */
 		protected T rlast;
 		
-		public Itr() {
+		/**
+		 * {@code true} once the first elements have been pulled from the inputs
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Pull the first elements from the inputs.  Called lazily, so that
+		 * no input is opened until one of its elements is actually needed.
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
 			if(litr.hasNext())
 				next.offer(llast = litr.next());
 			if(ritr.hasNext())
@@ -88,6 +100,7 @@ public class UnionIterable<T> extends AbstractOrderedIterable<T> {
 		}
 
 		public boolean hasNext() {
+			prime();
 			return !next.isEmpty();
 		}
 	
@@ -117,6 +130,17 @@ public class UnionIterable<T> extends AbstractOrderedIterable<T> {
 		public void remove() {
 			throw new UnsupportedOperationException();
 		}
+
+		public void close() {
+			primed = true;
+			while(!next.isEmpty())
+				next.poll();
+			try {
+				litr.close();
+			} finally {
+				ritr.close();
+			}
+		}
 	}
 
 	@Override
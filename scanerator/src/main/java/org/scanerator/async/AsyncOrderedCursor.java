@@ -0,0 +1,29 @@
+package org.scanerator.async;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Asynchronous cursor over ordered elements, the non-blocking counterpart of
+ * {@link org.scanerator.CloseableOrderedIterator}.  Elements are returned in
+ * {@link Batch}es, in ascending order; the {@link Batch} returned after the
+ * {@link Batch#isLast() last} one is empty.  At most one {@link #next()} may be
+ * outstanding at a time.
+ * @author robin
+ *
+ * @param <T>
+ */
+public interface AsyncOrderedCursor<T> extends Closeable {
+	/**
+	 * Fetch the next {@link Batch} of elements
+	 * @return A {@link CompletionStage} completed with the next {@link Batch},
+	 * or completed exceptionally if the cursor fails
+	 */
+	public CompletionStage<Batch<T>> next();
+	
+	/**
+	 * Release the resources held by this cursor.  Idempotent.
+	 */
+	@Override
+	public void close();
+}
@@ -0,0 +1,53 @@
+package org.scanerator.async;
+
+import java.util.List;
+
+/**
+ * A batch of consecutive elements returned by an {@link AsyncOrderedCursor}
+ * @author robin
+ *
+ * @param <T>
+ */
+public class Batch<T> {
+	/**
+	 * The elements of this {@link Batch}
+	 */
+	protected List<T> elements;
+	/**
+	 * {@code true} if no elements follow this {@link Batch}
+	 */
+	protected boolean last;
+	
+	/**
+	 * Create a {@link Batch}
+	 * @param elements The elements, which may only be empty if {@code last}
+	 * @param last {@code true} if no elements follow this {@link Batch}
+	 */
+	public Batch(List<T> elements, boolean last) {
+		if(elements == null || (elements.isEmpty() && !last))
+			throw new IllegalArgumentException();
+		this.elements = elements;
+		this.last = last;
+	}
+	
+	/**
+	 * Returns the elements of this {@link Batch}
+	 * @return The elements
+	 */
+	public List<T> elements() {
+		return elements;
+	}
+	
+	/**
+	 * Returns whether this is the last {@link Batch} of its cursor
+	 * @return {@code true} if no elements follow
+	 */
+	public boolean isLast() {
+		return last;
+	}
+	
+	@Override
+	public String toString() {
+		return elements + (last ? " (last)" : "");
+	}
+}
@@ -0,0 +1,146 @@
+package org.scanerator.async;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * Utility class for building asynchronous operator trees of {@link AsyncOrderedCursor}s,
+ * the counterpart of {@link org.scanerator.Scanerator} for {@link Iterable}s
+ * @author robin
+ *
+ */
+public class Cursors {
+	/**
+	 * Default maximum number of elements in a {@link Batch}
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	
+	/**
+	 * Returns an {@link AsyncOrderedCursor} over a blocking {@link Iterable}, whose
+	 * elements are pulled on {@code executor}
+	 * @param itr The {@link Iterable}
+	 * @param executor Pulls elements from {@code itr}
+	 * @return A new {@link AsyncOrderedCursor}
+	 * @see IterableCursor
+	 */
+	public static <T> AsyncOrderedCursor<T> from(Iterable<T> itr, Executor executor) {
+		return new IterableCursor<T>(itr, executor, DEFAULT_BATCH_SIZE);
+	}
+	
+	/**
+	 * Returns an {@link AsyncOrderedCursor} over the logical intersection of {@code lhs} and {@code rhs}
+	 * @param cmp {@link Comparator} for equality
+	 * @param lhs Left-hand {@link AsyncOrderedCursor} for intersection
+	 * @param rhs Right-hand {@link AsyncOrderedCursor} for intersection
+	 * @return A new {@link AsyncOrderedCursor}
+	 */
+	public static <T> AsyncOrderedCursor<T> all(Comparator<? super T> cmp, AsyncOrderedCursor<T> lhs, AsyncOrderedCursor<T> rhs) {
+		return new MergeCursor<T>(cmp, MergeCursor.ALL, lhs, rhs, DEFAULT_BATCH_SIZE);
+	}
+	
+	/**
+	 * Returns an {@link AsyncOrderedCursor} over the logical union of {@code lhs} and {@code rhs}
+	 * @param cmp {@link Comparator} for equality
+	 * @param lhs Left-hand {@link AsyncOrderedCursor} for union
+	 * @param rhs Right-hand {@link AsyncOrderedCursor} for union
+	 * @return A new {@link AsyncOrderedCursor}
+	 */
+	public static <T> AsyncOrderedCursor<T> any(Comparator<? super T> cmp, AsyncOrderedCursor<T> lhs, AsyncOrderedCursor<T> rhs) {
+		return new MergeCursor<T>(cmp, MergeCursor.ANY, lhs, rhs, DEFAULT_BATCH_SIZE);
+	}
+	
+	/**
+	 * Returns an {@link AsyncOrderedCursor} over the logical subtraction of {@code rhs} from {@code lhs}
+	 * @param cmp {@link Comparator} for equality
+	 * @param lhs {@link AsyncOrderedCursor} whose elements are returned
+	 * @param rhs {@link AsyncOrderedCursor} whose elements are removed
+	 * @return A new {@link AsyncOrderedCursor}
+	 */
+	public static <T> AsyncOrderedCursor<T> not(Comparator<? super T> cmp, AsyncOrderedCursor<T> lhs, AsyncOrderedCursor<T> rhs) {
+		return new MergeCursor<T>(cmp, MergeCursor.NOT, lhs, rhs, DEFAULT_BATCH_SIZE);
+	}
+	
+	/**
+	 * Returns an {@link AsyncOrderedCursor} over the elements of {@code cursor} without duplicates
+	 * @param cmp {@link Comparator} for equality
+	 * @param cursor {@link AsyncOrderedCursor} to de-duplicate
+	 * @return A new {@link AsyncOrderedCursor}
+	 */
+	public static <T> AsyncOrderedCursor<T> dedup(Comparator<? super T> cmp, AsyncOrderedCursor<T> cursor) {
+		return new MergeCursor<T>(cmp, MergeCursor.DEDUP, cursor, null, DEFAULT_BATCH_SIZE);
+	}
+	
+	/**
+	 * Fetch all remaining elements of {@code cursor} into a {@link List}, then close it
+	 * @param cursor The {@link AsyncOrderedCursor}
+	 * @return A {@link CompletionStage} completed with the elements
+	 */
+	public static <T> CompletionStage<List<T>> toList(AsyncOrderedCursor<T> cursor) {
+		CompletableFuture<List<T>> result = new CompletableFuture<List<T>>();
+		collect(cursor, new ArrayList<T>(), result);
+		return result;
+	}
+	
+	/**
+	 * Fetch {@link Batch}es from {@code cursor} into {@code list} until the last one
+	 * @param cursor The {@link AsyncOrderedCursor}
+	 * @param list The elements so far
+	 * @param result Completed with {@code list}
+	 */
+	private static <T> void collect(final AsyncOrderedCursor<T> cursor, final List<T> list, final CompletableFuture<List<T>> result) {
+		while(true) {
+			CompletableFuture<Batch<T>> f = cursor.next().toCompletableFuture();
+			if(!f.isDone()) { // continue when the fetch completes
+				f.whenComplete(new BiConsumer<Batch<T>, Throwable>() {
+					@Override
+					public void accept(Batch<T> b, Throwable t) {
+						if(add(cursor, b, t, list, result))
+							collect(cursor, list, result);
+					}
+				});
+				return;
+			}
+			Batch<T> b = null;
+			Throwable t = null;
+			try {
+				b = f.join();
+			} catch(CompletionException e) {
+				t = e.getCause();
+			}
+			if(!add(cursor, b, t, list, result))
+				return;
+		}
+	}
+	
+	/**
+	 * Add a fetched {@link Batch} to {@code list}, completing {@code result}
+	 * if it is the last {@link Batch} or the fetch failed
+	 * @param cursor The {@link AsyncOrderedCursor}
+	 * @param b The {@link Batch}, or {@code null}
+	 * @param t The failure, or {@code null}
+	 * @param list The elements so far
+	 * @param result Completed with {@code list}
+	 * @return {@code true} if there are more {@link Batch}es to fetch
+	 */
+	private static <T> boolean add(AsyncOrderedCursor<T> cursor, Batch<T> b, Throwable t, List<T> list, CompletableFuture<List<T>> result) {
+		if(t != null) {
+			cursor.close();
+			result.completeExceptionally(t);
+			return false;
+		}
+		list.addAll(b.elements());
+		if(!b.isLast())
+			return true;
+		cursor.close();
+		result.complete(list);
+		return false;
+	}
+	
+	private Cursors() {}
+}
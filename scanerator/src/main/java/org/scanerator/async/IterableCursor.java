@@ -0,0 +1,144 @@
+package org.scanerator.async;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.scanerator.CloseableOrderedIterator;
+import org.scanerator.Scanerator;
+
+/**
+ * {@link AsyncOrderedCursor} over a blocking {@link Iterable}, whose elements are
+ * pulled in {@link Batch}es on an {@link Executor}.  The {@link Iterable} is opened
+ * by the first {@link #next()} and closed once its last element has been fetched,
+ * or by {@link #close()}.  {@link #close()} never waits for a fetch in flight,
+ * which may be blocked reading the source; that fetch stops early and closes the
+ * source itself when it returns.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class IterableCursor<T> implements AsyncOrderedCursor<T> {
+	/**
+	 * The {@link Iterable} to fetch from
+	 */
+	protected Iterable<T> source;
+	/**
+	 * Pulls elements from {@link #source}
+	 */
+	protected Executor executor;
+	/**
+	 * The maximum number of elements in a {@link Batch}
+	 */
+	protected int batchSize;
+	/**
+	 * The {@link java.util.Iterator} of {@link #source}, or {@code null} if not yet opened
+	 */
+	protected CloseableOrderedIterator<T> itr;
+	/**
+	 * {@code true} once the last {@link Batch} has been fetched or this cursor closed
+	 */
+	protected boolean done;
+	/**
+	 * {@code true} once {@link #close()} has been called
+	 */
+	protected volatile boolean closed;
+	/**
+	 * Held while fetching, and while closing {@link #itr}
+	 */
+	protected final ReentrantLock lock = new ReentrantLock();
+	
+	/**
+	 * Create an {@link IterableCursor}
+	 * @param source The {@link Iterable} to fetch from
+	 * @param executor Pulls elements from {@code source}
+	 * @param batchSize The maximum number of elements in a {@link Batch}
+	 */
+	public IterableCursor(Iterable<T> source, Executor executor, int batchSize) {
+		if(source == null || executor == null)
+			throw new IllegalArgumentException();
+		if(batchSize <= 0)
+			throw new IllegalArgumentException("Batch size must be positive");
+		this.source = source;
+		this.executor = executor;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public CompletionStage<Batch<T>> next() {
+		final CompletableFuture<Batch<T>> f = new CompletableFuture<Batch<T>>();
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					f.complete(fetch());
+				} catch(Throwable t) {
+					close();
+					f.completeExceptionally(t);
+				}
+			}
+		});
+		return f;
+	}
+	
+	/**
+	 * Pull the next {@link Batch} from {@link #source}
+	 * @return The next {@link Batch}
+	 */
+	protected Batch<T> fetch() {
+		lock.lock();
+		try {
+			if(done || closed) {
+				release();
+				return new Batch<T>(Collections.<T>emptyList(), true);
+			}
+			if(itr == null)
+				itr = Scanerator.open(source);
+			List<T> elements = new ArrayList<T>(batchSize);
+			while(elements.size() < batchSize && !closed && itr.hasNext())
+				elements.add(itr.next());
+			if(closed || !itr.hasNext())
+				release();
+			return new Batch<T>(elements, done);
+		} finally {
+			lock.unlock();
+			// close() may have given up on the lock after this fetch last looked at closed
+			if(closed)
+				close();
+		}
+	}
+	
+	/**
+	 * Close {@link #itr}, if open, and mark this cursor done.  Called with {@link #lock} held.
+	 */
+	protected void release() {
+		done = true;
+		if(itr != null) {
+			CloseableOrderedIterator<T> i = itr;
+			itr = null;
+			i.close();
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		// if a fetch holds the lock, it closes the source once it sees closed
+		if(lock.tryLock()) {
+			try {
+				release();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(cursor " + source + ")";
+	}
+}
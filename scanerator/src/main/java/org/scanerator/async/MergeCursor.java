@@ -0,0 +1,315 @@
+package org.scanerator.async;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link AsyncOrderedCursor} that merges ordered {@link AsyncOrderedCursor}s by key,
+ * with the same results as {@link org.scanerator.IntersectionIterable},
+ * {@link org.scanerator.UnionIterable}, {@link org.scanerator.SubtractionIterable}
+ * and {@link org.scanerator.DedupIterable}.<p>
+ * 
+ * Each input always has one fetch in flight until it is exhausted, so the inputs
+ * are fetched concurrently and one {@link Batch} ahead of the merge.  The merge
+ * runs on whichever thread completes the fetch it was waiting for, and returns a
+ * {@link Batch} as soon as it has any elements rather than waiting to fill it.
+ * Merging and {@link #close()} are serialised on this cursor, but a {@link Batch}
+ * is returned outside that lock, as the continuation of a merge nested in this one
+ * may run on the returning thread.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class MergeCursor<T> implements AsyncOrderedCursor<T> {
+	/**
+	 * Operator code for intersection
+	 */
+	public static final int ALL = 1;
+	/**
+	 * Operator code for union
+	 */
+	public static final int ANY = 2;
+	/**
+	 * Operator code for subtraction
+	 */
+	public static final int NOT = 3;
+	/**
+	 * Operator code for de-duplication, which has no right-hand input
+	 */
+	public static final int DEDUP = 4;
+	
+	/**
+	 * {@link Comparator} for element ordering
+	 */
+	protected Comparator<? super T> cmp;
+	/**
+	 * The operator code
+	 */
+	protected int op;
+	/**
+	 * The left-hand (or only) input
+	 */
+	protected Input left;
+	/**
+	 * The right-hand input, or {@code null} for {@link #DEDUP}
+	 */
+	protected Input right;
+	/**
+	 * The maximum number of elements in a {@link Batch}
+	 */
+	protected int batchSize;
+	/**
+	 * {@code true} once the last element has been returned or this cursor closed
+	 */
+	protected volatile boolean done;
+	/**
+	 * The last element returned, for {@link #DEDUP}
+	 */
+	protected T last;
+	/**
+	 * {@code true} once an element has been returned
+	 */
+	protected boolean sent;
+	
+	/**
+	 * Create a {@link MergeCursor}
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param op The operator code, {@link #ALL}, {@link #ANY}, {@link #NOT} or {@link #DEDUP}
+	 * @param lhs The left-hand (or only) input
+	 * @param rhs The right-hand input, or {@code null} for {@link #DEDUP}
+	 * @param batchSize The maximum number of elements in a {@link Batch}
+	 */
+	public MergeCursor(Comparator<? super T> cmp, int op, AsyncOrderedCursor<T> lhs, AsyncOrderedCursor<T> rhs, int batchSize) {
+		if(cmp == null || lhs == null || (rhs == null) != (op == DEDUP))
+			throw new IllegalArgumentException();
+		if(op < ALL || op > DEDUP)
+			throw new IllegalArgumentException("Unknown operator " + op);
+		if(batchSize <= 0)
+			throw new IllegalArgumentException("Batch size must be positive");
+		this.cmp = cmp;
+		this.op = op;
+		this.left = new Input(lhs);
+		this.right = rhs == null ? null : new Input(rhs);
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * One input of the merge, holding at most one fetched {@link Batch} and one in flight
+	 * @author robin
+	 *
+	 */
+	protected class Input {
+		/**
+		 * The input
+		 */
+		protected final AsyncOrderedCursor<T> cursor;
+		/**
+		 * Fetched elements not yet consumed
+		 */
+		protected final ArrayDeque<T> buffer = new ArrayDeque<T>();
+		/**
+		 * {@code true} once the last {@link Batch} has been fetched
+		 */
+		protected boolean last;
+		/**
+		 * The fetch in flight, or {@code null}
+		 */
+		protected CompletableFuture<Batch<T>> pending;
+		
+		/**
+		 * Create an {@link Input}
+		 * @param cursor The input
+		 */
+		protected Input(AsyncOrderedCursor<T> cursor) {
+			this.cursor = cursor;
+		}
+		
+		/**
+		 * Start a fetch unless one is in flight or the input is exhausted
+		 */
+		protected void fetch() {
+			if(!last && pending == null && !done)
+				pending = cursor.next().toCompletableFuture();
+		}
+		
+		/**
+		 * Move a completed fetch into the empty {@link #buffer} and start the next
+		 * fetch.  Throws {@link CompletionException} if the fetch failed.
+		 */
+		protected void absorb() {
+			if(done) {
+				buffer.clear();
+				return;
+			}
+			if(buffer.isEmpty() && pending != null && pending.isDone()) {
+				Batch<T> b = pending.join();
+				pending = null;
+				buffer.addAll(b.elements());
+				last = b.isLast();
+			}
+			fetch();
+		}
+		
+		/**
+		 * Returns whether the input has no more elements
+		 * @return {@code true} if exhausted
+		 */
+		protected boolean exhausted() {
+			return last && buffer.isEmpty();
+		}
+	}
+
+	@Override
+	public CompletionStage<Batch<T>> next() {
+		CompletableFuture<Batch<T>> result = new CompletableFuture<Batch<T>>();
+		if(done)
+			result.complete(new Batch<T>(Collections.<T>emptyList(), true));
+		else
+			run(result, new ArrayList<T>(batchSize));
+		return result;
+	}
+	
+	/**
+	 * Merge until a {@link Batch} can be returned, continuing on the completion of
+	 * the fetch it has to wait for
+	 * @param result Completed with the {@link Batch}
+	 * @param out The elements of the {@link Batch} so far
+	 */
+	protected void run(final CompletableFuture<Batch<T>> result, final List<T> out) {
+		Batch<T> batch = null;
+		CompletableFuture<Batch<T>> pending = null;
+		Throwable failure = null;
+		synchronized(this) {
+			try {
+				while(true) {
+					left.absorb();
+					if(right != null)
+						right.absorb();
+					Input wait = merge(out);
+					if(wait == null || !out.isEmpty()) {
+						batch = new Batch<T>(out, done);
+						break;
+					}
+					if(!wait.pending.isDone()) {
+						pending = wait.pending;
+						break;
+					}
+				}
+			} catch(Throwable t) {
+				close();
+				failure = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+			}
+		}
+		if(failure != null)
+			result.completeExceptionally(failure);
+		else if(batch != null)
+			result.complete(batch);
+		else
+			pending.whenComplete(new BiConsumer<Batch<T>, Throwable>() {
+				@Override
+				public void accept(Batch<T> b, Throwable t) {
+					run(result, out);
+				}
+			});
+	}
+	
+	/**
+	 * Merge buffered elements into {@code out}
+	 * @param out The elements of the {@link Batch} so far
+	 * @return The {@link Input} whose elements are needed to continue, or
+	 * {@code null} if {@code out} is full or the merge is finished
+	 */
+	protected Input merge(List<T> out) {
+		while(true) {
+			if(done)
+				return null;
+			if(out.size() >= batchSize)
+				return null;
+			T l = left.buffer.peek();
+			boolean ldone = left.exhausted();
+			if(op == DEDUP) {
+				if(ldone) {
+					close();
+					return null;
+				}
+				if(l == null)
+					return left;
+				left.buffer.poll();
+				if(!sent || cmp.compare(last, l) != 0) {
+					out.add(l);
+					last = l;
+					sent = true;
+				}
+				continue;
+			}
+			T r = right.buffer.peek();
+			boolean rdone = right.exhausted();
+			if(op == ANY) {
+				if(ldone && rdone) {
+					close();
+					return null;
+				}
+				if(l == null && !ldone)
+					return left;
+				if(r == null && !rdone)
+					return right;
+				out.add(rdone || (!ldone && cmp.compare(l, r) <= 0) ? left.buffer.poll() : right.buffer.poll());
+				continue;
+			}
+			// ALL ends when either side is exhausted, NOT when the lhs is
+			if(ldone || (op == ALL && rdone)) {
+				close();
+				return null;
+			}
+			if(l == null)
+				return left;
+			if(op == NOT && rdone) {
+				out.add(left.buffer.poll());
+				continue;
+			}
+			if(r == null)
+				return right;
+			int c = cmp.compare(l, r);
+			if(op == ALL) {
+				if(c <= 0)
+					left.buffer.poll();
+				if(c >= 0)
+					right.buffer.poll();
+				if(c == 0)
+					out.add(l);
+			} else if(c < 0)
+				out.add(left.buffer.poll());
+			else if(c == 0) // an lhs element equal to rhs is dropped, rhs is kept
+				left.buffer.poll();
+			else
+				right.buffer.poll();
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		done = true;
+		left.buffer.clear();
+		try {
+			left.cursor.close();
+		} finally {
+			if(right != null) {
+				right.buffer.clear();
+				right.cursor.close();
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(" + (op == ALL ? "and" : op == ANY ? "or" : op == NOT ? "not" : "dedup")
+				+ " " + left.cursor + (right == null ? "" : " " + right.cursor) + ")";
+	}
+}
@@ -0,0 +1,7 @@
+/**
+ * Asynchronous cursors over ordered elements, returning batches through
+ * {@link java.util.concurrent.CompletionStage}s, and asynchronous versions
+ * of the ordered operators which fetch from their inputs concurrently and
+ * merge the batches as they complete.
+ */
+package org.scanerator.async;
@@ -0,0 +1,202 @@
+package org.scanerator.bitmap;
+
+import java.util.Arrays;
+
+/**
+ * {@link Container} for sparse values, holding them in a sorted {@code char[]}.
+ * Converts itself to a {@link BitmapContainer} once it would hold more
+ * than {@link #MAX_SIZE} values.
+ * @author robin
+ *
+ */
+class ArrayContainer extends Container {
+	/**
+	 * The largest number of values held by an {@link ArrayContainer}; at this
+	 * size a {@link BitmapContainer} uses the same amount of memory
+	 */
+	static final int MAX_SIZE = 4096;
+	
+	/**
+	 * The sorted values
+	 */
+	char[] values;
+	/**
+	 * The number of values in use in {@link #values}
+	 */
+	int size;
+	
+	/**
+	 * Create an empty {@link ArrayContainer}
+	 */
+	ArrayContainer() {
+		this(new char[4], 0);
+	}
+	
+	/**
+	 * Create an {@link ArrayContainer} from sorted values
+	 * @param values The sorted, distinct values
+	 * @param size The number of values in use
+	 */
+	ArrayContainer(char[] values, int size) {
+		this.values = values;
+		this.size = size;
+	}
+
+	@Override
+	int cardinality() {
+		return size;
+	}
+
+	@Override
+	char last() {
+		return values[size - 1];
+	}
+
+	@Override
+	boolean contains(char x) {
+		return Arrays.binarySearch(values, 0, size, x) >= 0;
+	}
+
+	@Override
+	Container add(char x) {
+		int i;
+		if(size == 0 || values[size - 1] < x) // appending in order is the common case
+			i = size;
+		else {
+			i = Arrays.binarySearch(values, 0, size, x);
+			if(i >= 0)
+				return this;
+			i = -i - 1;
+		}
+		if(size == MAX_SIZE)
+			return toBitmap().add(x);
+		if(size == values.length)
+			values = Arrays.copyOf(values, Math.min(MAX_SIZE, size * 2));
+		System.arraycopy(values, i, values, i + 1, size - i);
+		values[i] = x;
+		size++;
+		return this;
+	}
+
+	@Override
+	Container and(Container o) {
+		if(o instanceof BitmapContainer) {
+			BitmapContainer b = (BitmapContainer) o;
+			char[] out = new char[size];
+			int n = 0;
+			for(int i = 0; i < size; i++) {
+				if(b.contains(values[i]))
+					out[n++] = values[i];
+			}
+			return new ArrayContainer(out, n);
+		}
+		ArrayContainer a = (ArrayContainer) o;
+		char[] out = new char[Math.min(size, a.size)];
+		int n = 0;
+		int i = 0, j = 0;
+		while(i < size && j < a.size) {
+			if(values[i] < a.values[j])
+				i++;
+			else if(values[i] > a.values[j])
+				j++;
+			else {
+				out[n++] = values[i];
+				i++;
+				j++;
+			}
+		}
+		return new ArrayContainer(out, n);
+	}
+
+	@Override
+	Container or(Container o) {
+		if(o instanceof BitmapContainer)
+			return o.or(this);
+		ArrayContainer a = (ArrayContainer) o;
+		if(size + a.size > MAX_SIZE) // the union might not fit in an array
+			return BitmapContainer.shrink((BitmapContainer) toBitmap().or(a));
+		char[] out = new char[size + a.size];
+		int n = 0;
+		int i = 0, j = 0;
+		while(i < size && j < a.size) {
+			if(values[i] < a.values[j])
+				out[n++] = values[i++];
+			else if(values[i] > a.values[j])
+				out[n++] = a.values[j++];
+			else {
+				out[n++] = values[i++];
+				j++;
+			}
+		}
+		while(i < size)
+			out[n++] = values[i++];
+		while(j < a.size)
+			out[n++] = a.values[j++];
+		return new ArrayContainer(out, n);
+	}
+
+	@Override
+	Container andNot(Container o) {
+		char[] out = new char[size];
+		int n = 0;
+		if(o instanceof BitmapContainer) {
+			BitmapContainer b = (BitmapContainer) o;
+			for(int i = 0; i < size; i++) {
+				if(!b.contains(values[i]))
+					out[n++] = values[i];
+			}
+			return new ArrayContainer(out, n);
+		}
+		ArrayContainer a = (ArrayContainer) o;
+		int i = 0, j = 0;
+		while(i < size) {
+			if(j == a.size || values[i] < a.values[j])
+				out[n++] = values[i++];
+			else if(values[i] > a.values[j])
+				j++;
+			else {
+				i++;
+				j++;
+			}
+		}
+		return new ArrayContainer(out, n);
+	}
+
+	@Override
+	Container copy() {
+		return new ArrayContainer(Arrays.copyOf(values, Math.max(size, 1)), size);
+	}
+
+	@Override
+	CharIterator iterator() {
+		return new CharIterator() {
+			private int i;
+			
+			@Override
+			public boolean hasNext() {
+				return i < size;
+			}
+			
+			@Override
+			public char next() {
+				return values[i++];
+			}
+		};
+	}
+
+	@Override
+	long sizeInBytes() {
+		return 16 + 2L * values.length;
+	}
+	
+	/**
+	 * Convert this {@link ArrayContainer} to a {@link BitmapContainer}
+	 * @return A new {@link BitmapContainer} with the same values
+	 */
+	BitmapContainer toBitmap() {
+		BitmapContainer b = new BitmapContainer();
+		for(int i = 0; i < size; i++)
+			b.add(values[i]);
+		return b;
+	}
+}
@@ -0,0 +1,367 @@
+package org.scanerator.bitmap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+import org.scanerator.AbstractOrderedIterable;
+import org.scanerator.CloseableOrderedIterator;
+import org.scanerator.Comparators;
+import org.scanerator.RangeIterable;
+import org.scanerator.SizedIterable;
+
+/**
+ * Compressed bitmap of integral keys, in the style of Roaring bitmaps.
+ * Keys are split into their high bits, which select a {@link Container},
+ * and their low 16 bits, which are held by the {@link Container}.
+ * Sparse {@link Container}s are sorted arrays and dense {@link Container}s
+ * are bitmaps, so a {@link Bitmap} never needs much more than 2 bytes per key,
+ * and set operations on dense regions proceed 64 keys at a time.<p>
+ * 
+ * A {@link Bitmap} iterates over its keys in {@link Comparators#naturalOrder()},
+ * without duplicates.  {@link org.scanerator.Scanerator#all(Comparator, Iterable, Iterable)},
+ * {@link org.scanerator.Scanerator#not(Comparator, Iterable, Iterable)} and
+ * {@link org.scanerator.Scanerator#dedup(Comparator, Iterable)} use
+ * {@link #and(Bitmap)}, {@link #andNot(Bitmap)} and {@link #or(Bitmap)} when
+ * all of their arguments are {@link Bitmap}s of the same type.
+ * @author robin
+ *
+ * @param <T>
+ */
+public abstract class Bitmap<T extends Number> extends AbstractOrderedIterable<T> implements SizedIterable<T>, RangeIterable<T> {
+
+	/**
+	 * The high bits of the keys in each {@link Container}, ascending
+	 */
+	protected long[] keys = new long[4];
+	/**
+	 * The {@link Container}s, parallel to {@link #keys}
+	 */
+	Container[] containers = new Container[4];
+	/**
+	 * The number of {@link Container}s in use
+	 */
+	protected int size;
+	
+	/**
+	 * Create an empty {@link Bitmap}
+	 */
+	protected Bitmap() {
+		super(Comparators.<T>naturalOrder());
+	}
+	
+	/**
+	 * Map a key to a non-negative {@code long} (or, for 64-bit keys, an unsigned one)
+	 * whose order agrees with {@link Comparators#naturalOrder()}
+	 * @param key The key
+	 * @return The encoded key
+	 */
+	protected abstract long encode(T key);
+	
+	/**
+	 * Inverse of {@link #encode(Number)}
+	 * @param encoded The encoded key
+	 * @return The key
+	 */
+	protected abstract T decode(long encoded);
+	
+	/**
+	 * Create an empty {@link Bitmap} of the same type as this one
+	 * @return A new {@link Bitmap}
+	 */
+	protected abstract Bitmap<T> create();
+	
+	/**
+	 * Add a key to this {@link Bitmap}.  Adding keys in ascending order
+	 * is fastest.
+	 * @param key The key to add
+	 */
+	public void add(T key) {
+		long e = encode(key);
+		long high = e >>> 16;
+		int i = find(high);
+		if(i < 0) {
+			i = -i - 1;
+			insert(i, high, new ArrayContainer());
+		}
+		containers[i] = containers[i].add((char) e);
+	}
+	
+	/**
+	 * Returns whether this {@link Bitmap} contains {@code key}
+	 * @param key The key
+	 * @return {@code true} if {@code key} is present
+	 */
+	public boolean contains(T key) {
+		long e = encode(key);
+		int i = find(e >>> 16);
+		return i >= 0 && containers[i].contains((char) e);
+	}
+	
+	/**
+	 * Returns the number of keys in this {@link Bitmap}
+	 * @return The number of keys
+	 */
+	public long cardinality() {
+		long c = 0;
+		for(int i = 0; i < size; i++)
+			c += containers[i].cardinality();
+		return c;
+	}
+	
+	/**
+	 * Returns the number of keys in this {@link Bitmap}
+	 * @return The number of keys
+	 * @see #cardinality()
+	 */
+	@Override
+	public long size() {
+		return cardinality();
+	}
+	
+	/**
+	 * Returns the greatest key in this {@link Bitmap}.  Throws
+	 * {@link NoSuchElementException} if this {@link Bitmap} is empty.
+	 * @return The greatest key
+	 */
+	public T last() {
+		if(size == 0)
+			throw new NoSuchElementException();
+		return decode((keys[size - 1] << 16) | containers[size - 1].last());
+	}
+	
+	/**
+	 * Returns a new {@link Bitmap} holding the keys of this {@link Bitmap}
+	 * from {@code from} (inclusive) up to {@code to} (exclusive).  {@link Container}s
+	 * wholly inside the range are copied without looking at their keys.
+	 * @param from The least key, or {@code null} for no lower bound
+	 * @param to The key at which to stop, or {@code null} for no upper bound
+	 * @return A new {@link Bitmap}
+	 */
+	@Override
+	public Bitmap<T> range(T from, T to) {
+		Bitmap<T> r = create();
+		long lo = from == null ? 0 : encode(from);
+		long hi = to == null ? -1 : encode(to);
+		if(to != null && Long.compareUnsigned(lo, hi) >= 0)
+			return r;
+		int i = find(lo >>> 16);
+		if(i < 0)
+			i = -i - 1;
+		for(; i < size && keys[i] <= hi >>> 16; i++) {
+			long base = keys[i] << 16;
+			if(Long.compareUnsigned(base, lo) >= 0 && (to == null || Long.compareUnsigned(base | 0xFFFF, hi) < 0)) {
+				r.append(keys[i], containers[i].copy());
+				continue;
+			}
+			Container c = new ArrayContainer();
+			CharIterator ci = containers[i].iterator();
+			while(ci.hasNext()) {
+				long e = base | ci.next();
+				if(to != null && Long.compareUnsigned(e, hi) >= 0)
+					break;
+				if(Long.compareUnsigned(e, lo) >= 0)
+					c = c.add((char) e);
+			}
+			r.append(keys[i], c);
+		}
+		return r;
+	}
+	
+	/**
+	 * Returns whether this {@link Bitmap} has no keys
+	 * @return {@code true} if empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Returns the approximate number of bytes used by this {@link Bitmap}
+	 * @return The memory footprint in bytes
+	 */
+	public long sizeInBytes() {
+		long b = 32 + 12L * keys.length;
+		for(int i = 0; i < size; i++)
+			b += containers[i].sizeInBytes();
+		return b;
+	}
+	
+	/**
+	 * Returns a new {@link Bitmap} holding the keys present in both
+	 * this {@link Bitmap} and {@code o}
+	 * @param o The other {@link Bitmap}
+	 * @return A new {@link Bitmap}
+	 */
+	public Bitmap<T> and(Bitmap<T> o) {
+		Bitmap<T> r = create();
+		int i = 0, j = 0;
+		while(i < size && j < o.size) {
+			if(keys[i] < o.keys[j])
+				i++;
+			else if(keys[i] > o.keys[j])
+				j++;
+			else {
+				r.append(keys[i], containers[i].and(o.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return r;
+	}
+	
+	/**
+	 * Returns a new {@link Bitmap} holding the keys present in either
+	 * this {@link Bitmap} or {@code o}
+	 * @param o The other {@link Bitmap}
+	 * @return A new {@link Bitmap}
+	 */
+	public Bitmap<T> or(Bitmap<T> o) {
+		Bitmap<T> r = create();
+		int i = 0, j = 0;
+		while(i < size || j < o.size) {
+			if(j == o.size || (i < size && keys[i] < o.keys[j])) {
+				r.append(keys[i], containers[i].copy());
+				i++;
+			} else if(i == size || keys[i] > o.keys[j]) {
+				r.append(o.keys[j], o.containers[j].copy());
+				j++;
+			} else {
+				r.append(keys[i], containers[i].or(o.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return r;
+	}
+	
+	/**
+	 * Returns a new {@link Bitmap} holding the keys present in
+	 * this {@link Bitmap} but not in {@code o}
+	 * @param o The other {@link Bitmap}
+	 * @return A new {@link Bitmap}
+	 */
+	public Bitmap<T> andNot(Bitmap<T> o) {
+		Bitmap<T> r = create();
+		int j = 0;
+		for(int i = 0; i < size; i++) {
+			while(j < o.size && o.keys[j] < keys[i])
+				j++;
+			if(j < o.size && o.keys[j] == keys[i])
+				r.append(keys[i], containers[i].andNot(o.containers[j]));
+			else
+				r.append(keys[i], containers[i].copy());
+		}
+		return r;
+	}
+	
+	/**
+	 * Locate the {@link Container} for the high bits of a key
+	 * @param high The high bits
+	 * @return The index of the {@link Container}, or {@code (-(insertion point) - 1)}
+	 */
+	protected int find(long high) {
+		if(size == 0 || keys[size - 1] < high) // appending in order is the common case
+			return -size - 1;
+		if(keys[size - 1] == high)
+			return size - 1;
+		return Arrays.binarySearch(keys, 0, size, high);
+	}
+	
+	/**
+	 * Insert a {@link Container} at an index
+	 * @param i The index
+	 * @param high The high bits of the keys in {@code c}
+	 * @param c The {@link Container}
+	 */
+	void insert(int i, long high, Container c) {
+		if(size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			containers = Arrays.copyOf(containers, size * 2);
+		}
+		System.arraycopy(keys, i, keys, i + 1, size - i);
+		System.arraycopy(containers, i, containers, i + 1, size - i);
+		keys[i] = high;
+		containers[i] = c;
+		size++;
+	}
+	
+	/**
+	 * Append a {@link Container} after all others, unless it is empty
+	 * @param high The high bits of the keys in {@code c}, greater than all others
+	 * @param c The {@link Container}
+	 */
+	void append(long high, Container c) {
+		if(!c.isEmpty())
+			insert(size, high, c);
+	}
+
+	@Override
+	public CloseableOrderedIterator<T> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * {@link java.util.Iterator} over the keys of a {@link Bitmap}
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<T> {
+		/**
+		 * The index of the current {@link Container}
+		 */
+		protected int ci = -1;
+		/**
+		 * The {@link CharIterator} of the current {@link Container}
+		 */
+		private CharIterator cur;
+		
+		public boolean hasNext() {
+			while(cur == null || !cur.hasNext()) {
+				if(++ci >= size) {
+					ci = size;
+					cur = null;
+					return false;
+				}
+				cur = containers[ci].iterator();
+			}
+			return true;
+		}
+		
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			return decode((keys[ci] << 16) | cur.next());
+		}
+		
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		public void close() {
+			ci = size;
+			cur = null;
+		}
+	}
+	
+	/**
+	 * Returns whether {@code lhs} and {@code rhs} are {@link Bitmap}s of the same
+	 * type, ordered by {@code cmp}, so that they can be combined using
+	 * {@link #and(Bitmap)}, {@link #or(Bitmap)} and {@link #andNot(Bitmap)}
+	 * @param cmp The {@link Comparator} of the operation
+	 * @param lhs The left-hand side of the operation
+	 * @param rhs The right-hand side of the operation
+	 * @return {@code true} if the word-parallel operations can be used
+	 */
+	public static boolean compatible(Comparator<?> cmp, Iterable<?> lhs, Iterable<?> rhs) {
+		return cmp == Comparators.NATURAL_ORDER
+				&& lhs instanceof Bitmap
+				&& rhs != null
+				&& lhs.getClass() == rhs.getClass();
+	}
+
+	@Override
+	public String toString() {
+		return "(bitmap " + cardinality() + ")";
+	}
+}
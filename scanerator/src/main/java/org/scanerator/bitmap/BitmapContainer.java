@@ -0,0 +1,187 @@
+package org.scanerator.bitmap;
+
+/**
+ * {@link Container} for dense values, holding one bit per possible
+ * 16-bit value in 1024 {@code long} words.  Set operations between two
+ * {@link BitmapContainer}s proceed a word (64 values) at a time.
+ * @author robin
+ *
+ */
+class BitmapContainer extends Container {
+	/**
+	 * The number of {@code long} words in a {@link BitmapContainer}
+	 */
+	static final int WORDS = 1 << 10;
+	
+	/**
+	 * The bits
+	 */
+	final long[] words;
+	/**
+	 * The number of set bits in {@link #words}
+	 */
+	int cardinality;
+	
+	/**
+	 * Create an empty {@link BitmapContainer}
+	 */
+	BitmapContainer() {
+		this(new long[WORDS], 0);
+	}
+	
+	/**
+	 * Create a {@link BitmapContainer} from its words
+	 * @param words The bits
+	 * @param cardinality The number of set bits
+	 */
+	BitmapContainer(long[] words, int cardinality) {
+		this.words = words;
+		this.cardinality = cardinality;
+	}
+
+	@Override
+	int cardinality() {
+		return cardinality;
+	}
+
+	@Override
+	char last() {
+		int i = WORDS - 1;
+		while(words[i] == 0)
+			i--;
+		return (char) ((i << 6) + 63 - Long.numberOfLeadingZeros(words[i]));
+	}
+
+	@Override
+	boolean contains(char x) {
+		return (words[x >>> 6] & (1L << x)) != 0;
+	}
+
+	@Override
+	Container add(char x) {
+		long w = words[x >>> 6];
+		long bit = 1L << x;
+		if((w & bit) == 0) {
+			words[x >>> 6] = w | bit;
+			cardinality++;
+		}
+		return this;
+	}
+
+	@Override
+	Container and(Container o) {
+		if(o instanceof ArrayContainer)
+			return o.and(this);
+		long[] b = ((BitmapContainer) o).words;
+		long[] out = new long[WORDS];
+		int c = 0;
+		for(int i = 0; i < WORDS; i++)
+			c += Long.bitCount(out[i] = words[i] & b[i]);
+		return shrink(new BitmapContainer(out, c));
+	}
+
+	@Override
+	Container or(Container o) {
+		long[] out = words.clone();
+		int c = cardinality;
+		if(o instanceof ArrayContainer) {
+			ArrayContainer a = (ArrayContainer) o;
+			for(int i = 0; i < a.size; i++) {
+				char x = a.values[i];
+				long w = out[x >>> 6];
+				long bit = 1L << x;
+				if((w & bit) == 0) {
+					out[x >>> 6] = w | bit;
+					c++;
+				}
+			}
+			return new BitmapContainer(out, c);
+		}
+		long[] b = ((BitmapContainer) o).words;
+		c = 0;
+		for(int i = 0; i < WORDS; i++)
+			c += Long.bitCount(out[i] |= b[i]);
+		return new BitmapContainer(out, c);
+	}
+
+	@Override
+	Container andNot(Container o) {
+		long[] out = words.clone();
+		int c = cardinality;
+		if(o instanceof ArrayContainer) {
+			ArrayContainer a = (ArrayContainer) o;
+			for(int i = 0; i < a.size; i++) {
+				char x = a.values[i];
+				long w = out[x >>> 6];
+				long bit = 1L << x;
+				if((w & bit) != 0) {
+					out[x >>> 6] = w & ~bit;
+					c--;
+				}
+			}
+		} else {
+			long[] b = ((BitmapContainer) o).words;
+			c = 0;
+			for(int i = 0; i < WORDS; i++)
+				c += Long.bitCount(out[i] &= ~b[i]);
+		}
+		return shrink(new BitmapContainer(out, c));
+	}
+
+	@Override
+	Container copy() {
+		return new BitmapContainer(words.clone(), cardinality);
+	}
+
+	@Override
+	CharIterator iterator() {
+		return new CharIterator() {
+			private int i = -1;
+			private long w;
+			
+			{
+				advance();
+			}
+			
+			private void advance() {
+				while(w == 0 && ++i < WORDS)
+					w = words[i];
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return i < WORDS;
+			}
+			
+			@Override
+			public char next() {
+				char x = (char) ((i << 6) + Long.numberOfTrailingZeros(w));
+				w &= w - 1;
+				advance();
+				return x;
+			}
+		};
+	}
+
+	@Override
+	long sizeInBytes() {
+		return 16 + 8L * WORDS;
+	}
+	
+	/**
+	 * Convert a {@link BitmapContainer} to an {@link ArrayContainer} if it
+	 * is sparse enough for an array to be smaller
+	 * @param b The {@link BitmapContainer}
+	 * @return {@code b} or an equivalent {@link ArrayContainer}
+	 */
+	static Container shrink(BitmapContainer b) {
+		if(b.cardinality > ArrayContainer.MAX_SIZE)
+			return b;
+		char[] values = new char[b.cardinality];
+		int n = 0;
+		CharIterator itr = b.iterator();
+		while(itr.hasNext())
+			values[n++] = itr.next();
+		return new ArrayContainer(values, n);
+	}
+}
@@ -0,0 +1,20 @@
+package org.scanerator.bitmap;
+
+/**
+ * Iterator over the 16-bit values held by a {@link Container}, in ascending order
+ * @author robin
+ *
+ */
+interface CharIterator {
+	/**
+	 * Returns whether there are more values
+	 * @return {@code true} if {@link #next()} will return a value
+	 */
+	public boolean hasNext();
+	
+	/**
+	 * Returns the next value
+	 * @return The next value
+	 */
+	public char next();
+}
@@ -0,0 +1,85 @@
+package org.scanerator.bitmap;
+
+/**
+ * Set of 16-bit values, holding the low bits of the keys in a {@link Bitmap}
+ * which share the same high bits.  Sparse containers are {@link ArrayContainer}s
+ * and dense containers are {@link BitmapContainer}s.  Operations may return
+ * a container of a different type than the receiver, but never return
+ * the receiver or the argument itself.
+ * @author robin
+ *
+ */
+abstract class Container {
+	/**
+	 * Returns the number of values in this {@link Container}
+	 * @return The number of values
+	 */
+	abstract int cardinality();
+	
+	/**
+	 * Returns whether this {@link Container} has no values
+	 * @return {@code true} if empty
+	 */
+	boolean isEmpty() {
+		return cardinality() == 0;
+	}
+	
+	/**
+	 * Returns the greatest value in this non-empty {@link Container}
+	 * @return The greatest value
+	 */
+	abstract char last();
+	
+	/**
+	 * Returns whether this {@link Container} contains {@code x}
+	 * @param x The value
+	 * @return {@code true} if {@code x} is present
+	 */
+	abstract boolean contains(char x);
+	
+	/**
+	 * Add a value to this {@link Container}
+	 * @param x The value to add
+	 * @return This {@link Container}, or a replacement for it if its type changed
+	 */
+	abstract Container add(char x);
+	
+	/**
+	 * Returns the intersection of this {@link Container} and {@code o}
+	 * @param o The other {@link Container}
+	 * @return A {@link Container} holding values present in both
+	 */
+	abstract Container and(Container o);
+	
+	/**
+	 * Returns the union of this {@link Container} and {@code o}
+	 * @param o The other {@link Container}
+	 * @return A {@link Container} holding values present in either
+	 */
+	abstract Container or(Container o);
+	
+	/**
+	 * Returns the values of this {@link Container} which are not in {@code o}
+	 * @param o The other {@link Container}
+	 * @return A {@link Container} holding values present in this but not in {@code o}
+	 */
+	abstract Container andNot(Container o);
+	
+	/**
+	 * Returns a copy of this {@link Container} which can be modified independently
+	 * @return A new {@link Container}
+	 */
+	abstract Container copy();
+	
+	/**
+	 * Returns an iterator over the values in ascending order
+	 * @return A new {@link CharIterator}
+	 */
+	abstract CharIterator iterator();
+	
+	/**
+	 * Returns the approximate number of bytes used by this {@link Container}
+	 * @return The memory footprint in bytes
+	 */
+	abstract long sizeInBytes();
+}
@@ -0,0 +1,61 @@
+package org.scanerator.bitmap;
+
+/**
+ * {@link Bitmap} of {@link Integer} keys
+ * @author robin
+ *
+ */
+public class IntBitmap extends Bitmap<Integer> {
+
+	/**
+	 * Create an empty {@link IntBitmap}
+	 */
+	public IntBitmap() {
+	}
+	
+	/**
+	 * Create an {@link IntBitmap} holding the elements of {@code keys}.
+	 * {@code keys} need not be ordered, but construction is fastest when it is.
+	 * @param keys The keys to add
+	 */
+	public IntBitmap(Iterable<Integer> keys) {
+		for(Integer k : keys)
+			add(k);
+	}
+
+	@Override
+	protected long encode(Integer key) {
+		// flip the sign bit so that negative keys come first
+		return (key ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+	}
+
+	@Override
+	protected Integer decode(long encoded) {
+		return (int) encoded ^ Integer.MIN_VALUE;
+	}
+
+	@Override
+	protected IntBitmap create() {
+		return new IntBitmap();
+	}
+
+	@Override
+	public IntBitmap and(Bitmap<Integer> o) {
+		return (IntBitmap) super.and(o);
+	}
+
+	@Override
+	public IntBitmap or(Bitmap<Integer> o) {
+		return (IntBitmap) super.or(o);
+	}
+
+	@Override
+	public IntBitmap andNot(Bitmap<Integer> o) {
+		return (IntBitmap) super.andNot(o);
+	}
+
+	@Override
+	public IntBitmap range(Integer from, Integer to) {
+		return (IntBitmap) super.range(from, to);
+	}
+}
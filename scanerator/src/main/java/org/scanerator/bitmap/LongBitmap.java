@@ -0,0 +1,62 @@
+package org.scanerator.bitmap;
+
+/**
+ * {@link Bitmap} of {@link Long} keys
+ * @author robin
+ *
+ */
+public class LongBitmap extends Bitmap<Long> {
+
+	/**
+	 * Create an empty {@link LongBitmap}
+	 */
+	public LongBitmap() {
+	}
+	
+	/**
+	 * Create a {@link LongBitmap} holding the elements of {@code keys}.
+	 * {@code keys} need not be ordered, but construction is fastest when it is.
+	 * @param keys The keys to add
+	 */
+	public LongBitmap(Iterable<Long> keys) {
+		for(Long k : keys)
+			add(k);
+	}
+
+	@Override
+	protected long encode(Long key) {
+		// flip the sign bit so that negative keys come first; the high
+		// 48 bits of the result are then a non-negative container key
+		return key ^ Long.MIN_VALUE;
+	}
+
+	@Override
+	protected Long decode(long encoded) {
+		return encoded ^ Long.MIN_VALUE;
+	}
+
+	@Override
+	protected LongBitmap create() {
+		return new LongBitmap();
+	}
+
+	@Override
+	public LongBitmap and(Bitmap<Long> o) {
+		return (LongBitmap) super.and(o);
+	}
+
+	@Override
+	public LongBitmap or(Bitmap<Long> o) {
+		return (LongBitmap) super.or(o);
+	}
+
+	@Override
+	public LongBitmap andNot(Bitmap<Long> o) {
+		return (LongBitmap) super.andNot(o);
+	}
+
+	@Override
+	public LongBitmap range(Long from, Long to) {
+		return (LongBitmap) super.range(from, to);
+	}
+}
@@ -0,0 +1,6 @@
+/**
+ * Compressed bitmaps of {@link java.lang.Integer} and {@link java.lang.Long} keys
+ * which can be used as ordered {@link java.lang.Iterable}s, and which
+ * combine with each other using word-parallel set operations.
+ */
+package org.scanerator.bitmap;
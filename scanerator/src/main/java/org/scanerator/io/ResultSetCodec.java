@@ -0,0 +1,128 @@
+package org.scanerator.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+import org.scanerator.Comparators;
+
+/**
+ * Encoding of the keys of an ordered result set written by {@link ResultSetWriter},
+ * each key relative to the previous key of its block
+ * @author robin
+ *
+ * @param <T>
+ */
+public abstract class ResultSetCodec<T> {
+	/**
+	 * {@code byte[]} keys in {@link Comparators#BYTES} order, each written as the
+	 * length of the prefix it shares with the previous key, the length of the
+	 * rest of the key, and the rest of the key
+	 */
+	public static final ResultSetCodec<byte[]> BYTES = new ResultSetCodec<byte[]>(1, Comparators.BYTES) {
+		@Override
+		public void encode(byte[] previous, byte[] key, OutputStream out) throws IOException {
+			int shared = 0;
+			if(previous != null) {
+				int n = Math.min(previous.length, key.length);
+				while(shared < n && previous[shared] == key[shared])
+					shared++;
+			}
+			Varints.write(out, shared);
+			Varints.write(out, key.length - shared);
+			out.write(key, shared, key.length - shared);
+		}
+
+		@Override
+		public byte[] decode(byte[] previous, ByteBuffer in) {
+			int shared = (int) Varints.read(in);
+			int rest = (int) Varints.read(in);
+			byte[] key = new byte[shared + rest];
+			if(shared > 0)
+				System.arraycopy(previous, 0, key, 0, shared);
+			in.get(key, shared, rest);
+			return key;
+		}
+	};
+	
+	/**
+	 * {@link Long} keys in natural order, each written as a varint of its
+	 * difference from the previous key (the first key of a block zig-zag encoded)
+	 */
+	public static final ResultSetCodec<Long> LONGS = new ResultSetCodec<Long>(2, Comparators.<Long>naturalOrder()) {
+		@Override
+		public void encode(Long previous, Long key, OutputStream out) throws IOException {
+			long k = key;
+			Varints.write(out, previous == null ? (k << 1) ^ (k >> 63) : k - previous);
+		}
+
+		@Override
+		public Long decode(Long previous, ByteBuffer in) {
+			long v = Varints.read(in);
+			return previous == null ? (v >>> 1) ^ -(v & 1) : previous + v;
+		}
+	};
+	
+	/**
+	 * {@link Integer} keys in natural order, each written as a varint of its
+	 * difference from the previous key (the first key of a block zig-zag encoded)
+	 */
+	public static final ResultSetCodec<Integer> INTEGERS = new ResultSetCodec<Integer>(3, Comparators.<Integer>naturalOrder()) {
+		@Override
+		public void encode(Integer previous, Integer key, OutputStream out) throws IOException {
+			long k = key;
+			Varints.write(out, previous == null ? (k << 1) ^ (k >> 63) : k - previous);
+		}
+
+		@Override
+		public Integer decode(Integer previous, ByteBuffer in) {
+			long v = Varints.read(in);
+			return (int) (previous == null ? (v >>> 1) ^ -(v & 1) : previous + v);
+		}
+	};
+	
+	/**
+	 * Identifies this {@link ResultSetCodec} in the header of a result set
+	 */
+	protected final int id;
+	/**
+	 * The order of the keys
+	 */
+	protected final Comparator<? super T> cmp;
+	
+	/**
+	 * Create a {@link ResultSetCodec}
+	 * @param id Identifies the {@link ResultSetCodec} in the header of a result set
+	 * @param cmp The order of the keys
+	 */
+	protected ResultSetCodec(int id, Comparator<? super T> cmp) {
+		this.id = id;
+		this.cmp = cmp;
+	}
+	
+	/**
+	 * Returns the order of the keys
+	 * @return The {@link Comparator}
+	 */
+	public Comparator<? super T> comparator() {
+		return cmp;
+	}
+	
+	/**
+	 * Write a key, as at least one byte
+	 * @param previous The previous key of the block, or {@code null} for the first key
+	 * @param key The key, not less than {@code previous}
+	 * @param out The {@link OutputStream} of the block
+	 * @throws IOException If writing fails
+	 */
+	public abstract void encode(T previous, T key, OutputStream out) throws IOException;
+	
+	/**
+	 * Read a key
+	 * @param previous The previous key of the block, or {@code null} for the first key
+	 * @param in The block, positioned at the key
+	 * @return The key
+	 */
+	public abstract T decode(T previous, ByteBuffer in);
+}
@@ -0,0 +1,222 @@
+package org.scanerator.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+import org.scanerator.CloseableOrderedIterable;
+import org.scanerator.CloseableOrderedIterator;
+
+/**
+ * Ordered {@link Iterable} over a result set written by {@link ResultSetWriter}, in
+ * the order of its {@link ResultSetCodec}.  Each {@link java.util.Iterator} reads the
+ * result set from the start, one block at a time, verifying each block's checksum
+ * and decoding its keys only as they are needed.  The key count and length of a
+ * block are checked against the size of the result set before its payload is read.
+ * A corrupt result set causes an {@link IllegalStateException}.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class ResultSetIterable<T> implements CloseableOrderedIterable<T> {
+	/**
+	 * The file holding the result set, or {@code null}
+	 */
+	protected File file;
+	/**
+	 * The bytes of the result set, or {@code null}
+	 */
+	protected byte[] bytes;
+	/**
+	 * Decodes the keys
+	 */
+	protected ResultSetCodec<T> codec;
+	
+	/**
+	 * Create a {@link ResultSetIterable} over a file
+	 * @param file The file holding the result set
+	 * @param codec Decodes the keys
+	 */
+	public ResultSetIterable(File file, ResultSetCodec<T> codec) {
+		if(file == null || codec == null)
+			throw new IllegalArgumentException();
+		this.file = file;
+		this.codec = codec;
+	}
+	
+	/**
+	 * Create a {@link ResultSetIterable} over the bytes of a result set,
+	 * such as one received from another service or a cache
+	 * @param bytes The result set
+	 * @param codec Decodes the keys
+	 */
+	public ResultSetIterable(byte[] bytes, ResultSetCodec<T> codec) {
+		if(bytes == null || codec == null)
+			throw new IllegalArgumentException();
+		this.bytes = bytes;
+		this.codec = codec;
+	}
+
+	@Override
+	public CloseableOrderedIterator<T> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * Iterator that reads and decodes one block at a time
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<T> {
+		/**
+		 * The result set, or {@code null} until opened
+		 */
+		protected DataInputStream in;
+		/**
+		 * The payload of the current block
+		 */
+		protected ByteBuffer block = ByteBuffer.allocate(0);
+		/**
+		 * The number of keys of the current block not yet decoded
+		 */
+		protected int remaining;
+		/**
+		 * The previous key of the current block, or {@code null}
+		 */
+		protected T previous;
+		/**
+		 * The number of blocks read
+		 */
+		protected int blocks;
+		/**
+		 * The number of bytes of the result set not yet read
+		 */
+		protected long available;
+		/**
+		 * {@code true} once exhausted or closed
+		 */
+		protected boolean done;
+		
+		/**
+		 * Open the result set and check its header
+		 * @throws IOException If reading fails
+		 */
+		protected void open() throws IOException {
+			InputStream s = bytes != null ? new ByteArrayInputStream(bytes) : new BufferedInputStream(new FileInputStream(file), 1 << 16);
+			in = new DataInputStream(s);
+			available = (bytes != null ? bytes.length : file.length()) - 5;
+			if(in.readInt() != ResultSetWriter.MAGIC)
+				throw new IllegalStateException("Not a result set: " + ResultSetIterable.this);
+			if(in.readUnsignedByte() != codec.id)
+				throw new IllegalStateException("Result set was not written by codec " + codec.id);
+		}
+		
+		/**
+		 * Read the next block
+		 * @return {@code false} at the end of the result set
+		 * @throws IOException If reading fails
+		 */
+		protected boolean readBlock() throws IOException {
+			int count = readSize();
+			if(count == 0)
+				return false;
+			int length = readSize();
+			// every key is at least one byte, and the payload is followed by its checksum
+			if(count > length || length > available - 4)
+				throw new IllegalStateException("Corrupt header of block " + blocks + " of " + ResultSetIterable.this);
+			available -= length + 4;
+			byte[] payload = block.capacity() >= length ? block.array() : new byte[length];
+			in.readFully(payload, 0, length);
+			CRC32 crc = new CRC32();
+			crc.update(payload, 0, length);
+			if(in.readInt() != (int) crc.getValue())
+				throw new IllegalStateException("Checksum mismatch in block " + blocks + " of " + ResultSetIterable.this);
+			blocks++;
+			block = ByteBuffer.wrap(payload, 0, length);
+			remaining = count;
+			previous = null;
+			return true;
+		}
+		
+		/**
+		 * Read the key count or length of a block
+		 * @return The value
+		 * @throws IOException If reading fails
+		 */
+		protected int readSize() throws IOException {
+			long v = Varints.read(in);
+			available -= Varints.size(v);
+			if(v < 0 || v > Integer.MAX_VALUE)
+				throw new IllegalStateException("Corrupt header of block " + blocks + " of " + ResultSetIterable.this);
+			return (int) v;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if(done)
+				return false;
+			if(remaining > 0)
+				return true;
+			try {
+				if(in == null)
+					open();
+				if(readBlock())
+					return true;
+			} catch(IOException e) {
+				close();
+				throw new IllegalStateException("Cannot read " + ResultSetIterable.this, e);
+			} catch(RuntimeException e) {
+				close();
+				throw e;
+			}
+			close();
+			return false;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			try {
+				previous = codec.decode(previous, block);
+			} catch(BufferUnderflowException e) {
+				close();
+				throw new IllegalStateException("Block " + (blocks - 1) + " of " + ResultSetIterable.this + " has fewer keys than its count", e);
+			}
+			remaining--;
+			return previous;
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			done = true;
+			if(in == null)
+				return;
+			try {
+				in.close();
+			} catch(IOException e) {
+				throw new IllegalStateException(e);
+			} finally {
+				in = null;
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(result set " + (file != null ? file.getName() : bytes.length + " bytes") + ")";
+	}
+}
@@ -0,0 +1,166 @@
+package org.scanerator.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+import org.scanerator.CloseableOrderedIterator;
+import org.scanerator.Scanerator;
+
+/**
+ * Streaming writer of ordered result sets, read by {@link ResultSetIterable}.
+ * Keys must be added in ascending order.<p>
+ * 
+ * A result set is a header ({@link #MAGIC} and the {@link ResultSetCodec} id as a
+ * byte), a sequence of blocks, and an empty block.  A block is the number of keys
+ * and the number of bytes of its payload as varints, the payload, and the
+ * {@link CRC32} of the payload as an {@code int}.  Each key of the payload is
+ * encoded by the {@link ResultSetCodec} relative to the previous key of the block,
+ * so blocks can be decoded independently.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class ResultSetWriter<T> implements Closeable {
+	/**
+	 * Identifies a result set; the first four bytes
+	 */
+	public static final int MAGIC = 0x53434e52;
+	/**
+	 * Default maximum number of keys in a block
+	 */
+	public static final int DEFAULT_BLOCK_KEYS = 1024;
+	
+	/**
+	 * The result set being written
+	 */
+	protected DataOutputStream out;
+	/**
+	 * Encodes the keys
+	 */
+	protected ResultSetCodec<T> codec;
+	/**
+	 * Maximum number of keys in a block
+	 */
+	protected int blockKeys;
+	/**
+	 * The payload of the block being written
+	 */
+	protected ByteArrayOutputStream block = new ByteArrayOutputStream();
+	/**
+	 * The number of keys in {@link #block}
+	 */
+	protected int count;
+	/**
+	 * The last key added, or {@code null}
+	 */
+	protected T previous;
+	/**
+	 * {@code true} once closed
+	 */
+	protected boolean closed;
+	
+	/**
+	 * Create a {@link ResultSetWriter} with the default block size
+	 * @param out The {@link OutputStream}, closed by {@link #close()}
+	 * @param codec Encodes the keys
+	 * @throws IOException If the header cannot be written
+	 */
+	public ResultSetWriter(OutputStream out, ResultSetCodec<T> codec) throws IOException {
+		this(out, codec, DEFAULT_BLOCK_KEYS);
+	}
+	
+	/**
+	 * Create a {@link ResultSetWriter}
+	 * @param out The {@link OutputStream}, closed by {@link #close()}
+	 * @param codec Encodes the keys
+	 * @param blockKeys Maximum number of keys in a block
+	 * @throws IOException If the header cannot be written
+	 */
+	public ResultSetWriter(OutputStream out, ResultSetCodec<T> codec, int blockKeys) throws IOException {
+		if(out == null || codec == null)
+			throw new IllegalArgumentException();
+		if(blockKeys <= 0)
+			throw new IllegalArgumentException("Block size must be positive");
+		this.out = new DataOutputStream(out);
+		this.codec = codec;
+		this.blockKeys = blockKeys;
+		this.out.writeInt(MAGIC);
+		this.out.writeByte(codec.id);
+	}
+	
+	/**
+	 * Add a key, which must not be less than the previous key
+	 * @param key The key
+	 * @throws IOException If writing fails
+	 */
+	public void add(T key) throws IOException {
+		if(key == null)
+			throw new IllegalArgumentException();
+		if(closed)
+			throw new IllegalStateException("Writer closed");
+		if(previous != null && codec.cmp.compare(previous, key) > 0)
+			throw new IllegalArgumentException("Keys must be added in ascending order");
+		codec.encode(count == 0 ? null : previous, key, block);
+		previous = key;
+		if(++count == blockKeys)
+			flush();
+	}
+	
+	/**
+	 * Add every element of an ordered {@link Iterable}, such as an
+	 * {@link org.scanerator.Expression}
+	 * @param itr The {@link Iterable}
+	 * @return The number of keys added
+	 * @throws IOException If writing fails
+	 */
+	public long addAll(Iterable<T> itr) throws IOException {
+		long n = 0;
+		CloseableOrderedIterator<T> i = Scanerator.open(itr);
+		try {
+			while(i.hasNext()) {
+				add(i.next());
+				n++;
+			}
+		} finally {
+			i.close();
+		}
+		return n;
+	}
+	
+	/**
+	 * Write the current block
+	 * @throws IOException If writing fails
+	 */
+	protected void flush() throws IOException {
+		if(count == 0)
+			return;
+		Varints.write(out, count);
+		Varints.write(out, block.size());
+		block.writeTo(out);
+		CRC32 crc = new CRC32();
+		crc.update(block.toByteArray());
+		out.writeInt((int) crc.getValue());
+		block.reset();
+		count = 0;
+	}
+
+	/**
+	 * Write the last block and the end of the result set, and close the {@link OutputStream}
+	 */
+	@Override
+	public void close() throws IOException {
+		if(closed)
+			return;
+		closed = true;
+		try {
+			flush();
+			Varints.write(out, 0);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,335 @@
+package org.scanerator.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.NoSuchElementException;
+
+import org.scanerator.CloseableOrderedIterable;
+import org.scanerator.CloseableOrderedIterator;
+import org.scanerator.Comparators;
+import org.scanerator.RangeIterable;
+
+/**
+ * Ordered {@link Iterable} over the keys of a sorted file written by
+ * {@link SortedFileWriter}, in {@link Comparators#BYTES} order.  The file is
+ * memory-mapped, and its sparse block index is read when the file is opened.
+ * Keys are compared against the mapped file without copying, and
+ * {@link #range(byte[], byte[])} seeks through the index, so a
+ * {@link SortedFileIterable} is a seekable source for
+ * {@link org.scanerator.Scanerator#range(java.util.Comparator, Iterable, Object, Object)}.
+ * Files are limited to 2GB, the size of one mapping.
+ * @author robin
+ *
+ */
+public class SortedFileIterable implements CloseableOrderedIterable<byte[]>, RangeIterable<byte[]>, Closeable {
+	/**
+	 * The mapped file
+	 */
+	protected MappedByteBuffer buffer;
+	/**
+	 * The file's channel
+	 */
+	protected FileChannel channel;
+	/**
+	 * The offset of each block
+	 */
+	protected int[] blockOffsets;
+	/**
+	 * The offset in the file of the first key of each block
+	 */
+	protected int[] firstKeys;
+	/**
+	 * The length of the first key of each block
+	 */
+	protected int[] firstKeyLengths;
+	/**
+	 * The offset of the index, which is where the last block ends
+	 */
+	protected int indexOffset;
+	/**
+	 * The name of the file
+	 */
+	protected String name;
+	
+	/**
+	 * Open a sorted file
+	 * @param file The file, written by {@link SortedFileWriter}
+	 * @throws IOException If the file cannot be read or is not a sorted file
+	 */
+	public SortedFileIterable(File file) throws IOException {
+		if(file == null)
+			throw new IllegalArgumentException();
+		name = file.getName();
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			channel = raf.getChannel();
+			long size = channel.size();
+			if(size > Integer.MAX_VALUE)
+				throw new IOException(file + " is larger than 2GB");
+			if(size < SortedFileWriter.FOOTER_SIZE)
+				throw new IOException(file + " is not a sorted file");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			int footer = (int) size - SortedFileWriter.FOOTER_SIZE;
+			if(buffer.getInt(footer + 12) != SortedFileWriter.MAGIC)
+				throw new IOException(file + " is not a sorted file");
+			indexOffset = (int) buffer.getLong(footer);
+			int blocks = buffer.getInt(footer + 8);
+			blockOffsets = new int[blocks];
+			firstKeys = new int[blocks];
+			firstKeyLengths = new int[blocks];
+			int[] pos = new int[] {indexOffset};
+			for(int i = 0; i < blocks; i++) {
+				blockOffsets[i] = (int) Varints.read(buffer, pos);
+				firstKeyLengths[i] = (int) Varints.read(buffer, pos);
+				firstKeys[i] = pos[0];
+				pos[0] += firstKeyLengths[i];
+			}
+		} catch(IOException e) {
+			raf.close();
+			throw e;
+		} catch(RuntimeException e) {
+			raf.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Compare bytes of the mapped file with a key, without copying them
+	 * @param buf The mapped file
+	 * @param pos The offset of the bytes
+	 * @param len The number of bytes
+	 * @param key The key
+	 * @return The {@link Comparators#BYTES} comparison of the bytes with {@code key}
+	 */
+	protected static int compare(ByteBuffer buf, int pos, int len, byte[] key) {
+		int n = Math.min(len, key.length);
+		for(int i = 0; i < n; i++) {
+			int c = (buf.get(pos + i) & 0xFF) - (key[i] & 0xFF);
+			if(c != 0)
+				return c;
+		}
+		return len - key.length;
+	}
+	
+	/**
+	 * Returns the block from which to scan for the first key not less than {@code key}:
+	 * the last block whose first key is less than {@code key}, or the first block
+	 * @param buf The mapped file
+	 * @param key The key
+	 * @return The block number
+	 */
+	protected int seek(ByteBuffer buf, byte[] key) {
+		int lo = 0, hi = blockOffsets.length - 1;
+		while(lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if(compare(buf, firstKeys[mid], firstKeyLengths[mid], key) < 0)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return lo;
+	}
+	
+	/**
+	 * Returns the number of blocks in the file
+	 * @return The number of blocks
+	 */
+	public int blocks() {
+		return blockOffsets.length;
+	}
+
+	@Override
+	public CloseableOrderedIterator<byte[]> iterator() {
+		return new Itr(null, null);
+	}
+	
+	/**
+	 * Returns an {@link Iterable} over the keys from {@code from} (inclusive)
+	 * up to {@code to} (exclusive), whose {@link java.util.Iterator}s seek to {@code from}
+	 * through the block index
+	 */
+	@Override
+	public CloseableOrderedIterable<byte[]> range(final byte[] from, final byte[] to) {
+		return new CloseableOrderedIterable<byte[]>() {
+			@Override
+			public CloseableOrderedIterator<byte[]> iterator() {
+				return new Itr(from, to);
+			}
+			
+			@Override
+			public String toString() {
+				return "(range " + name + ")";
+			}
+		};
+	}
+	
+	/**
+	 * Iterator that decodes the keys of consecutive blocks
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements CloseableOrderedIterator<byte[]> {
+		/**
+		 * This {@link java.util.Iterator}'s view of the mapped file
+		 */
+		protected final ByteBuffer buf = buffer.duplicate();
+		/**
+		 * The first key, or {@code null}
+		 */
+		protected final byte[] from;
+		/**
+		 * The key at which to stop, or {@code null}
+		 */
+		protected final byte[] to;
+		/**
+		 * The offset of the next entry
+		 */
+		protected final int[] pos = new int[1];
+		/**
+		 * The current block
+		 */
+		protected int block;
+		/**
+		 * The decoded key
+		 */
+		protected byte[] key = new byte[64];
+		/**
+		 * The length of the decoded key
+		 */
+		protected int length;
+		/**
+		 * {@code true} if {@link #key} holds the next key
+		 */
+		protected boolean ready;
+		/**
+		 * {@code true} once exhausted or closed
+		 */
+		protected boolean done;
+		/**
+		 * {@code true} once positioned at the first key
+		 */
+		protected boolean primed;
+		
+		/**
+		 * Create an {@link Itr} over a range
+		 * @param from The first key, or {@code null}
+		 * @param to The key at which to stop, or {@code null}
+		 */
+		protected Itr(byte[] from, byte[] to) {
+			this.from = from;
+			this.to = to;
+		}
+		
+		/**
+		 * Seek to the first key through the block index, then scan the block
+		 */
+		protected void prime() {
+			if(primed)
+				return;
+			primed = true;
+			if(blockOffsets.length == 0) {
+				done = true;
+				return;
+			}
+			block = from == null ? 0 : seek(buf, from);
+			pos[0] = blockOffsets[block];
+			if(from != null)
+				while(decode() && compare(from) < 0)
+					ready = false;
+		}
+		
+		/**
+		 * Compare the decoded key with {@code k}
+		 * @param k The key
+		 * @return The {@link Comparators#BYTES} comparison
+		 */
+		protected int compare(byte[] k) {
+			int n = Math.min(length, k.length);
+			for(int i = 0; i < n; i++) {
+				int c = (key[i] & 0xFF) - (k[i] & 0xFF);
+				if(c != 0)
+					return c;
+			}
+			return length - k.length;
+		}
+		
+		/**
+		 * Decode the next key into {@link #key}, unless already decoded
+		 * @return {@code true} if there is a next key
+		 */
+		protected boolean decode() {
+			if(ready || done)
+				return ready;
+			int end = block + 1 < blockOffsets.length ? blockOffsets[block + 1] : indexOffset;
+			if(pos[0] >= end) {
+				if(++block >= blockOffsets.length) {
+					close();
+					return false;
+				}
+			}
+			int shared = (int) Varints.read(buf, pos);
+			int rest = (int) Varints.read(buf, pos);
+			if(shared + rest > key.length) {
+				byte[] k = new byte[Math.max(shared + rest, key.length * 2)];
+				System.arraycopy(key, 0, k, 0, shared);
+				key = k;
+			}
+			buf.position(pos[0]);
+			buf.get(key, shared, rest);
+			pos[0] += rest;
+			length = shared + rest;
+			if(to != null && compare(to) >= 0) {
+				close();
+				return false;
+			}
+			ready = true;
+			return true;
+		}
+
+		@Override
+		public boolean hasNext() {
+			prime();
+			return decode();
+		}
+
+		@Override
+		public byte[] next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			byte[] k = new byte[length];
+			System.arraycopy(key, 0, k, 0, length);
+			ready = false;
+			return k;
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			primed = true;
+			done = true;
+			ready = false;
+		}
+	}
+
+	/**
+	 * Close the file.  The mapping itself is released when it is garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	@Override
+	public String toString() {
+		return "(sorted file " + name + ")";
+	}
+}
@@ -0,0 +1,161 @@
+package org.scanerator.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.scanerator.Comparators;
+
+/**
+ * Writer of the sorted files read by {@link SortedFileIterable}.  Keys must be
+ * added in ascending {@link Comparators#BYTES} order (duplicates are allowed).<p>
+ * 
+ * The file is a sequence of blocks of about {@link #blockSize} bytes, followed by
+ * a sparse index holding the offset and first key of each block, followed by a
+ * fixed-size footer.  Within a block each key is written as the length of the
+ * prefix it shares with the previous key, the length of the rest of the key, and
+ * the rest of the key, all lengths as varints; the first key of a block shares
+ * nothing, so that a reader can start at any block.  The footer is the offset of
+ * the index ({@code long}), the number of blocks ({@code int}) and {@link #MAGIC}.
+ * @author robin
+ *
+ */
+public class SortedFileWriter implements Closeable {
+	/**
+	 * Identifies a sorted file; the last four bytes of the file
+	 */
+	public static final int MAGIC = 0x53434e53;
+	/**
+	 * Default target size of a block in bytes
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+	/**
+	 * Size of the footer in bytes
+	 */
+	static final int FOOTER_SIZE = 16;
+	
+	/**
+	 * The file being written
+	 */
+	protected DataOutputStream out;
+	/**
+	 * Target size of a block in bytes
+	 */
+	protected int blockSize;
+	/**
+	 * The block being written
+	 */
+	protected ByteArrayOutputStream block = new ByteArrayOutputStream();
+	/**
+	 * The index written so far
+	 */
+	protected ByteArrayOutputStream index = new ByteArrayOutputStream();
+	/**
+	 * The number of bytes written to {@link #out}
+	 */
+	protected long position;
+	/**
+	 * The number of blocks written
+	 */
+	protected int blocks;
+	/**
+	 * The last key added, or {@code null}
+	 */
+	protected byte[] previous;
+	/**
+	 * {@code true} once closed
+	 */
+	protected boolean closed;
+	
+	/**
+	 * Create a {@link SortedFileWriter} writing to a file
+	 * @param file The file
+	 * @throws IOException If the file cannot be created
+	 */
+	public SortedFileWriter(File file) throws IOException {
+		this(new BufferedOutputStream(new FileOutputStream(file), 1 << 16), DEFAULT_BLOCK_SIZE);
+	}
+	
+	/**
+	 * Create a {@link SortedFileWriter} writing to an {@link OutputStream}, which is
+	 * closed by {@link #close()}
+	 * @param out The {@link OutputStream}
+	 * @param blockSize Target size of a block in bytes
+	 */
+	public SortedFileWriter(OutputStream out, int blockSize) {
+		if(out == null)
+			throw new IllegalArgumentException();
+		if(blockSize <= 0)
+			throw new IllegalArgumentException("Block size must be positive");
+		this.out = new DataOutputStream(out);
+		this.blockSize = blockSize;
+	}
+	
+	/**
+	 * Add a key, which must not be less than the previous key
+	 * @param key The key
+	 * @throws IOException If writing fails
+	 */
+	public void add(byte[] key) throws IOException {
+		if(key == null)
+			throw new IllegalArgumentException();
+		if(closed)
+			throw new IllegalStateException("Writer closed");
+		if(previous != null && Comparators.BYTES.compare(previous, key) > 0)
+			throw new IllegalArgumentException("Keys must be added in ascending order");
+		if(block.size() >= blockSize)
+			flush();
+		int shared = 0;
+		if(block.size() == 0) { // the first key of a block is written in full and indexed
+			Varints.write(index, position);
+			Varints.write(index, key.length);
+			index.write(key);
+		} else {
+			int n = Math.min(previous.length, key.length);
+			while(shared < n && previous[shared] == key[shared])
+				shared++;
+		}
+		Varints.write(block, shared);
+		Varints.write(block, key.length - shared);
+		block.write(key, shared, key.length - shared);
+		previous = key;
+	}
+	
+	/**
+	 * Write the current block to the file
+	 * @throws IOException If writing fails
+	 */
+	protected void flush() throws IOException {
+		if(block.size() == 0)
+			return;
+		block.writeTo(out);
+		position += block.size();
+		blocks++;
+		block.reset();
+	}
+
+	/**
+	 * Write the last block, the index and the footer, and close the file
+	 */
+	@Override
+	public void close() throws IOException {
+		if(closed)
+			return;
+		closed = true;
+		try {
+			flush();
+			long indexOffset = position;
+			index.writeTo(out);
+			out.writeLong(indexOffset);
+			out.writeInt(blocks);
+			out.writeInt(MAGIC);
+		} finally {
+			out.close();
+		}
+	}
+}
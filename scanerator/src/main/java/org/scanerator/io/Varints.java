@@ -0,0 +1,113 @@
+package org.scanerator.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Variable-length encoding of non-negative integers, seven bits per byte,
+ * least significant group first, with the high bit set on all but the last byte
+ * @author robin
+ *
+ */
+class Varints {
+	/**
+	 * Write a non-negative {@code long}
+	 * @param out The {@link OutputStream}
+	 * @param v The value
+	 * @return The number of bytes written
+	 * @throws IOException If {@code out} fails
+	 */
+	static int write(OutputStream out, long v) throws IOException {
+		int n = 1;
+		while((v & ~0x7FL) != 0) {
+			out.write((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+			n++;
+		}
+		out.write((int) v);
+		return n;
+	}
+	
+	/**
+	 * Returns the number of bytes {@link #write(OutputStream, long)} writes for a value
+	 * @param v The value
+	 * @return The number of bytes
+	 */
+	static int size(long v) {
+		int n = 1;
+		while((v & ~0x7FL) != 0) {
+			v >>>= 7;
+			n++;
+		}
+		return n;
+	}
+	
+	/**
+	 * Read a value at a position of a {@link ByteBuffer}
+	 * @param buf The {@link ByteBuffer}
+	 * @param pos The position, whose first element is updated to follow the value
+	 * @return The value
+	 */
+	static long read(ByteBuffer buf, int[] pos) {
+		long v = 0;
+		int shift = 0;
+		int p = pos[0];
+		while(true) {
+			byte b = buf.get(p++);
+			v |= (long) (b & 0x7F) << shift;
+			if(b >= 0)
+				break;
+			shift += 7;
+			if(shift > 63)
+				throw new IllegalStateException("Malformed varint at " + pos[0]);
+		}
+		pos[0] = p;
+		return v;
+	}
+	
+	/**
+	 * Read a value at the position of a {@link ByteBuffer}, advancing the position
+	 * @param buf The {@link ByteBuffer}
+	 * @return The value
+	 */
+	static long read(ByteBuffer buf) {
+		long v = 0;
+		int shift = 0;
+		while(true) {
+			byte b = buf.get();
+			v |= (long) (b & 0x7F) << shift;
+			if(b >= 0)
+				return v;
+			shift += 7;
+			if(shift > 63)
+				throw new IllegalStateException("Malformed varint at " + buf.position());
+		}
+	}
+	
+	/**
+	 * Read a value from an {@link InputStream}
+	 * @param in The {@link InputStream}
+	 * @return The value
+	 * @throws IOException If reading fails or the stream ends within the value
+	 */
+	static long read(InputStream in) throws IOException {
+		long v = 0;
+		int shift = 0;
+		while(true) {
+			int b = in.read();
+			if(b < 0)
+				throw new EOFException();
+			v |= (long) (b & 0x7F) << shift;
+			if(b < 0x80)
+				return v;
+			shift += 7;
+			if(shift > 63)
+				throw new IOException("Malformed varint");
+		}
+	}
+	
+	private Varints() {}
+}
@@ -0,0 +1,5 @@
+/**
+ * Ordered sources and result sets stored in compact binary files, which can be
+ * used as ordered {@link java.lang.Iterable}s by the operators of {@link org.scanerator}.
+ */
+package org.scanerator.io;
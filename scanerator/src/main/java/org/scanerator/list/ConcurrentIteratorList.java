@@ -0,0 +1,292 @@
+package org.scanerator.list;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thread-safe {@link IteratorList}, for many threads reading the same lazily
+ * evaluated result.  Elements are retrieved from the wrapped {@link Iterator} on
+ * demand by whichever reader first needs an element not yet retrieved, and appended
+ * to a cache of segments that are never moved or rewritten.<p>
+ * 
+ * Retrieved elements are published by a volatile count written after the element
+ * (a release) and read before it (an acquire), so reading an element that has already
+ * been retrieved takes no lock.  Only one reader at a time becomes the producer, by
+ * compare-and-set; readers waiting for elements the producer has not reached yet park
+ * until it publishes more, taking over production if it stops short of their index.
+ * If the wrapped {@link Iterator} throws, the exception is rethrown to every reader
+ * asking for an element past those retrieved.  A reader interrupted while waiting
+ * gives up with an {@link IllegalStateException}, leaving its interrupt status set.<p>
+ * 
+ * Like {@link IteratorList}, this is a read-only {@link List}, and {@link #size()} forces a
+ * complete evaluation of the {@link Iterator}.
+ * @author robin
+ *
+ * @param <E>
+ */
+public class ConcurrentIteratorList<E> extends AbstractList<E> implements RandomAccess {
+	/**
+	 * The size of the first segment; each segment is twice the size of the one before
+	 */
+	protected static final int FIRST_SEGMENT = 64;
+	
+	/**
+	 * The wrapped {@link Iterator}, only used by the producer
+	 */
+	protected final Iterator<E> itr;
+	/**
+	 * The segments of the cache, allocated by the producer as needed
+	 */
+	protected final Object[][] segments = new Object[32][];
+	/**
+	 * The number of elements retrieved and published
+	 */
+	protected volatile int published;
+	/**
+	 * {@code true} once {@link #itr} is exhausted
+	 */
+	protected volatile boolean done;
+	/**
+	 * The exception thrown by {@link #itr}, if any
+	 */
+	protected volatile RuntimeException failure;
+	/**
+	 * {@code true} while a reader is retrieving elements
+	 */
+	protected final AtomicBoolean producing = new AtomicBoolean();
+	/**
+	 * Readers waiting for the producer
+	 */
+	protected final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<Thread>();
+	
+	/**
+	 * Create a new {@link ConcurrentIteratorList}
+	 * @param itr The {@link Iterator} to wrap
+	 */
+	public ConcurrentIteratorList(Iterator<E> itr) {
+		if(itr == null)
+			throw new IllegalArgumentException();
+		this.itr = itr;
+	}
+	
+	/**
+	 * Returns the segment holding an index
+	 * @param index The index
+	 * @return The segment
+	 */
+	protected static int segment(int index) {
+		return 31 - Integer.numberOfLeadingZeros(index / FIRST_SEGMENT + 1);
+	}
+	
+	/**
+	 * Returns the first index held by a segment
+	 * @param segment The segment
+	 * @return The index
+	 */
+	protected static int base(int segment) {
+		return FIRST_SEGMENT * ((1 << segment) - 1);
+	}
+	
+	/**
+	 * Returns a published element
+	 * @param index The index of the element, less than {@link #published}
+	 * @return The element
+	 */
+	@SuppressWarnings("unchecked")
+	protected E element(int index) {
+		int s = segment(index);
+		return (E) segments[s][index - base(s)];
+	}
+	
+	/**
+	 * Ensure that an element has been retrieved, if there is one
+	 * @param index The index of the element
+	 * @return {@code true} if the element exists
+	 */
+	protected boolean fill(int index) {
+		while(true) {
+			if(index < published)
+				return true;
+			if(done) {
+				if(index < published)
+					return true;
+				if(failure != null)
+					throw failure;
+				return false;
+			}
+			if(producing.compareAndSet(false, true)) {
+				try {
+					produce(index);
+				} finally {
+					producing.set(false);
+					wake();
+				}
+			} else
+				await(index);
+		}
+	}
+	
+	/**
+	 * Retrieve elements up to an index, or until the wrapped {@link Iterator} is exhausted.
+	 * Only called by the producer.
+	 * @param index The index of the last element to retrieve
+	 */
+	protected void produce(int index) {
+		int n = published;
+		try {
+			while(n <= index && !done) {
+				if(!itr.hasNext()) {
+					done = true;
+					break;
+				}
+				E e = itr.next();
+				int s = segment(n);
+				if(segments[s] == null)
+					segments[s] = new Object[FIRST_SEGMENT << s];
+				segments[s][n - base(s)] = e;
+				published = ++n; // publish the element
+				if(n % FIRST_SEGMENT == 0 && !waiters.isEmpty()) // and wake waiters every so often
+					wake();
+			}
+		} catch(RuntimeException e) {
+			failure = e;
+			done = true;
+			throw e;
+		}
+	}
+	
+	/**
+	 * Wait until an element is published, or there is no producer
+	 * @param index The index of the element
+	 * @throws IllegalStateException if the waiting thread is interrupted
+	 */
+	protected void await(int index) {
+		Thread t = Thread.currentThread();
+		waiters.add(t);
+		try {
+			// re-check after queueing, so that the producer's wake-up isn't missed
+			while(index >= published && !done && producing.get()) {
+				LockSupport.park(this);
+				if(Thread.interrupted()) { // park won't block again while the flag is set
+					t.interrupt();
+					throw new IllegalStateException("Interrupted while waiting for element " + index);
+				}
+			}
+		} finally {
+			waiters.remove(t);
+		}
+	}
+	
+	/**
+	 * Wake all waiting readers
+	 */
+	protected void wake() {
+		for(Thread t : waiters)
+			LockSupport.unpark(t);
+	}
+
+	@Override
+	public E get(int index) {
+		if(index < 0 || !fill(index))
+			throw new IndexOutOfBoundsException();
+		return element(index);
+	}
+
+	@Override
+	public int size() {
+		while(fill(published));
+		return published;
+	}
+	
+	/**
+	 * Returns whether every element has been retrieved from the wrapped {@link Iterator},
+	 * so that {@link #size()} reads nothing more
+	 * @return {@code true} if the wrapped {@link Iterator} is exhausted
+	 */
+	public boolean isRetrieved() {
+		return done && failure == null;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return !fill(0);
+	}
+	
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			/**
+			 * The index of the next element
+			 */
+			private int idx;
+			
+			@Override
+			public boolean hasNext() {
+				return fill(idx);
+			}
+
+			@Override
+			public E next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				return element(idx++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	@Override
+	public List<E> subList(final int fromIndex, final int toIndex) {
+		if(fromIndex < 0 || fromIndex > toIndex || toIndex > 0 && !fill(toIndex - 1))
+			throw new IndexOutOfBoundsException();
+		return new SubList(fromIndex, toIndex);
+	}
+	
+	/**
+	 * Sub-list that doesn't force evaluation by avoiding calls to {@link #size()}
+	 * @author robin
+	 *
+	 */
+	protected class SubList extends AbstractList<E> implements RandomAccess {
+		/**
+		 * The starting offset in the parent {@link ConcurrentIteratorList}
+		 */
+		protected final int offset;
+		/**
+		 * The size of this sublist
+		 */
+		protected final int size;
+		
+		/**
+		 * Create a {@link SubList} of retrieved elements
+		 * @param fromIndex The first index (inclusive)
+		 * @param toIndex The last index (exclusive)
+		 */
+		protected SubList(int fromIndex, int toIndex) {
+			offset = fromIndex;
+			size = toIndex - fromIndex;
+		}
+
+		@Override
+		public E get(int index) {
+			if(index < 0 || index >= size)
+				throw new IndexOutOfBoundsException();
+			return ConcurrentIteratorList.this.get(index + offset); // reads published, so the element is visible
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
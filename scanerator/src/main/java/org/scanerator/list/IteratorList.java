@@ -279,6 +279,15 @@ public class IteratorList<E> extends AbstractList<E> implements RandomAccess {
 	public boolean isEmpty() {
 		return cache.size() == 0 && !itr.hasNext();
 	}
+	
+	/**
+	 * Returns whether every element has been retrieved from the wrapped {@link Iterator},
+	 * so that {@link #size()} reads nothing more
+	 * @return {@code true} if the wrapped {@link Iterator} is exhausted
+	 */
+	public boolean isRetrieved() {
+		return !itr.hasNext();
+	}
 
 	@Override
 	public boolean contains(Object o) {
@@ -1,5 +1,6 @@
 package org.scanerator.list;
 
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -39,5 +40,48 @@ public class Lists {
 		return new IteratorList<T>(new ForgetfulList<T>(history), itr.iterator());
 	}
 	
+	/**
+	 * Return a {@link List} that populates itself lazily from the {@link Iterable}
+	 * argument, which must be ordered by {@code cmp}, and which can look up elements by key
+	 * without reading past them.
+	 * @param itr The {@link Iterable} to wrap as a {@link List}
+	 * @param cmp The {@link Comparator} ordering {@code itr}
+	 * @return A new {@link OrderedIteratorList}
+	 * @see OrderedIteratorList
+	 */
+	public static <T> OrderedIteratorList<T> toOrderedList(Iterable<T> itr, Comparator<? super T> cmp) {
+		return new OrderedIteratorList<T>(cmp, itr.iterator());
+	}
+	
+	/**
+	 * Return a thread-safe {@link List} that populates itself lazily from
+	 * the {@link Iterable} argument, for sharing one evaluation of {@code itr}
+	 * between many threads.  Note that certain {@link List} methods, such as
+	 * {@link List#size()}, will force a full evaluation of {@code itr}.
+	 * @param itr The {@link Iterable} to wrap as a {@link List}
+	 * @return A new {@link List}
+	 * @see ConcurrentIteratorList
+	 */
+	public static <T> List<T> toConcurrentList(Iterable<T> itr) {
+		return new ConcurrentIteratorList<T>(itr.iterator());
+	}
+	
+	/**
+	 * Returns whether an {@link Iterable} is a lazy list of this package whose
+	 * elements have not all been retrieved, so that its {@link List#size()} would
+	 * read the rest of them.  Shortcuts that take the size of a {@link java.util.Collection}
+	 * should iterate such lists instead.
+	 * @param itr The {@link Iterable}
+	 * @return {@code true} if {@code itr} is a partly retrieved {@link IteratorList}
+	 * or {@link ConcurrentIteratorList}
+	 */
+	public static boolean isLazy(Iterable<?> itr) {
+		if(itr instanceof IteratorList)
+			return !((IteratorList<?>) itr).isRetrieved();
+		if(itr instanceof ConcurrentIteratorList)
+			return !((ConcurrentIteratorList<?>) itr).isRetrieved();
+		return false;
+	}
+	
 	private Lists() {}
 }
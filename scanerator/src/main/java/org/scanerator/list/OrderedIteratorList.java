@@ -0,0 +1,144 @@
+package org.scanerator.list;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * {@link IteratorList} of elements ordered by a {@link Comparator}, with lookups
+ * by key for use as a lazily populated lookup table.  Lookups gallop through the
+ * elements already retrieved, taking time logarithmic in the index found, and pull
+ * from the wrapped {@link Iterator} only up to the first element past the key.
+ * @author robin
+ *
+ * @param <E>
+ */
+public class OrderedIteratorList<E> extends IteratorList<E> {
+	/**
+	 * The {@link Comparator} ordering the elements
+	 */
+	protected Comparator<? super E> cmp;
+	
+	/**
+	 * Create a new {@link OrderedIteratorList} using an {@link ArrayList} as its cache
+	 * @param cmp The {@link Comparator} ordering the elements
+	 * @param itr The {@link Iterator} to wrap, ordered by {@code cmp}
+	 */
+	public OrderedIteratorList(Comparator<? super E> cmp, Iterator<E> itr) {
+		super(itr);
+		if(cmp == null)
+			throw new IllegalArgumentException();
+		this.cmp = cmp;
+	}
+	
+	/**
+	 * Returns the {@link Comparator} ordering the elements
+	 * @return The {@link Comparator}
+	 */
+	public Comparator<? super E> comparator() {
+		return cmp;
+	}
+	
+	/**
+	 * Returns whether an element is past a key
+	 * @param e The element
+	 * @param key The key
+	 * @param inclusive {@code true} if an element equal to the key is past it
+	 * @return {@code true} if the element is past the key
+	 */
+	protected boolean past(E e, E key, boolean inclusive) {
+		int c = cmp.compare(e, key);
+		return inclusive ? c >= 0 : c > 0;
+	}
+	
+	/**
+	 * Returns the index of the first element past a key, pulling elements
+	 * from the wrapped {@link Iterator} only until one is past it
+	 * @param key The key
+	 * @param inclusive {@code true} for the first element not less than the key,
+	 * {@code false} for the first element greater than it
+	 * @return The index, which is the size of this {@link List} if there is no such element
+	 */
+	protected int search(E key, boolean inclusive) {
+		int n = cache.size();
+		if(n > 0 && past(cache.get(n - 1), key, inclusive)) {
+			// gallop to a power of two past the key, then binary search below it
+			if(past(cache.get(0), key, inclusive))
+				return 0;
+			int bound = 1;
+			while(bound < n && !past(cache.get(bound), key, inclusive))
+				bound <<= 1;
+			int lo = (bound >> 1) + 1, hi = Math.min(bound, n - 1);
+			while(lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if(past(cache.get(mid), key, inclusive))
+					hi = mid;
+				else
+					lo = mid + 1;
+			}
+			return lo;
+		}
+		while(itr.hasNext()) {
+			E e = itr.next();
+			cache.add(e);
+			if(past(e, key, inclusive))
+				return cache.size() - 1;
+		}
+		return cache.size();
+	}
+	
+	/**
+	 * Returns the index of the first element equal to a key according to the {@link Comparator}
+	 * @param key The key
+	 * @return The index, or {@code -1} if there is no such element
+	 */
+	public int indexOfKey(E key) {
+		int i = search(key, true);
+		return i < cache.size() && cmp.compare(cache.get(i), key) == 0 ? i : -1;
+	}
+	
+	/**
+	 * Returns whether an element equal to a key according to the {@link Comparator} is present
+	 * @param key The key
+	 * @return {@code true} if there is such an element
+	 */
+	public boolean containsKey(E key) {
+		return indexOfKey(key) >= 0;
+	}
+	
+	/**
+	 * Returns the last of the greatest elements not greater than a key
+	 * @param key The key
+	 * @return The element, or {@code null} if there is none
+	 */
+	public E floor(E key) {
+		int i = search(key, false);
+		return i == 0 ? null : cache.get(i - 1);
+	}
+	
+	/**
+	 * Returns the first of the least elements not less than a key
+	 * @param key The key
+	 * @return The element, or {@code null} if there is none
+	 */
+	public E ceiling(E key) {
+		int i = search(key, true);
+		return i < cache.size() ? cache.get(i) : null;
+	}
+	
+	/**
+	 * Returns the elements from {@code lo} (inclusive) up to {@code hi} (exclusive)
+	 * @param lo The least element to return, or {@code null} for no lower bound
+	 * @param hi The element at which to stop, or {@code null} for no upper bound
+	 * @return A {@link List} backed by this {@link List}
+	 */
+	public List<E> subListByKey(E lo, E hi) {
+		int from = lo == null ? 0 : search(lo, true);
+		int to = hi == null ? size() : search(hi, true);
+		if(to <= from)
+			return Collections.emptyList();
+		return subList(from, to);
+	}
+}
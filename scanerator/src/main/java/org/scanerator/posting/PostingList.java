@@ -0,0 +1,293 @@
+package org.scanerator.posting;
+
+import java.util.NoSuchElementException;
+
+import org.scanerator.CloseableOrderedIterable;
+import org.scanerator.CloseableOrderedIterator;
+import org.scanerator.Comparators;
+import org.scanerator.RangeIterable;
+import org.scanerator.SizedIterable;
+import org.scanerator.SkippingIterator;
+
+/**
+ * Immutable, block-compressed ordered list of {@link Long} ids, built by a
+ * {@link PostingListBuilder}.  Ids are stored in blocks of {@link #BLOCK_SIZE}, each
+ * block holding its first id and the differences between consecutive ids,
+ * bit-packed at the width of the largest difference (frame of reference).  The
+ * greatest id of every block is kept in a separate array, over which
+ * {@link SkippingIterator#advanceTo(Object)} binary searches, so an
+ * {@link org.scanerator.IntersectionIterable} or {@link org.scanerator.SubtractionIterable}
+ * skips whole blocks without decoding them.<p>
+ * 
+ * A {@link PostingList} iterates in {@link Comparators#naturalOrder()}, and may contain duplicates.
+ * @author robin
+ *
+ */
+public class PostingList implements CloseableOrderedIterable<Long>, SizedIterable<Long>, RangeIterable<Long> {
+	/**
+	 * The number of ids in a full block
+	 */
+	public static final int BLOCK_SIZE = 128;
+	
+	/**
+	 * The bit-packed differences of all blocks
+	 */
+	protected final long[] words;
+	/**
+	 * The offset in {@link #words} of each block
+	 */
+	protected final int[] offsets;
+	/**
+	 * The width in bits of the differences of each block
+	 */
+	protected final byte[] widths;
+	/**
+	 * The first id of each block
+	 */
+	protected final long[] bases;
+	/**
+	 * The last (greatest) id of each block
+	 */
+	protected final long[] maxima;
+	/**
+	 * The number of ids
+	 */
+	protected final int size;
+	
+	/**
+	 * Create a {@link PostingList} from its encoded form
+	 * @param words The bit-packed differences of all blocks
+	 * @param offsets The offset in {@code words} of each block
+	 * @param widths The width in bits of the differences of each block
+	 * @param bases The first id of each block
+	 * @param maxima The last id of each block
+	 * @param size The number of ids
+	 */
+	PostingList(long[] words, int[] offsets, byte[] widths, long[] bases, long[] maxima, int size) {
+		this.words = words;
+		this.offsets = offsets;
+		this.widths = widths;
+		this.bases = bases;
+		this.maxima = maxima;
+		this.size = size;
+	}
+	
+	/**
+	 * Returns the number of ids in this {@link PostingList}
+	 */
+	@Override
+	public long size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the approximate number of bytes used by this {@link PostingList}
+	 * @return The memory footprint in bytes
+	 */
+	public long sizeInBytes() {
+		return 48 + 8L * words.length + 21L * bases.length;
+	}
+	
+	/**
+	 * Returns the number of ids in a block
+	 * @param b The block
+	 * @return The number of ids
+	 */
+	protected int length(int b) {
+		return b < bases.length - 1 ? BLOCK_SIZE : size - b * BLOCK_SIZE;
+	}
+	
+	/**
+	 * Decode a block
+	 * @param b The block
+	 * @param out Receives the ids of the block
+	 * @return The number of ids
+	 */
+	protected int decode(int b, long[] out) {
+		int n = length(b);
+		int width = widths[b];
+		long mask = width == 64 ? -1L : (1L << width) - 1;
+		int w = offsets[b];
+		long v = bases[b];
+		out[0] = v;
+		if(width == 0) { // all ids equal, with no words
+			for(int i = 1; i < n; i++)
+				out[i] = v;
+			return n;
+		}
+		long bit = 0;
+		for(int i = 1; i < n; i++, bit += width) {
+			int word = w + (int) (bit >>> 6);
+			int shift = (int) (bit & 63);
+			long d = words[word] >>> shift;
+			if(shift + width > 64)
+				d |= words[word + 1] << (64 - shift);
+			v += d & mask;
+			out[i] = v;
+		}
+		return n;
+	}
+
+	@Override
+	public CloseableOrderedIterator<Long> iterator() {
+		return new Itr(null, null);
+	}
+	
+	/**
+	 * Returns an {@link Iterable} over the ids from {@code from} (inclusive)
+	 * up to {@code to} (exclusive), whose {@link java.util.Iterator}s skip to {@code from}
+	 */
+	@Override
+	public CloseableOrderedIterable<Long> range(final Long from, final Long to) {
+		return new CloseableOrderedIterable<Long>() {
+			@Override
+			public CloseableOrderedIterator<Long> iterator() {
+				return new Itr(from, to);
+			}
+			
+			@Override
+			public String toString() {
+				return "(range " + from + " " + to + " " + PostingList.this + ")";
+			}
+		};
+	}
+	
+	/**
+	 * {@link SkippingIterator} that decodes one block at a time
+	 * @author robin
+	 *
+	 */
+	protected class Itr implements SkippingIterator<Long> {
+		/**
+		 * The ids of the current block
+		 */
+		protected final long[] block = new long[BLOCK_SIZE];
+		/**
+		 * The current block, or {@code -1}
+		 */
+		protected int b = -1;
+		/**
+		 * The number of ids in the current block
+		 */
+		protected int n;
+		/**
+		 * The index of the next id in the current block
+		 */
+		protected int i;
+		/**
+		 * The first id to return, or {@code null}
+		 */
+		protected Long from;
+		/**
+		 * The id at which to stop, or {@code null}
+		 */
+		protected final Long to;
+		/**
+		 * {@code true} once exhausted or closed
+		 */
+		protected boolean done;
+		
+		/**
+		 * Create an {@link Itr} over a range
+		 * @param from The first id, or {@code null}
+		 * @param to The id at which to stop, or {@code null}
+		 */
+		protected Itr(Long from, Long to) {
+			this.from = from;
+			this.to = to;
+		}
+		
+		/**
+		 * Decode a block and position at its first id
+		 * @param b The block
+		 */
+		protected void load(int b) {
+			this.b = b;
+			n = decode(b, block);
+			i = 0;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			if(from != null) { // skip to the start of the range
+				Long f = from;
+				from = null;
+				advanceTo(f);
+			}
+			if(done)
+				return false;
+			if(i == n) {
+				if(b + 1 >= bases.length) {
+					close();
+					return false;
+				}
+				load(b + 1);
+			}
+			if(to != null && block[i] >= to) {
+				close();
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public Long next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			return block[i++];
+		}
+		
+		@Override
+		public void advanceTo(Long target) {
+			if(done)
+				return;
+			long t = target;
+			if(b < 0 || i == n || block[n - 1] < t) {
+				// binary search the maxima of the following blocks for the first block
+				// that may hold target, skipping the blocks in between undecoded
+				int lo = b + 1, hi = bases.length;
+				while(lo < hi) {
+					int mid = (lo + hi) >>> 1;
+					if(maxima[mid] < t)
+						lo = mid + 1;
+					else
+						hi = mid;
+				}
+				if(lo == bases.length) {
+					close();
+					return;
+				}
+				if(lo != b)
+					load(lo);
+			}
+			// binary search the current block
+			int lo = i, hi = n;
+			while(lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if(block[mid] < t)
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			i = lo;
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			done = true;
+			from = null;
+			b = bases.length;
+			i = n = 0;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(postings " + size + ")";
+	}
+}
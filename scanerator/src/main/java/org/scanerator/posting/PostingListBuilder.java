@@ -0,0 +1,169 @@
+package org.scanerator.posting;
+
+import java.util.Arrays;
+
+import org.scanerator.CloseableOrderedIterator;
+import org.scanerator.Scanerator;
+
+/**
+ * Builds a {@link PostingList} from ids added in ascending order
+ * @author robin
+ *
+ */
+public class PostingListBuilder {
+	/**
+	 * Create a {@link PostingList} of the elements of an ordered {@link Iterable},
+	 * such as an {@link org.scanerator.Expression}
+	 * @param itr The {@link Iterable}
+	 * @return A new {@link PostingList}
+	 */
+	public static PostingList of(Iterable<Long> itr) {
+		return new PostingListBuilder().addAll(itr).build();
+	}
+	
+	/**
+	 * The ids of the current block
+	 */
+	protected final long[] block = new long[PostingList.BLOCK_SIZE];
+	/**
+	 * The number of ids in the current block
+	 */
+	protected int n;
+	/**
+	 * The bit-packed differences of the completed blocks
+	 */
+	protected long[] words = new long[16];
+	/**
+	 * The number of used {@link #words}
+	 */
+	protected int wordCount;
+	/**
+	 * The offset in {@link #words} of each completed block
+	 */
+	protected int[] offsets = new int[4];
+	/**
+	 * The width in bits of the differences of each completed block
+	 */
+	protected byte[] widths = new byte[4];
+	/**
+	 * The first id of each completed block
+	 */
+	protected long[] bases = new long[4];
+	/**
+	 * The last id of each completed block
+	 */
+	protected long[] maxima = new long[4];
+	/**
+	 * The number of completed blocks
+	 */
+	protected int blocks;
+	/**
+	 * The number of ids added
+	 */
+	protected int size;
+	
+	/**
+	 * Add an id, which must not be less than the previous id
+	 * @param id The id
+	 * @return This {@link PostingListBuilder}
+	 */
+	public PostingListBuilder add(long id) {
+		if(size > 0 && id < (n > 0 ? block[n - 1] : maxima[blocks - 1]))
+			throw new IllegalArgumentException("Ids must be added in ascending order");
+		if(size == Integer.MAX_VALUE)
+			throw new IllegalStateException("Posting list full");
+		block[n++] = id;
+		size++;
+		if(n == block.length)
+			flush();
+		return this;
+	}
+	
+	/**
+	 * Add every element of an ordered {@link Iterable}
+	 * @param itr The {@link Iterable}
+	 * @return This {@link PostingListBuilder}
+	 */
+	public PostingListBuilder addAll(Iterable<Long> itr) {
+		CloseableOrderedIterator<Long> i = Scanerator.open(itr);
+		try {
+			while(i.hasNext()) {
+				Long id = i.next();
+				if(id == null)
+					throw new IllegalArgumentException();
+				add(id);
+			}
+		} finally {
+			i.close();
+		}
+		return this;
+	}
+	
+	/**
+	 * Encode the current block
+	 */
+	protected void flush() {
+		if(n == 0)
+			return;
+		long or = 0;
+		for(int i = 1; i < n; i++)
+			or |= block[i] - block[i - 1];
+		int width = 64 - Long.numberOfLeadingZeros(or);
+		int need = (int) (((long) (n - 1) * width + 63) >>> 6);
+		if(blocks == bases.length) {
+			offsets = Arrays.copyOf(offsets, blocks * 2);
+			widths = Arrays.copyOf(widths, blocks * 2);
+			bases = Arrays.copyOf(bases, blocks * 2);
+			maxima = Arrays.copyOf(maxima, blocks * 2);
+		}
+		if(wordCount + need > words.length)
+			words = Arrays.copyOf(words, Math.max(words.length * 2, wordCount + need));
+		offsets[blocks] = wordCount;
+		widths[blocks] = (byte) width;
+		bases[blocks] = block[0];
+		maxima[blocks] = block[n - 1];
+		long bit = 0;
+		for(int i = 1; i < n && width > 0; i++, bit += width) { // equal ids need no words
+			long d = block[i] - block[i - 1];
+			int word = wordCount + (int) (bit >>> 6);
+			int shift = (int) (bit & 63);
+			words[word] |= d << shift;
+			if(shift + width > 64)
+				words[word + 1] |= d >>> (64 - shift);
+		}
+		wordCount += need;
+		blocks++;
+		n = 0;
+	}
+	
+	/**
+	 * Build a {@link PostingList} of the ids added so far.  The builder
+	 * may continue to be used afterwards.
+	 * @return A new {@link PostingList}
+	 */
+	public PostingList build() {
+		int tail = n;
+		long[] partial = Arrays.copyOf(block, tail);
+		flush();
+		PostingList p = new PostingList(
+				Arrays.copyOf(words, wordCount),
+				Arrays.copyOf(offsets, blocks),
+				Arrays.copyOf(widths, blocks),
+				Arrays.copyOf(bases, blocks),
+				Arrays.copyOf(maxima, blocks),
+				size);
+		if(tail > 0 && tail < block.length) { // reopen the partial block
+			blocks--;
+			wordCount = offsets[blocks];
+			Arrays.fill(words, wordCount, words.length, 0L);
+			System.arraycopy(partial, 0, block, 0, tail);
+			n = tail;
+		}
+		return p;
+	}
+	
+	@Override
+	public String toString() {
+		return "(postings-builder " + size + ")";
+	}
+}
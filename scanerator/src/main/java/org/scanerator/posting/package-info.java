@@ -0,0 +1,6 @@
+/**
+ * Block-compressed posting lists of {@link java.lang.Long} ids, for sparse id sets
+ * too large for sorted arrays and too sparse for {@link org.scanerator.bitmap}s.
+ * Their {@link java.util.Iterator}s skip whole blocks without decoding them.
+ */
+package org.scanerator.posting;
@@ -0,0 +1,46 @@
+package org.scanerator.primitive;
+
+/**
+ * Implementation of the operations of {@link SortedArrays}.  Arguments
+ * have already been validated.  Each operation writes its result to
+ * {@code out} and returns the number of elements written.
+ * @author robin
+ *
+ */
+abstract class BlockKernels {
+	/**
+	 * Returns the name of this implementation
+	 * @return The name
+	 */
+	abstract String name();
+	
+	/**
+	 * @see SortedArrays#intersect(int[], int, int[], int, int[])
+	 */
+	abstract int intersect(int[] a, int aLen, int[] b, int bLen, int[] out);
+	
+	/**
+	 * @see SortedArrays#union(int[], int, int[], int, int[])
+	 */
+	abstract int union(int[] a, int aLen, int[] b, int bLen, int[] out);
+	
+	/**
+	 * @see SortedArrays#difference(int[], int, int[], int, int[])
+	 */
+	abstract int difference(int[] a, int aLen, int[] b, int bLen, int[] out);
+	
+	/**
+	 * @see SortedArrays#intersect(long[], int, long[], int, long[])
+	 */
+	abstract int intersect(long[] a, int aLen, long[] b, int bLen, long[] out);
+	
+	/**
+	 * @see SortedArrays#union(long[], int, long[], int, long[])
+	 */
+	abstract int union(long[] a, int aLen, long[] b, int bLen, long[] out);
+	
+	/**
+	 * @see SortedArrays#difference(long[], int, long[], int, long[])
+	 */
+	abstract int difference(long[] a, int aLen, long[] b, int bLen, long[] out);
+}
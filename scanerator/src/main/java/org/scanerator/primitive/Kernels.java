@@ -0,0 +1,21 @@
+package org.scanerator.primitive;
+
+/**
+ * Selects the {@link BlockKernels} used by {@link SortedArrays}.  This
+ * version always selects {@link ScalarBlockKernels}; the JDK 21 layer of the
+ * multi-release JAR replaces it with a version that selects SIMD kernels
+ * when {@code jdk.incubator.vector} is available.
+ * @author robin
+ *
+ */
+final class Kernels {
+	/**
+	 * Returns the best available {@link BlockKernels}
+	 * @return The {@link BlockKernels}
+	 */
+	static BlockKernels load() {
+		return new ScalarBlockKernels();
+	}
+	
+	private Kernels() {}
+}
@@ -0,0 +1,183 @@
+package org.scanerator.primitive;
+
+/**
+ * {@link BlockKernels} implemented as scalar merges.  The static methods
+ * operate on sub-ranges, so that SIMD kernels can finish with them.
+ * @author robin
+ *
+ */
+class ScalarBlockKernels extends BlockKernels {
+
+	@Override
+	String name() {
+		return "scalar";
+	}
+
+	@Override
+	int intersect(int[] a, int aLen, int[] b, int bLen, int[] out) {
+		return intersect(a, 0, aLen, b, 0, bLen, out, 0);
+	}
+
+	@Override
+	int union(int[] a, int aLen, int[] b, int bLen, int[] out) {
+		return union(a, 0, aLen, b, 0, bLen, out, 0);
+	}
+
+	@Override
+	int difference(int[] a, int aLen, int[] b, int bLen, int[] out) {
+		return difference(a, 0, aLen, b, 0, bLen, out, 0);
+	}
+	
+	/**
+	 * Merge the intersection of {@code a[i..aLen)} and {@code b[j..bLen)} into {@code out[n..)}
+	 * @return The number of elements in {@code out}
+	 */
+	static int intersect(int[] a, int i, int aLen, int[] b, int j, int bLen, int[] out, int n) {
+		while(i < aLen && j < bLen) {
+			int x = a[i];
+			int y = b[j];
+			if(x < y)
+				i++;
+			else if(x > y)
+				j++;
+			else {
+				out[n++] = x;
+				i++;
+				j++;
+			}
+		}
+		return n;
+	}
+	
+	/**
+	 * Merge the union of {@code a[i..aLen)} and {@code b[j..bLen)} into {@code out[n..)}
+	 * @return The number of elements in {@code out}
+	 */
+	static int union(int[] a, int i, int aLen, int[] b, int j, int bLen, int[] out, int n) {
+		while(i < aLen && j < bLen) {
+			int x = a[i];
+			int y = b[j];
+			if(x < y) {
+				out[n++] = x;
+				i++;
+			} else if(x > y) {
+				out[n++] = y;
+				j++;
+			} else {
+				out[n++] = x;
+				i++;
+				j++;
+			}
+		}
+		System.arraycopy(a, i, out, n, aLen - i);
+		n += aLen - i;
+		System.arraycopy(b, j, out, n, bLen - j);
+		return n + bLen - j;
+	}
+	
+	/**
+	 * Merge the elements of {@code a[i..aLen)} not in {@code b[j..bLen)} into {@code out[n..)}
+	 * @return The number of elements in {@code out}
+	 */
+	static int difference(int[] a, int i, int aLen, int[] b, int j, int bLen, int[] out, int n) {
+		while(i < aLen && j < bLen) {
+			int x = a[i];
+			int y = b[j];
+			if(x < y) {
+				out[n++] = x;
+				i++;
+			} else if(x > y)
+				j++;
+			else {
+				i++;
+				j++;
+			}
+		}
+		System.arraycopy(a, i, out, n, aLen - i);
+		return n + aLen - i;
+	}
+
+	@Override
+	int intersect(long[] a, int aLen, long[] b, int bLen, long[] out) {
+		return intersect(a, 0, aLen, b, 0, bLen, out, 0);
+	}
+
+	@Override
+	int union(long[] a, int aLen, long[] b, int bLen, long[] out) {
+		return union(a, 0, aLen, b, 0, bLen, out, 0);
+	}
+
+	@Override
+	int difference(long[] a, int aLen, long[] b, int bLen, long[] out) {
+		return difference(a, 0, aLen, b, 0, bLen, out, 0);
+	}
+	
+	/**
+	 * Merge the intersection of {@code a[i..aLen)} and {@code b[j..bLen)} into {@code out[n..)}
+	 * @return The number of elements in {@code out}
+	 */
+	static int intersect(long[] a, int i, int aLen, long[] b, int j, int bLen, long[] out, int n) {
+		while(i < aLen && j < bLen) {
+			long x = a[i];
+			long y = b[j];
+			if(x < y)
+				i++;
+			else if(x > y)
+				j++;
+			else {
+				out[n++] = x;
+				i++;
+				j++;
+			}
+		}
+		return n;
+	}
+	
+	/**
+	 * Merge the union of {@code a[i..aLen)} and {@code b[j..bLen)} into {@code out[n..)}
+	 * @return The number of elements in {@code out}
+	 */
+	static int union(long[] a, int i, int aLen, long[] b, int j, int bLen, long[] out, int n) {
+		while(i < aLen && j < bLen) {
+			long x = a[i];
+			long y = b[j];
+			if(x < y) {
+				out[n++] = x;
+				i++;
+			} else if(x > y) {
+				out[n++] = y;
+				j++;
+			} else {
+				out[n++] = x;
+				i++;
+				j++;
+			}
+		}
+		System.arraycopy(a, i, out, n, aLen - i);
+		n += aLen - i;
+		System.arraycopy(b, j, out, n, bLen - j);
+		return n + bLen - j;
+	}
+	
+	/**
+	 * Merge the elements of {@code a[i..aLen)} not in {@code b[j..bLen)} into {@code out[n..)}
+	 * @return The number of elements in {@code out}
+	 */
+	static int difference(long[] a, int i, int aLen, long[] b, int j, int bLen, long[] out, int n) {
+		while(i < aLen && j < bLen) {
+			long x = a[i];
+			long y = b[j];
+			if(x < y) {
+				out[n++] = x;
+				i++;
+			} else if(x > y)
+				j++;
+			else {
+				i++;
+				j++;
+			}
+		}
+		System.arraycopy(a, i, out, n, aLen - i);
+		return n + aLen - i;
+	}
+}
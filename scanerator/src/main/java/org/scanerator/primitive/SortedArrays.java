@@ -0,0 +1,130 @@
+package org.scanerator.primitive;
+
+/**
+ * Set operations on blocks of strictly ascending {@code int}s and {@code long}s,
+ * such as the blocks of a posting list or a materialized result.  The inputs
+ * must not contain duplicates; behavior is undefined if they do.<p>
+ * 
+ * When running on JDK 21 or later with {@code --add-modules jdk.incubator.vector},
+ * the multi-release layer of the JAR supplies SIMD kernels, which compare a vector
+ * of one input against every rotation of a vector of the other.  Otherwise
+ * scalar merges are used.  {@link #implementation()} reports which is in use.
+ * @author robin
+ *
+ */
+public class SortedArrays {
+	/**
+	 * The kernels in use
+	 */
+	private static final BlockKernels KERNELS = Kernels.load();
+	
+	/**
+	 * Returns the name of the kernels in use: {@code "vector"} or {@code "scalar"}
+	 * @return The name of the implementation
+	 */
+	public static String implementation() {
+		return KERNELS.name();
+	}
+
+	/**
+	 * Write the intersection of {@code a[0..aLen)} and {@code b[0..bLen)} to {@code out}.
+	 * {@code out} must have room for {@code min(aLen, bLen)} elements.
+	 * @param a Strictly ascending {@code int}s
+	 * @param aLen The number of elements of {@code a} to use
+	 * @param b Strictly ascending {@code int}s
+	 * @param bLen The number of elements of {@code b} to use
+	 * @param out The destination
+	 * @return The number of elements written to {@code out}
+	 */
+	public static int intersect(int[] a, int aLen, int[] b, int bLen, int[] out) {
+		check(a.length, aLen, b.length, bLen, out.length, Math.min(aLen, bLen));
+		return KERNELS.intersect(a, aLen, b, bLen, out);
+	}
+	
+	/**
+	 * Write the union of {@code a[0..aLen)} and {@code b[0..bLen)} to {@code out}.
+	 * {@code out} must have room for {@code aLen + bLen} elements.
+	 * @param a Strictly ascending {@code int}s
+	 * @param aLen The number of elements of {@code a} to use
+	 * @param b Strictly ascending {@code int}s
+	 * @param bLen The number of elements of {@code b} to use
+	 * @param out The destination
+	 * @return The number of elements written to {@code out}
+	 */
+	public static int union(int[] a, int aLen, int[] b, int bLen, int[] out) {
+		check(a.length, aLen, b.length, bLen, out.length, aLen + bLen);
+		return KERNELS.union(a, aLen, b, bLen, out);
+	}
+	
+	/**
+	 * Write the elements of {@code a[0..aLen)} that are not in {@code b[0..bLen)} to {@code out}.
+	 * {@code out} must have room for {@code aLen} elements.
+	 * @param a Strictly ascending {@code int}s
+	 * @param aLen The number of elements of {@code a} to use
+	 * @param b Strictly ascending {@code int}s
+	 * @param bLen The number of elements of {@code b} to use
+	 * @param out The destination
+	 * @return The number of elements written to {@code out}
+	 */
+	public static int difference(int[] a, int aLen, int[] b, int bLen, int[] out) {
+		check(a.length, aLen, b.length, bLen, out.length, aLen);
+		return KERNELS.difference(a, aLen, b, bLen, out);
+	}
+
+	/**
+	 * Write the intersection of {@code a[0..aLen)} and {@code b[0..bLen)} to {@code out}.
+	 * {@code out} must have room for {@code min(aLen, bLen)} elements.
+	 * @param a Strictly ascending {@code long}s
+	 * @param aLen The number of elements of {@code a} to use
+	 * @param b Strictly ascending {@code long}s
+	 * @param bLen The number of elements of {@code b} to use
+	 * @param out The destination
+	 * @return The number of elements written to {@code out}
+	 */
+	public static int intersect(long[] a, int aLen, long[] b, int bLen, long[] out) {
+		check(a.length, aLen, b.length, bLen, out.length, Math.min(aLen, bLen));
+		return KERNELS.intersect(a, aLen, b, bLen, out);
+	}
+	
+	/**
+	 * Write the union of {@code a[0..aLen)} and {@code b[0..bLen)} to {@code out}.
+	 * {@code out} must have room for {@code aLen + bLen} elements.
+	 * @param a Strictly ascending {@code long}s
+	 * @param aLen The number of elements of {@code a} to use
+	 * @param b Strictly ascending {@code long}s
+	 * @param bLen The number of elements of {@code b} to use
+	 * @param out The destination
+	 * @return The number of elements written to {@code out}
+	 */
+	public static int union(long[] a, int aLen, long[] b, int bLen, long[] out) {
+		check(a.length, aLen, b.length, bLen, out.length, aLen + bLen);
+		return KERNELS.union(a, aLen, b, bLen, out);
+	}
+	
+	/**
+	 * Write the elements of {@code a[0..aLen)} that are not in {@code b[0..bLen)} to {@code out}.
+	 * {@code out} must have room for {@code aLen} elements.
+	 * @param a Strictly ascending {@code long}s
+	 * @param aLen The number of elements of {@code a} to use
+	 * @param b Strictly ascending {@code long}s
+	 * @param bLen The number of elements of {@code b} to use
+	 * @param out The destination
+	 * @return The number of elements written to {@code out}
+	 */
+	public static int difference(long[] a, int aLen, long[] b, int bLen, long[] out) {
+		check(a.length, aLen, b.length, bLen, out.length, aLen);
+		return KERNELS.difference(a, aLen, b, bLen, out);
+	}
+
+	/**
+	 * Validate the lengths of the arguments of an operation
+	 */
+	private static void check(int aCap, int aLen, int bCap, int bLen, int outCap, int outLen) {
+		if(aLen < 0 || aLen > aCap || bLen < 0 || bLen > bCap)
+			throw new IllegalArgumentException("Invalid input lengths " + aLen + ", " + bLen);
+		if(outLen > outCap)
+			throw new IllegalArgumentException("Output array too small: " + outCap + " < " + outLen);
+	}
+	
+	private SortedArrays() {}
+}
@@ -0,0 +1,7 @@
+/**
+ * Set operations on blocks of sorted primitive {@code int} and {@code long} keys.
+ * On JDK 21 and later, when the {@code jdk.incubator.vector} module is
+ * available, the operations use SIMD kernels from the multi-release layer
+ * of the JAR; otherwise they use scalar merges.
+ */
+package org.scanerator.primitive;
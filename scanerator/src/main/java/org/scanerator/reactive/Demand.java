@@ -0,0 +1,41 @@
+package org.scanerator.reactive;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Arithmetic on outstanding demand, which saturates at {@link Long#MAX_VALUE} (unbounded)
+ * @author robin
+ *
+ */
+class Demand {
+	/**
+	 * Add {@code n} to the demand in {@code requested}
+	 * @param requested The outstanding demand
+	 * @param n The additional demand
+	 */
+	static void add(AtomicLong requested, long n) {
+		while(true) {
+			long r = requested.get();
+			if(r == Long.MAX_VALUE)
+				return;
+			long u = r + n;
+			if(u < 0)
+				u = Long.MAX_VALUE;
+			if(requested.compareAndSet(r, u))
+				return;
+		}
+	}
+	
+	/**
+	 * Subtract the {@code n} elements produced from the demand in {@code requested},
+	 * unless it is unbounded
+	 * @param requested The outstanding demand
+	 * @param n The number of elements produced
+	 */
+	static void produced(AtomicLong requested, long n) {
+		if(n > 0 && requested.get() != Long.MAX_VALUE)
+			requested.addAndGet(-n);
+	}
+	
+	private Demand() {}
+}
@@ -0,0 +1,187 @@
+package org.scanerator.reactive;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.scanerator.CloseableOrderedIterator;
+import org.scanerator.Scanerator;
+
+/**
+ * {@link Publisher} of the elements of an {@link Iterable}.  Each {@link Subscriber}
+ * gets its own {@link java.util.Iterator}, opened when the first element is requested
+ * and closed when the {@link Iterable} is exhausted, fails or is cancelled.  Elements
+ * are pulled only as they are requested, either on the requesting thread or, if an
+ * {@link Executor} is given, on the {@link Executor}, so that a blocking source never
+ * blocks the requesting thread.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class IterablePublisher<T> implements Publisher<T> {
+	/**
+	 * The published {@link Iterable}
+	 */
+	protected Iterable<T> source;
+	/**
+	 * Pulls elements from {@link #source}, or {@code null} to pull on the requesting thread
+	 */
+	protected Executor executor;
+	
+	/**
+	 * Create an {@link IterablePublisher}
+	 * @param source The {@link Iterable} to publish
+	 * @param executor Pulls elements from {@code source}, or {@code null} to pull
+	 * them on the requesting thread
+	 */
+	public IterablePublisher(Iterable<T> source, Executor executor) {
+		if(source == null)
+			throw new IllegalArgumentException();
+		this.source = source;
+		this.executor = executor;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> subscriber) {
+		if(subscriber == null)
+			throw new NullPointerException();
+		Sub s = new Sub(subscriber);
+		subscriber.onSubscribe(s);
+	}
+	
+	/**
+	 * {@link Subscription} that pulls requested elements from an {@link java.util.Iterator}
+	 * @author robin
+	 *
+	 */
+	protected class Sub implements Subscription, Runnable {
+		/**
+		 * The {@link Subscriber}
+		 */
+		protected final Subscriber<? super T> subscriber;
+		/**
+		 * Outstanding demand
+		 */
+		protected final AtomicLong requested = new AtomicLong();
+		/**
+		 * Number of pending calls to {@link #run()}; only the call that raises
+		 * it from zero runs the drain loop
+		 */
+		protected final AtomicInteger wip = new AtomicInteger();
+		/**
+		 * {@code true} once cancelled
+		 */
+		protected volatile boolean cancelled;
+		/**
+		 * Set by an invalid {@link #request(long)}
+		 */
+		protected volatile Throwable invalid;
+		/**
+		 * The {@link java.util.Iterator}, opened by the first drain
+		 */
+		protected CloseableOrderedIterator<T> itr;
+		/**
+		 * {@code true} once a terminal signal has been sent
+		 */
+		protected boolean done;
+		
+		/**
+		 * Create a {@link Sub}
+		 * @param subscriber The {@link Subscriber}
+		 */
+		protected Sub(Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if(n <= 0)
+				invalid = new IllegalArgumentException("Non-positive request " + n);
+			else
+				Demand.add(requested, n);
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			schedule();
+		}
+		
+		/**
+		 * Run the drain loop, on the {@link Executor} if there is one
+		 */
+		protected void schedule() {
+			if(wip.getAndIncrement() != 0)
+				return;
+			if(executor == null)
+				run();
+			else
+				executor.execute(this);
+		}
+
+		/**
+		 * The drain loop
+		 */
+		@Override
+		public void run() {
+			int missed = 1;
+			do {
+				drain();
+				missed = wip.addAndGet(-missed);
+			} while(missed != 0);
+		}
+		
+		/**
+		 * Send as many elements as have been requested
+		 */
+		protected void drain() {
+			if(done)
+				return;
+			if(cancelled || invalid != null) {
+				done = true;
+				if(itr != null)
+					itr.close();
+				if(!cancelled)
+					subscriber.onError(invalid);
+				return;
+			}
+			long r = requested.get();
+			long e = 0;
+			try {
+				if(itr == null)
+					itr = Scanerator.open(source);
+				while(e != r && !cancelled) {
+					if(!itr.hasNext()) {
+						done = true;
+						itr.close();
+						subscriber.onComplete();
+						return;
+					}
+					subscriber.onNext(itr.next());
+					e++;
+				}
+				if(!cancelled && e == r && !itr.hasNext()) { // complete without waiting for more demand
+					done = true;
+					itr.close();
+					subscriber.onComplete();
+					return;
+				}
+			} catch(RuntimeException ex) {
+				done = true;
+				if(itr != null)
+					itr.close();
+				subscriber.onError(ex);
+				return;
+			}
+			Demand.produced(requested, e);
+			if(cancelled)
+				drain();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(publish " + source + ")";
+	}
+}
@@ -0,0 +1,427 @@
+package org.scanerator.reactive;
+
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link Publisher} that merges ordered {@link Publisher}s by key as their elements
+ * arrive, with the same results as {@link org.scanerator.IntersectionIterable},
+ * {@link org.scanerator.UnionIterable}, {@link org.scanerator.SubtractionIterable}
+ * and {@link org.scanerator.DedupIterable}.<p>
+ * 
+ * The inputs are subscribed when the first element is requested.  Each input is
+ * asked for at most {@link #prefetch} elements ahead, topped up as elements are
+ * consumed, and elements are sent downstream only as they are requested.  No thread
+ * ever waits: when the next element cannot be decided until an input sends more,
+ * the merge simply resumes on the thread that delivers it.
+ * @author robin
+ *
+ * @param <T>
+ */
+public class MergePublisher<T> implements Publisher<T> {
+	/**
+	 * Operator code for intersection
+	 */
+	public static final int ALL = 1;
+	/**
+	 * Operator code for union
+	 */
+	public static final int ANY = 2;
+	/**
+	 * Operator code for subtraction
+	 */
+	public static final int NOT = 3;
+	/**
+	 * Operator code for de-duplication, which has no right-hand input
+	 */
+	public static final int DEDUP = 4;
+	/**
+	 * Default number of elements requested ahead from each input
+	 */
+	public static final int DEFAULT_PREFETCH = 64;
+	
+	/**
+	 * {@link Comparator} for element ordering
+	 */
+	protected Comparator<? super T> cmp;
+	/**
+	 * The operator code
+	 */
+	protected int op;
+	/**
+	 * The left-hand (or only) input
+	 */
+	protected Publisher<T> lhs;
+	/**
+	 * The right-hand input, or {@code null} for {@link #DEDUP}
+	 */
+	protected Publisher<T> rhs;
+	/**
+	 * The number of elements requested ahead from each input
+	 */
+	protected int prefetch;
+	
+	/**
+	 * Create a {@link MergePublisher}
+	 * @param cmp {@link Comparator} for element ordering
+	 * @param op The operator code, {@link #ALL}, {@link #ANY}, {@link #NOT} or {@link #DEDUP}
+	 * @param lhs The left-hand (or only) input
+	 * @param rhs The right-hand input, or {@code null} for {@link #DEDUP}
+	 * @param prefetch The number of elements requested ahead from each input
+	 */
+	public MergePublisher(Comparator<? super T> cmp, int op, Publisher<T> lhs, Publisher<T> rhs, int prefetch) {
+		if(cmp == null || lhs == null || (rhs == null) != (op == DEDUP))
+			throw new IllegalArgumentException();
+		if(op < ALL || op > DEDUP)
+			throw new IllegalArgumentException("Unknown operator " + op);
+		if(prefetch <= 0)
+			throw new IllegalArgumentException("Prefetch must be positive");
+		this.cmp = cmp;
+		this.op = op;
+		this.lhs = lhs;
+		this.rhs = rhs;
+		this.prefetch = prefetch;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> subscriber) {
+		if(subscriber == null)
+			throw new NullPointerException();
+		subscriber.onSubscribe(new Merge(subscriber));
+	}
+	
+	/**
+	 * {@link Subscriber} to one input, buffering up to {@link MergePublisher#prefetch} elements
+	 * @author robin
+	 *
+	 */
+	protected class Input implements Subscriber<T> {
+		/**
+		 * The owning {@link Merge}
+		 */
+		protected final Merge merge;
+		/**
+		 * Elements received and not yet consumed
+		 */
+		protected final Queue<T> queue = new ConcurrentLinkedQueue<T>();
+		/**
+		 * The input's {@link Subscription}
+		 */
+		protected volatile Subscription upstream;
+		/**
+		 * {@code true} once the input has completed
+		 */
+		protected volatile boolean done;
+		/**
+		 * Elements consumed since the last top-up request
+		 */
+		protected int consumed;
+		
+		/**
+		 * Create an {@link Input}
+		 * @param merge The owning {@link Merge}
+		 */
+		protected Input(Merge merge) {
+			this.merge = merge;
+		}
+		
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			upstream = subscription;
+			if(merge.cancelled)
+				subscription.cancel();
+			else
+				subscription.request(prefetch);
+		}
+
+		@Override
+		public void onNext(T item) {
+			queue.offer(item);
+			merge.schedule();
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			done = true;
+			merge.fail(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			done = true;
+			merge.schedule();
+		}
+		
+		/**
+		 * Returns whether this input has no more elements
+		 * @return {@code true} if exhausted
+		 */
+		protected boolean exhausted() {
+			return done && queue.isEmpty();
+		}
+		
+		/**
+		 * Consume the head element, topping up the request to the input
+		 * once half of {@link MergePublisher#prefetch} has been consumed
+		 * @return The head element
+		 */
+		protected T poll() {
+			T e = queue.poll();
+			int limit = prefetch - (prefetch >> 1);
+			if(++consumed == limit) {
+				consumed = 0;
+				upstream.request(limit);
+			}
+			return e;
+		}
+		
+		/**
+		 * Cancel the input and drop its buffered elements
+		 */
+		protected void cancel() {
+			Subscription s = upstream;
+			if(s != null)
+				s.cancel();
+			queue.clear();
+		}
+	}
+	
+	/**
+	 * {@link Subscription} of one downstream {@link Subscriber}, which runs the merge
+	 * @author robin
+	 *
+	 */
+	protected class Merge implements Subscription {
+		/**
+		 * The downstream {@link Subscriber}
+		 */
+		protected final Subscriber<? super T> subscriber;
+		/**
+		 * The left-hand (or only) input
+		 */
+		protected final Input left = new Input(this);
+		/**
+		 * The right-hand input, or {@code null}
+		 */
+		protected final Input right = rhs == null ? null : new Input(this);
+		/**
+		 * Outstanding downstream demand
+		 */
+		protected final AtomicLong requested = new AtomicLong();
+		/**
+		 * Number of pending drains; only the call that raises it from zero drains
+		 */
+		protected final AtomicInteger wip = new AtomicInteger();
+		/**
+		 * {@code true} once the inputs have been subscribed
+		 */
+		protected final AtomicBoolean started = new AtomicBoolean();
+		/**
+		 * {@code true} once cancelled
+		 */
+		protected volatile boolean cancelled;
+		/**
+		 * The first failure of an input or of the downstream {@link Subscriber}; later ones are dropped
+		 */
+		protected final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		/**
+		 * {@code true} once a terminal signal has been sent
+		 */
+		protected boolean done;
+		/**
+		 * The last element sent, for {@link MergePublisher#DEDUP}
+		 */
+		protected T last;
+		/**
+		 * {@code true} once an element has been sent
+		 */
+		protected boolean sent;
+		
+		/**
+		 * Create a {@link Merge}
+		 * @param subscriber The downstream {@link Subscriber}
+		 */
+		protected Merge(Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if(n <= 0) {
+				fail(new IllegalArgumentException("Non-positive request " + n));
+				return;
+			}
+			Demand.add(requested, n);
+			if(started.compareAndSet(false, true)) {
+				lhs.subscribe(left);
+				if(rhs != null)
+					rhs.subscribe(right);
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			schedule();
+		}
+		
+		/**
+		 * Record a failure, unless there already is one, and terminate the merge
+		 * @param t The failure
+		 */
+		protected void fail(Throwable t) {
+			error.compareAndSet(null, t);
+			schedule();
+		}
+		
+		/**
+		 * Send an element downstream, recording a failure of the {@link Subscriber}
+		 * instead of letting it unwind the thread that delivered an input's element
+		 * @param item The element
+		 * @return {@code true} if the {@link Subscriber} accepted the element
+		 */
+		protected boolean send(T item) {
+			try {
+				subscriber.onNext(item);
+				return true;
+			} catch(RuntimeException ex) {
+				error.compareAndSet(null, ex);
+				return false;
+			}
+		}
+		
+		/**
+		 * Run the merge unless another thread is already running it, in which
+		 * case that thread runs it again
+		 */
+		protected void schedule() {
+			if(wip.getAndIncrement() != 0)
+				return;
+			int missed = 1;
+			do {
+				drain();
+				missed = wip.addAndGet(-missed);
+			} while(missed != 0);
+		}
+		
+		/**
+		 * Send a terminal signal and cancel the inputs
+		 * @param error The failure, or {@code null} to complete
+		 */
+		protected void terminate(Throwable error) {
+			done = true;
+			left.cancel();
+			if(right != null)
+				right.cancel();
+			if(cancelled)
+				return;
+			if(error != null)
+				subscriber.onError(error);
+			else
+				subscriber.onComplete();
+		}
+		
+		/**
+		 * Send as many elements as can be decided and have been requested
+		 */
+		protected void drain() {
+			if(done)
+				return;
+			long r = requested.get();
+			long e = 0;
+			while(true) {
+				if(cancelled || error.get() != null) {
+					terminate(error.get());
+					return;
+				}
+				// read done before peeking, since an input completes only after its last element
+				boolean ldone = left.done;
+				T l = left.queue.peek();
+				ldone &= l == null;
+				if(op == DEDUP) {
+					if(ldone) {
+						terminate(null);
+						return;
+					}
+					if(l == null)
+						break;
+					if(sent && cmp.compare(last, l) == 0) {
+						left.poll();
+						continue;
+					}
+					if(e == r)
+						break;
+					last = left.poll();
+					sent = true;
+					if(send(last))
+						e++;
+					continue;
+				}
+				boolean rdone = right.done;
+				T rt = right.queue.peek();
+				rdone &= rt == null;
+				// decide which inputs to consume: 1 = lhs, 2 = rhs, 3 = both, and whether to emit
+				int take;
+				boolean emit;
+				if(op == ANY) {
+					if(ldone && rdone) {
+						terminate(null);
+						return;
+					}
+					if((l == null && !ldone) || (rt == null && !rdone))
+						break; // undecided until the missing input sends more
+					take = rdone || (!ldone && cmp.compare(l, rt) <= 0) ? 1 : 2;
+					emit = true;
+				} else {
+					// ALL ends when either side is exhausted, NOT when the lhs is
+					if(ldone || (op == ALL && rdone)) {
+						terminate(null);
+						return;
+					}
+					if(l == null)
+						break;
+					if(op == NOT && rdone) {
+						take = 1;
+						emit = true;
+					} else if(rt == null)
+						break;
+					else {
+						int c = cmp.compare(l, rt);
+						if(op == ALL) {
+							take = c == 0 ? 3 : c < 0 ? 1 : 2;
+							emit = c == 0;
+						} else {
+							take = c > 0 ? 2 : 1; // an lhs element equal to rhs is dropped, rhs is kept
+							emit = c < 0;
+						}
+					}
+				}
+				if(emit && e == r)
+					break; // decided, but not requested yet
+				T out = null;
+				if((take & 1) != 0)
+					out = left.poll();
+				if((take & 2) != 0) {
+					T ro = right.poll();
+					if(out == null)
+						out = ro;
+				}
+				if(emit && send(out))
+					e++;
+			}
+			Demand.produced(requested, e);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "(" + (op == ALL ? "and" : op == ANY ? "or" : op == NOT ? "not" : "dedup")
+				+ " " + lhs + (rhs == null ? "" : " " + rhs) + ")";
+	}
+}
@@ -0,0 +1,17 @@
+package org.scanerator.reactive;
+
+/**
+ * Producer of elements for {@link Subscriber}s, with the same contract as
+ * {@code java.util.concurrent.Flow.Publisher}
+ * @author robin
+ *
+ * @param <T>
+ */
+public interface Publisher<T> {
+	/**
+	 * Subscribe a {@link Subscriber}, which is then passed a {@link Subscription}
+	 * through {@link Subscriber#onSubscribe(Subscription)}
+	 * @param subscriber The {@link Subscriber}
+	 */
+	public void subscribe(Subscriber<? super T> subscriber);
+}
@@ -0,0 +1,128 @@
+package org.scanerator.reactive;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.scanerator.Comparators;
+
+/**
+ * Utility class for building non-blocking operator trees of {@link Publisher}s,
+ * the counterpart of {@link org.scanerator.Scanerator} for {@link Iterable}s
+ * @author robin
+ *
+ */
+public class Publishers {
+	/**
+	 * Returns a {@link Publisher} of the elements of {@code itr}, pulled on the
+	 * requesting thread
+	 * @param itr The {@link Iterable} to publish
+	 * @return A new {@link Publisher}
+	 * @see IterablePublisher
+	 */
+	public static <T> Publisher<T> from(Iterable<T> itr) {
+		return new IterablePublisher<T>(itr, null);
+	}
+	
+	/**
+	 * Returns a {@link Publisher} of the elements of {@code itr}, pulled on {@code executor}
+	 * so that a blocking {@link Iterable} does not block the requesting thread
+	 * @param itr The {@link Iterable} to publish
+	 * @param executor Pulls elements from {@code itr}
+	 * @return A new {@link Publisher}
+	 * @see IterablePublisher
+	 */
+	public static <T> Publisher<T> from(Iterable<T> itr, Executor executor) {
+		if(executor == null)
+			throw new IllegalArgumentException();
+		return new IterablePublisher<T>(itr, executor);
+	}
+	
+	/**
+	 * Returns a {@link Publisher} of the logical intersection of {@code lhs} and {@code rhs}
+	 * @param cmp {@link Comparator} for equality
+	 * @param lhs Left-hand {@link Publisher} for intersection
+	 * @param rhs Right-hand {@link Publisher} for intersection
+	 * @return A new {@link Publisher}
+	 */
+	public static <T> Publisher<T> all(Comparator<? super T> cmp, Publisher<T> lhs, Publisher<T> rhs) {
+		return new MergePublisher<T>(cmp, MergePublisher.ALL, lhs, rhs, MergePublisher.DEFAULT_PREFETCH);
+	}
+	
+	/**
+	 * Returns a {@link Publisher} of the logical intersection of the {@link Publisher}s
+	 * in {@code list}, as a balanced binary tree
+	 * @param cmp {@link Comparator} for equality
+	 * @param list {@link Publisher}s to be intersected
+	 * @return A new {@link Publisher}
+	 */
+	public static <T> Publisher<T> all(Comparator<? super T> cmp, List<Publisher<T>> list) {
+		if(list.size() == 0)
+			return from(Collections.<T>emptyList());
+		if(list.size() == 1)
+			return list.get(0);
+		int mid = list.size() / 2;
+		return all(cmp, all(cmp, list.subList(0, mid)), all(cmp, list.subList(mid, list.size())));
+	}
+	
+	/**
+	 * Returns a {@link Publisher} of the logical union of {@code lhs} and {@code rhs}
+	 * @param cmp {@link Comparator} for equality
+	 * @param lhs Left-hand {@link Publisher} for union
+	 * @param rhs Right-hand {@link Publisher} for union
+	 * @return A new {@link Publisher}
+	 */
+	public static <T> Publisher<T> any(Comparator<? super T> cmp, Publisher<T> lhs, Publisher<T> rhs) {
+		return new MergePublisher<T>(cmp, MergePublisher.ANY, lhs, rhs, MergePublisher.DEFAULT_PREFETCH);
+	}
+	
+	/**
+	 * Returns a {@link Publisher} of the logical union of the {@link Publisher}s
+	 * in {@code list}, as a balanced binary tree
+	 * @param cmp {@link Comparator} for equality
+	 * @param list {@link Publisher}s to be unioned
+	 * @return A new {@link Publisher}
+	 */
+	public static <T> Publisher<T> any(Comparator<? super T> cmp, List<Publisher<T>> list) {
+		if(list.size() == 0)
+			return from(Collections.<T>emptyList());
+		if(list.size() == 1)
+			return list.get(0);
+		int mid = list.size() / 2;
+		return any(cmp, any(cmp, list.subList(0, mid)), any(cmp, list.subList(mid, list.size())));
+	}
+	
+	/**
+	 * Returns a {@link Publisher} of the logical subtraction of {@code rhs} from {@code lhs}
+	 * @param cmp {@link Comparator} for equality
+	 * @param lhs {@link Publisher} whose elements are returned
+	 * @param rhs {@link Publisher} whose elements are removed
+	 * @return A new {@link Publisher}
+	 */
+	public static <T> Publisher<T> not(Comparator<? super T> cmp, Publisher<T> lhs, Publisher<T> rhs) {
+		return new MergePublisher<T>(cmp, MergePublisher.NOT, lhs, rhs, MergePublisher.DEFAULT_PREFETCH);
+	}
+	
+	/**
+	 * Returns a {@link Publisher} of the elements of {@code p} without duplicates
+	 * @param cmp {@link Comparator} for equality
+	 * @param p {@link Publisher} to de-duplicate
+	 * @return A new {@link Publisher}
+	 */
+	public static <T> Publisher<T> dedup(Comparator<? super T> cmp, Publisher<T> p) {
+		return new MergePublisher<T>(cmp, MergePublisher.DEDUP, p, null, MergePublisher.DEFAULT_PREFETCH);
+	}
+	
+	/**
+	 * Returns a {@link Publisher} of the elements of {@code p} without duplicates,
+	 * using {@link Comparators#naturalOrder()}
+	 * @param p {@link Publisher} to de-duplicate
+	 * @return A new {@link Publisher}
+	 */
+	public static <T> Publisher<T> dedup(Publisher<T> p) {
+		return dedup(Comparators.<T>naturalOrder(), p);
+	}
+	
+	private Publishers() {}
+}
@@ -0,0 +1,35 @@
+package org.scanerator.reactive;
+
+/**
+ * Receiver of elements from a {@link Publisher}, with the same contract as
+ * {@code java.util.concurrent.Flow.Subscriber}.  Its methods are never called
+ * concurrently.
+ * @author robin
+ *
+ * @param <T>
+ */
+public interface Subscriber<T> {
+	/**
+	 * Called once, before any other method, with the {@link Subscription} through
+	 * which elements are requested
+	 * @param subscription The {@link Subscription}
+	 */
+	public void onSubscribe(Subscription subscription);
+	
+	/**
+	 * Called with each element, no more times than have been requested
+	 * @param item The element
+	 */
+	public void onNext(T item);
+	
+	/**
+	 * Called once if the {@link Publisher} fails; no other method is called afterwards
+	 * @param throwable The failure
+	 */
+	public void onError(Throwable throwable);
+	
+	/**
+	 * Called once when there are no more elements; no other method is called afterwards
+	 */
+	public void onComplete();
+}
@@ -0,0 +1,22 @@
+package org.scanerator.reactive;
+
+/**
+ * Link between a {@link Publisher} and a {@link Subscriber}, with the same contract
+ * as {@code java.util.concurrent.Flow.Subscription}
+ * @author robin
+ *
+ */
+public interface Subscription {
+	/**
+	 * Add {@code n} to the number of elements the {@link Subscriber} will accept.
+	 * A non-positive {@code n} fails the subscription with an
+	 * {@link IllegalArgumentException}.
+	 * @param n The number of additional elements
+	 */
+	public void request(long n);
+	
+	/**
+	 * Stop sending elements to the {@link Subscriber} and release resources
+	 */
+	public void cancel();
+}
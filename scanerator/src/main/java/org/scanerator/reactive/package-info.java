@@ -0,0 +1,10 @@
+/**
+ * Non-blocking versions of the ordered operators, as reactive-streams
+ * {@link org.scanerator.reactive.Publisher}s which merge their inputs by key
+ * as elements arrive, honoring downstream demand and requesting a bounded
+ * number of elements from each input.  The interfaces of this package have the
+ * same methods as {@code java.util.concurrent.Flow} and {@code org.reactivestreams}.
+ * {@code FlowAdapters}, in the {@code scanerator-flow} artifact for Java 9 and later,
+ * adapts them to and from {@code java.util.concurrent.Flow}.
+ */
+package org.scanerator.reactive;
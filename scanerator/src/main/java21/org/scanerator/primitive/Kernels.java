@@ -0,0 +1,35 @@
+package org.scanerator.primitive;
+
+/**
+ * Selects the {@link BlockKernels} used by {@link SortedArrays}.  This is the
+ * JDK 21 version, which selects {@link VectorBlockKernels} when the
+ * {@code jdk.incubator.vector} module has been added to the boot layer
+ * (with {@code --add-modules jdk.incubator.vector}) and the platform has
+ * vectors of at least 4 lanes, and falls back to {@link ScalarBlockKernels} otherwise.
+ * Setting the system property {@code scanerator.simd} to {@code false}
+ * forces the scalar kernels.
+ * @author robin
+ *
+ */
+final class Kernels {
+	/**
+	 * Returns the best available {@link BlockKernels}
+	 * @return The {@link BlockKernels}
+	 */
+	static BlockKernels load() {
+		if(!Boolean.parseBoolean(System.getProperty("scanerator.simd", "true")))
+			return new ScalarBlockKernels();
+		if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+			return new ScalarBlockKernels();
+		try {
+			BlockKernels k = VectorBlockKernels.create();
+			if(k != null)
+				return k;
+		} catch(LinkageError e) {
+			// vector API not usable here
+		}
+		return new ScalarBlockKernels();
+	}
+	
+	private Kernels() {}
+}
@@ -0,0 +1,242 @@
+package org.scanerator.primitive;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BlockKernels} using the {@code jdk.incubator.vector} API.
+ * Intersection and difference load a vector from each input and compare
+ * the vector of {@code a} with every rotation of the vector of {@code b},
+ * so that all pairs of lanes are compared; matching lanes are then
+ * compressed into the output, as in the shuffle-based SIMD set intersection
+ * algorithms.  Union copies whole vectors when a block of one input
+ * precedes the next element of the other, and otherwise merges one element
+ * at a time without branching on the comparison.  The remainders shorter than a vector are
+ * finished by {@link ScalarBlockKernels}.
+ * @author robin
+ *
+ */
+class VectorBlockKernels extends BlockKernels {
+	/**
+	 * The {@code int} species
+	 */
+	private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+	/**
+	 * The {@code long} species
+	 */
+	private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+	/**
+	 * Rotations by 1 to {@code length - 1} lanes of {@link #INT_SPECIES}
+	 */
+	private static final VectorShuffle<Integer>[] INT_ROTATIONS = rotations(INT_SPECIES);
+	/**
+	 * Rotations by 1 to {@code length - 1} lanes of {@link #LONG_SPECIES}
+	 */
+	private static final VectorShuffle<Long>[] LONG_ROTATIONS = rotations(LONG_SPECIES);
+	
+	/**
+	 * Create {@link VectorBlockKernels} if the platform has wide enough vectors
+	 * @return New {@link VectorBlockKernels}, or {@code null}
+	 */
+	static BlockKernels create() {
+		if(INT_SPECIES.length() < 4 || LONG_SPECIES.length() < 2)
+			return null;
+		return new VectorBlockKernels();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <E> VectorShuffle<E>[] rotations(VectorSpecies<E> s) {
+		VectorShuffle<E>[] r = new VectorShuffle[s.length() - 1];
+		for(int k = 1; k < s.length(); k++)
+			r[k - 1] = VectorShuffle.iota(s, k, 1, true);
+		return r;
+	}
+
+	@Override
+	String name() {
+		return "vector";
+	}
+
+	@Override
+	int intersect(int[] a, int aLen, int[] b, int bLen, int[] out) {
+		final VectorSpecies<Integer> s = INT_SPECIES;
+		final int w = s.length();
+		int i = 0, j = 0, n = 0;
+		while(i + w <= aLen && j + w <= bLen) {
+			IntVector va = IntVector.fromArray(s, a, i);
+			IntVector vb = IntVector.fromArray(s, b, j);
+			// compare every lane of va with every lane of vb
+			VectorMask<Integer> hit = va.eq(vb);
+			for(VectorShuffle<Integer> rot : INT_ROTATIONS)
+				hit = hit.or(va.eq(vb.rearrange(rot)));
+			int c = hit.trueCount();
+			if(c > 0) {
+				va.compress(hit).intoArray(out, n, hit.compress());
+				n += c;
+			}
+			int amax = a[i + w - 1];
+			int bmax = b[j + w - 1];
+			if(amax <= bmax)
+				i += w;
+			if(bmax <= amax)
+				j += w;
+		}
+		return ScalarBlockKernels.intersect(a, i, aLen, b, j, bLen, out, n);
+	}
+
+	@Override
+	int union(int[] a, int aLen, int[] b, int bLen, int[] out) {
+		final VectorSpecies<Integer> s = INT_SPECIES;
+		final int w = s.length();
+		int i = 0, j = 0, n = 0;
+		while(i < aLen && j < bLen) {
+			int x = a[i];
+			int y = b[j];
+			if(i + w <= aLen && a[i + w - 1] < y) { // a whole block of a precedes b
+				IntVector.fromArray(s, a, i).intoArray(out, n);
+				i += w;
+				n += w;
+			} else if(j + w <= bLen && b[j + w - 1] < x) { // a whole block of b precedes a
+				IntVector.fromArray(s, b, j).intoArray(out, n);
+				j += w;
+				n += w;
+			} else { // interleaved; merge without branching on the comparison
+				out[n++] = x <= y ? x : y;
+				i += x <= y ? 1 : 0;
+				j += y <= x ? 1 : 0;
+			}
+		}
+		return ScalarBlockKernels.union(a, i, aLen, b, j, bLen, out, n);
+	}
+
+	@Override
+	int difference(int[] a, int aLen, int[] b, int bLen, int[] out) {
+		final VectorSpecies<Integer> s = INT_SPECIES;
+		final int w = s.length();
+		int i = 0, j = 0, n = 0;
+		// lanes of the current block of a found so far in b
+		VectorMask<Integer> hit = s.maskAll(false);
+		IntVector va = null;
+		while(i + w <= aLen && j + w <= bLen) {
+			if(va == null)
+				va = IntVector.fromArray(s, a, i);
+			IntVector vb = IntVector.fromArray(s, b, j);
+			hit = hit.or(va.eq(vb));
+			for(VectorShuffle<Integer> rot : INT_ROTATIONS)
+				hit = hit.or(va.eq(vb.rearrange(rot)));
+			int amax = a[i + w - 1];
+			int bmax = b[j + w - 1];
+			if(bmax <= amax)
+				j += w;
+			if(amax <= bmax) { // the block of a is finished
+				VectorMask<Integer> keep = hit.not();
+				va.compress(keep).intoArray(out, n, keep.compress());
+				n += keep.trueCount();
+				i += w;
+				hit = s.maskAll(false);
+				va = null;
+			}
+		}
+		if(va != null) { // finish a partially compared block of a against the rest of b
+			VectorMask<Integer> keep = hit.not();
+			int[] rest = new int[w];
+			va.compress(keep).intoArray(rest, 0);
+			n = ScalarBlockKernels.difference(rest, 0, keep.trueCount(), b, j, bLen, out, n);
+			i += w;
+		}
+		return ScalarBlockKernels.difference(a, i, aLen, b, j, bLen, out, n);
+	}
+
+	@Override
+	int intersect(long[] a, int aLen, long[] b, int bLen, long[] out) {
+		final VectorSpecies<Long> s = LONG_SPECIES;
+		final int w = s.length();
+		int i = 0, j = 0, n = 0;
+		while(i + w <= aLen && j + w <= bLen) {
+			LongVector va = LongVector.fromArray(s, a, i);
+			LongVector vb = LongVector.fromArray(s, b, j);
+			// compare every lane of va with every lane of vb
+			VectorMask<Long> hit = va.eq(vb);
+			for(VectorShuffle<Long> rot : LONG_ROTATIONS)
+				hit = hit.or(va.eq(vb.rearrange(rot)));
+			int c = hit.trueCount();
+			if(c > 0) {
+				va.compress(hit).intoArray(out, n, hit.compress());
+				n += c;
+			}
+			long amax = a[i + w - 1];
+			long bmax = b[j + w - 1];
+			if(amax <= bmax)
+				i += w;
+			if(bmax <= amax)
+				j += w;
+		}
+		return ScalarBlockKernels.intersect(a, i, aLen, b, j, bLen, out, n);
+	}
+
+	@Override
+	int union(long[] a, int aLen, long[] b, int bLen, long[] out) {
+		final VectorSpecies<Long> s = LONG_SPECIES;
+		final int w = s.length();
+		int i = 0, j = 0, n = 0;
+		while(i < aLen && j < bLen) {
+			long x = a[i];
+			long y = b[j];
+			if(i + w <= aLen && a[i + w - 1] < y) { // a whole block of a precedes b
+				LongVector.fromArray(s, a, i).intoArray(out, n);
+				i += w;
+				n += w;
+			} else if(j + w <= bLen && b[j + w - 1] < x) { // a whole block of b precedes a
+				LongVector.fromArray(s, b, j).intoArray(out, n);
+				j += w;
+				n += w;
+			} else { // interleaved; merge without branching on the comparison
+				out[n++] = x <= y ? x : y;
+				i += x <= y ? 1 : 0;
+				j += y <= x ? 1 : 0;
+			}
+		}
+		return ScalarBlockKernels.union(a, i, aLen, b, j, bLen, out, n);
+	}
+
+	@Override
+	int difference(long[] a, int aLen, long[] b, int bLen, long[] out) {
+		final VectorSpecies<Long> s = LONG_SPECIES;
+		final int w = s.length();
+		int i = 0, j = 0, n = 0;
+		// lanes of the current block of a found so far in b
+		VectorMask<Long> hit = s.maskAll(false);
+		LongVector va = null;
+		while(i + w <= aLen && j + w <= bLen) {
+			if(va == null)
+				va = LongVector.fromArray(s, a, i);
+			LongVector vb = LongVector.fromArray(s, b, j);
+			hit = hit.or(va.eq(vb));
+			for(VectorShuffle<Long> rot : LONG_ROTATIONS)
+				hit = hit.or(va.eq(vb.rearrange(rot)));
+			long amax = a[i + w - 1];
+			long bmax = b[j + w - 1];
+			if(bmax <= amax)
+				j += w;
+			if(amax <= bmax) { // the block of a is finished
+				VectorMask<Long> keep = hit.not();
+				va.compress(keep).intoArray(out, n, keep.compress());
+				n += keep.trueCount();
+				i += w;
+				hit = s.maskAll(false);
+				va = null;
+			}
+		}
+		if(va != null) { // finish a partially compared block of a against the rest of b
+			VectorMask<Long> keep = hit.not();
+			long[] rest = new long[w];
+			va.compress(keep).intoArray(rest, 0);
+			n = ScalarBlockKernels.difference(rest, 0, keep.trueCount(), b, j, bLen, out, n);
+			i += w;
+		}
+		return ScalarBlockKernels.difference(a, i, aLen, b, j, bLen, out, n);
+	}
+}
@@ -0,0 +1,73 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.list.Lists;
+
+public class AdaptiveIntersectionIterableTest {
+	@Test
+	public void testDifferential() {
+		Random r = new Random(42);
+		for(int i = 0; i < 2000; i++) {
+			List<Iterable<Integer>> inputs = new ArrayList<Iterable<Integer>>();
+			int n = 1 + r.nextInt(5);
+			for(int j = 0; j < n; j++)
+				inputs.add(RandomSorted.ints(r, r.nextInt(60), 40));
+			Iterable<Integer> adaptive = new AdaptiveIntersectionIterable<Integer>(Comparators.<Integer>naturalOrder(), inputs, 1 + r.nextInt(4));
+			Assert.assertEquals(inputs.toString(), Lists.toList(Scanerator.all(Comparators.<Integer>naturalOrder(), inputs)), Lists.toList(adaptive));
+		}
+	}
+	
+	@Test
+	public void testReranksAsSkewShifts() {
+		List<Integer> dense = new ArrayList<Integer>(), early = new ArrayList<Integer>(), late = new ArrayList<Integer>();
+		for(int i = 0; i < 10000; i++) {
+			dense.add(i);
+			if(i < 5000 ? i % 100 == 0 : true)
+				early.add(i);
+			if(i < 5000 ? true : i % 100 == 0)
+				late.add(i);
+		}
+		List<Iterable<Integer>> inputs = new ArrayList<Iterable<Integer>>();
+		inputs.add(dense);
+		inputs.add(early);
+		inputs.add(late);
+		AdaptiveIntersectionIterable<Integer> all = new AdaptiveIntersectionIterable<Integer>(Comparators.<Integer>naturalOrder(), inputs, 64);
+		CloseableOrderedIterator<Integer> itr = all.iterator();
+		int count = 0;
+		while(itr.hasNext()) {
+			int e = itr.next();
+			Assert.assertEquals(0, e % 100);
+			if(e == 4000) // the sparse part of "early" drives the first half
+				Assert.assertEquals(1, all.ranking()[0]);
+			count++;
+		}
+		Assert.assertEquals(100, count);
+		Assert.assertEquals(2, all.ranking()[0]);
+	}
+	
+	@Test
+	public void testLazyAndClosing() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>();
+		TrackingIterable<Integer> c = new TrackingIterable<Integer>(2, 3);
+		List<Iterable<Integer>> inputs = new ArrayList<Iterable<Integer>>();
+		inputs.add(a);
+		inputs.add(b);
+		inputs.add(c);
+		Assert.assertTrue(Lists.toList(Scanerator.allAdaptive(Comparators.<Integer>naturalOrder(), inputs)).isEmpty());
+		Assert.assertEquals(0, c.opened);
+		Assert.assertFalse(a.isOpen() || b.isOpen());
+		
+		inputs.set(1, c);
+		CloseableOrderedIterator<Integer> itr = Scanerator.open(Scanerator.allAdaptive(Comparators.<Integer>naturalOrder(), inputs));
+		Assert.assertEquals(2, (int) itr.next());
+		itr.close();
+		Assert.assertFalse(itr.hasNext());
+		Assert.assertFalse(a.isOpen() || c.isOpen());
+	}
+}
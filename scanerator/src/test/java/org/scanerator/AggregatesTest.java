@@ -0,0 +1,92 @@
+package org.scanerator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.bitmap.IntBitmap;
+import org.scanerator.list.Lists;
+
+public class AggregatesTest {
+	private static final ExpressionRoot<Integer> root = Scanerator.withNaturalOrder();
+	
+	@Test
+	public void testCount() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 2, 5);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 3, 5);
+		Assert.assertEquals(Lists.toList(root.express(a).and(b)).size(), root.express(a).and(b).count());
+		Assert.assertEquals(7, root.express(a).or(b).count());
+		Assert.assertEquals(4, root.express(a).or(b).dedup().count());
+		Assert.assertEquals(Lists.toList(root.express(a).not(b)).size(), root.express(a).not(b).count());
+		Assert.assertEquals(0, root.express(Scanerator.<Integer>empty()).count());
+		Assert.assertFalse(a.isOpen() || b.isOpen());
+	}
+	
+	@Test
+	public void testCountDistinct() {
+		Assert.assertEquals(3, root.express(Arrays.asList(1, 1, 2, 2, 2, 7)).countDistinct());
+		Assert.assertEquals(0, Scanerator.countDistinct(Scanerator.<Integer>empty()));
+	}
+	
+	@Test
+	public void testShortcuts() {
+		Random r = new Random(3);
+		IntBitmap a = new IntBitmap();
+		IntBitmap b = new IntBitmap();
+		for(int i = 0; i < 10000; i++) {
+			a.add(r.nextInt(50000));
+			b.add(r.nextInt(50000));
+		}
+		Assert.assertEquals(Lists.toList(a).size(), root.express(a).count());
+		Assert.assertEquals(Lists.toList(a).size() + Lists.toList(b).size(), root.express(a).or(b).count());
+		Assert.assertEquals(Lists.toList(Scanerator.dedup(new UnionIterable<Integer>(Lists.toList(a), Lists.toList(b)))).size(),
+				root.express(a).or(b).countDistinct());
+		Assert.assertEquals(Lists.toList(a).get(Lists.toList(a).size() - 1), root.express(a).last());
+		// sized sources are never opened
+		TrackingIterable<Integer> t = new TrackingIterable<Integer>(1, 2);
+		Assert.assertEquals(a.size() + 2, Scanerator.count(Scanerator.any(a, t)));
+		Assert.assertEquals(1, t.opened);
+	}
+	
+	@Test
+	public void testFirstLastEmpty() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 4, 6);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 4, 5, 6);
+		Assert.assertEquals(Integer.valueOf(2), root.express(a).and(b).first());
+		Assert.assertFalse(a.isOpen() || b.isOpen());
+		Assert.assertEquals(Integer.valueOf(6), root.express(a).and(b).last());
+		Assert.assertFalse(root.express(a).and(b).isEmpty());
+		Assert.assertTrue(root.express(a).not(a).isEmpty());
+		Assert.assertFalse(a.isOpen() || b.isOpen());
+		Assert.assertEquals(Integer.valueOf(6), Scanerator.last(Arrays.asList(1, 6)));
+		try {
+			root.express(a).not(a).first();
+			Assert.fail();
+		} catch(NoSuchElementException e) {
+			// expected
+		}
+		try {
+			Scanerator.last(new IntBitmap());
+			Assert.fail();
+		} catch(NoSuchElementException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testLazyList() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 4, 6);
+		List<Integer> list = Lists.toList(a);
+		Assert.assertEquals(Integer.valueOf(1), list.get(0));
+		Assert.assertTrue(Lists.isLazy(list));
+		Assert.assertEquals(4, Scanerator.count(list)); // iterated rather than sized
+		Assert.assertEquals(Integer.valueOf(6), Scanerator.last(list));
+		Assert.assertFalse(Lists.isLazy(list));
+		Assert.assertEquals(4, a.pulled);
+		Assert.assertEquals(4, Scanerator.count(Lists.toConcurrentList(a)));
+	}
+}
@@ -0,0 +1,75 @@
+package org.scanerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.list.Lists;
+
+public class CheckpointedIteratorTest {
+	private static final ExpressionRoot<Integer> root = Scanerator.withNaturalOrder();
+	
+	@SuppressWarnings("unchecked")
+	private static Continuation<Integer> roundTrip(Continuation<Integer> c) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(c);
+		out.close();
+		return (Continuation<Integer>) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+	}
+	
+	@Test
+	public void testRestore() throws Exception {
+		Random r = new Random(5);
+		for(int i = 0; i < 1000; i++) {
+			Expression<Integer> e = RangeTest.randomExpression(r, 1 + r.nextInt(4));
+			List<Integer> expected = Lists.toList(e);
+			List<Integer> actual = new ArrayList<Integer>(); // elements up to the last checkpoint
+			Continuation<Integer> checkpoint = null;
+			while(true) {
+				CheckpointedIterator<Integer> itr = e.checkpointed(checkpoint);
+				List<Integer> uncommitted = new ArrayList<Integer>();
+				int n = r.nextInt(6);
+				for(int j = 0; j < n && itr.hasNext(); j++) {
+					uncommitted.add(itr.next());
+					if(r.nextBoolean()) {
+						checkpoint = roundTrip(itr.snapshot());
+						actual.addAll(uncommitted);
+						uncommitted.clear();
+					}
+				}
+				if(!itr.hasNext()) {
+					actual.addAll(uncommitted);
+					break;
+				}
+				itr.close(); // crash, losing the uncommitted elements
+			}
+			Assert.assertEquals(e.toString(), expected, actual);
+		}
+	}
+	
+	@Test
+	public void testSnapshot() {
+		CheckpointedIterator<Integer> itr = root.express(Arrays.asList(1, 2, 2)).or(Arrays.asList(2, 3)).checkpointed(null);
+		Assert.assertNull(itr.snapshot());
+		itr.next();
+		itr.next();
+		itr.next();
+		Assert.assertEquals(new Continuation<Integer>(2, 2), itr.snapshot());
+		itr.close();
+		itr = root.express(Arrays.asList(1, 2, 2)).or(Arrays.asList(2, 3)).checkpointed(new Continuation<Integer>(2, 2));
+		Assert.assertEquals(new Continuation<Integer>(2, 2), itr.snapshot());
+		Assert.assertEquals(Integer.valueOf(2), itr.next());
+		Assert.assertEquals(new Continuation<Integer>(2, 3), itr.snapshot());
+		Assert.assertEquals(Integer.valueOf(3), itr.next());
+		Assert.assertFalse(itr.hasNext());
+	}
+}
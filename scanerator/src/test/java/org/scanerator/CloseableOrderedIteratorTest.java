@@ -0,0 +1,48 @@
+package org.scanerator;
+
+import static org.scanerator.Scanerator.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CloseableOrderedIteratorTest {
+	@Test
+	public void testIntersectionReleasesOtherSide() {
+		TrackingIterable<Integer> lhs = new TrackingIterable<Integer>(1, 2);
+		TrackingIterable<Integer> rhs = new TrackingIterable<Integer>(2, 3, 4, 5);
+		CloseableOrderedIterator<Integer> itr = open(all(lhs, rhs));
+		Assert.assertTrue(itr.hasNext());
+		Assert.assertEquals(2, (int) itr.next());
+		Assert.assertFalse(itr.hasNext());
+		Assert.assertFalse(lhs.isOpen());
+		Assert.assertFalse(rhs.isOpen());
+	}
+	
+	@Test
+	public void testSubtractionReleasesSubtrahend() {
+		TrackingIterable<Integer> lhs = new TrackingIterable<Integer>(1, 2);
+		TrackingIterable<Integer> rhs = new TrackingIterable<Integer>(5, 6, 7);
+		CloseableOrderedIterator<Integer> itr = open(not(lhs, rhs));
+		Assert.assertEquals(1, (int) itr.next());
+		Assert.assertEquals(2, (int) itr.next());
+		Assert.assertFalse(itr.hasNext());
+		Assert.assertFalse(rhs.isOpen());
+		Assert.assertEquals(1, rhs.pulled);
+	}
+	
+	@Test
+	public void testCloseCascades() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3, 4, 5);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(1, 2, 3, 4, 5);
+		TrackingIterable<Integer> c = new TrackingIterable<Integer>(2, 9);
+		Expression<Integer> expr = Scanerator.<Integer>withNaturalOrder().express(a).or(b).not(c).dedup();
+		CloseableOrderedIterator<Integer> itr = expr.iterator();
+		Assert.assertEquals(1, (int) itr.next());
+		Assert.assertTrue(a.isOpen() && b.isOpen() && c.isOpen());
+		itr.close();
+		Assert.assertFalse(itr.hasNext());
+		Assert.assertFalse(a.isOpen() || b.isOpen() || c.isOpen());
+		itr.close();
+		Assert.assertEquals(1, a.closed);
+	}
+}
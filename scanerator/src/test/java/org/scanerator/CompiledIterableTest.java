@@ -0,0 +1,67 @@
+package org.scanerator;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.list.Lists;
+
+public class CompiledIterableTest {
+	private static Expression<Integer> randomExpression(ExpressionRoot<Integer> root, Random r, int depth) {
+		Expression<Integer> e = root.express(RandomSorted.ints(r, r.nextInt(30), 40));
+		if(depth == 0)
+			return e;
+		switch(r.nextInt(5)) {
+		case 0:
+			return e.and(randomExpression(root, r, depth - 1));
+		case 1:
+			return e.or(randomExpression(root, r, depth - 1));
+		case 2:
+			return randomExpression(root, r, depth - 1).not(e);
+		case 3:
+			return randomExpression(root, r, depth - 1).dedup();
+		default:
+			return root.express(randomExpression(root, r, depth - 1)).and(randomExpression(root, r, depth - 1));
+		}
+	}
+	
+	@Test
+	public void testDifferential() {
+		Random r = new Random(1);
+		ExpressionRoot<Integer> root = Scanerator.withNaturalOrder();
+		for(int i = 0; i < 2000; i++) {
+			Expression<Integer> e = randomExpression(root, r, 1 + r.nextInt(5));
+			Assert.assertEquals(e.toString(), Lists.toList(e), Lists.toList(e.compile()));
+		}
+	}
+	
+	@Test
+	public void testPlanSharedByShape() {
+		ExpressionRoot<Integer> root = Scanerator.withNaturalOrder();
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 3);
+		TrackingIterable<Integer> c = new TrackingIterable<Integer>(3);
+		CompiledIterable<Integer> c1 = new CompiledIterable<Integer>(Comparators.naturalOrder(), root.express(a).and(b).not(c));
+		CompiledIterable<Integer> c2 = new CompiledIterable<Integer>(Comparators.naturalOrder(), root.express(c).and(a).not(b));
+		Assert.assertSame(c1.plan, c2.plan);
+	}
+	
+	@Test
+	public void testLazyAndClosing() {
+		ExpressionRoot<Integer> root = Scanerator.withNaturalOrder();
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>();
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 3);
+		TrackingIterable<Integer> c = new TrackingIterable<Integer>(1, 2, 3, 4);
+		TrackingIterable<Integer> d = new TrackingIterable<Integer>(3, 9);
+		Assert.assertTrue(Lists.toList(root.express(a).and(b).compile()).isEmpty());
+		Assert.assertEquals(0, b.opened);
+		
+		CloseableOrderedIterator<Integer> itr = root.express(c).not(d).compile().iterator();
+		Assert.assertEquals(1, (int) itr.next());
+		Assert.assertTrue(c.isOpen() && d.isOpen());
+		itr.close();
+		Assert.assertFalse(itr.hasNext());
+		Assert.assertFalse(c.isOpen() || d.isOpen());
+	}
+}
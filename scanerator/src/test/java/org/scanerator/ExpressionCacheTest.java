@@ -0,0 +1,244 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.io.ResultSetCodec;
+import org.scanerator.list.Lists;
+
+public class ExpressionCacheTest {
+	private static final ExpressionRoot<Integer> root = Scanerator.withNaturalOrder();
+
+	/**
+	 * {@link ExpressionCache} with a clock set by the test
+	 */
+	private static class ClockedCache extends ExpressionCache<Integer> {
+		private long time;
+
+		public ClockedCache(long budget) {
+			super(ResultSetCodec.INTEGERS, budget);
+		}
+
+		@Override
+		protected long now() {
+			return time;
+		}
+	}
+
+	private static Integer[] randomArray(Random r, int n) {
+		List<Integer> list = new ArrayList<Integer>();
+		for(int i = 0; i < n; i++)
+			list.add(r.nextInt(2 * n + 1));
+		Collections.sort(list);
+		return list.toArray(new Integer[list.size()]);
+	}
+
+	@Test
+	public void testDifferential() {
+		Random r = new Random(50);
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 1 << 20);
+		for(int i = 0; i < 500; i++) {
+			Integer[] a = randomArray(r, r.nextInt(40)), b = randomArray(r, r.nextInt(40)), c = randomArray(r, r.nextInt(40));
+			Expression<Integer> plain = root.express(Arrays.asList(a)).or(Arrays.asList(b)).not(Arrays.asList(c)).dedup();
+			Iterable<Integer> sa = cache.source("a" + i, Arrays.asList(a), 1, TimeUnit.HOURS);
+			Iterable<Integer> sb = cache.source("b" + i, Arrays.asList(b), 1, TimeUnit.HOURS);
+			Iterable<Integer> sc = cache.source("c" + i, Arrays.asList(c), 1, TimeUnit.HOURS);
+			Expression<Integer> cached = root.express(sa).or(sb).not(sc).dedup().cached(cache);
+			List<Integer> expected = Lists.toList(plain);
+			Assert.assertEquals(expected, Lists.toList(cached)); // evaluated
+			Assert.assertEquals(expected, Lists.toList(cached)); // served
+		}
+	}
+
+	@Test
+	public void testHitSkipsSources() {
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 1 << 20);
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3, 5, 8);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 3, 4, 5);
+		Iterable<Integer> and = root.express(cache.source("a", a, 1, TimeUnit.MINUTES)).and(cache.source("b", b, 1, TimeUnit.MINUTES)).cached(cache);
+		Assert.assertEquals(Arrays.asList(2, 3, 5), Lists.toList(and));
+		Assert.assertEquals(1, a.opened);
+		Assert.assertEquals(0, cache.hits());
+		Assert.assertEquals(1, cache.misses()); // the intersection; sources are not looked up
+		Assert.assertEquals(Arrays.asList(2, 3, 5), Lists.toList(and));
+		Assert.assertEquals(1, a.opened);
+		Assert.assertEquals(1, b.opened);
+		Assert.assertEquals(1, cache.hits());
+		Assert.assertEquals(1, cache.misses());
+		Assert.assertFalse(a.isOpen());
+		Assert.assertFalse(b.isOpen());
+	}
+
+	@Test
+	public void testCanonicalKey() {
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 1 << 20);
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 3, 4);
+		Iterable<Integer> sa = cache.source("a", a, 1, TimeUnit.MINUTES), sb = cache.source("b", b, 1, TimeUnit.MINUTES);
+		Assert.assertEquals(Arrays.asList(2, 3), Lists.toList(root.express(sa).and(sb).cached(cache)));
+		// intersection commutes, so b and a is served from a and b
+		Assert.assertEquals(Arrays.asList(2, 3), Lists.toList(root.express(sb).and(sa).cached(cache)));
+		Assert.assertEquals(1, a.opened);
+		Assert.assertEquals(1, cache.hits());
+		// subtraction does not
+		Assert.assertEquals(Arrays.asList(1), Lists.toList(root.express(sa).not(sb).cached(cache)));
+		Assert.assertEquals(Arrays.asList(4), Lists.toList(root.express(sb).not(sa).cached(cache)));
+		Assert.assertEquals(1, cache.hits());
+		Assert.assertEquals(Arrays.asList(1), Lists.toList(root.express(sa).not(sb).cached(cache)));
+		Assert.assertEquals(2, cache.hits());
+		Assert.assertEquals(3, a.opened);
+	}
+
+	@Test
+	public void testSubtreeHit() {
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 1 << 20);
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3, 4, 5, 6);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 4, 6);
+		TrackingIterable<Integer> c = new TrackingIterable<Integer>(4);
+		TrackingIterable<Integer> d = new TrackingIterable<Integer>(6);
+		Iterable<Integer> sa = cache.source("a", a, 1, TimeUnit.MINUTES), sb = cache.source("b", b, 1, TimeUnit.MINUTES);
+		Assert.assertEquals(Arrays.asList(2, 4, 6), Lists.toList(root.express(sa).and(sb).cached(cache)));
+		Assert.assertEquals(Arrays.asList(2, 6), Lists.toList(root.express(sa).and(sb).not(cache.source("c", c, 1, TimeUnit.MINUTES)).cached(cache)));
+		Assert.assertEquals(Arrays.asList(2, 4), Lists.toList(root.express(sa).and(sb).not(cache.source("d", d, 1, TimeUnit.MINUTES)).cached(cache)));
+		// the intersection was only evaluated once
+		Assert.assertEquals(1, a.opened);
+		Assert.assertEquals(1, b.opened);
+		Assert.assertEquals(1, c.opened);
+		Assert.assertEquals(2, cache.hits());
+	}
+
+	@Test
+	public void testRangeKey() {
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 1 << 20);
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3, 4, 5, 6);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 4, 6);
+		Expression<Integer> and = root.express(cache.source("a", a, 1, TimeUnit.MINUTES)).and(cache.source("b", b, 1, TimeUnit.MINUTES));
+		Assert.assertEquals(Arrays.asList(2, 4), Lists.toList(and.range(1, 5).cached(cache)));
+		Assert.assertEquals(Arrays.asList(4, 6), Lists.toList(and.range(3, 7).cached(cache)));
+		int opened = a.opened;
+		long hits = cache.hits();
+		// the bounds are part of the key
+		Assert.assertEquals(Arrays.asList(2, 4), Lists.toList(and.range(1, 5).cached(cache)));
+		Assert.assertEquals(opened, a.opened);
+		Assert.assertEquals(hits + 1, cache.hits());
+	}
+
+	@Test
+	public void testIncompleteNotStored() {
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 1 << 20);
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3);
+		Iterable<Integer> cached = root.express(cache.source("a", a, 1, TimeUnit.MINUTES)).dedup().cached(cache);
+		CloseableOrderedIterator<Integer> itr = Scanerator.open(cached);
+		Assert.assertEquals(1, (int) itr.next());
+		itr.close();
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(Arrays.asList(1, 2, 3), Lists.toList(cached));
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(2, a.opened);
+	}
+
+	@Test
+	public void testEviction() {
+		List<Integer> big = new ArrayList<Integer>();
+		for(int i = 0; i < 1000; i++)
+			big.add(i * 1000);
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 5000);
+		Iterable<Integer> a = root.express(cache.source("a", big, 1, TimeUnit.MINUTES)).dedup().cached(cache);
+		Iterable<Integer> b = root.express(cache.source("b", big, 1, TimeUnit.MINUTES)).dedup().cached(cache);
+		Iterable<Integer> c = root.express(cache.source("c", big, 1, TimeUnit.MINUTES)).dedup().cached(cache);
+		Assert.assertEquals(big, Lists.toList(a));
+		Assert.assertEquals(big, Lists.toList(b));
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(big, Lists.toList(a)); // a is now the most recently used
+		Assert.assertEquals(1, cache.hits());
+		Assert.assertEquals(big, Lists.toList(c)); // so b is evicted
+		Assert.assertEquals(1, cache.evictions());
+		Assert.assertEquals(big, Lists.toList(a));
+		Assert.assertEquals(big, Lists.toList(b));
+		Assert.assertEquals(2, cache.hits());
+		Assert.assertEquals(2, cache.evictions());
+		Assert.assertTrue(cache.bytes() <= 5000);
+	}
+
+	@Test
+	public void testTooBigNotStored() {
+		List<Integer> big = new ArrayList<Integer>();
+		for(int i = 0; i < 10000; i++)
+			big.add(i * 1000);
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 1024);
+		Iterable<Integer> a = root.express(cache.source("a", big, 1, TimeUnit.MINUTES)).dedup().cached(cache);
+		Assert.assertEquals(big, Lists.toList(a));
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.bytes());
+	}
+
+	@Test
+	public void testExpiry() {
+		ClockedCache cache = new ClockedCache(1 << 20);
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 3);
+		Expression<Integer> db = root.express(cache.source("b", b, 1, TimeUnit.HOURS)).dedup();
+		Iterable<Integer> or = root.express(cache.source("a", a, 10, TimeUnit.SECONDS)).or(db).cached(cache);
+		Assert.assertEquals(Arrays.asList(1, 2, 2, 3, 3), Lists.toList(or));
+		cache.time = 9999;
+		Assert.assertEquals(Arrays.asList(1, 2, 2, 3, 3), Lists.toList(or));
+		Assert.assertEquals(1, a.opened);
+		cache.time = 10000; // the union expires with a, but the dedup of b is still cached
+		Assert.assertEquals(Arrays.asList(1, 2, 2, 3, 3), Lists.toList(or));
+		Assert.assertEquals(2, a.opened);
+		Assert.assertEquals(1, b.opened);
+		Assert.assertEquals(1, cache.expirations());
+	}
+
+	@Test
+	public void testInvalidate() {
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 1 << 20);
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 3, 9);
+		Expression<Integer> da = root.express(cache.source("a", a, 1, TimeUnit.HOURS)).dedup();
+		Iterable<Integer> and = da.and(cache.source("b", b, 1, TimeUnit.HOURS)).cached(cache);
+		Assert.assertEquals(Arrays.asList(2, 3), Lists.toList(and));
+		Assert.assertEquals(1, cache.invalidate("b")); // the intersection, but not the dedup of a
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(Arrays.asList(2, 3), Lists.toList(and));
+		Assert.assertEquals(1, a.opened);
+		Assert.assertEquals(2, b.opened);
+	}
+
+	@Test
+	public void testInvalidateDuringEvaluation() {
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 1 << 20);
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 2, 3);
+		Iterable<Integer> dedup = root.express(cache.source("a", a, 1, TimeUnit.HOURS)).dedup().cached(cache);
+		CloseableOrderedIterator<Integer> itr = Scanerator.open(dedup);
+		Assert.assertEquals(1, (int) itr.next());
+		Assert.assertEquals(0, cache.invalidate("a"));
+		Assert.assertEquals(2, (int) itr.next());
+		Assert.assertEquals(3, (int) itr.next());
+		Assert.assertFalse(itr.hasNext());
+		Assert.assertEquals(0, cache.size()); // may hold elements of a from before it changed
+		Assert.assertEquals(Arrays.asList(1, 2, 3), Lists.toList(dedup));
+		Assert.assertEquals(Arrays.asList(1, 2, 3), Lists.toList(dedup));
+		Assert.assertEquals(2, a.opened);
+	}
+
+	@Test
+	public void testOtherOrderNotCached() {
+		ExpressionCache<Integer> cache = new ExpressionCache<Integer>(ResultSetCodec.INTEGERS, 1 << 20);
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(3, 2, 1);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 1);
+		Iterable<Integer> sa = cache.source("a", a, 1, TimeUnit.HOURS), sb = cache.source("b", b, 1, TimeUnit.HOURS);
+		Iterable<Integer> and = cache.cached(Scanerator.all(Collections.<Integer>reverseOrder(), sa, sb));
+		Assert.assertEquals(Arrays.asList(2, 1), Lists.toList(and));
+		Assert.assertEquals(Arrays.asList(2, 1), Lists.toList(and));
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(2, a.opened);
+	}
+}
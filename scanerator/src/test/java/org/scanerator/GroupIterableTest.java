@@ -0,0 +1,75 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.list.Lists;
+
+public class GroupIterableTest {
+	/**
+	 * Orders {@code int[] { key, value }} counters by key
+	 */
+	private static final Comparator<int[]> BY_KEY = new Comparator<int[]>() {
+		@Override
+		public int compare(int[] o1, int[] o2) {
+			return Integer.compare(o1[0], o2[0]);
+		}
+	};
+	
+	@Test
+	public void testGroupAdjacent() {
+		Random r = new Random(45);
+		for(int i = 0; i < 500; i++) {
+			List<Integer> list = new ArrayList<Integer>();
+			int n = r.nextInt(40);
+			for(int j = 0; j < n; j++)
+				list.add(r.nextInt(20));
+			Collections.sort(list);
+			List<List<Integer>> expected = new ArrayList<List<Integer>>();
+			for(Integer e : list) {
+				if(expected.isEmpty() || !expected.get(expected.size() - 1).get(0).equals(e))
+					expected.add(new ArrayList<Integer>());
+				expected.get(expected.size() - 1).add(e);
+			}
+			Assert.assertEquals(expected, Lists.toList(Scanerator.groupAdjacent(list, Comparators.<Integer>naturalOrder(), Collectors.<Integer>toList())));
+		}
+	}
+	
+	@Test
+	public void testMergeDuplicates() {
+		ExpressionRoot<int[]> root = Scanerator.with(BY_KEY);
+		List<int[]> a = Arrays.asList(new int[] { 1, 1 }, new int[] { 2, 5 }, new int[] { 4, 1 });
+		List<int[]> b = Arrays.asList(new int[] { 2, 3 }, new int[] { 4, 2 }, new int[] { 4, 4 });
+		List<String> sums = new ArrayList<String>();
+		for(int[] c : root.express(a).or(b).mergeDuplicates(new BinaryOperator<int[]>() {
+			@Override
+			public int[] apply(int[] t, int[] u) {
+				return new int[] { t[0], t[1] + u[1] };
+			}
+		}))
+			sums.add(c[0] + "=" + c[1]);
+		Assert.assertEquals(Arrays.asList("1=1", "2=8", "4=7"), sums);
+	}
+	
+	@Test
+	public void testLazyAndClosing() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 1, 2, 3);
+		Iterable<Long> counts = Scanerator.<Integer>withNaturalOrder().express(a).groupAdjacent(Collectors.counting());
+		CloseableOrderedIterator<Long> itr = Scanerator.open(counts);
+		Assert.assertEquals(0, a.opened);
+		Assert.assertEquals(2L, (long) itr.next());
+		Assert.assertEquals(3, a.pulled); // the first element of the next run
+		itr.close();
+		Assert.assertFalse(itr.hasNext());
+		Assert.assertFalse(a.isOpen());
+	}
+}
@@ -3,6 +3,7 @@ package org.scanerator;
 import static org.scanerator.Scanerator.*;
 
 import java.util.Arrays;
+import java.util.Iterator;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -17,4 +18,16 @@ public class IntersectionIterableTest {
 				Arrays.asList(2, 3, 3, 4),
 				Lists.toList(new IntersectionIterable<Integer>(left, right)));
 	}
+	
+	@Test
+	public void testLazyOpening() {
+		TrackingIterable<Integer> left = new TrackingIterable<Integer>();
+		TrackingIterable<Integer> right = new TrackingIterable<Integer>(1, 2, 3);
+		Iterable<Integer> all = new IntersectionIterable<Integer>(left, right);
+		Iterator<Integer> itr = all.iterator();
+		Assert.assertEquals(0, left.opened + right.opened);
+		Assert.assertFalse(itr.hasNext());
+		Assert.assertEquals(1, left.opened);
+		Assert.assertEquals(0, right.opened);
+	}
 }
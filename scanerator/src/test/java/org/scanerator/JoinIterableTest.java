@@ -0,0 +1,97 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.JoinIterable.Type;
+import org.scanerator.list.Lists;
+
+public class JoinIterableTest {
+	/**
+	 * Keys are the tens of the elements, so {@code 31} and {@code 35} have the same key
+	 */
+	private static final Function<Integer, Integer> TENS = new Function<Integer, Integer>() {
+		@Override
+		public Integer apply(Integer t) {
+			return t / 10;
+		}
+	};
+	private static final Function<String, Integer> LENGTH = new Function<String, Integer>() {
+		@Override
+		public Integer apply(String t) {
+			return t.length();
+		}
+	};
+	
+	private static List<Pair<Integer, Integer>> nestedLoop(List<Integer> a, List<Integer> b, Type type) {
+		List<Pair<Integer, Integer>> out = new ArrayList<Pair<Integer, Integer>>();
+		for(int key = 0; key < 10; key++) {
+			List<Integer> ka = new ArrayList<Integer>(), kb = new ArrayList<Integer>();
+			for(Integer i : a)
+				if(i / 10 == key)
+					ka.add(i);
+			for(Integer i : b)
+				if(i / 10 == key)
+					kb.add(i);
+			for(Integer i : ka)
+				for(Integer j : kb)
+					out.add(new Pair<Integer, Integer>(i, j));
+			if(kb.isEmpty() && type != Type.INNER)
+				for(Integer i : ka)
+					out.add(new Pair<Integer, Integer>(i, null));
+			if(ka.isEmpty() && type == Type.FULL_OUTER)
+				for(Integer j : kb)
+					out.add(new Pair<Integer, Integer>(null, j));
+		}
+		return out;
+	}
+	
+	@Test
+	public void testDifferential() {
+		Random r = new Random(43);
+		for(int i = 0; i < 2000; i++) {
+			List<Integer> a = RandomSorted.ints(r, r.nextInt(20), 100);
+			List<Integer> b = RandomSorted.ints(r, r.nextInt(20), 100);
+			for(Type type : Type.values()) {
+				JoinIterable<Integer, Integer, Integer> join = new JoinIterable<Integer, Integer, Integer>(a, b, TENS, TENS, Comparators.<Integer>naturalOrder(), type);
+				Assert.assertEquals(a + " " + b + " " + type, nestedLoop(a, b, type), Lists.toList(join));
+			}
+		}
+	}
+	
+	@Test
+	public void testHeterogeneous() {
+		List<Integer> lengths = Arrays.asList(1, 3, 3, 4);
+		List<String> words = Arrays.asList("a", "b", "cc", "ddd");
+		Assert.assertEquals(Arrays.asList(
+				new Pair<Integer, String>(1, "a"), new Pair<Integer, String>(1, "b"),
+				new Pair<Integer, String>(3, "ddd"), new Pair<Integer, String>(3, "ddd")),
+				Lists.toList(Scanerator.join(lengths, words, new Function<Integer, Integer>() {
+					@Override
+					public Integer apply(Integer t) {
+						return t;
+					}
+				}, LENGTH, Comparators.<Integer>naturalOrder())));
+	}
+	
+	@Test
+	public void testLazyAndClosing() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>();
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(1, 2);
+		Assert.assertTrue(Lists.toList(Scanerator.leftOuterJoin(a, b, TENS, TENS, Comparators.<Integer>naturalOrder())).isEmpty());
+		Assert.assertEquals(0, b.opened);
+		Assert.assertEquals(2, Lists.toList(Scanerator.fullOuterJoin(a, b, TENS, TENS, Comparators.<Integer>naturalOrder())).size());
+		Assert.assertFalse(a.isOpen() || b.isOpen());
+		
+		// an inner join stops as soon as either side is exhausted
+		TrackingIterable<Integer> c = new TrackingIterable<Integer>(1, 20, 30, 40);
+		Assert.assertEquals(2, Lists.toList(Scanerator.join(c, b, TENS, TENS, Comparators.<Integer>naturalOrder())).size());
+		Assert.assertEquals(2, c.pulled);
+		Assert.assertFalse(c.isOpen() || b.isOpen());
+	}
+}
@@ -0,0 +1,82 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongBiFunction;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.list.Lists;
+
+public class NearIterableTest {
+	private static final ToLongBiFunction<Long, Long> MINUS = new ToLongBiFunction<Long, Long>() {
+		@Override
+		public long applyAsLong(Long t, Long u) {
+			return u - t;
+		}
+	};
+	
+	/**
+	 * Distance between {@code long[] { entity, timestamp }} keys, infinite across entities
+	 */
+	private static final ToLongBiFunction<long[], long[]> SAME_ENTITY = new ToLongBiFunction<long[], long[]>() {
+		@Override
+		public long applyAsLong(long[] t, long[] u) {
+			if(t[0] != u[0])
+				return t[0] < u[0] ? Long.MAX_VALUE : Long.MIN_VALUE;
+			return u[1] - t[1];
+		}
+	};
+	
+	@Test
+	public void testDifferential() {
+		Random r = new Random(46);
+		for(int i = 0; i < 1000; i++) {
+			List<Long> a = RandomSorted.longs(r, r.nextInt(30), 100), b = RandomSorted.longs(r, r.nextInt(30), 100);
+			long delta = r.nextInt(10);
+			List<Pair<Long, Long>> pairs = new ArrayList<Pair<Long, Long>>();
+			List<Long> lefts = new ArrayList<Long>();
+			for(Long x : a) { // nested loops
+				boolean matched = false;
+				for(Long y : b) {
+					if(Math.abs(x - y) <= delta) {
+						pairs.add(new Pair<Long, Long>(x, y));
+						matched = true;
+					}
+				}
+				if(matched)
+					lefts.add(x);
+			}
+			NearIterable<Long> near = Scanerator.near(a, b, MINUS, delta);
+			Assert.assertEquals(pairs, Lists.toList(near));
+			Assert.assertEquals(lefts, Lists.toList(near.lefts()));
+			Assert.assertEquals(lefts, Lists.toList(Scanerator.<Long>withNaturalOrder().express(a).near(b, MINUS, delta)));
+		}
+	}
+	
+	@Test
+	public void testEntityTimestamps() {
+		List<long[]> a = Arrays.asList(new long[] { 1, 100 }, new long[] { 2, 5 }, new long[] { 3, 50 });
+		List<long[]> b = Arrays.asList(new long[] { 1, 103 }, new long[] { 2, 100 }, new long[] { 3, 48 }, new long[] { 3, 52 });
+		List<String> out = new ArrayList<String>();
+		for(Pair<long[], long[]> p : Scanerator.near(a, b, SAME_ENTITY, 5))
+			out.add(p.left()[0] + ":" + p.left()[1] + "~" + p.right()[1]);
+		Assert.assertEquals(Arrays.asList("1:100~103", "3:50~48", "3:50~52"), out);
+	}
+	
+	@Test
+	public void testLazyAndClosing() {
+		TrackingIterable<Long> a = new TrackingIterable<Long>();
+		TrackingIterable<Long> b = new TrackingIterable<Long>(1L);
+		Assert.assertTrue(Lists.toList(Scanerator.near(a, b, MINUS, 1)).isEmpty());
+		Assert.assertEquals(0, b.opened);
+		
+		// stops once the right-hand side is used up
+		TrackingIterable<Long> c = new TrackingIterable<Long>(1L, 2L, 10L, 20L, 30L);
+		Assert.assertEquals(Arrays.asList(1L, 2L), Lists.toList(Scanerator.near(c, b, MINUS, 1).lefts()));
+		Assert.assertEquals(3, c.pulled);
+		Assert.assertFalse(c.isOpen() || b.isOpen());
+	}
+}
@@ -0,0 +1,121 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.list.Lists;
+import org.scanerator.posting.PostingList;
+import org.scanerator.posting.PostingListBuilder;
+
+public class OrderedRangeSetTest {
+	private static final int UNIVERSE = 200;
+	
+	private static TreeSet<Long> randomSet(Random r) {
+		TreeSet<Long> s = new TreeSet<Long>();
+		long k = r.nextInt(20);
+		while(k < UNIVERSE) {
+			long run = 1 + r.nextInt(30);
+			for(long i = 0; i < run && k < UNIVERSE; i++)
+				s.add(k++);
+			k += 1 + r.nextInt(30);
+		}
+		return s;
+	}
+	
+	private static TreeSet<Long> members(OrderedRangeSet<Long> set) {
+		TreeSet<Long> s = new TreeSet<Long>();
+		for(long k = -10; k < UNIVERSE + 10; k++)
+			if(set.contains(k))
+				s.add(k);
+		return s;
+	}
+	
+	@Test
+	public void testAlgebra() {
+		Random r = new Random(47);
+		for(int i = 0; i < 500; i++) {
+			TreeSet<Long> a = randomSet(r), b = randomSet(r);
+			OrderedRangeSet<Long> ra = OrderedRangeSet.of(Comparators.<Long>naturalOrder(), a, OrderedRangeSet.NEXT_LONG);
+			OrderedRangeSet<Long> rb = OrderedRangeSet.of(Comparators.<Long>naturalOrder(), b, OrderedRangeSet.NEXT_LONG);
+			Assert.assertEquals(a, members(ra));
+			Assert.assertEquals(new ArrayList<Long>(a), Lists.toList(ra.elements(OrderedRangeSet.NEXT_LONG)));
+			
+			TreeSet<Long> and = new TreeSet<Long>(a);
+			and.retainAll(b);
+			TreeSet<Long> or = new TreeSet<Long>(a);
+			or.addAll(b);
+			TreeSet<Long> not = new TreeSet<Long>(a);
+			not.removeAll(b);
+			Assert.assertEquals(and, members(ra.and(rb)));
+			Assert.assertEquals(or, members(ra.or(rb)));
+			Assert.assertEquals(not, members(ra.not(rb)));
+			Assert.assertEquals(new ArrayList<Long>(or), Lists.toList(ra.or(rb).elements(OrderedRangeSet.NEXT_LONG)));
+			// runs are maximal, so the range count is the same however the set was built
+			Assert.assertEquals(OrderedRangeSet.of(Comparators.<Long>naturalOrder(), or, OrderedRangeSet.NEXT_LONG).toString(), ra.or(rb).toString());
+			Assert.assertEquals(ra.toString(), ra.complement().complement().toString());
+		}
+	}
+	
+	@Test
+	public void testWithinAndOutside() {
+		Random r = new Random(48);
+		for(int i = 0; i < 300; i++) {
+			TreeSet<Long> set = randomSet(r);
+			OrderedRangeSet<Long> ranges = OrderedRangeSet.of(Comparators.<Long>naturalOrder(), set, OrderedRangeSet.NEXT_LONG);
+			List<Long> keys = new ArrayList<Long>();
+			for(long k = 0; k < UNIVERSE; k++)
+				if(r.nextInt(3) == 0)
+					keys.add(k);
+			List<Long> within = new ArrayList<Long>(), outside = new ArrayList<Long>();
+			for(Long k : keys)
+				(set.contains(k) ? within : outside).add(k);
+			PostingList postings = PostingListBuilder.of(keys);
+			TrackingIterable<Long> stream = new TrackingIterable<Long>(keys.toArray(new Long[0]));
+			
+			Assert.assertEquals(within, Lists.toList(ranges.within(keys))); // seeks the list
+			Assert.assertEquals(within, Lists.toList(ranges.within(postings))); // skips the blocks
+			Assert.assertEquals(within, Lists.toList(ranges.within(stream))); // reads the stream once
+			Assert.assertEquals(outside, Lists.toList(ranges.outside(keys)));
+			Assert.assertEquals(outside, Lists.toList(ranges.outside(postings)));
+			Assert.assertEquals(outside, Lists.toList(Scanerator.<Long>withNaturalOrder().express(stream).outside(ranges)));
+			Assert.assertEquals(2, stream.opened);
+			Assert.assertFalse(stream.isOpen());
+		}
+	}
+	
+	@Test
+	public void testLazyList() {
+		Long[] elements = new Long[100];
+		for(int i = 0; i < elements.length; i++)
+			elements[i] = (long) i;
+		TrackingIterable<Long> stream = new TrackingIterable<Long>(elements);
+		List<Long> keys = Lists.toList(stream);
+		OrderedRangeSet<Long> ranges = OrderedRangeSet.of(Comparators.<Long>naturalOrder(), 0L, 3L)
+				.or(OrderedRangeSet.of(Comparators.<Long>naturalOrder(), 5L, 7L));
+		Assert.assertFalse(ranges.seekable(keys)); // streamed rather than seeked
+		Assert.assertEquals(Arrays.asList(0L, 1L, 2L, 5L, 6L), Lists.toList(ranges.within(keys)));
+		Assert.assertTrue(Lists.isLazy(keys));
+		Assert.assertTrue(ranges.seekable(new ArrayList<Long>(keys)));
+	}
+	
+	@Test
+	public void testUnbounded() {
+		OrderedRangeSet<Long> ranges = OrderedRangeSet.of(Comparators.<Long>naturalOrder(), null, 5L)
+				.or(OrderedRangeSet.of(Comparators.<Long>naturalOrder(), 10L, null));
+		Assert.assertEquals("(ranges [, 5) [10, ))", ranges.toString());
+		Assert.assertEquals("(ranges [5, 10))", ranges.complement().toString());
+		Assert.assertEquals(Arrays.asList(-3L, 12L), Lists.toList(ranges.within(Arrays.asList(-3L, 7L, 12L))));
+		Assert.assertEquals(Arrays.asList(Long.MAX_VALUE), Lists.toList(OrderedRangeSet.of(Comparators.<Long>naturalOrder(),
+				Arrays.asList(Long.MAX_VALUE), OrderedRangeSet.NEXT_LONG).within(Arrays.asList(1L, Long.MAX_VALUE))));
+		try {
+			ranges.elements(OrderedRangeSet.NEXT_LONG);
+			Assert.fail();
+		} catch(IllegalStateException expected) {
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package org.scanerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.list.Lists;
+
+public class PageTest {
+	private static final ExpressionRoot<Integer> root = Scanerator.withNaturalOrder();
+	
+	private static List<Integer> pageAll(Expression<Integer> e, int n) {
+		List<Integer> all = new ArrayList<Integer>();
+		Page<Integer> page = e.limit(n);
+		all.addAll(page.elements());
+		while(page.hasMore()) {
+			Assert.assertEquals(n, page.elements().size());
+			page = e.resumeFrom(page.continuation()).limit(n);
+			all.addAll(page.elements());
+		}
+		return all;
+	}
+	
+	@Test
+	public void testDuplicatesAcrossPages() {
+		Expression<Integer> e = root.express(Arrays.asList(1, 2, 2, 2, 3)).or(Arrays.asList(2, 2, 3, 4));
+		List<Integer> expected = Lists.toList(e);
+		for(int n = 1; n <= expected.size() + 1; n++)
+			Assert.assertEquals(expected, pageAll(e, n));
+	}
+	
+	@Test
+	public void testRandom() {
+		Random r = new Random(4);
+		for(int i = 0; i < 500; i++) {
+			List<Integer> a = new ArrayList<Integer>();
+			List<Integer> b = new ArrayList<Integer>();
+			for(int j = 0; j < 40; j++) {
+				a.add(r.nextInt(20));
+				b.add(r.nextInt(20));
+			}
+			java.util.Collections.sort(a);
+			java.util.Collections.sort(b);
+			Expression<Integer> e;
+			switch(i % 3) {
+			case 0:
+				e = root.express(a).or(b);
+				break;
+			case 1:
+				e = root.express(a).and(b);
+				break;
+			default:
+				e = root.express(a).not(b);
+			}
+			Assert.assertEquals(Lists.toList(e), pageAll(e, 1 + r.nextInt(7)));
+		}
+	}
+	
+	@Test
+	public void testLatePageSeeks() {
+		final List<Integer> list = new ArrayList<Integer>();
+		for(int i = 0; i < 1000; i++)
+			list.add(i);
+		final TrackingIterable<Integer> t = new TrackingIterable<Integer>(list.toArray(new Integer[list.size()]));
+		RangeIterable<Integer> seekable = new RangeIterable<Integer>() {
+			@Override
+			public java.util.Iterator<Integer> iterator() {
+				return t.iterator();
+			}
+			@Override
+			public Iterable<Integer> range(Integer from, Integer to) {
+				return Scanerator.range(list, from, to);
+			}
+		};
+		Assert.assertEquals(10, root.express(seekable).limit(10).elements().size());
+		Assert.assertEquals(10, t.pulled);
+		Page<Integer> page = root.express(seekable).resumeFrom(new Continuation<Integer>(989, 1)).limit(10);
+		Assert.assertEquals(Arrays.asList(990, 991, 992, 993, 994, 995, 996, 997, 998, 999), page.elements());
+		Assert.assertFalse(page.hasMore());
+		Assert.assertEquals(10, t.pulled);
+	}
+	
+	@Test
+	public void testSerializable() throws Exception {
+		Page<Integer> page = root.express(Arrays.asList(1, 2, 3)).limit(2);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(page.continuation());
+		out.close();
+		Object token = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		Assert.assertEquals(page.continuation(), token);
+	}
+}
@@ -0,0 +1,111 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.list.Lists;
+
+public class PipelineTest {
+	/**
+	 * Thread-safe source of {@code 0, step, 2*step, ...} which can fail after {@code failAfter} elements
+	 */
+	private static class CountingIterable implements Iterable<Integer> {
+		final AtomicInteger pulled = new AtomicInteger();
+		final AtomicInteger closed = new AtomicInteger();
+		final int size;
+		final int step;
+		final int failAfter;
+		
+		CountingIterable(int size, int step, int failAfter) {
+			this.size = size;
+			this.step = step;
+			this.failAfter = failAfter;
+		}
+		
+		@Override
+		public Iterator<Integer> iterator() {
+			return new CloseableOrderedIterator<Integer>() {
+				int i;
+				
+				@Override
+				public boolean hasNext() {
+					return i < size;
+				}
+				
+				@Override
+				public Integer next() {
+					if(!hasNext())
+						throw new NoSuchElementException();
+					if(i == failAfter)
+						throw new IllegalStateException("source failed");
+					pulled.incrementAndGet();
+					return step * i++;
+				}
+				
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+				
+				@Override
+				public void close() {
+					closed.incrementAndGet();
+				}
+			};
+		}
+	}
+	
+	@Test
+	public void testSameResult() {
+		Random r = new Random(5);
+		List<Iterable<Integer>> inputs = new ArrayList<Iterable<Integer>>();
+		for(int i = 0; i < 8; i++)
+			inputs.add(new CountingIterable(1000 + r.nextInt(1000), 1 + r.nextInt(5), -1));
+		Iterable<Integer> any = Scanerator.any(inputs);
+		Pipeline p = new Pipeline(Pipeline.DAEMON_THREADS, 3, 16, 2);
+		Assert.assertEquals(Lists.toList(any), Lists.toList(p.apply(any)));
+		Iterable<Integer> all = Scanerator.all(inputs);
+		Assert.assertEquals(Lists.toList(all), Lists.toList(p.apply(all)));
+	}
+	
+	@Test
+	public void testExceptionPropagates() {
+		Iterable<Integer> failing = new CountingIterable(1000, 1, 500);
+		Iterable<Integer> other = new CountingIterable(1000, 2, -1);
+		Iterator<Integer> itr = Scanerator.pipelined(Scanerator.any(failing, other), Pipeline.DAEMON_THREADS).iterator();
+		int n = 0;
+		try {
+			while(itr.hasNext()) {
+				itr.next();
+				n++;
+			}
+			Assert.fail();
+		} catch(IllegalStateException e) {
+			Assert.assertEquals("source failed", e.getMessage());
+		}
+		Assert.assertTrue(n >= 500);
+	}
+	
+	@Test
+	public void testBackpressureAndCancellation() throws InterruptedException {
+		CountingIterable big = new CountingIterable(Integer.MAX_VALUE, 1, -1);
+		CountingIterable other = new CountingIterable(Integer.MAX_VALUE, 3, -1);
+		Pipeline p = new Pipeline(Pipeline.DAEMON_THREADS, 1, 10, 2);
+		CloseableOrderedIterator<Integer> itr = Scanerator.open(p.apply(Scanerator.all(big, other)));
+		Assert.assertEquals(0, (int) itr.next());
+		Thread.sleep(100);
+		// queued batches, plus the batch being filled, plus the batch taken
+		Assert.assertTrue(big.pulled.get() <= 10 * 4);
+		itr.close();
+		for(int i = 0; i < 100 && (big.closed.get() == 0 || other.closed.get() == 0); i++)
+			Thread.sleep(10);
+		Assert.assertEquals(1, big.closed.get());
+		Assert.assertEquals(1, other.closed.get());
+	}
+}
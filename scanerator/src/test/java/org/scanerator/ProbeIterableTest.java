@@ -0,0 +1,97 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.ProbeIterable.Strategy;
+import org.scanerator.list.Lists;
+
+public class ProbeIterableTest {
+	private static Iterable<Integer> source(Random r, List<Integer> list) {
+		// sources with and without a size hint
+		if(r.nextBoolean())
+			return list;
+		return new TrackingIterable<Integer>(list.toArray(new Integer[list.size()]));
+	}
+	
+	@Test
+	public void testDifferential() {
+		Random r = new Random(41);
+		for(int i = 0; i < 2000; i++) {
+			int na = r.nextInt(40), nb = r.nextInt(40);
+			List<Integer> a = RandomSorted.ints(r, na, na + 1);
+			List<Integer> b = RandomSorted.ints(r, nb, nb + 1);
+			int budget = 1 + r.nextInt(30);
+			Iterable<Integer> and = Scanerator.all(Comparators.<Integer>naturalOrder(), source(r, a), source(r, b), budget);
+			Iterable<Integer> not = Scanerator.not(Comparators.<Integer>naturalOrder(), source(r, a), source(r, b), budget);
+			Assert.assertEquals(Lists.toList(Scanerator.all(a, b)), Lists.toList(and));
+			Assert.assertEquals(Lists.toList(Scanerator.not(a, b)), Lists.toList(not));
+		}
+	}
+	
+	@Test
+	public void testProbeReleasesSmallSide() {
+		TrackingIterable<Integer> big = new TrackingIterable<Integer>(1, 2, 3, 4, 5, 6, 7, 8, 9);
+		TrackingIterable<Integer> small = new TrackingIterable<Integer>(3, 5);
+		ProbeIterable<Integer> not = new ProbeIterable<Integer>(Comparators.<Integer>naturalOrder(), ProbeIterable.NOT, big, small, 4);
+		CloseableOrderedIterator<Integer> itr = not.iterator();
+		Assert.assertEquals(1, (int) itr.next());
+		Assert.assertFalse(small.isOpen());
+		Assert.assertTrue(big.isOpen());
+		Assert.assertEquals(Strategy.PROBE_RHS, not.strategy());
+		List<Integer> rest = new ArrayList<Integer>();
+		while(itr.hasNext())
+			rest.add(itr.next());
+		Assert.assertEquals(Arrays.asList(2, 4, 6, 7, 8, 9), rest);
+		Assert.assertFalse(big.isOpen());
+		
+		// the intersection stops streaming once the probed side is used up
+		ProbeIterable<Integer> and = new ProbeIterable<Integer>(Comparators.<Integer>naturalOrder(), ProbeIterable.ALL, small, big, 4);
+		Assert.assertEquals(Arrays.asList(3, 5), Lists.toList(and));
+		Assert.assertEquals(Strategy.PROBE_LHS, and.strategy());
+		Assert.assertEquals(5, big.pulled - 9);
+		Assert.assertFalse(big.isOpen());
+	}
+	
+	@Test
+	public void testStrategies() {
+		List<Integer> big = new ArrayList<Integer>();
+		for(int i = 0; i < 100; i++)
+			big.add(i);
+		ProbeIterable<Integer> merge = new ProbeIterable<Integer>(Comparators.<Integer>naturalOrder(), ProbeIterable.ALL, big, big, 10);
+		Assert.assertEquals(big, Lists.toList(merge));
+		Assert.assertEquals(Strategy.MERGE, merge.strategy());
+		// no hint, so the prefix of the left-hand side is buffered and replayed
+		ProbeIterable<Integer> not = new ProbeIterable<Integer>(Comparators.<Integer>naturalOrder(), ProbeIterable.NOT,
+				new TrackingIterable<Integer>(big.toArray(new Integer[0])), new TrackingIterable<Integer>(big.toArray(new Integer[0])), 10);
+		Assert.assertTrue(Lists.toList(not).isEmpty());
+		Assert.assertEquals(1, not.count(Strategy.MERGE));
+		Assert.assertEquals(0, not.count(Strategy.PROBE_RHS));
+	}
+	
+	@Test
+	public void testLazyListHasNoHint() {
+		Integer[] elements = new Integer[100];
+		for(int i = 0; i < elements.length; i++)
+			elements[i] = i;
+		TrackingIterable<Integer> big = new TrackingIterable<Integer>(elements);
+		ProbeIterable<Integer> not = new ProbeIterable<Integer>(Comparators.<Integer>naturalOrder(), ProbeIterable.NOT,
+				new TrackingIterable<Integer>(3, 5), Lists.toList(big), 4);
+		Assert.assertTrue(Lists.toList(not).isEmpty());
+		Assert.assertEquals(Strategy.MERGE, not.strategy());
+		Assert.assertTrue(big.pulled < 10); // not sized for a hint
+	}
+	
+	@Test
+	public void testLazy() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>();
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(1);
+		Assert.assertTrue(Lists.toList(Scanerator.not(Comparators.<Integer>naturalOrder(), a, b, 4)).isEmpty());
+		Assert.assertEquals(0, b.opened);
+		Assert.assertNull(((ProbeIterable<Integer>) Scanerator.all(Comparators.<Integer>naturalOrder(), a, b, 4)).strategy());
+	}
+}
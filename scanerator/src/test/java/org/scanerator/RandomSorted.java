@@ -0,0 +1,45 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random sorted inputs, duplicates included, for differential tests
+ * of the operators against a simpler implementation.
+ */
+public class RandomSorted {
+	private RandomSorted() {
+	}
+
+	/**
+	 * Returns a sorted list of random {@link Integer}s
+	 * @param r The source of randomness
+	 * @param size The number of elements
+	 * @param bound The elements are in {@code [0, bound)}
+	 * @return A new list
+	 */
+	public static List<Integer> ints(Random r, int size, int bound) {
+		List<Integer> list = new ArrayList<Integer>();
+		for(int i = 0; i < size; i++)
+			list.add(r.nextInt(bound));
+		Collections.sort(list);
+		return list;
+	}
+
+	/**
+	 * Returns a sorted list of random {@link Long}s
+	 * @param r The source of randomness
+	 * @param size The number of elements
+	 * @param bound The elements are in {@code [0, bound)}
+	 * @return A new list
+	 */
+	public static List<Long> longs(Random r, int size, int bound) {
+		List<Long> list = new ArrayList<Long>();
+		for(int i = 0; i < size; i++)
+			list.add((long) r.nextInt(bound));
+		Collections.sort(list);
+		return list;
+	}
+}
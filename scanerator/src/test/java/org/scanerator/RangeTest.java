@@ -0,0 +1,120 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.bitmap.IntBitmap;
+import org.scanerator.list.Lists;
+import org.scanerator.list.OrderedIteratorList;
+
+public class RangeTest {
+	private static final ExpressionRoot<Integer> root = Scanerator.withNaturalOrder();
+	
+	private static Iterable<Integer> randomSource(Random r) {
+		List<Integer> list = RandomSorted.ints(r, r.nextInt(30), 40);
+		switch(r.nextInt(3)) {
+		case 0:
+			return list;
+		case 1:
+			return Scanerator.materializeBitmap(list);
+		default:
+			return new TrackingIterable<Integer>(list.toArray(new Integer[list.size()]));
+		}
+	}
+	
+	static Expression<Integer> randomExpression(Random r, int depth) {
+		Expression<Integer> e = root.express(randomSource(r));
+		if(depth == 0)
+			return e;
+		switch(r.nextInt(6)) {
+		case 0:
+			return e.and(randomExpression(r, depth - 1));
+		case 1:
+			return e.or(randomExpression(r, depth - 1));
+		case 2:
+			return randomExpression(r, depth - 1).not(e);
+		case 3:
+			return randomExpression(r, depth - 1).dedup();
+		case 4:
+			return root.express(Scanerator.checked(randomExpression(r, depth - 1)));
+		default:
+			return randomExpression(r, depth - 1).compile();
+		}
+	}
+	
+	private static List<Integer> filter(List<Integer> list, Integer from, Integer to) {
+		List<Integer> out = new ArrayList<Integer>();
+		for(Integer e : list)
+			if((from == null || e >= from) && (to == null || e < to))
+				out.add(e);
+		return out;
+	}
+	
+	@Test
+	public void testDifferential() {
+		Random r = new Random(2);
+		for(int i = 0; i < 2000; i++) {
+			Expression<Integer> e = randomExpression(r, 1 + r.nextInt(4));
+			Integer from = r.nextInt(5) == 0 ? null : r.nextInt(45);
+			Integer to = r.nextInt(5) == 0 ? null : r.nextInt(45);
+			List<Integer> expected = filter(Lists.toList(e), from, to);
+			if(from != null && to != null && from >= to)
+				expected = Collections.emptyList();
+			Assert.assertEquals(e + " " + from + " " + to, expected, Lists.toList(e.range(from, to)));
+		}
+	}
+	
+	@Test
+	public void testStopsPulling() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3, 4, 5, 6, 7, 8);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 4, 6, 8);
+		Assert.assertEquals(Arrays.asList(2, 2, 3, 4, 4), Lists.toList(root.express(a).or(b).range(2, 5)));
+		Assert.assertFalse(a.isOpen() || b.isOpen());
+		Assert.assertEquals(5, a.pulled);
+		Assert.assertEquals(3, b.pulled);
+	}
+	
+	@Test
+	public void testLazyList() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3, 4, 5, 6, 7, 8);
+		List<Integer> list = Lists.toList(a);
+		Assert.assertEquals(Arrays.asList(2, 3, 4), Lists.toList(Scanerator.range(list, 2, 5)));
+		Assert.assertEquals(5, a.pulled); // not binary searched, which would size the list
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(1, 2, 3, 4, 5, 6, 7, 8);
+		OrderedIteratorList<Integer> ordered = new OrderedIteratorList<Integer>(Comparators.<Integer>naturalOrder(), b.iterator());
+		Iterable<Integer> range = Scanerator.range(ordered, 3, 6);
+		Assert.assertEquals(0, b.pulled); // searched when iterated
+		Assert.assertEquals(Arrays.asList(3, 4, 5), Lists.toList(range));
+		Assert.assertEquals(6, b.pulled);
+		Assert.assertEquals(Arrays.asList(1, 2), Lists.toList(Scanerator.range(ordered, null, 3)));
+		Assert.assertEquals(6, b.pulled);
+	}
+	
+	@Test
+	public void testSeek() {
+		final List<Integer> seeks = new ArrayList<Integer>();
+		RangeIterable<Integer> seekable = new RangeIterable<Integer>() {
+			@Override
+			public java.util.Iterator<Integer> iterator() {
+				return Arrays.asList(1, 2, 3, 4).iterator();
+			}
+			@Override
+			public Iterable<Integer> range(Integer from, Integer to) {
+				seeks.add(from);
+				seeks.add(to);
+				return Scanerator.range(Arrays.asList(1, 2, 3, 4), from, to);
+			}
+		};
+		IntBitmap bitmap = Scanerator.materializeBitmap(Arrays.asList(-70000, 2, 3, 70000, 140000));
+		Assert.assertEquals(Arrays.asList(2, 3), Lists.toList(root.express(seekable).and(bitmap).range(2, 70000)));
+		Assert.assertEquals(Arrays.asList(2, 70000), seeks);
+		Assert.assertEquals(Arrays.asList(3, 70000), Lists.toList(bitmap.range(3, 140000)));
+		Assert.assertEquals(Arrays.asList(-70000, 2), Lists.toList(bitmap.range(null, 3)));
+	}
+}
@@ -44,6 +44,21 @@ public class ScaneratorTest {
 		Assert.assertEquals(Arrays.asList(2, 4, 8, 10, 14), Lists.toList(not(mul2, mul3)));
 	}
 	
+	@Test
+	public void testLazyOpening() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>();
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(1, 2);
+		TrackingIterable<Integer> c = new TrackingIterable<Integer>(2, 3);
+		TrackingIterable<Integer> d = new TrackingIterable<Integer>(1, 3);
+		ExpressionRoot<Integer> root = Scanerator.withNaturalOrder();
+		Assert.assertTrue(Lists.toList(root.express(a).and(b).and(c)).isEmpty());
+		Assert.assertTrue(Lists.toList(root.express(a).not(root.express(b).or(c))).isEmpty());
+		Assert.assertEquals(2, a.opened);
+		Assert.assertEquals(0, b.opened + c.opened);
+		Assert.assertEquals(Arrays.asList(1, 3), Lists.toList(root.express(b).or(c).and(d).not(a)));
+		Assert.assertEquals(3, a.opened);
+	}
+	
 	@Test
 	public void testStrings() {
 		Iterable<Object> all = all(Arrays.asList(empty(), empty(), empty(), empty()));
@@ -0,0 +1,80 @@
+package org.scanerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TaggedUnionIterableTest {
+	@Test
+	public void testDifferential() {
+		Random r = new Random(44);
+		for(int i = 0; i < 500; i++) {
+			List<Iterable<Integer>> inputs = new ArrayList<Iterable<Integer>>();
+			List<List<Integer>> lists = new ArrayList<List<Integer>>();
+			int n = r.nextInt(i % 10 == 0 ? 100 : 6);
+			TreeSet<Integer> all = new TreeSet<Integer>();
+			for(int j = 0; j < n; j++) {
+				List<Integer> list = RandomSorted.ints(r, r.nextInt(30), 50);
+				lists.add(list);
+				inputs.add(list);
+				all.addAll(list);
+			}
+			List<Integer> keys = new ArrayList<Integer>();
+			for(Tagged<Integer> t : Scanerator.anyTagged(inputs)) {
+				keys.add(t.key());
+				BitSet expected = new BitSet();
+				List<Integer> elements = new ArrayList<Integer>();
+				for(int j = 0; j < n; j++) {
+					for(Integer e : lists.get(j)) {
+						if(e.equals(t.key())) {
+							expected.set(j);
+							elements.add(e);
+						}
+					}
+				}
+				Assert.assertEquals(expected, t.inputs());
+				Assert.assertEquals(expected.cardinality(), t.count());
+				Assert.assertEquals(elements, t.elements());
+				for(int j = 0; j < n; j++)
+					Assert.assertEquals(expected.get(j), t.contains(j));
+				if(n <= 64)
+					Assert.assertEquals(expected.isEmpty() ? 0 : expected.toLongArray()[0], t.mask());
+			}
+			Assert.assertEquals(new ArrayList<Integer>(all), keys);
+		}
+	}
+	
+	@Test
+	public void testMask() {
+		List<Iterable<Integer>> inputs = new ArrayList<Iterable<Integer>>();
+		inputs.add(Arrays.asList(1, 2));
+		inputs.add(Arrays.asList(2, 2, 3));
+		inputs.add(Arrays.asList(3));
+		List<String> out = new ArrayList<String>();
+		for(Tagged<Integer> t : Scanerator.anyTagged(inputs))
+			out.add(t.key() + ":" + t.mask() + ":" + t.elements().size());
+		Assert.assertEquals(Arrays.asList("1:1:1", "2:3:3", "3:6:2"), out);
+	}
+	
+	@Test
+	public void testClosing() {
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(1, 2, 3);
+		List<Iterable<Integer>> inputs = new ArrayList<Iterable<Integer>>();
+		inputs.add(a);
+		inputs.add(b);
+		CloseableOrderedIterator<Tagged<Integer>> itr = Scanerator.open(Scanerator.anyTagged(inputs));
+		Assert.assertEquals(3L, itr.next().mask());
+		Assert.assertFalse(a.isOpen());
+		Assert.assertTrue(b.isOpen());
+		itr.close();
+		Assert.assertFalse(itr.hasNext());
+		Assert.assertFalse(b.isOpen());
+	}
+}
@@ -0,0 +1,62 @@
+package org.scanerator;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Test source that records how many times it was opened and closed,
+ * and how many elements were pulled from it, much like an HBase
+ * {@code ResultScanner} holding a server-side lease.
+ */
+public class TrackingIterable<T> implements Iterable<T>, Closeable {
+	private final List<T> elements;
+	public int opened;
+	public int closed;
+	public int pulled;
+	
+	@SafeVarargs
+	public TrackingIterable(T... elements) {
+		this.elements = new ArrayList<T>(elements.length);
+		for(T e : elements) // copied rather than wrapped, so the array can't be retained
+			this.elements.add(e);
+	}
+	
+	public boolean isOpen() {
+		return opened > closed;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		opened++;
+		final Iterator<T> itr = elements.iterator();
+		return new Iterator<T>() {
+			@Override
+			public boolean hasNext() {
+				return itr.hasNext();
+			}
+
+			@Override
+			public T next() {
+				pulled++;
+				return itr.next();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Override
+	public void close() {
+		closed++;
+	}
+	
+	@Override
+	public String toString() {
+		return elements.toString();
+	}
+}
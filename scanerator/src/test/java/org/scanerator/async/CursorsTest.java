@@ -0,0 +1,147 @@
+package org.scanerator.async;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Comparators;
+import org.scanerator.RandomSorted;
+import org.scanerator.Scanerator;
+import org.scanerator.TrackingIterable;
+import org.scanerator.list.Lists;
+
+public class CursorsTest {
+	private static final java.util.Comparator<Integer> cmp = Comparators.naturalOrder();
+	
+	private static <T> List<T> get(AsyncOrderedCursor<T> cursor) throws Exception {
+		return Cursors.toList(cursor).toCompletableFuture().get(10, TimeUnit.SECONDS);
+	}
+	
+	@Test
+	public void testDifferential() throws Exception {
+		Random r = new Random(7);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for(int i = 0; i < 500; i++) {
+				List<Integer> a = RandomSorted.ints(r, r.nextInt(300), 150);
+				List<Integer> b = RandomSorted.ints(r, r.nextInt(300), 150);
+				int batch = 1 + r.nextInt(40);
+				AsyncOrderedCursor<Integer> ca = new IterableCursor<Integer>(a, executor, batch);
+				AsyncOrderedCursor<Integer> cb = new IterableCursor<Integer>(b, executor, 1 + r.nextInt(40));
+				int op = 1 + i % 4;
+				AsyncOrderedCursor<Integer> c = op == MergeCursor.DEDUP
+						? new MergeCursor<Integer>(cmp, op, new MergeCursor<Integer>(cmp, MergeCursor.ANY, ca, cb, batch), null, batch)
+						: new MergeCursor<Integer>(cmp, op, ca, cb, batch);
+				Iterable<Integer> expected = op == MergeCursor.ALL ? Scanerator.all(a, b)
+						: op == MergeCursor.ANY ? Scanerator.any(a, b)
+						: op == MergeCursor.NOT ? Scanerator.not(a, b)
+						: Scanerator.dedup(Scanerator.any(a, b));
+				Assert.assertEquals(Lists.toList(expected), get(c));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testClosesSources() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3, 4);
+			TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 4, 6, 8, 10);
+			Assert.assertEquals(java.util.Arrays.asList(2, 4), get(Cursors.all(cmp, Cursors.from(a, executor), Cursors.from(b, executor))));
+			executor.submit(new Runnable() { public void run() {} }).get(); // let the fetches finish
+			Assert.assertFalse(a.isOpen() || b.isOpen());
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testFinishDoesNotWaitForSlowInput() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		final CountDownLatch opened = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch closed = new CountDownLatch(1);
+		try {
+			// a scan blocked waiting on the server, which is only closed once it returns
+			class Slow implements Iterable<Integer>, java.io.Closeable {
+				@Override
+				public java.util.Iterator<Integer> iterator() {
+					opened.countDown();
+					return new java.util.Iterator<Integer>() {
+						@Override
+						public boolean hasNext() {
+							try {
+								release.await();
+							} catch(InterruptedException e) {
+								throw new IllegalStateException(e);
+							}
+							return true;
+						}
+
+						@Override
+						public Integer next() {
+							return 1;
+						}
+					};
+				}
+
+				@Override
+				public void close() {
+					closed.countDown();
+				}
+			}
+			// an empty lhs that ends the intersection once the slow scan is under way
+			Iterable<Integer> empty = new Iterable<Integer>() {
+				@Override
+				public java.util.Iterator<Integer> iterator() {
+					try {
+						opened.await();
+					} catch(InterruptedException e) {
+						throw new IllegalStateException(e);
+					}
+					return Collections.<Integer>emptyList().iterator();
+				}
+			};
+			AsyncOrderedCursor<Integer> c = Cursors.all(cmp, Cursors.from(empty, executor), Cursors.from(new Slow(), executor));
+			Batch<Integer> b = c.next().toCompletableFuture().get(10, TimeUnit.SECONDS);
+			Assert.assertTrue(b.isLast());
+			Assert.assertTrue(b.elements().isEmpty());
+			Assert.assertEquals(1, closed.getCount());
+			release.countDown();
+			Assert.assertTrue(closed.await(10, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testFailure() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Iterable<Integer> failing = new Iterable<Integer>() {
+				@Override
+				public java.util.Iterator<Integer> iterator() {
+					throw new IllegalStateException("scan failed");
+				}
+			};
+			try {
+				get(Cursors.any(cmp, Cursors.from(java.util.Arrays.asList(1, 2), executor), Cursors.from(failing, executor)));
+				Assert.fail();
+			} catch(ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package org.scanerator.bitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.Scanerator;
+import org.scanerator.list.Lists;
+
+public class BitmapTest {
+	private static TreeSet<Integer> randomSet(Random r, int n, int range) {
+		TreeSet<Integer> s = new TreeSet<Integer>();
+		for(int i = 0; i < n; i++)
+			s.add(r.nextInt(range) - range / 4);
+		return s;
+	}
+	
+	@Test
+	public void testOrder() {
+		IntBitmap b = Scanerator.materializeBitmap(Arrays.asList(5, -3, 70000, Integer.MIN_VALUE, 5, Integer.MAX_VALUE));
+		Assert.assertEquals(Arrays.asList(Integer.MIN_VALUE, -3, 5, 70000, Integer.MAX_VALUE), Lists.toList(b));
+		Assert.assertEquals(5, b.cardinality());
+		Assert.assertTrue(b.contains(70000));
+		Assert.assertFalse(b.contains(70001));
+		
+		LongBitmap l = Scanerator.materializeLongBitmap(Arrays.asList(1L << 40, -1L, Long.MIN_VALUE, 0L));
+		Assert.assertEquals(Arrays.asList(Long.MIN_VALUE, -1L, 0L, 1L << 40), Lists.toList(l));
+	}
+	
+	@Test
+	public void testSetOperations() {
+		Random r = new Random(42);
+		// mix of sparse (array) and dense (bitmap) containers
+		for(int range : new int[] { 1 << 12, 1 << 18, 1 << 24 }) {
+			TreeSet<Integer> a = randomSet(r, 50000, range);
+			TreeSet<Integer> b = randomSet(r, 50000, range);
+			IntBitmap ba = Scanerator.materializeBitmap(a);
+			IntBitmap bb = Scanerator.materializeBitmap(b);
+			
+			TreeSet<Integer> and = new TreeSet<Integer>(a);
+			and.retainAll(b);
+			TreeSet<Integer> or = new TreeSet<Integer>(a);
+			or.addAll(b);
+			TreeSet<Integer> andNot = new TreeSet<Integer>(a);
+			andNot.removeAll(b);
+			
+			Assert.assertEquals(new ArrayList<Integer>(a), Lists.toList(ba));
+			Assert.assertEquals(new ArrayList<Integer>(and), Lists.toList(ba.and(bb)));
+			Assert.assertEquals(new ArrayList<Integer>(or), Lists.toList(ba.or(bb)));
+			Assert.assertEquals(new ArrayList<Integer>(andNot), Lists.toList(ba.andNot(bb)));
+			Assert.assertEquals(or.size(), ba.or(bb).cardinality());
+		}
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testOperatorsUseBitmaps() {
+		IntBitmap mul2 = new IntBitmap();
+		IntBitmap mul3 = new IntBitmap();
+		for(int i = 0; i < 100; i++) {
+			mul2.add(2 * i);
+			mul3.add(3 * i);
+		}
+		Assert.assertTrue(Scanerator.all(Arrays.<Iterable<Integer>>asList(mul2, mul3, mul2)) instanceof IntBitmap);
+		Assert.assertTrue(Scanerator.not(mul2, mul3) instanceof IntBitmap);
+		Assert.assertTrue(Scanerator.dedup(Scanerator.any(mul2, mul3)) instanceof IntBitmap);
+		
+		ExpressionRoot<Integer> root = Scanerator.<Integer>withNaturalOrder().order(org.scanerator.Expression.OrderChecking.CHECKED_THROWING);
+		List<Integer> expected = Lists.toList(Scanerator.all(
+				new ArrayList<Integer>(Lists.toList(mul2)),
+				new ArrayList<Integer>(Lists.toList(mul3))));
+		Assert.assertEquals(expected, Lists.toList(root.express(mul2).and(root.express(mul3))));
+		Assert.assertEquals(
+				Lists.toList(Scanerator.dedup(Scanerator.any(mul2, mul3))),
+				Lists.toList(root.express(mul2).or(mul3).dedup()));
+	}
+}
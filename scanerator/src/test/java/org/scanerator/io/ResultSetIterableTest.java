@@ -0,0 +1,107 @@
+package org.scanerator.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Comparators;
+import org.scanerator.Scanerator;
+import org.scanerator.list.Lists;
+
+public class ResultSetIterableTest {
+	private static <T> byte[] write(ResultSetCodec<T> codec, Iterable<T> keys, int blockKeys) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ResultSetWriter<T> w = new ResultSetWriter<T>(bytes, codec, blockKeys);
+		w.addAll(keys);
+		w.close();
+		return bytes.toByteArray();
+	}
+	
+	@Test
+	public void testBytes() throws IOException {
+		Random r = new Random(10);
+		List<byte[]> keys = SortedFileIterableTest.randomKeys(r, 5000);
+		byte[] rs = write(ResultSetCodec.BYTES, keys, 100);
+		ResultSetIterable<byte[]> itr = new ResultSetIterable<byte[]>(rs, ResultSetCodec.BYTES);
+		Assert.assertEquals(SortedFileIterableTest.strings(keys), SortedFileIterableTest.strings(itr));
+		Assert.assertEquals(SortedFileIterableTest.strings(Scanerator.all(Comparators.BYTES, keys, itr)), SortedFileIterableTest.strings(keys));
+	}
+	
+	@Test
+	public void testLongsAndIntegers() throws IOException {
+		Random r = new Random(11);
+		List<Long> longs = new ArrayList<Long>(Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L));
+		List<Integer> ints = new ArrayList<Integer>(Arrays.asList(Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1));
+		for(int i = 0; i < 10000; i++) {
+			longs.add(r.nextLong() >> r.nextInt(64));
+			ints.add(r.nextInt() >> r.nextInt(32));
+		}
+		Collections.sort(longs);
+		Collections.sort(ints);
+		Assert.assertEquals(longs, Lists.toList(new ResultSetIterable<Long>(write(ResultSetCodec.LONGS, longs, 333), ResultSetCodec.LONGS)));
+		Assert.assertEquals(ints, Lists.toList(new ResultSetIterable<Integer>(write(ResultSetCodec.INTEGERS, ints, 1000), ResultSetCodec.INTEGERS)));
+	}
+	
+	@Test
+	public void testCompact() throws IOException {
+		List<Long> ids = new ArrayList<Long>();
+		for(long i = 0; i < 100000; i++)
+			ids.add(1000000000L + i * 3);
+		ByteArrayOutputStream java = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(java);
+		out.writeObject(ids);
+		out.close();
+		byte[] rs = write(ResultSetCodec.LONGS, ids, ResultSetWriter.DEFAULT_BLOCK_KEYS);
+		Assert.assertTrue(rs.length * 5 < java.size());
+	}
+	
+	@Test
+	public void testChecksum() throws IOException {
+		byte[] rs = write(ResultSetCodec.INTEGERS, Arrays.asList(1, 2, 3, 4, 5, 6), 3);
+		rs[rs.length - 6] ^= 1; // in the payload of the last block
+		ResultSetIterable<Integer> itr = new ResultSetIterable<Integer>(rs, ResultSetCodec.INTEGERS);
+		try {
+			Lists.toList(itr).size();
+			Assert.fail();
+		} catch(IllegalStateException e) {
+			Assert.assertTrue(e.getMessage().contains("Checksum"));
+		}
+	}
+	
+	private static <T> void assertCorrupt(byte[] rs, ResultSetCodec<T> codec, String message) {
+		try {
+			Lists.toList(new ResultSetIterable<T>(rs, codec)).size();
+			Assert.fail();
+		} catch(IllegalStateException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains(message));
+		}
+	}
+	
+	@Test
+	public void testCorruptBlockHeader() throws IOException {
+		// the key count and length of the first block are bytes 5 and 6, outside its checksum
+		byte[] rs = write(ResultSetCodec.INTEGERS, Arrays.asList(1, 2, 3, 4, 5, 6), 3);
+		byte[] length = rs.clone();
+		length[6] = 0x7f; // longer than the result set
+		assertCorrupt(length, ResultSetCodec.INTEGERS, "Corrupt header");
+		byte[] count = rs.clone();
+		count[5] = 5; // more keys than bytes
+		assertCorrupt(count, ResultSetCodec.INTEGERS, "Corrupt header");
+		// two bytes a key, so a count one too high still fits the length
+		byte[] fewer = write(ResultSetCodec.LONGS, Arrays.asList(1000L, 2000L, 3000L), 3);
+		fewer[5] = 4;
+		assertCorrupt(fewer, ResultSetCodec.LONGS, "fewer keys");
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testAscendingOrderRequired() throws IOException {
+		write(ResultSetCodec.INTEGERS, Arrays.asList(2, 1), 3);
+	}
+}
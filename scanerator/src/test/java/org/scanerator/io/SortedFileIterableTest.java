@@ -0,0 +1,112 @@
+package org.scanerator.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.scanerator.Comparators;
+import org.scanerator.Scanerator;
+
+public class SortedFileIterableTest {
+	private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Random keys sharing prefixes, as row keys do
+	 */
+	static List<byte[]> randomKeys(Random r, int n) {
+		List<byte[]> keys = new ArrayList<byte[]>();
+		for(int i = 0; i < n; i++) {
+			byte[] k = new byte[2 + r.nextInt(12)];
+			r.nextBytes(k);
+			k[0] = (byte) r.nextInt(3);
+			keys.add(k);
+		}
+		Collections.sort(keys, Comparators.BYTES);
+		return keys;
+	}
+	
+	static List<String> strings(Iterable<byte[]> itr) {
+		List<String> list = new ArrayList<String>();
+		for(byte[] k : itr)
+			list.add(new String(k, LATIN1));
+		return list;
+	}
+	
+	private File write(List<byte[]> keys, int blockSize) throws IOException {
+		File f = folder.newFile();
+		SortedFileWriter w = new SortedFileWriter(new FileOutputStream(f), blockSize);
+		for(byte[] k : keys)
+			w.add(k);
+		w.close();
+		return f;
+	}
+	
+	@Test
+	public void testRoundTrip() throws IOException {
+		Random r = new Random(8);
+		for(int n : new int[] {0, 1, 10, 5000}) {
+			List<byte[]> keys = randomKeys(r, n);
+			keys.addAll(keys.subList(0, n / 2)); // duplicates
+			Collections.sort(keys, Comparators.BYTES);
+			SortedFileIterable file = new SortedFileIterable(write(keys, 64));
+			Assert.assertEquals(strings(keys), strings(file));
+			Assert.assertEquals(strings(keys), strings(file)); // iterable more than once
+			file.close();
+		}
+	}
+	
+	@Test
+	public void testRange() throws IOException {
+		Random r = new Random(9);
+		List<byte[]> keys = randomKeys(r, 3000);
+		keys.addAll(keys.subList(0, 1000));
+		Collections.sort(keys, Comparators.BYTES);
+		SortedFileIterable file = new SortedFileIterable(write(keys, 100));
+		Assert.assertTrue(file.blocks() > 50);
+		for(int i = 0; i < 200; i++) {
+			byte[] from = r.nextInt(4) == 0 ? keys.get(r.nextInt(keys.size())) : randomKeys(r, 1).get(0);
+			byte[] to = r.nextInt(4) == 0 ? null : randomKeys(r, 1).get(0);
+			List<byte[]> expected = new ArrayList<byte[]>();
+			for(byte[] k : keys)
+				if(Comparators.BYTES.compare(k, from) >= 0 && (to == null || Comparators.BYTES.compare(k, to) < 0))
+					expected.add(k);
+			Assert.assertEquals(strings(expected), strings(file.range(from, to)));
+			Assert.assertEquals(strings(expected), strings(Scanerator.range(Comparators.BYTES, Scanerator.all(Comparators.BYTES, file, file), from, to)));
+		}
+		file.close();
+	}
+	
+	@Test
+	public void testAscendingOrderRequired() throws IOException {
+		SortedFileWriter w = new SortedFileWriter(new FileOutputStream(folder.newFile()), 64);
+		w.add(new byte[] {2});
+		try {
+			w.add(new byte[] {1});
+			Assert.fail();
+		} catch(IllegalArgumentException e) {
+			// expected
+		}
+		w.close();
+	}
+	
+	@Test(expected = IOException.class)
+	public void testNotASortedFile() throws IOException {
+		File f = folder.newFile();
+		FileOutputStream out = new FileOutputStream(f);
+		out.write(new byte[100]);
+		out.close();
+		new SortedFileIterable(f);
+	}
+}
@@ -0,0 +1,196 @@
+package org.scanerator.list;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentIteratorListTest {
+	/**
+	 * {@link Iterator} over {@code 0 .. n-1} which fails if used by two threads at once
+	 */
+	private static class SingleThreadedIterator implements Iterator<Integer> {
+		private final int n;
+		private final AtomicBoolean busy = new AtomicBoolean();
+		private final AtomicInteger pulled = new AtomicInteger();
+		
+		private SingleThreadedIterator(int n) {
+			this.n = n;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return pulled.get() < n;
+		}
+
+		@Override
+		public Integer next() {
+			if(!busy.compareAndSet(false, true))
+				throw new IllegalStateException("concurrent use");
+			try {
+				if(pulled.get() % 64 == 0)
+					Thread.yield();
+				return pulled.getAndIncrement();
+			} finally {
+				busy.set(false);
+			}
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+	
+	@Test
+	public void testLazy() {
+		SingleThreadedIterator itr = new SingleThreadedIterator(1000);
+		List<Integer> list = new ConcurrentIteratorList<Integer>(itr);
+		Assert.assertFalse(list.isEmpty());
+		Assert.assertEquals(300, (int) list.get(300));
+		Assert.assertEquals(301, itr.pulled.get());
+		Assert.assertEquals(100, list.subList(100, 200).size());
+		Assert.assertEquals(301, itr.pulled.get());
+		Assert.assertEquals(1000, list.size());
+		try {
+			list.get(1000);
+			Assert.fail();
+		} catch(IndexOutOfBoundsException expected) {
+		}
+		Assert.assertTrue(Lists.toConcurrentList(new ArrayList<Integer>()).isEmpty());
+	}
+	
+	@Test
+	public void testConcurrentReaders() throws Exception {
+		final int n = 50000;
+		for(int round = 0; round < 5; round++) {
+			final SingleThreadedIterator itr = new SingleThreadedIterator(n);
+			final List<Integer> list = new ConcurrentIteratorList<Integer>(itr);
+			final CountDownLatch start = new CountDownLatch(1);
+			final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+			List<Thread> threads = new ArrayList<Thread>();
+			for(int t = 0; t < 8; t++) {
+				final int seed = t;
+				Thread thread = new Thread() {
+					@Override
+					public void run() {
+						try {
+							start.await();
+							Random r = new Random(seed);
+							if(seed % 2 == 0) { // sequential reader
+								int i = 0;
+								for(Integer e : list)
+									Assert.assertEquals(i++, (int) e);
+								Assert.assertEquals(n, i);
+							} else { // random reader, mostly ahead of the producer
+								for(int i = 0; i < 2000; i++) {
+									int idx = r.nextInt(n);
+									Assert.assertEquals(idx, (int) list.get(idx));
+								}
+							}
+						} catch(Throwable e) {
+							error.compareAndSet(null, e);
+						}
+					}
+				};
+				threads.add(thread);
+				thread.start();
+			}
+			start.countDown();
+			for(Thread t : threads)
+				t.join();
+			if(error.get() != null)
+				throw new AssertionError(error.get());
+			Assert.assertEquals(n, itr.pulled.get()); // each element retrieved exactly once
+			Assert.assertEquals(n, list.size());
+		}
+	}
+	
+	@Test
+	public void testInterrupted() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		Iterator<Integer> itr = new Iterator<Integer>() {
+			@Override
+			public boolean hasNext() {
+				try {
+					release.await(); // a slow scan
+				} catch(InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+				return true;
+			}
+
+			@Override
+			public Integer next() {
+				return 1;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+		final ConcurrentIteratorList<Integer> list = new ConcurrentIteratorList<Integer>(itr);
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				list.get(0);
+			}
+		};
+		producer.start();
+		while(!list.producing.get())
+			Thread.yield();
+		Thread.currentThread().interrupt();
+		try {
+			list.get(0);
+			Assert.fail();
+		} catch(IllegalStateException expected) {
+		} finally {
+			Assert.assertTrue(Thread.interrupted()); // still set, and cleared for the next test
+			release.countDown();
+		}
+		producer.join();
+		Assert.assertEquals(1, (int) list.get(0));
+	}
+	
+	@Test
+	public void testFailure() {
+		Iterator<Integer> itr = new Iterator<Integer>() {
+			private int i;
+			
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+
+			@Override
+			public Integer next() {
+				if(i == 3)
+					throw new IllegalStateException("scanner lease expired");
+				return i++;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+		List<Integer> list = new ConcurrentIteratorList<Integer>(itr);
+		Assert.assertEquals(2, (int) list.get(2));
+		for(int i = 0; i < 2; i++) {
+			try {
+				list.get(5);
+				Assert.fail();
+			} catch(IllegalStateException expected) {
+			}
+		}
+		Assert.assertEquals(1, (int) list.get(1));
+	}
+}
@@ -0,0 +1,64 @@
+package org.scanerator.list;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Comparators;
+import org.scanerator.TrackingIterable;
+
+public class OrderedIteratorListTest {
+	@Test
+	public void testDifferential() {
+		Random r = new Random(49);
+		for(int i = 0; i < 500; i++) {
+			List<Integer> sorted = new ArrayList<Integer>();
+			int n = r.nextInt(200);
+			for(int j = 0; j < n; j++)
+				sorted.add(r.nextInt(100));
+			Collections.sort(sorted);
+			OrderedIteratorList<Integer> list = Lists.toOrderedList(sorted, Comparators.<Integer>naturalOrder());
+			for(int j = 0; j < 20; j++) {
+				int key = r.nextInt(110) - 5;
+				int first = sorted.indexOf(key);
+				Integer floor = null, ceiling = null;
+				for(Integer e : sorted) {
+					if(e <= key)
+						floor = e;
+					if(e >= key && ceiling == null)
+						ceiling = e;
+				}
+				Assert.assertEquals(first, list.indexOfKey(key));
+				Assert.assertEquals(first >= 0, list.containsKey(key));
+				Assert.assertEquals(floor, list.floor(key));
+				Assert.assertEquals(ceiling, list.ceiling(key));
+				int hi = key + r.nextInt(20);
+				List<Integer> expected = new ArrayList<Integer>();
+				for(Integer e : sorted)
+					if(e >= key && e < hi)
+						expected.add(e);
+				Assert.assertEquals(expected, list.subListByKey(key, hi));
+			}
+		}
+	}
+	
+	@Test
+	public void testPullsOnlyUpToKey() {
+		TrackingIterable<Integer> source = new TrackingIterable<Integer>(1, 3, 5, 7, 9, 11, 13);
+		OrderedIteratorList<Integer> list = Lists.toOrderedList(source, Comparators.<Integer>naturalOrder());
+		Assert.assertEquals(2, list.indexOfKey(5));
+		Assert.assertEquals(3, source.pulled);
+		Assert.assertEquals(3, (int) list.floor(4));
+		Assert.assertEquals(3, source.pulled); // answered from the cache
+		Assert.assertEquals(7, (int) list.ceiling(6));
+		Assert.assertEquals(4, source.pulled);
+		Assert.assertEquals(Arrays.asList(9, 11), list.subListByKey(8, 12));
+		Assert.assertEquals(7, source.pulled); // 13 ends the sub-list
+		Assert.assertNull(list.ceiling(14));
+		Assert.assertEquals(Collections.emptyList(), list.subListByKey(14, null));
+	}
+}
@@ -0,0 +1,69 @@
+package org.scanerator.posting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.Scanerator;
+
+/**
+ * Compares the memory footprint and intersection speed of {@link PostingList}s
+ * with {@link ArrayList}s of {@link Long}s:
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes org.scanerator.posting.PostingListBenchmark
+ * </pre>
+ */
+public class PostingListBenchmark {
+	private static final int SIZE = 1 << 20;
+	private static final int ROUNDS = 20;
+	
+	public static void main(String[] args) {
+		Random r = new Random(3);
+		ExpressionRoot<Long> root = Scanerator.withNaturalOrder();
+		// gap is the mean distance between consecutive ids
+		for(int gap : new int[] { 2, 64, 4096 }) {
+			List<Long> a = PostingListTest.randomIds(r, SIZE, (long) SIZE * gap);
+			List<Long> b = PostingListTest.randomIds(r, SIZE / 256, (long) SIZE * gap);
+			
+			long before = used();
+			List<Long> list = new ArrayList<Long>(PostingListTest.randomIds(r, SIZE, (long) SIZE * gap));
+			long listBytes = used() - before;
+			before = used();
+			PostingList postings = PostingListBuilder.of(list);
+			long postingBytes = used() - before;
+			
+			PostingList pa = PostingListBuilder.of(a);
+			PostingList pb = PostingListBuilder.of(b);
+			for(int warm = 0; warm < 3; warm++) {
+				long sl = 0, sp = 0;
+				long t0 = System.nanoTime();
+				for(int i = 0; i < ROUNDS; i++)
+					sl += Scanerator.count(root.express(a).and(b).compile());
+				long t1 = System.nanoTime();
+				for(int i = 0; i < ROUNDS; i++)
+					sp += Scanerator.count(root.express(pa).and(pb).compile());
+				long t2 = System.nanoTime();
+				if(sl != sp)
+					throw new IllegalStateException("results differ");
+				if(warm == 2) {
+					System.out.println("gap " + gap + ":"
+							+ " ArrayList " + listBytes / SIZE + " bytes/id"
+							+ ", PostingList " + postings.sizeInBytes() * 100 / SIZE / 100.0 + " bytes/id"
+							+ " (measured " + postingBytes / SIZE + ")"
+							+ ", skewed intersect " + (t1 - t0) / (t2 - t1 + 1) + "x faster");
+				}
+			}
+			if(list.size() != postings.size())
+				throw new IllegalStateException();
+		}
+	}
+	
+	private static long used() {
+		Runtime rt = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}
@@ -0,0 +1,139 @@
+package org.scanerator.posting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.CloseableOrderedIterator;
+import org.scanerator.Expression.ExpressionRoot;
+import org.scanerator.Scanerator;
+import org.scanerator.SkippingIterator;
+import org.scanerator.list.Lists;
+
+public class PostingListTest {
+	static List<Long> randomIds(Random r, int n, long range) {
+		List<Long> ids = new ArrayList<Long>();
+		for(int i = 0; i < n; i++)
+			ids.add((long) (r.nextDouble() * range) - range / 4);
+		Collections.sort(ids);
+		return ids;
+	}
+	
+	@Test
+	public void testRoundTrip() {
+		Random r = new Random(40);
+		for(long range : new long[] { 10, 1000, 1L << 40, Long.MAX_VALUE }) {
+			for(int n : new int[] { 0, 1, 127, 128, 129, 1000 }) {
+				List<Long> ids = randomIds(r, n, range);
+				PostingList p = PostingListBuilder.of(ids);
+				Assert.assertEquals(ids, Lists.toList(p));
+				Assert.assertEquals(n, p.size());
+			}
+		}
+		List<Long> extremes = Arrays.asList(Long.MIN_VALUE, -1L, 0L, 0L, Long.MAX_VALUE);
+		Assert.assertEquals(extremes, Lists.toList(PostingListBuilder.of(extremes)));
+	}
+	
+	@Test
+	public void testBuilder() {
+		PostingListBuilder b = new PostingListBuilder();
+		List<Long> ids = new ArrayList<Long>();
+		for(long i = 0; i < 300; i++) {
+			b.add(i * 3);
+			ids.add(i * 3);
+			if(i % 97 == 0) // building mid-block leaves the builder usable
+				Assert.assertEquals(ids, Lists.toList(b.build()));
+		}
+		Assert.assertEquals(ids, Lists.toList(b.build()));
+		try {
+			b.add(5);
+			Assert.fail();
+		} catch(IllegalArgumentException expected) {
+		}
+	}
+	
+	@Test
+	public void testAdvanceTo() {
+		Random r = new Random(41);
+		List<Long> ids = randomIds(r, 5000, 100000);
+		PostingList p = PostingListBuilder.of(ids);
+		for(int i = 0; i < 200; i++) {
+			SkippingIterator<Long> itr = (SkippingIterator<Long>) p.iterator();
+			long t = r.nextInt(100000) - 25000;
+			int skip = r.nextInt(3);
+			for(int j = 0; j < skip && itr.hasNext(); j++)
+				itr.next();
+			int k = Math.max(skip, lowerBound(ids, t));
+			itr.advanceTo(t);
+			List<Long> rest = new ArrayList<Long>();
+			while(itr.hasNext())
+				rest.add(itr.next());
+			Assert.assertEquals(ids.subList(Math.min(k, ids.size()), ids.size()), rest);
+		}
+	}
+	
+	private static int lowerBound(List<Long> ids, long t) {
+		int i = Collections.binarySearch(ids, t);
+		if(i < 0)
+			return -i - 1;
+		while(i > 0 && ids.get(i - 1) == t)
+			i--;
+		return i;
+	}
+	
+	@Test
+	public void testOperators() {
+		Random r = new Random(42);
+		ExpressionRoot<Long> root = Scanerator.withNaturalOrder();
+		for(int i = 0; i < 100; i++) {
+			List<Long> a = randomIds(r, r.nextInt(3000), 1 + r.nextInt(100000));
+			List<Long> b = randomIds(r, r.nextInt(50), 1 + r.nextInt(100000));
+			PostingList pa = PostingListBuilder.of(a);
+			PostingList pb = PostingListBuilder.of(b);
+			Assert.assertEquals(Lists.toList(root.express(a).and(b)), Lists.toList(root.express(pa).and(pb)));
+			Assert.assertEquals(Lists.toList(root.express(b).and(a)), Lists.toList(root.express(pb).and(pa)));
+			Assert.assertEquals(Lists.toList(root.express(a).not(b)), Lists.toList(root.express(pa).not(pb)));
+			Assert.assertEquals(Lists.toList(root.express(b).not(a)), Lists.toList(root.express(pb).not(pa)));
+		}
+	}
+	
+	@Test
+	public void testRange() {
+		Random r = new Random(43);
+		List<Long> ids = randomIds(r, 2000, 10000);
+		PostingList p = PostingListBuilder.of(ids);
+		for(int i = 0; i < 100; i++) {
+			long from = r.nextInt(12000) - 3000;
+			long to = from + r.nextInt(3000);
+			Assert.assertEquals(ids.subList(lowerBound(ids, from), lowerBound(ids, to)), Lists.toList(Scanerator.range(p, from, to)));
+		}
+	}
+	
+	@Test
+	public void testTrailingDuplicates() {
+		// a block of equal ids has no words, so a last one used to read past them
+		Assert.assertEquals(Arrays.asList(5L, 5L), Lists.toList(PostingListBuilder.of(Arrays.asList(5L, 5L))));
+		List<Long> ids = new ArrayList<Long>();
+		for(long i = 0; i < PostingList.BLOCK_SIZE; i++)
+			ids.add(i * 3);
+		for(int i = 0; i < PostingList.BLOCK_SIZE + 10; i++)
+			ids.add(1000L);
+		PostingList list = PostingListBuilder.of(ids);
+		Assert.assertEquals(ids, Lists.toList(list));
+		SkippingIterator<Long> itr = (SkippingIterator<Long>) list.iterator();
+		itr.advanceTo(999L);
+		Assert.assertEquals(1000L, (long) itr.next());
+	}
+	
+	@Test
+	public void testClose() {
+		CloseableOrderedIterator<Long> itr = PostingListBuilder.of(Arrays.asList(1L, 2L, 3L)).iterator();
+		Assert.assertEquals(1L, (long) itr.next());
+		itr.close();
+		Assert.assertFalse(itr.hasNext());
+	}
+}
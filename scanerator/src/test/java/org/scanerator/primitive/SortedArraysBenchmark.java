@@ -0,0 +1,63 @@
+package org.scanerator.primitive;
+
+import java.util.Random;
+
+/**
+ * Compares {@link SortedArrays} with {@link ScalarBlockKernels}.  Run on JDK 21+
+ * against the packaged JAR to measure the SIMD kernels:
+ * <pre>
+ * mvn package
+ * java --add-modules jdk.incubator.vector -cp target/scanerator-0.0.1-SNAPSHOT.jar:target/test-classes \
+ *     org.scanerator.primitive.SortedArraysBenchmark
+ * </pre>
+ */
+public class SortedArraysBenchmark {
+	private static final int SIZE = 1 << 16;
+	private static final int ROUNDS = 2000;
+	
+	public static void main(String[] args) {
+		Random r = new Random(3);
+		BlockKernels scalar = new ScalarBlockKernels();
+		System.out.println("implementation: " + SortedArrays.implementation());
+		// density is the fraction of the key range present in each input
+		for(int density : new int[] { 2, 8, 32 }) {
+			int[] a = SortedArraysTest.randomInts(r, SIZE, SIZE * density);
+			int[] b = SortedArraysTest.randomInts(r, SIZE, SIZE * density);
+			int[] out = new int[2 * SIZE];
+			for(int warm = 0; warm < 3; warm++) {
+				long sv = 0, ss = 0;
+				long t0 = System.nanoTime();
+				for(int i = 0; i < ROUNDS; i++)
+					sv += SortedArrays.intersect(a, SIZE, b, SIZE, out);
+				long t1 = System.nanoTime();
+				for(int i = 0; i < ROUNDS; i++)
+					ss += scalar.intersect(a, SIZE, b, SIZE, out);
+				long t2 = System.nanoTime();
+				for(int i = 0; i < ROUNDS; i++)
+					sv += SortedArrays.difference(a, SIZE, b, SIZE, out);
+				long t3 = System.nanoTime();
+				for(int i = 0; i < ROUNDS; i++)
+					ss += scalar.difference(a, SIZE, b, SIZE, out);
+				long t4 = System.nanoTime();
+				for(int i = 0; i < ROUNDS; i++)
+					sv += SortedArrays.union(a, SIZE, b, SIZE, out);
+				long t5 = System.nanoTime();
+				for(int i = 0; i < ROUNDS; i++)
+					ss += scalar.union(a, SIZE, b, SIZE, out);
+				long t6 = System.nanoTime();
+				if(sv != ss)
+					throw new IllegalStateException("results differ");
+				if(warm == 2) {
+					System.out.println("1/" + density + " density:"
+							+ " intersect " + ratio(t2 - t1, t1 - t0)
+							+ " difference " + ratio(t4 - t3, t3 - t2)
+							+ " union " + ratio(t6 - t5, t5 - t4));
+				}
+			}
+		}
+	}
+	
+	private static String ratio(long scalar, long kernels) {
+		return String.format("%.2fx", (double) scalar / kernels);
+	}
+}
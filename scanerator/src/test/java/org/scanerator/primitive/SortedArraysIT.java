@@ -0,0 +1,18 @@
+package org.scanerator.primitive;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Runs against the packaged multi-release JAR on JDK 21+, with
+ * {@code jdk.incubator.vector} added, so that the SIMD kernels are used.
+ */
+public class SortedArraysIT {
+	@Test
+	public void testVectorKernels() {
+		Assert.assertEquals("vector", SortedArrays.implementation());
+		SortedArraysTest.checkAll(new Random(11), 2000);
+	}
+}
@@ -0,0 +1,90 @@
+package org.scanerator.primitive;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SortedArraysTest {
+	static int[] randomInts(Random r, int n, int range) {
+		TreeSet<Integer> s = new TreeSet<Integer>();
+		while(s.size() < n)
+			s.add(r.nextInt(range) - range / 2);
+		int[] a = new int[n];
+		int i = 0;
+		for(int x : s)
+			a[i++] = x;
+		return a;
+	}
+	
+	static long[] toLongs(int[] a, long scale) {
+		long[] l = new long[a.length];
+		for(int i = 0; i < a.length; i++)
+			l[i] = a[i] * scale;
+		return l;
+	}
+	
+	/**
+	 * Check all operations of {@link SortedArrays} against {@link TreeSet}
+	 */
+	static void checkAll(Random r, int rounds) {
+		for(int round = 0; round < rounds; round++) {
+			int range = 1 + r.nextInt(4000);
+			int[] a = randomInts(r, r.nextInt(Math.min(range, 500)), range);
+			int[] b = randomInts(r, r.nextInt(Math.min(range, 500)), range);
+			TreeSet<Integer> and = new TreeSet<Integer>();
+			TreeSet<Integer> or = new TreeSet<Integer>();
+			TreeSet<Integer> andNot = new TreeSet<Integer>();
+			for(int x : a) {
+				or.add(x);
+				andNot.add(x);
+			}
+			for(int x : b) {
+				if(or.contains(x))
+					and.add(x);
+				or.add(x);
+				andNot.remove(x);
+			}
+			int[] out = new int[a.length + b.length];
+			Assert.assertArrayEquals(toArray(and), Arrays.copyOf(out, SortedArrays.intersect(a, a.length, b, b.length, out)));
+			Assert.assertArrayEquals(toArray(or), Arrays.copyOf(out, SortedArrays.union(a, a.length, b, b.length, out)));
+			Assert.assertArrayEquals(toArray(andNot), Arrays.copyOf(out, SortedArrays.difference(a, a.length, b, b.length, out)));
+			
+			long scale = 1L << 33;
+			long[] la = toLongs(a, scale), lb = toLongs(b, scale);
+			long[] lout = new long[a.length + b.length];
+			Assert.assertArrayEquals(toLongs(toArray(and), scale), Arrays.copyOf(lout, SortedArrays.intersect(la, la.length, lb, lb.length, lout)));
+			Assert.assertArrayEquals(toLongs(toArray(or), scale), Arrays.copyOf(lout, SortedArrays.union(la, la.length, lb, lb.length, lout)));
+			Assert.assertArrayEquals(toLongs(toArray(andNot), scale), Arrays.copyOf(lout, SortedArrays.difference(la, la.length, lb, lb.length, lout)));
+		}
+	}
+	
+	private static int[] toArray(TreeSet<Integer> s) {
+		int[] a = new int[s.size()];
+		int i = 0;
+		for(int x : s)
+			a[i++] = x;
+		return a;
+	}
+	
+	@Test
+	public void testOperations() {
+		checkAll(new Random(7), 500);
+	}
+	
+	@Test
+	public void testExactOutputSize() {
+		int[] a = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17 };
+		int[] out = new int[a.length];
+		Assert.assertEquals(a.length, SortedArrays.intersect(a, a.length, a, a.length, out));
+		Assert.assertArrayEquals(a, out);
+		try {
+			SortedArrays.union(a, a.length, a, a.length, out);
+			Assert.fail();
+		} catch(IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,238 @@
+package org.scanerator.reactive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.scanerator.Comparators;
+import org.scanerator.RandomSorted;
+import org.scanerator.Scanerator;
+import org.scanerator.TrackingIterable;
+import org.scanerator.list.Lists;
+
+public class PublishersTest {
+	private static final java.util.Comparator<Integer> cmp = Comparators.naturalOrder();
+	
+	/**
+	 * Subscriber that requests elements in random chunks as it receives them
+	 */
+	private static class Collector implements Subscriber<Integer> {
+		final List<Integer> items = Collections.synchronizedList(new ArrayList<Integer>());
+		final CountDownLatch terminated = new CountDownLatch(1);
+		final Random r;
+		volatile Throwable error;
+		Subscription subscription;
+		long outstanding;
+		
+		Collector(Random r) {
+			this.r = r;
+		}
+		
+		void request() {
+			long n = 1 + r.nextInt(5);
+			outstanding += n;
+			subscription.request(n);
+		}
+		
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.subscription = subscription;
+			request();
+		}
+
+		@Override
+		public void onNext(Integer item) {
+			Assert.assertTrue("more elements than requested", --outstanding >= 0);
+			items.add(item);
+			if(outstanding == 0)
+				request();
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			terminated.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			terminated.countDown();
+		}
+		
+		List<Integer> await() throws InterruptedException {
+			Assert.assertTrue(terminated.await(10, TimeUnit.SECONDS));
+			Assert.assertNull(error);
+			return items;
+		}
+	}
+	
+	@Test
+	public void testDifferential() throws Exception {
+		Random r = new Random(6);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for(int i = 0; i < 500; i++) {
+				List<Integer> a = RandomSorted.ints(r, r.nextInt(200), 100);
+				List<Integer> b = RandomSorted.ints(r, r.nextInt(200), 100);
+				Publisher<Integer> pa = r.nextBoolean() ? Publishers.from(a) : Publishers.from(a, executor);
+				Publisher<Integer> pb = r.nextBoolean() ? Publishers.from(b) : Publishers.from(b, executor);
+				Publisher<Integer> p;
+				Iterable<Integer> expected;
+				switch(i % 4) {
+				case 0:
+					p = Publishers.all(cmp, pa, pb);
+					expected = Scanerator.all(a, b);
+					break;
+				case 1:
+					p = Publishers.any(cmp, pa, pb);
+					expected = Scanerator.any(a, b);
+					break;
+				case 2:
+					p = Publishers.not(cmp, pa, pb);
+					expected = Scanerator.not(a, b);
+					break;
+				default:
+					p = Publishers.dedup(Publishers.any(cmp, pa, pb));
+					expected = Scanerator.dedup(Scanerator.any(a, b));
+				}
+				Collector c = new Collector(new Random(i));
+				p.subscribe(c);
+				Assert.assertEquals(Lists.toList(expected), c.await());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testBoundedUpstreamDemand() throws Exception {
+		final long[] requested = new long[1];
+		final List<Integer> big = new ArrayList<Integer>();
+		for(int i = 0; i < 100000; i++)
+			big.add(i);
+		final Publisher<Integer> source = Publishers.from(big);
+		Publisher<Integer> counting = new Publisher<Integer>() {
+			@Override
+			public void subscribe(final Subscriber<? super Integer> s) {
+				source.subscribe(new Subscriber<Integer>() {
+					@Override
+					public void onSubscribe(final Subscription sub) {
+						s.onSubscribe(new Subscription() {
+							@Override
+							public void request(long n) {
+								requested[0] += n;
+								sub.request(n);
+							}
+							@Override
+							public void cancel() {
+								sub.cancel();
+							}
+						});
+					}
+					@Override
+					public void onNext(Integer item) {
+						s.onNext(item);
+					}
+					@Override
+					public void onError(Throwable throwable) {
+						s.onError(throwable);
+					}
+					@Override
+					public void onComplete() {
+						s.onComplete();
+					}
+				});
+			}
+		};
+		final List<Integer> received = new ArrayList<Integer>();
+		final Subscription[] subscription = new Subscription[1];
+		Publishers.any(cmp, counting, Publishers.from(Collections.<Integer>emptyList())).subscribe(new Subscriber<Integer>() {
+			@Override
+			public void onSubscribe(Subscription s) {
+				subscription[0] = s;
+			}
+			@Override
+			public void onNext(Integer item) {
+				received.add(item);
+			}
+			@Override
+			public void onError(Throwable throwable) {
+				Assert.fail();
+			}
+			@Override
+			public void onComplete() {
+			}
+		});
+		Assert.assertEquals(0, requested[0]);
+		subscription[0].request(10);
+		Assert.assertEquals(10, received.size());
+		Assert.assertTrue(requested[0] <= 10 + MergePublisher.DEFAULT_PREFETCH);
+		subscription[0].cancel();
+	}
+	
+	@Test
+	public void testInvalidRequest() throws Exception {
+		Collector c = new Collector(new Random(0)) {
+			@Override
+			public void onSubscribe(Subscription subscription) {
+				subscription.request(0);
+			}
+		};
+		Publishers.any(cmp, Publishers.from(Collections.singletonList(1)), Publishers.from(Collections.singletonList(2))).subscribe(c);
+		Assert.assertTrue(c.terminated.await(1, TimeUnit.SECONDS));
+		Assert.assertTrue(c.error instanceof IllegalArgumentException);
+	}
+	
+	private static Publisher<Integer> failing(final RuntimeException ex) {
+		return new Publisher<Integer>() {
+			@Override
+			public void subscribe(Subscriber<? super Integer> s) {
+				s.onSubscribe(new Subscription() {
+					@Override
+					public void request(long n) {
+					}
+					@Override
+					public void cancel() {
+					}
+				});
+				s.onError(ex);
+			}
+		};
+	}
+	
+	@Test
+	public void testFirstErrorWins() throws Exception {
+		RuntimeException first = new RuntimeException("first"), second = new RuntimeException("second");
+		Collector c = new Collector(new Random(0));
+		Publishers.any(cmp, failing(first), failing(second)).subscribe(c);
+		Assert.assertTrue(c.terminated.await(1, TimeUnit.SECONDS));
+		Assert.assertSame(first, c.error);
+	}
+	
+	@Test
+	public void testDownstreamFailure() throws Exception {
+		final RuntimeException ex = new IllegalStateException();
+		TrackingIterable<Integer> a = new TrackingIterable<Integer>(1, 2, 3);
+		TrackingIterable<Integer> b = new TrackingIterable<Integer>(2, 4);
+		final List<Integer> received = new ArrayList<Integer>();
+		Collector c = new Collector(new Random(0)) {
+			@Override
+			public void onNext(Integer item) {
+				received.add(item);
+				throw ex;
+			}
+		};
+		Publishers.any(cmp, Publishers.from(a), Publishers.from(b)).subscribe(c);
+		Assert.assertTrue(c.terminated.await(1, TimeUnit.SECONDS));
+		Assert.assertSame(ex, c.error);
+		Assert.assertEquals(Collections.singletonList(1), received);
+		Assert.assertFalse(a.isOpen() || b.isOpen());
+	}
+}